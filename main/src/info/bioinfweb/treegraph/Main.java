@@ -22,8 +22,8 @@ package info.bioinfweb.treegraph;
 import java.awt.AlphaComposite;
 import java.awt.Color;
 import java.awt.Dimension;
-import java.awt.Font;
 import java.awt.FontMetrics;
+import java.awt.GraphicsEnvironment;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.SplashScreen;
@@ -54,8 +54,6 @@ public class Main extends ProgramMainClass {
 	public static final String LATEST_VERSION_URL = TG_URL + "UpdateCenter/App/VersionList.jsp";
 	public static final String DOWNLOAD_URL = TG_URL + "UpdateCenter/App/DownloadPage.jsp"; 
 	
-	public static final Font SPLASH_SCREEN_FONT = new Font(Font.DIALOG, Font.PLAIN, 12); 
-	public static final Color SPLASH_SCREEN_FONT_COLOR = Color.BLACK; 
 	public static final int SPLASH_SCREEN_BORDER = 4;
 	
 	
@@ -74,7 +72,7 @@ public class Main extends ProgramMainClass {
 	}
 	
 	
-	public static Main getInstance() {
+	public static synchronized Main getInstance() {
 		if (firstInstance == null) {
 			firstInstance = new Main();
 		}
@@ -134,7 +132,9 @@ public class Main extends ProgramMainClass {
 		System.setProperty("com.apple.mrj.application.apple.menu.about.name", "TreeGraph 2");  // Does not work.
 		System.setProperty("apple.laf.useScreenMenuBar", "true");
 		
-		customizeSpashScreen();
+		if (!GraphicsEnvironment.isHeadless()) {
+			customizeSpashScreen();
+		}
 		cmdProcessor.process(new CommandLineReader(args));
 	}
 	
@@ -144,6 +144,9 @@ public class Main extends ProgramMainClass {
 	 * @param args - the command line parameters
 	 */
 	public static void main(String[] args) {
+		if (CmdProcessor.isHeadless(new CommandLineReader(args))) {
+			System.setProperty("java.awt.headless", "true");  // Must be set before any AWT class is loaded.
+		}
 		getInstance().startApplication(args);
 	}
 }
\ No newline at end of file
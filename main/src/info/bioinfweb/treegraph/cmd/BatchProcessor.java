@@ -0,0 +1,482 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.cmd;
+
+
+import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.document.io.DocumentReader;
+import info.bioinfweb.treegraph.document.io.ReadWriteFactory;
+import info.bioinfweb.treegraph.document.io.ReadWriteFormat;
+import info.bioinfweb.treegraph.graphics.export.GraphicFormat;
+import info.bioinfweb.treegraph.graphics.export.GraphicWriterFactory;
+import info.bioinfweb.treegraph.graphics.export.png.TiledPNGWriter;
+import info.bioinfweb.treegraph.graphics.positionpaint.PositionPaintFactory;
+import info.bioinfweb.treegraph.graphics.positionpaint.PositionPaintType;
+import info.bioinfweb.commons.CommandLineReader;
+import info.bioinfweb.commons.collections.ParameterMap;
+import info.bioinfweb.commons.log.AbstractApplicationLogger;
+import info.bioinfweb.commons.log.ApplicationLoggerMessage;
+import info.bioinfweb.commons.log.ApplicationLoggerMessageType;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+
+/**
+ * Converts a set of files to another tree format or to graphics in one run of the application. The files are
+ * read, positioned and written by a pool of worker threads. The time needed for each file and possible errors 
+ * are reported on the command line, and a failing file does not stop the processing of the others.
+ * <p>
+ * The command line arguments are 
+ * <code>-batch &lt;input&gt; &lt;target&gt; &lt;output directory&gt; [-threads &lt;count&gt;] [image options]</code>. 
+ * The input can either be a directory (all files with a supported tree format contained in it are processed) 
+ * or a text file listing one file per line. The target is one of {@link CmdProcessor#XTG_OPTION}, 
+ * {@link CmdProcessor#NEWICK_OPTION} or {@link CmdProcessor#NEXUS_OPTION} or the extension of a graphic format 
+ * (e.g. <code>png</code>). The image options are the same as for {@link ImageGenerator}. If 
+ * {@link ImageGenerator#TILED_OPTION} is specified, the images are rendered in tiles and the target must either
+ * be <code>dzi</code> (PNG tiles in the Deep Zoom format) or a TIFF extension.
+ * <p>
+ * This mode is run headless (see {@link CmdProcessor#isHeadless(CommandLineReader)}).
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class BatchProcessor {
+	public static final String THREADS_OPTION = "-threads";
+	
+	/** Lines in a list file starting with this prefix are ignored. */
+	public static final String LIST_COMMENT_PREFIX = "#";
+	
+	
+	/**
+	 * Stores the result of processing a single file.
+	 * 
+	 * @author Ben St&ouml;ver
+	 * @since 2.16.0
+	 */
+	public static class FileResult {
+		private File input;
+		private File output;
+		private String messages = "";
+		private Throwable error = null;
+		private long readTime = 0;
+		private long positionTime = 0;
+		private long writeTime = 0;
+		
+		
+		private FileResult(File input, File output) {
+			super();
+			this.input = input;
+			this.output = output;
+		}
+
+
+		public File getInput() {
+			return input;
+		}
+
+
+		public File getOutput() {
+			return output;
+		}
+
+
+		/**
+		 * Returns the messages the reader logged while reading the input file.
+		 */
+		public String getMessages() {
+			return messages;
+		}
+
+
+		/**
+		 * Returns the error that occurred while processing the file.
+		 * 
+		 * @return the error or <code>null</code> if the file was processed successfully
+		 */
+		public Throwable getError() {
+			return error;
+		}
+		
+		
+		public boolean isSuccessful() {
+			return error == null;
+		}
+
+
+		/**
+		 * Returns the time in milliseconds that was needed to read the input file.
+		 */
+		public long getReadTime() {
+			return readTime;
+		}
+
+
+		/**
+		 * Returns the time in milliseconds that was needed to position the document. (This is always 0 if no 
+		 * graphic is written.)
+		 */
+		public long getPositionTime() {
+			return positionTime;
+		}
+
+
+		/**
+		 * Returns the time in milliseconds that was needed to write the output file.
+		 */
+		public long getWriteTime() {
+			return writeTime;
+		}
+		
+		
+		/**
+		 * Returns a line describing this result to be displayed on the command line.
+		 */
+		@Override
+		public String toString() {
+			StringBuilder result = new StringBuilder();
+			if (isSuccessful()) {
+				result.append("Completed \"" + input.getPath() + "\" -> \"" + output.getPath() + "\" (read: " + readTime + 
+						" ms, position: " + positionTime + " ms, write: " + writeTime + " ms)");
+			}
+			else {
+				result.append("Failed \"" + input.getPath() + "\": " + error.toString());
+			}
+			result.append(messages);
+			return result.toString();
+		}
+	}
+	
+	
+	/**
+	 * Collects the messages of a document reader, so that they can be displayed together with the result of the 
+	 * according file, although different files are read at the same time.
+	 */
+	private static class FileLogger extends AbstractApplicationLogger {
+		private StringBuilder messages = new StringBuilder();
+		
+		
+		@Override
+		public void addMessage(ApplicationLoggerMessage message) {
+			messages.append(System.getProperty("line.separator") + "  ");
+			if (message.getType().equals(ApplicationLoggerMessageType.WARNING)) {
+				messages.append(CmdLoadLogger.WARNING_PREFIX);
+			}
+			messages.append(message.getMessage());
+		}
+	}
+	
+	
+	private CommandLineReader reader;
+	private ReadWriteFormat documentFormat = null;
+	private GraphicFormat graphicFormat = null;
+	private boolean tiled;
+	private File outputDirectory;
+	private PrintStream out;
+	
+	
+	/**
+	 * Creates a new instance of this class.
+	 * 
+	 * @param reader - the command line arguments containing possible image options (including 
+	 *        {@link ImageGenerator#TILED_OPTION})
+	 * @param documentFormat - the tree format to convert to or <code>null</code> if graphics shall be written
+	 * @param graphicFormat - the graphic format to write or <code>null</code> if a tree format shall be written
+	 * @param outputDirectory - the directory to write the output files to
+	 * @param out - the stream to report the results to
+	 */
+	public BatchProcessor(CommandLineReader reader, ReadWriteFormat documentFormat, GraphicFormat graphicFormat, 
+			File outputDirectory, PrintStream out) {
+		
+		super();
+		if ((documentFormat == null) == (graphicFormat == null)) {
+			throw new IllegalArgumentException("Exactly one target format must be specified.");
+		}
+		this.reader = reader;
+		this.documentFormat = documentFormat;
+		this.graphicFormat = graphicFormat;
+		tiled = (graphicFormat != null) && ImageGenerator.readTiled(reader, 4);
+		if (tiled && !GraphicWriterFactory.getInstance().hasTiledWriter(graphicFormat)) {
+			throw new IllegalArgumentException("No tiled writer is available for the format " + graphicFormat + ".");
+		}
+		this.outputDirectory = outputDirectory;
+		this.out = out;
+	}
+	
+	
+	/**
+	 * Returns the files to be processed.
+	 * 
+	 * @param input - a directory containing the files or a text file listing one file per line (Relative paths 
+	 *        are resolved against the directory of the list file.)
+	 * @return the list of files
+	 * @throws IOException if the list file cannot be read
+	 */
+	public static List<File> readInputFiles(File input) throws IOException {
+		List<File> result = new ArrayList<File>();
+		if (input.isDirectory()) {
+			File[] files = input.listFiles();
+			Arrays.sort(files);
+			ReadWriteFactory factory = ReadWriteFactory.getInstance();
+			for (int i = 0; i < files.length; i++) {
+				if (files[i].isFile() && (factory.formatByFileName(files[i].getName()) != null)) {
+					result.add(files[i]);
+				}
+			}
+		}
+		else {
+			BufferedReader listReader = new BufferedReader(new FileReader(input));
+			try {
+				String line = listReader.readLine();
+				while (line != null) {
+					line = line.trim();
+					if (!line.equals("") && !line.startsWith(LIST_COMMENT_PREFIX)) {
+						File file = new File(line);
+						if (!file.isAbsolute()) {
+							file = new File(input.getAbsoluteFile().getParentFile(), line);
+						}
+						result.add(file);
+					}
+					line = listReader.readLine();
+				}
+			}
+			finally {
+				listReader.close();
+			}
+		}
+		return result;
+	}
+	
+	
+	private String getOutputExtension() {
+		if (documentFormat != null) {
+			return ReadWriteFactory.getInstance().getFilter(documentFormat).getDefaultExtension();
+		}
+		else if (tiled && graphicFormat.equals(GraphicFormat.PNG)) {
+			return TiledPNGWriter.DESCRIPTOR_EXTENSION;
+		}
+		else {
+			return GraphicWriterFactory.getInstance().getFilter(graphicFormat).getDefaultExtension();
+		}
+	}
+	
+	
+	/**
+	 * Returns the file the converted version of the specified file shall be written to.
+	 */
+	private File getOutputFile(File input) {
+		String name = input.getName();
+		int pos = name.lastIndexOf('.');
+		if (pos > 0) {
+			name = name.substring(0, pos);
+		}
+		return new File(outputDirectory, name + getOutputExtension());
+	}
+	
+	
+	private void processFile(FileResult result) throws Exception {
+		FileLogger logger = new FileLogger();
+		try {
+			long start = System.currentTimeMillis();
+			DocumentReader documentReader = ReadWriteFactory.getInstance().getReader(result.input);
+			if (documentReader == null) {
+				throw new IllegalArgumentException("The format of the file could not be determined.");
+			}
+			Document document = documentReader.read(result.input, CmdProcessor.createReadParameterMap(logger));
+			result.readTime = System.currentTimeMillis() - start;
+			
+			if (documentFormat != null) {
+				start = System.currentTimeMillis();
+				ReadWriteFactory.getInstance().getWriter(documentFormat).write(document, result.output);
+				result.writeTime = System.currentTimeMillis() - start;
+			}
+			else {
+				start = System.currentTimeMillis();
+				PositionPaintType type = ImageGenerator.readPositionPaintType(reader, 4);
+				PositionPaintFactory.getInstance().getPositioner(type).positionAll(document, 1f);
+				ParameterMap hints = ImageGenerator.createHints(reader, 4, document, type);
+				result.positionTime = System.currentTimeMillis() - start;
+				
+				start = System.currentTimeMillis();
+				ImageGenerator.getWriter(graphicFormat, tiled).write(document, 
+						PositionPaintFactory.getInstance().getPainter(type), hints, result.output);
+				result.writeTime = System.currentTimeMillis() - start;
+			}
+		}
+		finally {
+			result.messages = logger.messages.toString();
+		}
+	}
+	
+	
+	/**
+	 * Processes the specified files. Each result is reported as soon as the according file is completed.
+	 * 
+	 * @param files - the files to be processed
+	 * @param threadCount - the number of worker threads to be used
+	 * @return the results in the order of the specified files
+	 */
+	public List<FileResult> run(List<File> files, int threadCount) {
+		List<FileResult> results = new ArrayList<FileResult>(files.size());
+		List<Future<?>> futures = new ArrayList<Future<?>>(files.size());
+		Set<File> outputFiles = new HashSet<File>();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threadCount));
+		try {
+			for (File input : files) {
+				final FileResult result = new FileResult(input, getOutputFile(input));
+				results.add(result);
+				if (result.output.exists()) {
+					result.error = new IOException("The file \"" + result.output.getAbsolutePath() + "\" already exists.");
+				}
+				else if (!outputFiles.add(result.output.getAbsoluteFile())) {
+					result.error = new IOException("The file \"" + result.output.getAbsolutePath() + 
+							"\" is already written for another input file.");
+				}
+				
+				if (result.isSuccessful()) {
+					futures.add(executor.submit(new Callable<Object>() {
+						@Override
+						public Object call() throws Exception {
+							try {
+								processFile(result);
+							}
+							catch (Exception e) {
+								result.error = e;
+							}
+							catch (OutOfMemoryError e) {
+								result.error = e;
+							}
+							out.println(result);  // Each result is printed completely at once.
+							return null;
+						}
+					}));
+				}
+				else {
+					out.println(result);
+				}
+			}
+			
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+				catch (ExecutionException e) {
+					e.printStackTrace();  // Should not happen, since all exceptions are caught in call().
+				}
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		return results;
+	}
+	
+	
+	/**
+	 * Processes the files specified by the command line arguments.
+	 * 
+	 * @param reader - the command line arguments starting with {@link CmdProcessor#BATCH_OPTION}
+	 * @return <code>true</code> if all files were processed successfully, <code>false</code> otherwise
+	 */
+	public static boolean process(CommandLineReader reader) {
+		ReadWriteFormat documentFormat = null;
+		GraphicFormat graphicFormat = null;
+		String target = reader.getArg(2);
+		if (CmdProcessor.XTG_OPTION.equals(target)) {
+			documentFormat = ReadWriteFormat.XTG;
+		}
+		else if (CmdProcessor.NEWICK_OPTION.equals(target)) {
+			documentFormat = ReadWriteFormat.NEWICK;
+		}
+		else if (CmdProcessor.NEXUS_OPTION.equals(target)) {
+			documentFormat = ReadWriteFormat.NEXUS;
+		}
+		else {
+			if (target.startsWith(".")) {
+				target = target.substring(1);
+			}
+			graphicFormat = ImageGenerator.readFormat("." + target, ImageGenerator.readTiled(reader, 4));
+		}
+		if ((documentFormat == null) && (graphicFormat == null)) {
+			System.out.println("\"" + reader.getArg(2) + "\" is not a valid target format.");
+			return false;
+		}
+		
+		File outputDirectory = new File(reader.getArg(3));
+		if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+			System.out.println("The output directory \"" + outputDirectory.getAbsolutePath() + "\" could not be created.");
+			return false;
+		}
+		
+		int threadCount = Runtime.getRuntime().availableProcessors();
+		int pos = reader.contained(THREADS_OPTION, 4);
+		try {
+			if (pos != -1) {
+				threadCount = Integer.parseInt(reader.getArg(pos + 1));
+			}
+			if (graphicFormat != null) {  // Check image options once before processing any file.
+				ImageGenerator.createHints(reader, 4, new Document(), ImageGenerator.readPositionPaintType(reader, 4));
+			}
+		}
+		catch (NumberFormatException e) {
+			System.out.println("Invalid number parameter. (Either the number format or the unit is incorrect.)");
+			return false;
+		}
+		
+		List<File> files;
+		try {
+			files = readInputFiles(new File(reader.getArg(1)));
+		}
+		catch (IOException e) {
+			System.out.println("The input \"" + reader.getArg(1) + "\" could not be read. (" + e.getMessage() + ")");
+			return false;
+		}
+		
+		long start = System.currentTimeMillis();
+		List<FileResult> results = new BatchProcessor(reader, documentFormat, graphicFormat, outputDirectory, 
+				System.out).run(files, threadCount);
+		int successCount = 0;
+		for (FileResult result : results) {
+			if (result.isSuccessful()) {
+				successCount++;
+			}
+		}
+		System.out.println(successCount + " of " + results.size() + " files processed successfully in " + 
+				(System.currentTimeMillis() - start) + " ms. (Worker threads: " + threadCount + ")");
+		return successCount == results.size();
+	}
+}
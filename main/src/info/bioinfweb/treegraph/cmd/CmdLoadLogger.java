@@ -42,7 +42,7 @@ public class CmdLoadLogger extends AbstractApplicationLogger implements Applicat
 	protected CmdLoadLogger() {}
 	
 	
-	public static CmdLoadLogger getInstance() {
+	public static synchronized CmdLoadLogger getInstance() {
 		if (firstInstace == null) {
 			firstInstace = new CmdLoadLogger();
 		}
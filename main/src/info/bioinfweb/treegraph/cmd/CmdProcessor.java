@@ -32,6 +32,7 @@ import javax.swing.UIManager;
 import info.bioinfweb.commons.CommandLineReader;
 import info.bioinfweb.commons.Math2;
 import info.bioinfweb.commons.appversion.ApplicationVersion;
+import info.bioinfweb.commons.log.ApplicationLogger;
 import info.bioinfweb.treegraph.Main;
 import info.bioinfweb.treegraph.PreferencesConstants;
 import info.bioinfweb.treegraph.document.Document;
@@ -55,6 +56,7 @@ public class CmdProcessor implements PreferencesConstants {
 	public static final String NEWICK_OPTION = "-newick";
 	public static final String NEXUS_OPTION = "-nexus";
 	public static final String IMAGE_OPTION = "-image";
+	public static final String BATCH_OPTION = "-batch";
 
 	public static final String DEFAULT_LABEL_ID = "internals";
 	
@@ -119,18 +121,43 @@ public class CmdProcessor implements PreferencesConstants {
   }
 	
 	
+	/**
+	 * Creates the parameters used to read documents from the command line.
+	 * 
+	 * @param logger - the logger to display messages of the reader
+	 * @return the new parameter map
+	 * @since 2.16.0
+	 */
+	public static ReadWriteParameterMap createReadParameterMap(ApplicationLogger logger) {
+		ReadWriteParameterMap result = new ReadWriteParameterMap();
+		result.putApplicationLogger(logger);
+		result.put(ReadWriteParameterMap.KEY_REGISTER_FILE_CHOOSER_OF_DOCUMENT, false);  // Documents are not displayed.
+		result.put(ReadWriteParameterMap.KEY_INTERNAL_NODE_NAMES_ADAPTER, 
+				new TextLabelAdapter(DEFAULT_LABEL_ID, new DecimalFormat(TextFormats.DEFAULT_DECIMAL_FORMAT_EXPR)));
+		return result;
+	}
+	
+	
+	/**
+	 * Determines whether the specified command line arguments select a mode that does not need a graphical user
+	 * interface and should therefore run with <code>java.awt.headless</code> set.
+	 * 
+	 * @param reader - the command line arguments
+	 * @return <code>true</code> if the batch mode is selected
+	 * @since 2.16.0
+	 */
+	public static boolean isHeadless(CommandLineReader reader) {
+		return (reader.argCount() > 0) && reader.getArg(0).toLowerCase().equals(BATCH_OPTION);
+	}
+	
+	
 	private void convert(CommandLineReader reader) {
 		File source = new File(reader.getArg(1));
 		boolean readingComplete = false;
 		try {
 			DocumentReader documentReader = ReadWriteFactory.getInstance().getReader(source);
 			if (reader != null) {  //TODO Muss das documentReader heißen?
-				ReadWriteParameterMap parameterMap = new ReadWriteParameterMap();
-				parameterMap.putApplicationLogger(CmdLoadLogger.getInstance());
-				parameterMap.put(ReadWriteParameterMap.KEY_INTERNAL_NODE_NAMES_ADAPTER, 
-						new TextLabelAdapter(DEFAULT_LABEL_ID, new DecimalFormat(TextFormats.DEFAULT_DECIMAL_FORMAT_EXPR)));
-
-				Document document = documentReader.read(source, parameterMap);
+				Document document = documentReader.read(source, createReadParameterMap(CmdLoadLogger.getInstance()));
 				readingComplete = true;
 				ReadWriteFormat format = null;
 				if (XTG_OPTION.equals(reader.getArg(2))) {
@@ -189,6 +216,11 @@ public class CmdProcessor implements PreferencesConstants {
 			
 			ImageGenerator.generate(reader);
 		}
+		else if ((reader.argCount() >= 4) && 
+				(reader.getArg(0).toLowerCase().equals(BATCH_OPTION))) {
+			
+			BatchProcessor.process(reader);
+		}
 		else {
 			//TODO Andere Instanz abfragen und evtl. benachrichtigen
 			if ((reader.argCount() == 1)) {
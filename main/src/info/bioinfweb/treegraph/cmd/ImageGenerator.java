@@ -28,6 +28,7 @@ import info.bioinfweb.treegraph.document.io.ReadWriteParameterMap;
 import info.bioinfweb.treegraph.graphics.export.GraphicFormat;
 import info.bioinfweb.treegraph.graphics.export.GraphicWriter;
 import info.bioinfweb.treegraph.graphics.export.GraphicWriterFactory;
+import info.bioinfweb.treegraph.graphics.export.png.TiledPNGWriter;
 import info.bioinfweb.treegraph.graphics.positionpaint.PositionPaintFactory;
 import info.bioinfweb.treegraph.graphics.positionpaint.PositionPaintType;
 import info.bioinfweb.treegraph.gui.dialogs.ResolutionInput;
@@ -45,6 +46,7 @@ public class ImageGenerator {
 	public static final String WIDTH_OPTION = "-width";
 	public static final String HEIGHT_OPTION = "-height";
 	public static final String RESOLUTION_OPTION = "-res";
+	public static final String TILED_OPTION = "-tiled";
 
 	public static final String UNIT_PPM = "ppm";
 	public static final String UNIT_PPI = "ppi";
@@ -103,11 +105,143 @@ public class ImageGenerator {
 	}
 	
 	
+	/**
+	 * Returns the type of view selected by the command line options starting at the specified position.
+	 * 
+	 * @param reader - the command line arguments
+	 * @param start - the index of the first optional argument
+	 * @return {@link PositionPaintType#PHYLOGRAM} if {@link #PHYLOGRAM_OPTION} is specified or 
+	 *         {@link PositionPaintType#RECT_CLAD} otherwise
+	 * @since 2.16.0
+	 */
+	public static PositionPaintType readPositionPaintType(CommandLineReader reader, int start) {
+		if (reader.contained(PHYLOGRAM_OPTION, start) != -1) {
+			return PositionPaintType.PHYLOGRAM; 
+		}
+		else {
+			return PositionPaintType.RECT_CLAD;
+		}
+	}
+	
+	
+	/**
+	 * Determines whether {@link #TILED_OPTION} is specified in the command line options starting at the specified 
+	 * position.
+	 * 
+	 * @param reader - the command line arguments
+	 * @param start - the index of the first optional argument
+	 * @return <code>true</code> if the image shall be rendered in tiles
+	 * @since 2.16.0
+	 */
+	public static boolean readTiled(CommandLineReader reader, int start) {
+		return reader.contained(TILED_OPTION, start) != -1;
+	}
+	
+	
+	/**
+	 * Returns the graphic format to be written to a file with the specified name. If the image shall be rendered
+	 * in tiles, Deep Zoom descriptors (<code>.dzi</code>) are accepted for {@link GraphicFormat#PNG} and other 
+	 * file names are only accepted for formats for which a tiled writer is available.
+	 * 
+	 * @param fileName - the name of the output file
+	 * @param tiled - <code>true</code> if {@link #TILED_OPTION} was specified
+	 * @return the graphic format or <code>null</code> if no suitable format was found
+	 * @since 2.16.0
+	 */
+	public static GraphicFormat readFormat(String fileName, boolean tiled) {
+		GraphicWriterFactory factory = GraphicWriterFactory.getInstance();
+		if (tiled) {
+			if (fileName.toLowerCase().endsWith(TiledPNGWriter.DESCRIPTOR_EXTENSION)) {
+				return GraphicFormat.PNG;
+			}
+			else {
+				GraphicFormat format = factory.formatByFileName(fileName);
+				if ((format != GraphicFormat.PNG) && factory.hasTiledWriter(format)) {  // PNG tiles need a descriptor file.
+					return format;
+				}
+				else {
+					return null;
+				}
+			}
+		}
+		else {
+			return factory.formatByFileName(fileName);
+		}
+	}
+	
+	
+	/**
+	 * Returns the writer for the specified format.
+	 * 
+	 * @param format - the graphic format to be written
+	 * @param tiled - <code>true</code> if the writer returned by 
+	 *        {@link GraphicWriterFactory#getTiledWriter(GraphicFormat)} shall be used
+	 * @return the writer
+	 * @since 2.16.0
+	 */
+	public static GraphicWriter getWriter(GraphicFormat format, boolean tiled) {
+		if (tiled) {
+			return GraphicWriterFactory.getInstance().getTiledWriter(format);
+		}
+		else {
+			return GraphicWriterFactory.getInstance().getWriter(format);
+		}
+	}
+	
+	
+	/**
+	 * Creates the hints for a {@link GraphicWriter} from the resolution and dimension options starting at the
+	 * specified position. The specified document must already have been positioned.
+	 * 
+	 * @param reader - the command line arguments
+	 * @param start - the index of the first optional argument
+	 * @param document - the document to be written
+	 * @param type - the type of view the document was positioned with
+	 * @return the new hints
+	 * @throws NumberFormatException if the value or unit of an option is invalid
+	 * @since 2.16.0
+	 */
+	public static ParameterMap createHints(CommandLineReader reader, int start, Document document, 
+			PositionPaintType type) {
+		
+		ParameterMap hints = new ParameterMap();
+		float pixelsPerMillimeter = TreeViewPanel.PIXELS_PER_MM_100;
+		int pos = reader.contained(RESOLUTION_OPTION, start);
+		if (pos != -1) {
+			pixelsPerMillimeter = readRes(reader.getArg(pos + 1));
+		}
+		hints.put(GraphicWriter.KEY_PIXELS_PER_MILLIMETER, new Float(pixelsPerMillimeter));
+		
+		DistanceDimension d = document.getTree().getPaintDimension(type);
+		float aspectRatio = d.getWidth().getInMillimeters() / d.getHeight().getInMillimeters();
+		float width = d.getWidth().getInMillimeters();
+		float height = d.getHeight().getInMillimeters();
+		pos = reader.contained(WIDTH_OPTION, start);
+		if (pos != -1) {
+			width = readDistance(reader.getArg(pos + 1), hints);
+			height = width / aspectRatio;
+		}
+		else {  // height nur lesen, wenn width nicht angegeben wurde
+			pos = reader.contained(HEIGHT_OPTION, start);
+			if (pos != -1) {
+				height = readDistance(reader.getArg(pos + 1), hints);
+				width = height * aspectRatio;
+			}
+			else {
+				hints.put(GraphicWriter.KEY_DIMENSIONS_IN_PIXELS, new Boolean(false));  // default
+			}
+		}
+		hints.put(GraphicWriter.KEY_WIDTH, width);
+		hints.put(GraphicWriter.KEY_HEIGHT, height);
+		//TODO Transparenz angeben
+		return hints;
+	}
+	
+	
 	public static boolean generate(CommandLineReader reader) {
   	ReadWriteFactory rwf = ReadWriteFactory.getInstance();
-  	GraphicWriterFactory gwf = GraphicWriterFactory.getInstance();
-  	
-  	GraphicFormat format = gwf.formatByFileName(reader.getArg(2));
+  	boolean tiled = readTiled(reader, 3);
+  	GraphicFormat format = readFormat(reader.getArg(2), tiled);
   	if (rwf.getFilter(ReadWriteFormat.XTG).validExtension(reader.getArg(1)) && (format != null)) {
   		try {
 				ReadWriteParameterMap parameterMap = new ReadWriteParameterMap();
@@ -115,45 +249,12 @@ public class ImageGenerator {
   			Document document = rwf.getReader(ReadWriteFormat.XTG).read(
   					new File(reader.getArg(1)), parameterMap);
   			
-        PositionPaintType type = PositionPaintType.RECT_CLAD;
-  			if (reader.contained(PHYLOGRAM_OPTION, 3) != -1) {
-  				type = PositionPaintType.PHYLOGRAM; 
-  			}
+        PositionPaintType type = readPositionPaintType(reader, 3);
   			//TODO distancePerBranchLengthUnit lesen und ggf. berechnen 
   			PositionPaintFactory.getInstance().getPositioner(type).positionAll(document, 1f);
+  			ParameterMap hints = createHints(reader, 3, document, type);
   			
-  			ParameterMap hints = new ParameterMap();
-  			float pixelsPerMillimeter = TreeViewPanel.PIXELS_PER_MM_100;
-  			int pos = reader.contained(RESOLUTION_OPTION, 3);
-  			if (pos != -1) {
-  				pixelsPerMillimeter = readRes(reader.getArg(pos + 1));
-  			}
-				hints.put(GraphicWriter.KEY_PIXELS_PER_MILLIMETER, new Float(pixelsPerMillimeter));
-  			
-  			DistanceDimension d = document.getTree().getPaintDimension(type);
-  			float aspectRatio = d.getWidth().getInMillimeters() / d.getHeight().getInMillimeters();
-  			float width = d.getWidth().getInMillimeters();
-  			float height = d.getHeight().getInMillimeters();
-  			pos = reader.contained(WIDTH_OPTION, 3);
-  			if (pos != -1) {
-  				width = readDistance(reader.getArg(pos + 1), hints);
-  				height = width / aspectRatio;
-  			}
-  			else {  // height nur lesen, wenn width nicht angegeben wurde
-    			pos = reader.contained(HEIGHT_OPTION, 3);
-    			if (pos != -1) {
-    				height = readDistance(reader.getArg(pos + 1), hints);
-    				width = height * aspectRatio;
-    			}
-    			else {
-    				hints.put(GraphicWriter.KEY_DIMENSIONS_IN_PIXELS, new Boolean(false));  // default
-    			}
-  			}
-				hints.put(GraphicWriter.KEY_WIDTH, width);
-				hints.put(GraphicWriter.KEY_HEIGHT, height);
-  			//TODO Transparenz angeben
-  			
-  			gwf.getWriter(format).write(document, PositionPaintFactory.getInstance().getPainter(type), 
+  			getWriter(format, tiled).write(document, PositionPaintFactory.getInstance().getPainter(type), 
   					hints, new File(reader.getArg(2)));
     		return true;
   		}
@@ -168,9 +269,13 @@ public class ImageGenerator {
 						"\"java -Xms32m -Xmx1024m -jar TreeGraph.jar [additional user defined parameters]\"");
   		}
   		catch (Exception e) {
-  			System.out.println("An error occured.");
+  			System.out.println("The exception \"" + e.toString() + "\" occurred.");
   		}
   	}
+  	else if (tiled) {
+  		System.out.println("Invalid parameters. (Tiled images can only be written to \"" + 
+  				TiledPNGWriter.DESCRIPTOR_EXTENSION + "\" or TIFF files.)");
+  	}
   	else {
   		System.out.println("Invalid parameters. (Possibly an invalid file extension was used.)");
   	}
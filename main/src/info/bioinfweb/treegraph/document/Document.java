@@ -19,13 +19,16 @@
 package info.bioinfweb.treegraph.document;
 
 
+import java.awt.Component;
 import java.io.*;
 import java.util.*;
 
+import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
 
 import info.bioinfweb.treegraph.Main;
 import info.bioinfweb.treegraph.document.change.DocumentChangeEvent;
+import info.bioinfweb.treegraph.document.change.DocumentChangeType;
 import info.bioinfweb.treegraph.document.change.DocumentListener;
 import info.bioinfweb.treegraph.document.io.ReadWriteFactory;
 import info.bioinfweb.treegraph.document.io.ReadWriteFormat;
@@ -41,7 +44,6 @@ import info.bioinfweb.commons.changemonitor.ChangeMonitorable;
 import info.bioinfweb.commons.io.DefaultNameManager;
 import info.bioinfweb.commons.io.FormatVersion;
 import info.bioinfweb.commons.io.Savable;
-import info.bioinfweb.commons.swing.AccessibleUndoManager;
 import info.bioinfweb.commons.swing.SwingSavable;
 import info.bioinfweb.commons.swing.SwingSaver;
 
@@ -66,7 +68,7 @@ public class Document extends SwingSaver
 	
 	
   private FormatVersion version = null;
-  private AccessibleUndoManager undoManager = new AccessibleUndoManager();
+  private DocumentUndoManager undoManager = new DocumentUndoManager();
   private TreeInternalFrame frame = null;
   private Vector<DocumentListener> views = 
   	  new Vector<DocumentListener>(VIEWS_CAPACITY, VIEWS_CAPACITY_INCREMENT);
@@ -77,6 +79,7 @@ public class Document extends SwingSaver
   	  new EnumMap<PositionPaintType, Boolean>(PositionPaintType.class);
   
   private NodeBranchDataAdapter defaultLeafAdapter = new NodeNameAdapter();
+  private boolean fileChooserInitialized = false;
   private NodeBranchDataAdapter defaultSupportAdapter = new VoidNodeBranchDataAdapter("Not specified.");
   
     
@@ -109,13 +112,46 @@ public class Document extends SwingSaver
   
   private void init(boolean registerFileChooser) {
   	initSets();
-  	getFileChooser().addChoosableFileFilter(new XTGFilter());
   	if (registerFileChooser) {
   		CurrentDirectoryModel.getInstance().addFileChooser(getFileChooser());  // Is removed again in TreeInternalFrame.doDefaultCloseAction().
   	}
   	setDefaultExtension(XTGFilter.EXTENSION);
   	addFileExtension(XTGFilter.XML_EXTENSION);
-  	setDefaultName(Main.getInstance().getNameManager().newDefaultName());
+  	addFileExtension(XTGFilter.COMPRESSED_EXTENSION);
+  	DefaultNameManager nameManager = Main.getInstance().getNameManager();
+  	synchronized (nameManager) {  // Documents may be read in different threads.
+  		setDefaultName(nameManager.newDefaultName());
+  	}
+  }
+  
+  
+  /**
+   * Returns the file chooser used to save this document. If the file chooser was not registered on creation,
+   * it is only created when this method is called for the first time, because creating it takes much longer 
+   * than reading a small document (e.g. in the batch mode of the command line).
+   * 
+   * @see info.bioinfweb.commons.swing.SwingSaver#getFileChooser()
+   */
+  @Override
+  public JFileChooser getFileChooser() {
+  	JFileChooser result = super.getFileChooser();
+  	if (!fileChooserInitialized) {
+  		fileChooserInitialized = true;
+  		result.addChoosableFileFilter(new XTGFilter());
+  	}
+  	return result;
+  }
+
+
+  /**
+   * Makes sure that the file chooser was created before it is used by the inherited implementation.
+   * 
+   * @see info.bioinfweb.commons.swing.SwingSaver#saveAs(java.awt.Component)
+   */
+  @Override
+  public boolean saveAs(Component parent) {
+  	getFileChooser();
+  	return super.saveAs(parent);
   }
   
   
@@ -144,7 +180,7 @@ public class Document extends SwingSaver
   }
 
 
-  public AccessibleUndoManager getUndoManager() {
+  public DocumentUndoManager getUndoManager() {
 		return undoManager;
 	}
 
@@ -249,17 +285,36 @@ public class Document extends SwingSaver
 			throw new RuntimeException("The edit could not be executed.");
 		}
 		edit.redo();  // actually execute
+		getUndoManager().trimToMemoryBudget();  // The memory usage of an edit may only be known after its execution.
 	}
 	
 	
   /**
    * Alerts all registered positioners to reposition the tree elements because of made 
-   * changes.
+   * changes. If the specified edit reports the elements it changed, only the subtrees containing
+   * these elements are positioned again.
+   * 
+   * @param edit - the edit that was performed or {@code null}
    */
-  private void alertPositioners() {
+  private void alertPositioners(DocumentEdit edit) {
+  	PaintableElement[] changedElements = null;
+  	if (edit != null) {
+  		changedElements = edit.getChangedElements();
+  	}
+  	if (changedElements != null) {
+  		for (PaintableElement element : changedElements) {
+  			PositionPaintUtils.markDirty(element);
+  		}
+  	}
+  	
   	for (PositionPaintType type: PositionPaintType.values()) {
   		if(positioners.get(type)) {
-  			PositionPaintFactory.getInstance().getPositioner(type).positionAll(this, 1f);
+  			if (changedElements != null) {
+  				PositionPaintFactory.getInstance().getPositioner(type).positionChanged(this, 1f);
+  			}
+  			else {
+  				PositionPaintFactory.getInstance().getPositioner(type).positionAll(this, 1f);
+  			}
   		}
   	}
   }
@@ -283,7 +338,11 @@ public class Document extends SwingSaver
 	public void registerChange(DocumentEdit edit) {
 		super.registerChange();
 		getTree().updateElementSet();
-		alertPositioners();  // Positioners must be alerted first
+		getTree().clearMetrics();
+		getTree().clearColumnRegistry();
+		if ((edit == null) || (edit.getChangeType() != DocumentChangeType.NEUTRAL)) {  // Neutral edits do not modify any paint positions.
+			alertPositioners(edit);  // Positioners must be alerted first
+		}
 		fireChangeHappened(edit);
 		updateFrame();
 	}
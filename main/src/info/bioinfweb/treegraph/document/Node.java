@@ -91,6 +91,16 @@ public class Node extends AbstractTextElement
 	public void setAfferentBranch(Branch afferentBranch) {
 		this.afferentBranch = afferentBranch;
 		afferentBranch.setTargetNode(this);
+	}
+	
+	
+	/**
+	 * Removes the afferent branch from this node. The target node of the removed branch is not changed.
+	 * 
+	 * @since 2.16.0
+	 */
+	public void removeAfferentBranch() {
+		afferentBranch = null;
 	}
 
 	
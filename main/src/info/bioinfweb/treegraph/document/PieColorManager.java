@@ -52,7 +52,7 @@ public class PieColorManager {
 	}
   
   
-  public static PieColorManager getInstance() {
+  public static synchronized PieColorManager getInstance() {
   	if (firstInstance == null) {
   		firstInstance = new PieColorManager();
   	}
@@ -23,8 +23,11 @@ import info.bioinfweb.treegraph.document.format.DistanceDimension;
 import info.bioinfweb.treegraph.document.format.GlobalFormats;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
 import info.bioinfweb.treegraph.document.tools.NodeBranchDataColumnManager;
+import info.bioinfweb.treegraph.document.tools.NodeBranchDataColumnRegistry;
 import info.bioinfweb.treegraph.document.tools.TreeSerializer;
 import info.bioinfweb.treegraph.document.undo.CompareTextElementDataParameters;
+import info.bioinfweb.treegraph.graphics.positionpaint.PositionIndex;
+import info.bioinfweb.treegraph.graphics.positionpaint.TreeLayout;
 import info.bioinfweb.treegraph.graphics.positionpaint.PositionPaintType;
 import info.bioinfweb.commons.RandomValues;
 
@@ -60,9 +63,14 @@ public class Tree {
 	private ScaleBar scaleBar = new ScaleBar();
   private Legends legends = new Legends(this);
 	private EnumMap<PositionPaintType, DistanceDimension> paintDimensions = new EnumMap<PositionPaintType, DistanceDimension>(PositionPaintType.class);
+	private EnumMap<PositionPaintType, PositionIndex> positionIndices = new EnumMap<PositionPaintType, PositionIndex>(PositionPaintType.class);
+	private EnumMap<PositionPaintType, TreeLayout> layouts = new EnumMap<PositionPaintType, TreeLayout>(PositionPaintType.class);
   private GlobalFormats formats = new GlobalFormats();
   private TreeMap<String, Node> uniqueNameMap = new TreeMap<String, Node>();
   private HashSet<PaintableElement> elementSet = new HashSet<PaintableElement>();
+  private TreeMetrics metricsWithRootBranch = null;
+  private TreeMetrics metricsWithoutRootBranch = null;
+  private NodeBranchDataColumnRegistry columnRegistry = null;
 	
 	
 	public Node getPaintStart() {
@@ -72,6 +80,10 @@ public class Tree {
 
 	public void setPaintStart(Node paintStart) {
 		this.paintStart = paintStart;
+		clearMetrics();
+		clearColumnRegistry();
+		positionIndices.clear();
+		layouts.clear();
 	}
 
 
@@ -141,6 +153,61 @@ public class Tree {
 			paintDimensions.put(type, result);
 		}
 		return result;
+	}
+	
+	
+	/**
+	 * Returns the spatial index of the element positions that was created by the last call of 
+	 * {@link info.bioinfweb.treegraph.graphics.positionpaint.TreePositioner#positionAll(Document, float)} for the 
+	 * specified type.
+	 * 
+	 * @param type - the type of positioner
+	 * @return the index or {@code null} if this tree was not yet positioned with the specified type, a new paint 
+	 *         start was set since then or the index was not yet recreated after the positions were updated by
+	 *         {@link info.bioinfweb.treegraph.graphics.positionpaint.TreePositioner#positionChanged(Document, float)} 
+	 * @since 2.16.0
+	 */
+	public PositionIndex getPositionIndex(PositionPaintType type) {
+		return positionIndices.get(type);
+	}
+	
+	
+	/**
+	 * Stores a new spatial index of the element positions for the specified positioner type. This method is called 
+	 * by the positioners at the end of the positioning process.
+	 * 
+	 * @param type - the type of positioner
+	 * @param index - the new index
+	 * @since 2.16.0
+	 */
+	public void setPositionIndex(PositionPaintType type, PositionIndex index) {
+		positionIndices.put(type, index);
+	}
+	
+	
+	/**
+	 * Returns the parameters of the last positioning of this tree with the specified type.
+	 * 
+	 * @param type - the type of positioner
+	 * @return the layout or {@code null} if this tree was not yet positioned with the specified type or a new paint 
+	 *         start was set since then 
+	 * @since 2.16.0
+	 */
+	public TreeLayout getLayout(PositionPaintType type) {
+		return layouts.get(type);
+	}
+	
+	
+	/**
+	 * Stores the parameters of the last positioning for the specified positioner type. This method is called by the 
+	 * positioners at the end of the positioning process.
+	 * 
+	 * @param type - the type of positioner
+	 * @param layout - the new layout
+	 * @since 2.16.0
+	 */
+	public void setLayout(PositionPaintType type, TreeLayout layout) {
+		layouts.put(type, layout);
 	}
 	
 	
@@ -356,20 +423,7 @@ public class Tree {
 	 *         <code>null</code>.
 	 */
 	public static boolean hasAllBranchLengths(Node root, boolean needsRootLength) {
-		if (root != null) {
-			if (!(root.hasAfferentBranch() && root.getAfferentBranch().hasLength()) && 
-					needsRootLength) {
-				
-				return false;
-			}
-			Iterator<Node> iterator = root.getChildren().iterator();
-			while (iterator.hasNext()) {
-				if (!hasAllBranchLengths(iterator.next(), true)) {
-					return false;
-				}
-			}
-		}
-		return true;
+		return TreeMetrics.calculate(root, needsRootLength).hasAllBranchLengths();
 	}
 	
 	
@@ -381,7 +435,7 @@ public class Tree {
 	 * @return <code>true</code>, if there a no necessary lengths missing
 	 */
 	public boolean hasAllBranchLengths() {
-		return hasAllBranchLengths(getPaintStart(), getFormats().getShowRooted());
+		return getMetrics(getFormats().getShowRooted()).hasAllBranchLengths();
 	}
 	
 	
@@ -397,20 +451,7 @@ public class Tree {
 	 *         are defined
 	 */
 	public static double longestPath(Node root, boolean includeRootBranch) {
-		if (hasAllBranchLengths(root, includeRootBranch)) {
-			double result = 0;
-			Iterator<Node> iterator = root.getChildren().iterator();
-			while (iterator.hasNext()) {
-				result = Math.max(result, longestPath(iterator.next(), true));
-			}
-			if (includeRootBranch) {
-				result += root.getAfferentBranch().getLength();
-			}
-			return result;
-		}
-		else {
-			return Double.NaN;
-		}
+		return TreeMetrics.calculate(root, includeRootBranch).getLongestPath();
 	}
 	
 	
@@ -427,12 +468,74 @@ public class Tree {
 			return 0;
 		}
 		else {
-			return longestPath(getPaintStart(), getFormats().getShowRooted());
+			return getMetrics(getFormats().getShowRooted()).getLongestPath();
 		}
+	}
+	
+	
+	/**
+	 * Returns the branch length and size metrics of this tree. The returned object is cached until {@link #clearMetrics()}
+	 * is called, which happens in {@link Document#registerChange(info.bioinfweb.treegraph.document.undo.DocumentEdit)}
+	 * and if a new paint start is set. 
+	 * 
+	 * @param includeRootBranch - Specify {@code true} here, if the root branch shall be included in the metrics.
+	 * @return the metrics object (or {@link TreeMetrics#EMPTY_TREE} if this tree is empty)
+	 */
+	public TreeMetrics getMetrics(boolean includeRootBranch) {
+		if (includeRootBranch) {
+			if (metricsWithRootBranch == null) {
+				metricsWithRootBranch = TreeMetrics.calculate(getPaintStart(), true);
+			}
+			return metricsWithRootBranch;
+		}
+		else {
+			if (metricsWithoutRootBranch == null) {
+				metricsWithoutRootBranch = TreeMetrics.calculate(getPaintStart(), false);
+			}
+			return metricsWithoutRootBranch;
+		}
+	}
+	
+	
+	/**
+	 * Removes the cached metrics objects. This method must be called whenever the topology or the branch lengths of this
+	 * tree have been modified.
+	 */
+	public void clearMetrics() {
+		metricsWithRootBranch = null;
+		metricsWithoutRootBranch = null;
 	}
 	
 	
 	/**
+	 * Returns the registry of the label and hidden data columns present in this tree. The returned object is cached 
+	 * until {@link #clearColumnRegistry()} is called, which happens in 
+	 * {@link Document#registerChange(info.bioinfweb.treegraph.document.undo.DocumentEdit)} and if a new paint start 
+	 * is set.
+	 * 
+	 * @return the registry object (which is empty if this tree is empty)
+	 * @since 2.16.0
+	 */
+	public NodeBranchDataColumnRegistry getColumnRegistry() {
+		if (columnRegistry == null) {
+			columnRegistry = new NodeBranchDataColumnRegistry(getPaintStart());
+		}
+		return columnRegistry;
+	}
+	
+	
+	/**
+	 * Removes the cached column registry. This method must be called whenever labels or hidden data have been added to, 
+	 * removed from or renamed in this tree.
+	 * 
+	 * @since 2.16.0
+	 */
+	public void clearColumnRegistry() {
+		columnRegistry = null;
+	}
+	
+	
+	/**
 	 * Tests if the tree contains a node which would be able to return a decimal value
 	 * to the given adapter.
 	 * 
@@ -0,0 +1,173 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document;
+
+
+
+/**
+ * Stores branch length and size information about a subtree, which are all determined in a single post-order
+ * traversal by {@link #calculate(Node, boolean)}.
+ * <p>
+ * Instances for whole trees are cached by {@link Tree#getMetrics(boolean)}.
+ *
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class TreeMetrics {
+	public static final TreeMetrics EMPTY_TREE = new TreeMetrics(true, 0, 0, 0, 0);
+
+
+	private boolean allBranchLengths;
+	private double longestPath;
+	private int depth;
+	private int leafCount;
+	private double totalLength;
+
+
+	private TreeMetrics(boolean allBranchLengths, double longestPath, int depth, int leafCount, double totalLength) {
+		super();
+		this.allBranchLengths = allBranchLengths;
+		this.longestPath = longestPath;
+		this.depth = depth;
+		this.leafCount = leafCount;
+		this.totalLength = totalLength;
+	}
+
+
+	/**
+	 * Collects the values for the subtree under a node during the traversal. The afferent branch of that node is
+	 * not included.
+	 */
+	private static class Accumulator {
+		private boolean allBranchLengths = true;
+		private double longestPath = 0;
+		private int depth = 0;
+		private int leafCount = 0;
+		private double totalLength = 0;
+	}
+
+
+	private static Accumulator calculateSubtree(Node root) {
+		Accumulator result = new Accumulator();
+		if (root.isLeaf()) {
+			result.leafCount = 1;
+		}
+		else {
+			for (Node child : root.getChildren()) {
+				Accumulator childResult = calculateSubtree(child);
+				result.leafCount += childResult.leafCount;
+				result.depth = Math.max(result.depth, childResult.depth + 1);
+				if (child.hasAfferentBranch() && child.getAfferentBranch().hasLength() && childResult.allBranchLengths) {
+					double length = child.getAfferentBranch().getLength();
+					result.longestPath = Math.max(result.longestPath, childResult.longestPath + length);
+					result.totalLength += childResult.totalLength + length;
+				}
+				else {
+					result.allBranchLengths = false;
+				}
+			}
+		}
+		return result;
+	}
+
+
+	/**
+	 * Calculates the metrics of the subtree under the specified node.
+	 *
+	 * @param root the root of the subtree (Can be {@code null}.)
+	 * @param includeRootBranch Specify {@code true} here, if the afferent branch of {@code root} shall be included
+	 *        in the path and total lengths and must therefore have a defined length.
+	 * @return the metrics object or {@link #EMPTY_TREE} if {@code root} was {@code null}
+	 */
+	public static TreeMetrics calculate(Node root, boolean includeRootBranch) {
+		if (root == null) {
+			return EMPTY_TREE;
+		}
+		else {
+			Accumulator values = calculateSubtree(root);
+			if (includeRootBranch) {
+				if (root.hasAfferentBranch() && root.getAfferentBranch().hasLength()) {
+					values.longestPath += root.getAfferentBranch().getLength();
+					values.totalLength += root.getAfferentBranch().getLength();
+				}
+				else {
+					values.allBranchLengths = false;
+				}
+			}
+
+			if (values.allBranchLengths) {
+				return new TreeMetrics(true, values.longestPath, values.depth, values.leafCount, values.totalLength);
+			}
+			else {
+				return new TreeMetrics(false, Double.NaN, values.depth, values.leafCount, Double.NaN);
+			}
+		}
+	}
+
+
+	/**
+	 * Indicates whether all branches of the subtree (including the root branch, if it was included) have a
+	 * defined length.
+	 *
+	 * @return {@code true} if no length is missing, {@code false} otherwise
+	 */
+	public boolean hasAllBranchLengths() {
+		return allBranchLengths;
+	}
+
+
+	/**
+	 * Returns the length of the longest path from the root to a terminal.
+	 *
+	 * @return the length in branch length units or {@code Double.NaN} if not all branch lengths are defined
+	 */
+	public double getLongestPath() {
+		return longestPath;
+	}
+
+
+	/**
+	 * Returns the maximal number of branches between the root and a terminal. (The root branch is never counted.)
+	 *
+	 * @return the depth of the subtree (0 if the subtree only consists of one node)
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+
+	/**
+	 * Returns the number of terminals in the subtree.
+	 *
+	 * @return the number of terminal nodes
+	 */
+	public int getLeafCount() {
+		return leafCount;
+	}
+
+
+	/**
+	 * Returns the sum of all branch lengths in the subtree.
+	 *
+	 * @return the length in branch length units or {@code Double.NaN} if not all branch lengths are defined
+	 */
+	public double getTotalLength() {
+		return totalLength;
+	}
+}
@@ -44,7 +44,8 @@ import info.bioinfweb.treegraph.document.Document;
 public enum DocumentChangeType {
 	/** 
 	 * Indicates that a document change does not affect the paint or topological position of any document element.
-	 * (A color change would be an example.)
+	 * (A color change would be an example.) The positioners are not alerted after edits of this type, so edits which 
+	 * modify anything that is considered during positioning must not use this type.
 	 */
 	NEUTRAL,
 	
@@ -117,8 +117,12 @@ public class ConcreteTextFormats implements ElementFormats, Cloneable, TextForma
 	public Font getFont(float pixelsPerMillimeter) {  
 		float textHeight = getTextHeight().getInPixels(pixelsPerMillimeter);
 		int style = getTextStyle() & ~UNDERLINE;
-		return new Font(getFontName(), style, 1).deriveFont(
-				FontCalculator.getInstance().getFontSizeByTextHeight(textHeight, getFontName(), style));
+		FontCalculator calculator = FontCalculator.getInstance();
+		float size;
+		synchronized (calculator) {  // FontCalculator caches font metrics in an unsynchronized map.
+			size = calculator.getFontSizeByTextHeight(textHeight, getFontName(), style);
+		}
+		return new Font(getFontName(), style, 1).deriveFont(size);
 	}
 
 
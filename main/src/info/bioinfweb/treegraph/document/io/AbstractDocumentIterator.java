@@ -21,6 +21,7 @@ package info.bioinfweb.treegraph.document.io;
 
 import info.bioinfweb.treegraph.document.Document;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
+import info.bioinfweb.treegraph.document.topologicalcalculation.TreeTopology;
 import info.bioinfweb.commons.log.ApplicationLogger;
 
 
@@ -65,6 +66,19 @@ public abstract class AbstractDocumentIterator implements DocumentIterator {
 	
 	
 	protected abstract Document readNext() throws Exception;
+	
+	
+	/**
+	 * Reads the topology of the next tree. This default implementation reads the next document and converts its 
+	 * tree. Inherited classes may overwrite this method to read topologies without creating documents.
+	 * 
+	 * @param leavesAdapter the adapter providing the names of the leaves
+	 * @return the topology of the next tree or {@code null} if there are no more trees
+	 * @since 2.16.0
+	 */
+	protected TreeTopology readNextTopology(NodeBranchDataAdapter leavesAdapter) throws Exception {
+		return TreeTopology.fromDocument(readNext(), leavesAdapter);
+	}
 
 	
 	@Override
@@ -75,6 +89,17 @@ public abstract class AbstractDocumentIterator implements DocumentIterator {
 	}
 
 
+	@Override
+	public TreeTopology nextTopology(NodeBranchDataAdapter leavesAdapter) throws Exception {
+		if (beforeFirst) {  // No document has been read in advance.
+			return readNextTopology(leavesAdapter);
+		}
+		else {
+			return TreeTopology.fromDocument(next(), leavesAdapter);
+		}
+	}
+
+
 	@Override
 	public boolean hasNext() throws Exception {
 		return getNextDocument() != null;
@@ -26,8 +26,10 @@ import info.bioinfweb.commons.log.ApplicationLogger;
 
 import java.io.*;
 
+import javax.xml.namespace.QName;
 import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.events.StartElement;
 
 
@@ -67,7 +69,17 @@ public abstract class AbstractDocumentReader implements DocumentReader {
    * @since 2.0.42
    */
   protected void reachElementEnd(XMLEventReader reader, StartElement element) throws XMLStreamException {
-  	reachElementEnd(reader, "The XML element \"" + element.getName().toString() + "\" and possible subelements ");
+  	reachElementEnd(reader, createElementDescription(element.getName()));
+  }
+  
+  
+  /**
+   * Returns the description of an element and its subelements used in warnings about skipped elements.
+   * @param name - the name of the element
+   * @since 2.16.0
+   */
+  protected String createElementDescription(QName name) {
+  	return "The XML element \"" + name.toString() + "\" and possible subelements ";
   }
   
   
@@ -80,7 +92,47 @@ public abstract class AbstractDocumentReader implements DocumentReader {
    * @since 2.0.42
    */
   protected void reachElementEnd(XMLEventReader reader, String elementDescription) throws XMLStreamException {
-  	if (XMLUtils.reachElementEnd(reader) && (loadLogger != null)) {
+  	if (XMLUtils.reachElementEnd(reader)) {
+  		addSkippedElementsWarning(elementDescription);
+  	}
+  }
+  
+  
+	/**
+   * Delegates to {@link #reachElementEnd(XMLStreamReader, String)} where the name of the start element the 
+   * reader is currently positioned at is passed as <code>elementDescription</code>.
+   * @param reader
+   * @throws XMLStreamException
+   * @since 2.16.0
+   */
+  protected void reachElementEnd(XMLStreamReader reader) throws XMLStreamException {
+  	reachElementEnd(reader, createElementDescription(reader.getName()));
+  }
+  
+  
+  /**
+   * Delegates to {@link XMLUtils#reachElementEnd(XMLStreamReader)} and adds a warning to the {@link LoadLogger}.
+   * @param reader
+   * @param elementDescription - a description of the possibly skipped elements (e.g. "<i>Elements under 
+   *        &lt;ScaleBar&gt;</i>) 
+   * @throws XMLStreamException
+   * @since 2.16.0
+   */
+  protected void reachElementEnd(XMLStreamReader reader, String elementDescription) throws XMLStreamException {
+  	if (XMLUtils.reachElementEnd(reader)) {
+  		addSkippedElementsWarning(elementDescription);
+  	}
+  }
+  
+
+  /**
+   * Adds a warning about skipped XML elements to the {@link LoadLogger}, if one is present.
+   * @param elementDescription - a description of the skipped elements (e.g. "<i>Elements under 
+   *        &lt;ScaleBar&gt;</i>) 
+   * @since 2.16.0
+   */
+  protected void addSkippedElementsWarning(String elementDescription) {
+  	if (loadLogger != null) {
   		loadLogger.addWarning(elementDescription + " are not recognized at this position and were skipped. If you " +
   				"are loading an XTG file and save it to XTG again later these elements will be lost.");
   	}
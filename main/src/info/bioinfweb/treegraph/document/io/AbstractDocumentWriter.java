@@ -30,7 +30,7 @@ public abstract class AbstractDocumentWriter implements DocumentWriter {
   
   
 	public void write(Document document, File file) throws Exception {
-		write(document, new FileOutputStream(file), new ReadWriteParameterMap());
+		write(document, file, new ReadWriteParameterMap());
 	}
   
   
@@ -0,0 +1,107 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.io;
+
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+
+
+/**
+ * Provides methods to detect and read GZIP compressed files, e.g. compressed XTG files.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class CompressionUtils {
+	/** The size of the buffers used for reading and writing compressed data. */
+	public static final int BUFFER_SIZE = 256 * 1024;
+	
+	
+	/**
+	 * Tests whether the specified stream starts with the GZIP magic bytes. The position of the stream is not 
+	 * changed.
+	 * 
+	 * @param stream a stream that supports {@link InputStream#mark(int)}
+	 * @return {@code true} if the stream contains GZIP data, {@code false} otherwise
+	 * @throws IOException if reading from the stream fails
+	 */
+	public static boolean isGZIPStream(InputStream stream) throws IOException {
+		stream.mark(2);
+		try {
+			int first = stream.read();
+			int second = stream.read();
+			return (first != -1) && (second != -1) && (((second << 8) | first) == GZIPInputStream.GZIP_MAGIC);
+		}
+		finally {
+			stream.reset();
+		}
+	}
+	
+	
+	/**
+	 * Tests whether the specified file starts with the GZIP magic bytes.
+	 * 
+	 * @param file the file to be tested
+	 * @return {@code true} if the file is readable and contains GZIP data, {@code false} otherwise
+	 */
+	public static boolean isGZIPFile(File file) {
+		if (file.isFile()) {
+			try {
+				InputStream stream = new BufferedInputStream(new FileInputStream(file), 2);
+				try {
+					return isGZIPStream(stream);
+				}
+				finally {
+					stream.close();
+				}
+			}
+			catch (IOException e) {
+				return false;
+			}
+		}
+		else {
+			return false;
+		}
+	}
+	
+	
+	/**
+	 * Returns a stream that decompresses the specified stream on the fly, if it contains GZIP data. Data that 
+	 * consists of several concatenated GZIP members (e.g. written by {@link ParallelGZIPOutputStream}) is 
+	 * read completely.
+	 * 
+	 * @param stream the stream to be read
+	 * @return a buffered decompressing stream or {@code stream}, if it is not compressed
+	 * @throws IOException if reading from the stream fails
+	 */
+	public static BufferedInputStream decompressIfGZIP(BufferedInputStream stream) throws IOException {
+		if (isGZIPStream(stream)) {
+			return new BufferedInputStream(new GZIPInputStream(stream, BUFFER_SIZE), BUFFER_SIZE);
+		}
+		else {
+			return stream;
+		}
+	}
+}
@@ -20,6 +20,8 @@ package info.bioinfweb.treegraph.document.io;
 
 
 import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
+import info.bioinfweb.treegraph.document.topologicalcalculation.TreeTopology;
 
 
 
@@ -35,4 +37,14 @@ public interface DocumentIterator {
   public boolean hasNext() throws Exception;
   
   public Document peek() throws Exception;
+  
+  /**
+   * Returns the topology of the next tree. Implementations may read the topology directly without creating a 
+   * {@link Document}, if the leaf names provided by {@code leavesAdapter} are available this way.
+   * 
+   * @param leavesAdapter the adapter providing the names of the leaves
+   * @return the topology of the next tree or {@code null} if there are no more trees
+   * @since 2.16.0
+   */
+  public TreeTopology nextTopology(NodeBranchDataAdapter leavesAdapter) throws Exception;
 }
@@ -23,6 +23,7 @@ import java.io.File;
 
 import info.bioinfweb.treegraph.document.Document;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
+import info.bioinfweb.treegraph.document.topologicalcalculation.TreeTopology;
 import info.bioinfweb.commons.log.ApplicationLogger;
 
 
@@ -68,4 +69,21 @@ public class MultipleDocumentIterator extends AbstractDocumentIterator implement
 		}
 		return null;
   }
+
+
+	@Override
+	protected TreeTopology readNextTopology(NodeBranchDataAdapter leavesAdapter) throws Exception {
+		TreeTopology result = null; 
+		if (documentIterator != null){
+			result = documentIterator.nextTopology(leavesAdapter);
+		}
+		
+		while ((result == null) && (position + 1 < files.length)) {  // Skip files without trees.
+			position++;
+			documentIterator = ReadWriteFactory.getInstance().getReader(files[position]).readAll(
+					files[position], getParameterMap());
+			result = documentIterator.nextTopology(leavesAdapter);
+		}
+		return result;
+	}
 }
@@ -0,0 +1,250 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.io;
+
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+
+
+/**
+ * Output stream that compresses its data in the GZIP format using several threads.
+ * <p>
+ * The data is split into blocks of a fixed size, which are compressed independently from each other by a 
+ * thread pool. Each block is written as a complete GZIP member. According to RFC 1952 the concatenation of 
+ * such members is a valid GZIP stream, which can be read e.g. by {@link GZIPInputStream} or the {@code gzip} 
+ * command line tool. Since compressing a block does not depend on previous blocks, the compression ratio is 
+ * slightly lower than the ratio of {@link java.util.zip.GZIPOutputStream}.
+ * <p>
+ * Blocks are written to the underlying stream in their original order. The number of blocks that are 
+ * compressed at the same time is limited, so that memory usage does not depend on the amount of data.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class ParallelGZIPOutputStream extends OutputStream {
+	public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+	
+	private static final int PENDING_BLOCKS_PER_THREAD = 2;
+	private static final byte[] MEMBER_HEADER = {(byte)0x1f, (byte)0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte)0xff};  // No flags, no modification time, unknown OS
+	
+	
+	private OutputStream out;
+	private int threadCount;
+	private int level;
+	private ExecutorService executor = null;
+	private Deque<Future<byte[]>> pendingBlocks = new ArrayDeque<Future<byte[]>>();
+	private byte[] block;
+	private int blockLength = 0;
+	private boolean closed = false;
+	
+	
+	/**
+	 * Creates a new instance of this class using a worker thread for each available processor, the default 
+	 * block size and the default compression level.
+	 * 
+	 * @param out the stream to write the compressed data to
+	 */
+	public ParallelGZIPOutputStream(OutputStream out) {
+		this(out, Runtime.getRuntime().availableProcessors(), DEFAULT_BLOCK_SIZE, Deflater.DEFAULT_COMPRESSION);
+	}
+	
+	
+	/**
+	 * Creates a new instance of this class.
+	 * 
+	 * @param out the stream to write the compressed data to
+	 * @param threadCount the number of threads compressing blocks (If 1 is specified, all blocks are compressed 
+	 *        in the calling thread.)
+	 * @param blockSize the number of uncompressed bytes in each block
+	 * @param level the compression level (see {@link Deflater#setLevel(int)})
+	 */
+	public ParallelGZIPOutputStream(OutputStream out, int threadCount, int blockSize, int level) {
+		super();
+		if (blockSize < 1) {
+			throw new IllegalArgumentException("The block size must be at least 1.");
+		}
+		this.out = out;
+		this.threadCount = Math.max(1, threadCount);
+		this.level = level;
+		block = new byte[blockSize];
+	}
+	
+	
+	private static void writeIntLE(ByteArrayOutputStream stream, long value) {
+		for (int i = 0; i < 4; i++) {
+			stream.write((int)(value >>> (8 * i)) & 0xff);
+		}
+	}
+	
+	
+	/**
+	 * Compresses the specified data to a complete GZIP member.
+	 */
+	private static byte[] compressMember(byte[] data, int length, int level) {
+		ByteArrayOutputStream result = new ByteArrayOutputStream(length / 4 + MEMBER_HEADER.length + 64);
+		result.write(MEMBER_HEADER, 0, MEMBER_HEADER.length);
+		
+		Deflater deflater = new Deflater(level, true);  // GZIP uses raw deflate data.
+		try {
+			deflater.setInput(data, 0, length);
+			deflater.finish();
+			byte[] buffer = new byte[64 * 1024];
+			while (!deflater.finished()) {
+				int count = deflater.deflate(buffer);
+				result.write(buffer, 0, count);
+			}
+		}
+		finally {
+			deflater.end();
+		}
+		
+		CRC32 crc = new CRC32();
+		crc.update(data, 0, length);
+		writeIntLE(result, crc.getValue());
+		writeIntLE(result, length);  // Always smaller than 2^32.
+		return result.toByteArray();
+	}
+	
+	
+	private void writeMember(Future<byte[]> member) throws IOException {
+		try {
+			out.write(member.get());
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException)e.getCause();
+			}
+			else {
+				throw new IOException(e.getCause());
+			}
+		}
+	}
+	
+	
+	private void flushBlock() throws IOException {
+		if (blockLength > 0) {
+			if (threadCount == 1) {
+				out.write(compressMember(block, blockLength, level));
+			}
+			else {
+				if (executor == null) {
+					executor = Executors.newFixedThreadPool(threadCount);
+				}
+				final byte[] data = Arrays.copyOf(block, blockLength);
+				pendingBlocks.add(executor.submit(new Callable<byte[]>() {
+							@Override
+							public byte[] call() throws Exception {
+								return compressMember(data, data.length, level);
+							}
+						}));
+				if (pendingBlocks.size() >= PENDING_BLOCKS_PER_THREAD * threadCount) {
+					writeMember(pendingBlocks.poll());  // Limits the number of blocks in memory.
+				}
+			}
+			blockLength = 0;
+		}
+	}
+	
+	
+	private void ensureOpen() throws IOException {
+		if (closed) {
+			throw new IOException("The stream has already been closed.");
+		}
+	}
+	
+	
+	@Override
+	public void write(int b) throws IOException {
+		ensureOpen();
+		block[blockLength] = (byte)b;
+		blockLength++;
+		if (blockLength == block.length) {
+			flushBlock();
+		}
+	}
+
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		ensureOpen();
+		while (len > 0) {
+			int count = Math.min(len, block.length - blockLength);
+			System.arraycopy(b, off, block, blockLength, count);
+			blockLength += count;
+			off += count;
+			len -= count;
+			if (blockLength == block.length) {
+				flushBlock();
+			}
+		}
+	}
+
+
+	/**
+	 * Compresses all data written so far and writes it to the underlying stream. Calling this method often 
+	 * reduces the compression ratio, since the current block is ended.
+	 */
+	@Override
+	public void flush() throws IOException {
+		ensureOpen();
+		flushBlock();
+		while (!pendingBlocks.isEmpty()) {
+			writeMember(pendingBlocks.poll());
+		}
+		out.flush();
+	}
+
+
+	/**
+	 * Writes all remaining data and closes the underlying stream.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!closed) {
+			try {
+				flush();
+			}
+			finally {
+				closed = true;
+				if (executor != null) {
+					executor.shutdownNow();
+				}
+				out.close();
+			}
+		}
+	}
+}
@@ -53,7 +53,7 @@ public class ReadWriteFactory {
   }
   
   
-  public static ReadWriteFactory getInstance() {
+  public static synchronized ReadWriteFactory getInstance() {
   	if (firstInstance == null) {
   		firstInstance = new ReadWriteFactory();
   	}
@@ -80,7 +80,12 @@ public class ReadWriteFactory {
 	
 	public ReadWriteFormat formatByFile(File file) {
 		ReadWriteFormat result = formatByFileName(file.getName());
-		if (result != null) {
+		if (((result == null) || result.equals(ReadWriteFormat.XTG) || result.equals(ReadWriteFormat.PHYLO_XML) || 
+				result.equals(ReadWriteFormat.NEXML)) && CompressionUtils.isGZIPFile(file)) {
+			
+			result = ReadWriteFormat.XTG;  // Compressed XTG is currently the only supported compressed format.
+		}
+		else if (result != null) {
 			if (result.equals(ReadWriteFormat.NEWICK) || result.equals(ReadWriteFormat.NEXUS)) {  // In diesem Fall ist aufgrund der Dateierweiterung nicht klar, ob es sich um NEWICK oder NEXUS handelt.
 				if (getFilter(ReadWriteFormat.NEXUS).accept(file)) {  // Datei wird ge�ffnet und gepr�ft, ob "#NEXUS" vorhanden ist.
 					result = ReadWriteFormat.NEXUS;
@@ -35,6 +35,21 @@ public class ReadWriteParameterMap extends ApplicationLoggerParameterMap {
 	public static final String KEY_EXPORT_TAXA_BLOCK = "exportTaxaBlock";
 	public static final String KEY_USE_TRANSL_TABLE = "useTranslTable";
 	
+	/** 
+	 * Determines whether {@link info.bioinfweb.treegraph.document.io.xtg.XTGWriter} writes a shared table of styles 
+	 * (default) or the formats of each element as its attributes.
+	 * 
+	 * @since 2.16.0 
+	 */
+	public static final String KEY_WRITE_STYLES = "writeStyles";
+	
+	/** 
+	 * Determines whether {@link info.bioinfweb.treegraph.document.io.xtg.XTGWriter} compresses its output using GZIP.
+	 * 
+	 * @since 2.16.0 
+	 */
+	public static final String KEY_COMPRESS = "compress";
+	
 	
 	/**
 	 * Checks if a {@link NodeBranchDataAdapter} object is stored under the specified key. If the stored object has 
@@ -20,6 +20,8 @@ package info.bioinfweb.treegraph.document.io;
 
 
 import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
+import info.bioinfweb.treegraph.document.topologicalcalculation.TreeTopology;
 
 
 
@@ -60,4 +62,10 @@ public class SingleDocumentIterator implements DocumentIterator {
 		document = null;
 		return result;
 	}
+
+
+	@Override
+	public TreeTopology nextTopology(NodeBranchDataAdapter leavesAdapter) throws Exception {
+		return TreeTopology.fromDocument(next(), leavesAdapter);
+	}
 }
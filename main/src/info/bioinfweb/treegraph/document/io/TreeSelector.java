@@ -28,6 +28,10 @@ import info.bioinfweb.treegraph.document.Tree;
 /**
  * Classes implementing this interface allow a reader class to select a tree to be imported if several trees are
  * contained in a file.
+ * <p>
+ * Readers may create the elements of the list of trees passed to {@link #select(String[], List)} only when they are 
+ * accessed, so implementations should only request the trees they really need (e.g. to display a preview of the 
+ * tree currently chosen by the user).
  * 
  * @author Ben St&ouml;ver
  */
@@ -107,6 +107,35 @@ public class AncestralStateData {
 	}
 	
 	
+	/**
+	 * Adds a site without any states, if it is not already present.
+	 * 
+	 * @param siteName the name of the site
+	 * @since 2.16.0
+	 */
+	void addSite(String siteName) {
+		if (siteMap.get(siteName) == null) {			
+			siteMap.put(siteName, new ListOrderedMap<String, ProbabilityData>());
+		}
+	}
+	
+	
+	/**
+	 * Stores an already normalized probability. The site must already be present.
+	 * 
+	 * @param siteName the name of the site
+	 * @param stateName the name of the state
+	 * @param probability the averaged probability
+	 * @since 2.16.0
+	 */
+	void setProbability(String siteName, String stateName, double probability) {
+		ProbabilityData data = new ProbabilityData();
+		data.probability = probability;
+		data.elementCount = -1;
+		siteMap.get(siteName).put(stateName, data);
+	}
+	
+	
 	public void addToProbability(String siteName, String stateName, String addend) {		
 		if (siteMap.get(siteName) == null) {			
 			siteMap.put(siteName, new ListOrderedMap<String, ProbabilityData>());
@@ -24,17 +24,34 @@ import info.bioinfweb.commons.io.PeekReader;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 
 
+/**
+ * Reads the node definitions and the averaged ancestral state probabilities from a BayesTraits output file.
+ * <p>
+ * The heading of the probability table is compiled once into a {@link BayesTraitsTable}. If more than one thread 
+ * is used, the rows of the table are processed in chunks by a set of worker threads and the partial sums of the
+ * chunks are added in the order of the chunks, so that the results do not depend on the scheduling of the threads.
+ * 
+ * @author Ben St&ouml;ver
+ */
 public class BayesTraitsReader {
 	private static final int PEEK_BUFFER_SIZE = 1024 * 1024;
+	private static final int ROWS_PER_CHUNK = 256;
+	private static final int PENDING_CHUNKS_PER_THREAD = 2;
 	
 	public static final String ROOT_NAME = "Root";
 	
@@ -44,13 +61,31 @@ public class BayesTraitsReader {
 	private static final String LIKELIHOOD_TABLE_START = "Tree No\t";
 	
 	private static final Pattern LEAF_NAME_PATTERN = Pattern.compile("\\s*\\d+\\s+(\\S+)\\s*");
-	private static final Pattern HEADING = Pattern.compile("(\\S+)\\s(?:\\-\\s)?(\\w\\(.+\\))");  // Headings may have one of the following forms: "name - S(n) - P(n)", "name - P(n)", "name - P(n, m)", "name P(n)". (At least these are the forms observed until now.)  
 	private static final Pattern STATE_PATTERN = Pattern.compile("P\\((.+)\\)");
 	private static final Pattern SITE_AND_STATE_PATTERN = Pattern.compile("S\\((.+)\\)\\s-\\sP\\((.+)\\)");
 	
 	
+	private int threadCount;
+	
+	
+	/**
+	 * Creates a new instance of this class using a worker thread for each available processor.
+	 */
 	public BayesTraitsReader() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+	
+	
+	/**
+	 * Creates a new instance of this class.
+	 * 
+	 * @param threadCount the number of threads to process the rows of the probability table (If 1 is specified, all 
+	 *        rows are processed in the calling thread.)
+	 * @since 2.16.0
+	 */
+	public BayesTraitsReader(int threadCount) {
 		super();
+		this.threadCount = Math.max(1, threadCount);
 	}
 	
 	
@@ -109,41 +144,74 @@ public class BayesTraitsReader {
 	}
 	
 	
-	private void readTable(PeekReader reader, Map<String, AncestralStateData> nodes) throws IOException {
-		String line = reader.readLine().getSequence().toString();		
-		String[] parts = line.split("\\t");
-		List<String> nodeNames = new ArrayList<String>();
-		List<String> probabilityKeys = new ArrayList<String>();
-		
-		for (int i = 0; i < parts.length; i++) {
-			Matcher matcher = HEADING.matcher(parts[i]);
-			if (matcher.matches()) {
-				nodeNames.add(matcher.group(1));
-				probabilityKeys.add(matcher.group(2));
+	private static BayesTraitsTable.Accumulator getResult(Future<BayesTraitsTable.Accumulator> future) throws IOException {
+		try {
+			return future.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Reading the table was interrupted.", e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException)e.getCause();
 			}
-			else {				
-				nodeNames.add(null);
-				probabilityKeys.add(null);		
+			else {
+				throw new IOException(e.getCause());
 			}
 		}
-		
-		while (reader.peek() != -1) {
-			line = reader.readLine().getSequence().toString();
-			parts = line.split("\\t");
-			for (int i = 0; i < parts.length; i++) {
-				if (nodeNames.get(i) != null) {
-					String[] headingParts = getHeadingParts(probabilityKeys.get(i));
-					nodes.get(nodeNames.get(i)).addToProbability(headingParts[0], headingParts[1], parts[i]);
+	}
+	
+	
+	private BayesTraitsTable.Accumulator readRowsParallel(BayesTraitsTable table, BufferedReader rowReader) throws IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			BayesTraitsTable.Accumulator result = table.createAccumulator();
+			Deque<Future<BayesTraitsTable.Accumulator>> pendingChunks = new ArrayDeque<Future<BayesTraitsTable.Accumulator>>();
+			List<String> chunk = new ArrayList<String>(ROWS_PER_CHUNK);
+			long firstRowIndex = 0;
+			String line = rowReader.readLine();
+			while (line != null) {
+				chunk.add(line);
+				line = rowReader.readLine();
+				if ((chunk.size() == ROWS_PER_CHUNK) || (line == null)) {
+					pendingChunks.add(executor.submit(table.createTask(chunk, firstRowIndex)));
+					firstRowIndex += chunk.size();
+					chunk = new ArrayList<String>(ROWS_PER_CHUNK);
+					if (pendingChunks.size() >= PENDING_CHUNKS_PER_THREAD * threadCount) {
+						result.add(getResult(pendingChunks.poll()));  // Limits the number of lines in memory.
+					}
 				}
-			}		
-		}		
-		
-		for (int i = 0; i < nodeNames.size(); i++) {
-			if (nodeNames.get(i) != null) {
-				String[] headingParts = getHeadingParts(probabilityKeys.get(i));
-				nodes.get(nodeNames.get(i)).normalizeProbability(headingParts[0], headingParts[1]);
 			}
-		}		
+			while (!pendingChunks.isEmpty()) {
+				result.add(getResult(pendingChunks.poll()));
+			}
+			return result;
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	
+	private void readTable(PeekReader reader, Map<String, AncestralStateData> nodes) throws IOException {
+		BayesTraitsTable table = new BayesTraitsTable(this, reader.readLine().getSequence().toString(), nodes);
+		BufferedReader rowReader = new BufferedReader(reader);  // The table always reaches until the end of the file.
+		BayesTraitsTable.Accumulator sums;
+		if (threadCount == 1) {
+			sums = table.createAccumulator();
+			long rowIndex = 0;
+			String line = rowReader.readLine();
+			while (line != null) {
+				table.addRow(line, rowIndex, sums);
+				rowIndex++;
+				line = rowReader.readLine();
+			}
+		}
+		else {
+			sums = readRowsParallel(table, rowReader);
+		}
+		table.writeProbabilities(sums);
 	}
 	
 	
@@ -0,0 +1,258 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.io.ancestralstate;
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import info.bioinfweb.commons.Math2;
+
+
+
+/**
+ * The plan to process the rows of a BayesTraits output table, which is compiled once from the heading line.
+ * <p>
+ * Each column containing a probability is assigned to a slot which represents a combination of node, site and 
+ * state. Rows are split into cells without creating intermediate arrays and the values of each slot are summed up 
+ * in an {@link Accumulator}. Accumulators of different parts of the table can be merged, so that rows can be 
+ * processed in parallel.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+class BayesTraitsTable {
+	private static final Pattern HEADING = Pattern.compile("(\\S+)\\s(?:\\-\\s)?(\\w\\(.+\\))");  // Headings may have one of the following forms: "name - S(n) - P(n)", "name - P(n)", "name - P(n, m)", "name P(n)". (At least these are the forms observed until now.)
+	private static final String MISSING_VALUE = "--";
+	
+	
+	/**
+	 * The node, site and state of a slot.
+	 */
+	private static class Slot {
+		private AncestralStateData data;
+		private String siteName;
+		private String stateName;
+		
+		
+		public Slot(AncestralStateData data, String siteName, String stateName) {
+			super();
+			this.data = data;
+			this.siteName = siteName;
+			this.stateName = stateName;
+		}
+	}
+	
+	
+	/**
+	 * Stores the sums and numbers of the values of each slot in the processed rows.
+	 */
+	static class Accumulator {
+		private double[] sums;
+		private long[] counts;
+		
+		/** The position of the first cell of each slot (also including missing values). */
+		private long[] firstCellPositions;
+		
+		/** The position of the first value of each slot. */
+		private long[] firstValuePositions;
+		
+		
+		private Accumulator(int slotCount) {
+			super();
+			sums = new double[slotCount];
+			counts = new long[slotCount];
+			firstCellPositions = new long[slotCount];
+			Arrays.fill(firstCellPositions, Long.MAX_VALUE);
+			firstValuePositions = new long[slotCount];
+			Arrays.fill(firstValuePositions, Long.MAX_VALUE);
+		}
+		
+		
+		/**
+		 * Adds the values of the specified accumulator to this instance.
+		 * 
+		 * @param other the accumulator to be added (Must have been created by the same table instance.)
+		 */
+		public void add(Accumulator other) {
+			for (int slot = 0; slot < sums.length; slot++) {
+				sums[slot] += other.sums[slot];
+				counts[slot] += other.counts[slot];
+				firstCellPositions[slot] = Math.min(firstCellPositions[slot], other.firstCellPositions[slot]);
+				firstValuePositions[slot] = Math.min(firstValuePositions[slot], other.firstValuePositions[slot]);
+			}
+		}
+	}
+	
+	
+	/** The slot index for each column or -1 if a column contains no probabilities. */
+	private int[] columnSlots;
+	
+	private List<Slot> slots = new ArrayList<Slot>();
+	
+	
+	/**
+	 * Compiles the plan from the heading line of a table.
+	 * 
+	 * @param reader the reader used to determine the site and state of a heading
+	 * @param headingLine the heading line of the table
+	 * @param nodes the nodes defined before the table in the file
+	 * @throws IOException if a heading could not be parsed or references an unknown node
+	 */
+	public BayesTraitsTable(BayesTraitsReader reader, String headingLine, Map<String, AncestralStateData> nodes) throws IOException {
+		super();
+		String[] headings = headingLine.split("\\t");
+		columnSlots = new int[headings.length];
+		Map<List<String>, Integer> slotIndices = new HashMap<List<String>, Integer>();
+		for (int column = 0; column < headings.length; column++) {
+			Matcher matcher = HEADING.matcher(headings[column]);
+			if (matcher.matches()) {
+				String[] headingParts = reader.getHeadingParts(matcher.group(2));
+				List<String> key = Arrays.asList(matcher.group(1), headingParts[0], headingParts[1]);
+				Integer slot = slotIndices.get(key);
+				if (slot == null) {
+					AncestralStateData data = nodes.get(matcher.group(1));
+					if (data == null) {
+						throw new IOException("The table contains the column \"" + headings[column] + 
+								"\" referencing the undefined node \"" + matcher.group(1) + "\".");
+					}
+					slot = slots.size();
+					slots.add(new Slot(data, headingParts[0], headingParts[1]));
+					slotIndices.put(key, slot);
+				}
+				columnSlots[column] = slot;
+			}
+			else {
+				columnSlots[column] = -1;
+			}
+		}
+	}
+	
+	
+	/**
+	 * Creates a new empty accumulator for this table.
+	 */
+	public Accumulator createAccumulator() {
+		return new Accumulator(slots.size());
+	}
+	
+	
+	/**
+	 * Adds the values of a row of the table to the specified accumulator. Empty cells and cells containing 
+	 * {@code "--"} are treated as missing values.
+	 * 
+	 * @param line the line containing the row
+	 * @param rowIndex the index of the row in the table (Rows must be added to an accumulator in increasing order.) 
+	 * @param accumulator the accumulator to add the values to
+	 * @throws NumberFormatException if a cell in a probability column contained no valid number
+	 */
+	public void addRow(String line, long rowIndex, Accumulator accumulator) {
+		int length = line.length();
+		int start = 0;
+		int column = 0;
+		while ((start <= length) && (column < columnSlots.length)) {
+			int end = line.indexOf('\t', start);
+			if (end == -1) {
+				end = length;
+			}
+			
+			int slot = columnSlots[column];
+			if ((slot != -1) && (end > start)) {
+				long position = rowIndex * columnSlots.length + column;
+				if (accumulator.firstCellPositions[slot] == Long.MAX_VALUE) {
+					accumulator.firstCellPositions[slot] = position;
+				}
+				if ((end - start != MISSING_VALUE.length()) || !line.startsWith(MISSING_VALUE, start)) {
+					accumulator.sums[slot] += Math2.parseDouble(line.substring(start, end));
+					accumulator.counts[slot]++;
+					if (accumulator.firstValuePositions[slot] == Long.MAX_VALUE) {
+						accumulator.firstValuePositions[slot] = position;
+					}
+				}
+			}
+			
+			start = end + 1;
+			column++;
+		}
+	}
+	
+	
+	/**
+	 * Creates a task that adds the specified rows to a new accumulator.
+	 * 
+	 * @param lines the lines containing the rows
+	 * @param firstRowIndex the index of the first of these rows in the table
+	 * @return the task returning the accumulator
+	 */
+	public Callable<Accumulator> createTask(final List<String> lines, final long firstRowIndex) {
+		return new Callable<Accumulator>() {
+			@Override
+			public Accumulator call() throws Exception {
+				Accumulator result = createAccumulator();
+				for (int i = 0; i < lines.size(); i++) {
+					addRow(lines.get(i), firstRowIndex + i, result);
+				}
+				return result;
+			}
+		};
+	}
+	
+	
+	private List<Integer> sortedSlots(final long[] positions) {
+		List<Integer> result = new ArrayList<Integer>(slots.size());
+		for (int slot = 0; slot < slots.size(); slot++) {
+			if (positions[slot] != Long.MAX_VALUE) {
+				result.add(slot);
+			}
+		}
+		Collections.sort(result, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer slot1, Integer slot2) {
+				return Long.compare(positions[slot1], positions[slot2]);
+			}
+		});
+		return result;
+	}
+	
+	
+	/**
+	 * Writes the averaged probabilities to the node data objects. Sites and states are added in the order of
+	 * their first occurrence in the table.
+	 * 
+	 * @param accumulator the accumulator containing the values of all rows of the table
+	 */
+	public void writeProbabilities(Accumulator accumulator) {
+		for (int slot : sortedSlots(accumulator.firstCellPositions)) {
+			slots.get(slot).data.addSite(slots.get(slot).siteName);
+		}
+		for (int slot : sortedSlots(accumulator.firstValuePositions)) {
+			Slot slotData = slots.get(slot);
+			slotData.data.setProbability(slotData.siteName, slotData.stateName, accumulator.sums[slot] / accumulator.counts[slot]);
+		}
+	}
+}
@@ -38,37 +38,37 @@ public class NewickException extends RuntimeException {
 	private String sourceAfter;
 
 
-  private void storePositionInfo(int pos, final String source) {
+  private void storePositionInfo(int pos, final CharSequence source) {
 		position = pos;
-  	sourceBefore = source.substring(Math.max(0, pos - CHAR_COUNT_BEFORE), pos);
-  	sourceAfter = source.substring(pos, Math.min(source.length(), pos + CHAR_COUNT_AFTER));
+  	sourceBefore = source.subSequence(Math.max(0, pos - CHAR_COUNT_BEFORE), pos).toString();
+  	sourceAfter = source.subSequence(pos, Math.min(source.length(), pos + CHAR_COUNT_AFTER)).toString();
   }
 	
 	
-  public NewickException(int pos, final String source, String msg) {
+  public NewickException(int pos, final CharSequence source, String msg) {
   	super(msg);
 		storePositionInfo(pos, source);
   }
   
   
-  public NewickException(int pos, final String source, TokenType expected, TokenType found) {
+  public NewickException(int pos, final CharSequence source, TokenType expected, TokenType found) {
   	super("Token " + expected.toString() + " expected but token " + found.toString() + " found.");
 		storePositionInfo(pos, source);
   }
   
   
-  public NewickException(NewickToken token, final String source) {
+  public NewickException(NewickToken token, final CharSequence source) {
   	super("Unexpected token " + token.getType().toString() + ".");
 		storePositionInfo(token.getTextPos(), source);
   }
   
   
-  public static NewickException getUnterminatedNameException(int start, final String source) {
+  public static NewickException getUnterminatedNameException(int start, final CharSequence source) {
   	return new NewickException(start, source, "Unterminated name");
   }
 
 
-  public static NewickException getUnterminatedCommentException(int start, final String source) {
+  public static NewickException getUnterminatedCommentException(int start, final CharSequence source) {
   	return new NewickException(start, source, "Unterminated comment");
   }
 
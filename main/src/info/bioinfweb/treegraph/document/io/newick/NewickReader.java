@@ -34,12 +34,12 @@ import info.bioinfweb.treegraph.document.io.DocumentIterator;
 import info.bioinfweb.treegraph.document.io.DocumentReader;
 import info.bioinfweb.treegraph.document.io.ReadWriteParameterMap;
 import info.bioinfweb.treegraph.document.io.TextStreamReader;
-import info.bioinfweb.treegraph.document.io.nexus.NexusParser;
 import info.bioinfweb.treegraph.document.nodebranchdata.BranchLengthAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.NewNodeBranchDataAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeNameAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.VoidNodeBranchDataAdapter;
+import info.bioinfweb.treegraph.document.topologicalcalculation.TreeTopology;
 import info.bioinfweb.commons.log.ApplicationLogger;
 
 
@@ -50,15 +50,8 @@ import info.bioinfweb.commons.log.ApplicationLogger;
  * @author Ben St&ouml;ver
  */
 public class NewickReader extends TextStreamReader implements DocumentReader {
-	private enum Status {
-		FREE,
-		NAME,
-		COMMENT;
-	}
-	
-	
 	private class NewickDocumentIterator extends AbstractDocumentIterator {
-		private InputStreamReader streamReader;
+		private NewickStreamSplitter splitter;
 		private NewickStringReader newickStringReader = new NewickStringReader(); 
 		
 		
@@ -67,13 +60,13 @@ public class NewickReader extends TextStreamReader implements DocumentReader {
 				NodeBranchDataAdapter branchLengthsAdapter) {
 			
 			super(loadLogger, internalAdapter, branchLengthsAdapter, false);
-			streamReader = reader;
+			splitter = new NewickStreamSplitter(reader);
 		}
 
 
 		@Override
 		protected Document readNext() throws Exception {
-			String tree = readNextTree(streamReader);
+			CharSequence tree = splitter.nextTree();  // Is passed without copying, since it is not needed anymore after reading.
 			if (tree != null) {
 				Document result = createEmptyDocument();
 				result.setTree(newickStringReader.read(
@@ -87,6 +80,23 @@ public class NewickReader extends TextStreamReader implements DocumentReader {
 				return null;
 			}
 		}
+
+
+		@Override
+		protected TreeTopology readNextTopology(NodeBranchDataAdapter leavesAdapter) throws Exception {
+			if (leavesAdapter instanceof NodeNameAdapter) {  // Leaf names can be taken directly from the Newick string.
+				CharSequence tree = splitter.nextTree();
+				if (tree != null) {
+					return newickStringReader.readTopology(tree, null);
+				}
+				else {
+					return null;
+				}
+			}
+			else {
+				return super.readNextTopology(leavesAdapter);
+			}
+		}
   }
 	
 	
@@ -98,69 +108,13 @@ public class NewickReader extends TextStreamReader implements DocumentReader {
 	}
 	
 	
-	private String terminateNewick(String newick) {
-		if (!newick.endsWith("" + NewickStringChars.TERMINAL_SYMBOL)) {
-			newick += NewickStringChars.TERMINAL_SYMBOL;
-		}
-		return newick;
-	}
-	
-	
-	private String readNextTree(InputStreamReader reader) throws IOException {
-		int code = reader.read();
-		if (code == -1) {  //TODO Wird hier wirklich -1 zurückgegeben, wenn Ende des Streams erreicht ist?
-			return null;
-		}
-		else {
-			StringBuffer result = new StringBuffer(NexusParser.MAX_EXPECTED_COMMAND_LENGTH);
-			
-			Status status = Status.FREE;
-			while (code != -1) {
-				char c = (char)code;
-				result.append(c);
-				switch (status) {
-				  case FREE:
-						switch (result.charAt(result.length() - 1)) {
-						  case NewickStringChars.NAME_DELIMITER:
-			  				status = Status.NAME;
-			  				break;
-						  case NewickStringChars.COMMENT_START:
-			  				status = Status.COMMENT;
-			  				break;
-						  case NewickStringChars.TERMINAL_SYMBOL:
-						  	return result.toString();
-						}
-						break;
-				  case NAME:
-				  	if (c == NewickStringChars.NAME_DELIMITER) {
-				  		status = Status.FREE;
-				  	}
-				  	break;
-				  case COMMENT:
-				  	if (c == NewickStringChars.COMMENT_END) {
-				  		status = Status.FREE;
-				  	}
-				  	break;
-				}
-				code = reader.read();
-			}
-			String newick = result.toString().trim();
-			if (newick.equals("")) {
-				return null;  // null should be returned already here, because the file could end with whitespaces
-			}
-			else {
-				return terminateNewick(newick);  // If end of file was reached without a terminal symbol, the sequence until then is returned.
-			}
-		}
-	}
-	
-	
 	private String[] splitDocument(InputStreamReader reader) throws IOException {
   	LinkedList<String> result = new LinkedList<String>();
-		String tree = readNextTree(reader);
+  	NewickStreamSplitter splitter = new NewickStreamSplitter(reader);
+		CharSequence tree = splitter.nextTree();
 		while (tree != null) {
-			result.add(tree);
-			tree = readNextTree(reader);
+			result.add(tree.toString());
+			tree = splitter.nextTree();
 		}
 		return result.toArray(new String[result.size()]);		
 	}
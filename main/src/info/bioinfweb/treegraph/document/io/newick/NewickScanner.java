@@ -21,22 +21,31 @@ package info.bioinfweb.treegraph.document.io.newick;
 
 import info.bioinfweb.treegraph.document.io.nexus.NexusParser;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Vector;
 
 
 
+/**
+ * Splits a Newick string into a list of {@link NewickToken}s.
+ * <p>
+ * The scanner works on index ranges of the passed character sequence and creates at most one string per
+ * name or comment. Most branch lengths are converted without creating a string at all.
+ * 
+ * @author Ben St&ouml;ver
+ */
 public class NewickScanner extends NewickStringChars {
-	private static NewickToken readFreeName(final String text, int start) {
-		String result = "" + text.charAt(start);
+	/** The maximal number of significant digits that can be converted exactly using a {@code long} and a single division. */
+	private static final int MAX_FAST_PATH_DIGITS = 15;
+	
+	/** All powers of ten that can be represented exactly by a {@code double}. */
+	private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+	
+	
+	private static int readFreeName(final CharSequence text, int start, List<NewickToken> tokenList) {
 		int pos = start + 1;
 		while ((pos < text.length()) && isFreeNameChar((text.charAt(pos)))) {
-			if (text.charAt(pos) == FREE_NAME_BLANK) {
-				result += ' ';
-			}
-			else {
-				result += text.charAt(pos);
-			}
 			pos++;
 		}
 		
@@ -44,22 +53,28 @@ public class NewickScanner extends NewickStringChars {
 			throw NewickException.getUnterminatedNameException(start, text);
 		}
 		else {
-			return new NewickToken(start, result, false);  //TODO end - 1?
+			String name = text.subSequence(start, pos).toString();
+			if (name.indexOf(FREE_NAME_BLANK, 1) != -1) {  // A blank as the first character is not replaced.
+				name = name.charAt(0) + name.substring(1).replace(FREE_NAME_BLANK, ' ');
+			}
+			tokenList.add(new NewickToken(start, name, false));  //TODO end - 1?
+			return pos - 1;
 		}
 	}
 	
 	
-	private static int readDelimitedName(final String text, int start, NewickToken token) {
+	private static int readDelimitedName(final CharSequence text, int start, NewickToken token) {
 		start++;  // NAME_DELIMITER am Anfang überspringen.
 		int pos = start;
-		String result = "";
+		StringBuilder result = new StringBuilder();
 		do {
+			int partStart = pos;
 			while ((pos < text.length()) && (text.charAt(pos) != NAME_DELIMITER)) {
-				result += text.charAt(pos);
 				pos++;
 			}
+			result.append(text, partStart, pos);
 			if ((pos + 1 < text.length()) && (text.charAt(pos + 1) == NAME_DELIMITER)) {
-				result += NAME_DELIMITER;  // Ermöglichen von 'abc'''
+				result.append(NAME_DELIMITER);  // Ermöglichen von 'abc'''
 				pos +=2;
 			}
 		} while (pos < text.length() && (text.charAt(pos) != NAME_DELIMITER));
@@ -68,13 +83,114 @@ public class NewickScanner extends NewickStringChars {
 			throw NewickException.getUnterminatedNameException(start, text);
 		}
 		else {
-			token.setText(result);
+			token.setText(result.toString());
 			token.setDelimited(true);
 			return pos;
 		}
 	}
 	
 	
+	private static boolean isDigit(char c) {
+		return (c >= '0') && (c <= '9');
+	}
+	
+	
+	/**
+	 * Converts a decimal number in the specified range of the text without creating a string. The result
+	 * is identical to the one of {@link Double#parseDouble(String)}.
+	 * <p>
+	 * Numbers with up to {@link #MAX_FAST_PATH_DIGITS} significant digits and a small exponent are converted 
+	 * directly, since the mantissa and the power of ten can be represented exactly and the result is rounded
+	 * only once. All other representations are passed to {@link Double#parseDouble(String)}.
+	 * 
+	 * @throws NumberFormatException if the specified range does not contain a valid number
+	 */
+	private static double parseDouble(final CharSequence text, int start, int end) {
+		int pos = start;
+		boolean negative = false;
+		if ((pos < end) && ((text.charAt(pos) == '-') || (text.charAt(pos) == '+'))) {
+			negative = (text.charAt(pos) == '-');
+			pos++;
+		}
+		
+		long mantissa = 0;
+		int digitCount = 0;
+		int exponent = 0;
+		boolean digitFound = false;
+		boolean fraction = false;
+		while (pos < end) {
+			char c = text.charAt(pos);
+			if (isDigit(c)) {
+				digitFound = true;
+				if ((mantissa != 0) || (c != '0')) {  // Leading zeros are not significant.
+					mantissa = 10 * mantissa + (c - '0');
+					digitCount++;
+				}
+				if (fraction) {
+					exponent--;
+				}
+			}
+			else if ((c == '.') && !fraction) {
+				fraction = true;
+			}
+			else {
+				break;
+			}
+			pos++;
+			if (digitCount > MAX_FAST_PATH_DIGITS) {
+				return Double.parseDouble(text.subSequence(start, end).toString());
+			}
+		}
+		
+		if (digitFound && (pos < end) && ((text.charAt(pos) == 'e') || (text.charAt(pos) == 'E'))) {
+			pos++;
+			boolean negativeExponent = false;
+			if ((pos < end) && ((text.charAt(pos) == '-') || (text.charAt(pos) == '+'))) {
+				negativeExponent = (text.charAt(pos) == '-');
+				pos++;
+			}
+			int exponentStart = pos;
+			int explicitExponent = 0;
+			while ((pos < end) && isDigit(text.charAt(pos)) && (pos - exponentStart < 4)) {
+				explicitExponent = 10 * explicitExponent + (text.charAt(pos) - '0');
+				pos++;
+			}
+			if (pos == exponentStart) {
+				digitFound = false;  // Let Double.parseDouble() throw the exception.
+			}
+			else if (negativeExponent) {
+				exponent -= explicitExponent;
+			}
+			else {
+				exponent += explicitExponent;
+			}
+		}
+		
+		if (!digitFound || (pos < end) || (Math.abs(exponent) >= POWERS_OF_TEN.length)) {
+			return Double.parseDouble(text.subSequence(start, end).toString());
+		}
+		else {
+			double result;
+			if (mantissa == 0) {
+				result = 0.0;
+			}
+			else if (exponent < 0) {
+				result = mantissa / POWERS_OF_TEN[-exponent];
+			}
+			else {
+				result = mantissa * POWERS_OF_TEN[exponent];
+			}
+			
+			if (negative) {
+				return -result;
+			}
+			else {
+				return result;
+			}
+		}
+	}
+	
+	
 	/**
 	 * Reads a length statement in an Newick string.
 	 * 
@@ -83,7 +199,7 @@ public class NewickScanner extends NewickStringChars {
 	 * @param start the start position of the length statement
 	 * @return the position to go on tokenizing
 	 */
-	private static int readBranchLength(final String text, int start, NewickToken token) {
+	private static int readBranchLength(final CharSequence text, int start, NewickToken token) {
 		int end = start;
 		while ((end < text.length()) && (!isCharAfterLength(text.charAt(end)))) {
 			end++;
@@ -91,7 +207,7 @@ public class NewickScanner extends NewickStringChars {
 		
 		double value; 
 		try {
-			value = Double.parseDouble(text.substring(start, end));  //TODO end - 1?
+			value = parseDouble(text, start, end);  //TODO end - 1?
 		}
 		catch (NumberFormatException e) {
 			throw new NewickException(start, text, "Illegal length statement");
@@ -101,6 +217,11 @@ public class NewickScanner extends NewickStringChars {
 	}
 	
 	
+	private static boolean isHotComment(String comment, String hotComment) {
+		return (comment.length() == hotComment.length()) && comment.toLowerCase().equals(hotComment);
+	}
+	
+	
 	/**
 	 * Reads a comment and adds it to last token in the passed list. If the comment is a rooted- or 
 	 * unrooted-command the according token is added.
@@ -111,12 +232,10 @@ public class NewickScanner extends NewickStringChars {
 	 * @return
 	 * @throws NewickException if the comment is unterminated
 	 */
-	private static int readComment(final String text, int start, List<NewickToken> tokenList) {
+	private static int readComment(final CharSequence text, int start, List<NewickToken> tokenList) {
 		start++;  // COMMENT_START am Anfang �berspringen.
 		int pos = start;
-		String result = "";
 		while ((pos < text.length()) && (text.charAt(pos) != COMMENT_END)) {
-			result += text.charAt(pos);
 			pos++;
 		}
 		
@@ -124,10 +243,11 @@ public class NewickScanner extends NewickStringChars {
 			throw NewickException.getUnterminatedCommentException(start, text);
 		}
 		else {
-			if (result.toLowerCase().equals(NexusParser.UNROOTED_HOT_COMMENT)) {
+			String result = text.subSequence(start, pos).toString();
+			if (isHotComment(result, NexusParser.UNROOTED_HOT_COMMENT)) {
 				tokenList.add(new NewickToken(TokenType.UNROOTED_COMMAND, start));
 			}
-			else if (result.toLowerCase().equals(NexusParser.ROOTED_HOT_COMMENT)) {
+			else if (isHotComment(result, NexusParser.ROOTED_HOT_COMMENT)) {
 				tokenList.add(new NewickToken(TokenType.ROOTED_COMMAND, start));
 			}
 			else {
@@ -138,8 +258,8 @@ public class NewickScanner extends NewickStringChars {
 	}
 		
 	
- 	public static List<NewickToken> parse(final String text) {
-		List<NewickToken> result = new Vector<NewickToken>();
+ 	public static List<NewickToken> parse(final CharSequence text) {
+		List<NewickToken> result = new ArrayList<NewickToken>();
 		
 		NewickToken token;
 		int pos = 0;
@@ -173,9 +293,7 @@ public class NewickScanner extends NewickStringChars {
   		  	break;
   		  default:
   		    if (isFreeNameFirstChar(text.charAt(pos))) {
-  		    	token = readFreeName(text, pos);
-  		    	pos += token.getText().length() - 1;
-  		    	result.add(token);
+  		    	pos = readFreeName(text, pos, result);
   		    }
   		}
   		pos++;
@@ -0,0 +1,190 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.io.newick;
+
+
+import java.io.IOException;
+import java.io.Reader;
+
+
+
+/**
+ * Splits a character stream containing a sequence of Newick strings into single trees.
+ * <p>
+ * The stream is read in chunks into a buffer of a fixed size. The current tree is collected in a 
+ * {@link StringBuilder} that only grows as much as needed and that is reused for the next tree. If a large tree
+ * is followed by much smaller ones, the builder is replaced by a smaller one to keep the memory consumption 
+ * of long streams flat.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class NewickStreamSplitter {
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+	
+	private static final int INITIAL_TREE_CAPACITY = 1024;
+	private static final int MAX_UNUSED_CAPACITY_FACTOR = 4;
+	
+	
+	private enum Status {
+		FREE,
+		NAME,
+		COMMENT;
+	}
+	
+	
+	private Reader reader;
+	private char[] buffer;
+	private int bufferPos = 0;
+	private int bufferEnd = 0;
+	private StringBuilder tree = new StringBuilder(INITIAL_TREE_CAPACITY);
+	
+	
+	/**
+	 * Creates a new instance of this class.
+	 * 
+	 * @param reader the reader providing the Newick strings
+	 * @param bufferSize the number of characters to be read from {@code reader} at once
+	 */
+	public NewickStreamSplitter(Reader reader, int bufferSize) {
+		super();
+		this.reader = reader;
+		buffer = new char[bufferSize];
+	}
+	
+	
+	/**
+	 * Creates a new instance of this class using a buffer of {@link #DEFAULT_BUFFER_SIZE} characters.
+	 * 
+	 * @param reader the reader providing the Newick strings
+	 */
+	public NewickStreamSplitter(Reader reader) {
+		this(reader, DEFAULT_BUFFER_SIZE);
+	}
+	
+	
+	private boolean fillBuffer() throws IOException {
+		bufferPos = 0;
+		bufferEnd = reader.read(buffer);
+		return bufferEnd > 0;
+	}
+	
+	
+	private void prepareTreeBuilder() {
+		if (tree.capacity() > MAX_UNUSED_CAPACITY_FACTOR * Math.max(INITIAL_TREE_CAPACITY, tree.length())) {
+			tree = new StringBuilder(Math.max(INITIAL_TREE_CAPACITY, 2 * tree.length()));  // Release memory of a previous large tree.
+		}
+		else {
+			tree.setLength(0);
+		}
+	}
+	
+	
+	/**
+	 * Removes leading and trailing whitespace from the current tree in the same way as {@link String#trim()} and
+	 * adds a terminal symbol, if necessary. 
+	 * 
+	 * @return {@code false} if the current tree is empty after trimming, {@code true} otherwise
+	 */
+	private boolean trimAndTerminateTree() {
+		int end = tree.length();
+		while ((end > 0) && (tree.charAt(end - 1) <= ' ')) {
+			end--;
+		}
+		int start = 0;
+		while ((start < end) && (tree.charAt(start) <= ' ')) {
+			start++;
+		}
+		
+		if (start == end) {
+			return false;
+		}
+		else {
+			tree.setLength(end);
+			tree.delete(0, start);
+			if (tree.charAt(tree.length() - 1) != NewickStringChars.TERMINAL_SYMBOL) {
+				tree.append(NewickStringChars.TERMINAL_SYMBOL);
+			}
+			return true;
+		}
+	}
+	
+	
+	/**
+	 * Reads the next tree from the underlying stream.
+	 * <p>
+	 * Trees end with the first terminal symbol outside of names and comments. All characters before that symbol,
+	 * starting directly behind the previous tree, are included. If the end of the stream is reached without a
+	 * terminal symbol, the remaining characters are trimmed and a terminal symbol is added.
+	 * <p>
+	 * The returned instance is reused by subsequent calls of this method. Its contents must therefore be 
+	 * processed or copied before this method is called again.
+	 * 
+	 * @return the next tree or {@code null} if the end of the stream was reached
+	 * @throws IOException if reading from the underlying stream fails
+	 */
+	public CharSequence nextTree() throws IOException {
+		prepareTreeBuilder();
+		if ((bufferPos >= bufferEnd) && !fillBuffer()) {
+			return null;
+		}
+		
+		Status status = Status.FREE;
+		do {
+			int start = bufferPos;
+			while (bufferPos < bufferEnd) {
+				char c = buffer[bufferPos];
+				bufferPos++;
+				switch (status) {
+				  case FREE:
+						switch (c) {
+						  case NewickStringChars.NAME_DELIMITER:
+			  				status = Status.NAME;
+			  				break;
+						  case NewickStringChars.COMMENT_START:
+			  				status = Status.COMMENT;
+			  				break;
+						  case NewickStringChars.TERMINAL_SYMBOL:
+						  	tree.append(buffer, start, bufferPos - start);
+						  	return tree;
+						}
+						break;
+				  case NAME:
+				  	if (c == NewickStringChars.NAME_DELIMITER) {
+				  		status = Status.FREE;
+				  	}
+				  	break;
+				  case COMMENT:
+				  	if (c == NewickStringChars.COMMENT_END) {
+				  		status = Status.FREE;
+				  	}
+				  	break;
+				}
+			}
+			tree.append(buffer, start, bufferPos - start);
+		} while (fillBuffer());
+		
+		if (trimAndTerminateTree()) {
+			return tree;  // If end of file was reached without a terminal symbol, the sequence until then is returned.
+		}
+		else {
+			return null;  // The file could end with whitespace.
+		}
+	}
+}
@@ -24,6 +24,7 @@ import info.bioinfweb.treegraph.document.io.nexus.TranslTable;
 import info.bioinfweb.treegraph.document.nodebranchdata.BranchLengthAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeNameAdapter;
+import info.bioinfweb.treegraph.document.topologicalcalculation.TreeTopology;
 import info.bioinfweb.commons.Math2;
 
 import java.util.*;
@@ -57,7 +58,7 @@ public class NewickStringReader extends NewickStringChars {
 		  BranchLengthAdapter.getSharedInstance();
 	
 	
-	private String newickDescription;
+	private CharSequence newickDescription;
 	private List<NewickToken> tokens;
 	private NodeBranchDataAdapter internalAdapter;
 	private NodeBranchDataAdapter branchLengthsAdapter;
@@ -144,6 +145,24 @@ public class NewickStringReader extends NewickStringChars {
   }
   
  	
+  private static String translateName(NewickToken token, TranslTable translTable) {
+		String text = token.getText();
+		if ((translTable != null) && !token.wasDelimited()) {
+			String newText = translTable.get(text);
+			if (newText != null) {
+				text = newText;
+			}
+			else if (Math2.isInt(text)) {  // Ist die Zahl als Bezeichner nicht im TransTable vorhanden, gibt sie laut Maddison et.al. den Index im TransTable an, sofern sie innerhalb dieses Bereichs liegt. 
+				int pos = Integer.parseInt(text);
+				if (Math2.isBetween(pos, 0, translTable.size() - 1)) {
+					text = translTable.get(pos);
+				}
+			}
+		}
+		return text;
+  }
+  
+ 	
   private void readName(int previousEnd, int end,	Node root, NodeBranchDataAdapter adapter, 
   		TranslTable translTable) throws NewickException {
 
@@ -151,20 +170,7 @@ public class NewickStringReader extends NewickStringChars {
   	
   	if (previousEnd == end - 1) {
   		if (tokens.get(end).getType().equals(TokenType.NAME)) {
-  			String text = tokens.get(end).getText();
-  			if ((translTable != null) && !tokens.get(end).wasDelimited()) {
-    			String newText = translTable.get(text);
-    			if (newText != null) {
-    				text = newText;
-    			}
-    			else if (Math2.isInt(text)) {  // Ist die Zahl als Bezeichner nicht im TransTable vorhanden, gibt sie laut Maddison et.al. den Index im TransTable an, sofern sie innerhalb dieses Bereichs liegt. 
-    				int pos = Integer.parseInt(text);
-    				if (Math2.isBetween(pos, 0, translTable.size() - 1)) {
-    					text = translTable.get(pos);
-    				}
-    			}
-  			}
-  			
+  			String text = translateName(tokens.get(end), translTable);
   			try {
     			adapter.setDecimal(root, Double.parseDouble(text));
     			internalNamesAdded = true;
@@ -287,24 +293,24 @@ public class NewickStringReader extends NewickStringChars {
 	}
 
 
-	private boolean getInternalNamesAdded() {
+	boolean getInternalNamesAdded() {
 		return internalNamesAdded;
 	}
 	
 
-	public Tree read(final String newick) throws NewickException {  // does not provide information about hidden data or internal names that could have been read
+	public Tree read(final CharSequence newick) throws NewickException {  // does not provide information about hidden data or internal names that could have been read
   	return read(newick, LEAF_ADAPTER, BRANCH_LENGTH_ADAPTER, null, false);
   }
   
   
-	public Tree read(final String newick, NodeBranchDataAdapter internalAdapter, 
+	public Tree read(final CharSequence newick, NodeBranchDataAdapter internalAdapter, 
   		NodeBranchDataAdapter branchLengthsAdapter) throws NewickException {  // does not provide information about hidden data or internal names that could have been read
   	
   	return read(newick, internalAdapter, branchLengthsAdapter, null, false);
   }
   
   
-	public Tree read(final String newick, NodeBranchDataAdapter internalAdapter, 
+	public Tree read(final CharSequence newick, NodeBranchDataAdapter internalAdapter, 
   		NodeBranchDataAdapter branchLengthsAdapter, TranslTable translTable, 
   		boolean translateInternals) throws NewickException {
   	
@@ -323,20 +329,97 @@ public class NewickStringReader extends NewickStringChars {
   }
   
   
+  /**
+   * Returns the name of a leaf as it would be provided by {@link #LEAF_ADAPTER} after reading the tree.
+   */
+  private static String readLeafName(NewickToken token, TranslTable translTable) {
+  	String text = translateName(token, translTable);
+		try {
+			return "" + Double.parseDouble(text);  // Names are stored as decimal values, if possible. 
+		}
+		catch (NumberFormatException e) {
+			return text;
+		}
+  }
+  
+  
+  /**
+   * Reads only the topology and the leaf names of a tree in the Newick format without creating any nodes. 
+   * Branch lengths, internal node names and comments are skipped. Leaf names are translated and converted in
+   * the same way as by {@link #read(CharSequence, NodeBranchDataAdapter, NodeBranchDataAdapter, TranslTable, boolean)},
+   * so that they equal the values of {@link #LEAF_ADAPTER} of the according tree.
+   * 
+   * @param newick the Newick string describing the tree
+   * @param translTable the translation table for the leaf names (may be {@code null})
+   * @return the topology of the tree
+   * @throws NewickException if the nesting of the subtrees in {@code newick} is invalid
+   * @since 2.16.0
+   */
+  public TreeTopology readTopology(final CharSequence newick, TranslTable translTable) throws NewickException {
+  	newickDescription = newick;
+  	tokens = NewickScanner.parse(newick);
+  	TreeTopology result = new TreeTopology();
+  	int[] childCounts = new int[tokens.size()];  // The number of children read for each open subtree.
+  	int depth = -1;
+  	boolean branchExpected = false;
+  	for (NewickToken token : tokens) {
+  		TokenType type = token.getType();
+  		if (branchExpected && !type.equals(TokenType.SUBTREE_START)) {  // The current branch leads to a leaf.
+  			branchExpected = false;
+  			childCounts[depth]++;
+  			if (type.equals(TokenType.NAME)) {
+  				result.addLeaf(readLeafName(token, translTable));
+  				continue;
+  			}
+  			else {  // The current token is processed below.
+  				result.addLeaf("");
+  			}
+  		}
+  		
+  		if (type.equals(TokenType.SUBTREE_START)) {
+  			if ((depth == -1) ? (result.getNodeCount() > 0) : !branchExpected) {
+  				throw new NewickException(token.getTextPos(), newickDescription, "Unexpected subtree start");
+  			}
+  			depth++;
+  			childCounts[depth] = 0;
+  			branchExpected = true;
+  		}
+  		else if (type.equals(TokenType.ELEMENT_SEPARATOR)) {
+  			if (depth == -1) {
+  				throw new NewickException(token.getTextPos(), newickDescription, "Element separator outside of a subtree");
+  			}
+  			branchExpected = true;
+  		}
+  		else if (type.equals(TokenType.SUBTREE_END)) {
+  			if (depth == -1) {
+  				throw new NewickException(token.getTextPos(), newickDescription, "Unexpected subtree end");
+  			}
+  			result.addInternalNode(childCounts[depth]);
+  			depth--;
+  			if (depth >= 0) {
+  				childCounts[depth]++;
+  			}
+  		}
+  	}
+  	
+  	if (depth != -1) {
+    	throw new NewickException(0, newickDescription, "Unterminated subtree");
+  	}
+  	return result;
+  }
+  
+  
+  /**
+   * Returns a list of the trees described by the specified Newick strings. The strings are not parsed 
+   * by this method, but by the returned list, when a tree is requested for the first time. Invalid
+   * strings are therefore only reported when the according tree is accessed.
+   * 
+   * @see NewickTreeList#getTree(int)
+   */
   public static NewickTreeList read(final String[] newick, NodeBranchDataAdapter internalAdapter, 
   		NodeBranchDataAdapter branchLengthsAdapter, TranslTable translTable, 
-  		boolean translateInternals) throws NewickException {
+  		boolean translateInternals) {
 
-		Tree[] trees = new Tree[newick.length];
-		boolean[] hiddenDataAdded = new boolean[newick.length];
-		boolean[] internalNamesAdded = new boolean[newick.length];
-		NewickStringReader reader = new NewickStringReader(); 
-		for (int i = 0; i < newick.length; i++) {
-			trees[i] = reader.read(newick[i], internalAdapter, 
-					branchLengthsAdapter, translTable, translateInternals);
-			hiddenDataAdded[i] = reader.getHiddenDataAdded();
-			internalNamesAdded[i] = reader.getInternalNamesAdded();
-		}
-		return new NewickTreeList(trees, hiddenDataAdded, internalNamesAdded);
+		return new NewickTreeList(newick, internalAdapter, branchLengthsAdapter, translTable, translateInternals);
   }
 }
\ No newline at end of file
@@ -19,16 +19,22 @@
 package info.bioinfweb.treegraph.document.io.newick;
 
 
-import java.util.Arrays;
-import java.util.Collections;
+import java.util.AbstractList;
 import java.util.List;
 
 import info.bioinfweb.treegraph.document.Tree;
+import info.bioinfweb.treegraph.document.io.nexus.TranslTable;
+import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
 
 
 
 /**
  * Contains the result of reading multiple Newick strings.
+ * <p>
+ * If an instance is created from a set of Newick strings, each string is only parsed when the according tree 
+ * (or information on it) is requested for the first time. The created trees are stored in this list afterwards. 
+ * This way only the trees that are really needed (e.g. the tree selected by the user) are created, if a file 
+ * contains many trees.
  * 
  * @author Ben St&ouml;ver
  * @since 2.3.0
@@ -37,6 +43,37 @@ public class NewickTreeList {
   private Tree[] trees;
   private boolean[] hiddenDataAdded;
   private boolean[] internalNamesAdded;
+  private String[] newick = null;
+  private NewickStringReader reader = null;
+  private NodeBranchDataAdapter internalAdapter;
+  private NodeBranchDataAdapter branchLengthsAdapter;
+  private TranslTable translTable;
+  private boolean translateInternals;
+  
+  
+  /**
+   * Creates a new instance which parses the specified Newick strings on demand.
+   * 
+   * @param newick - the Newick strings of the trees
+   * @param internalAdapter - the adapter to store the names of internal nodes
+   * @param branchLengthsAdapter - the adapter to store branch lengths
+   * @param translTable - the translation table to be used (may be {@code null})
+   * @param translateInternals - specifies whether the names of internal nodes shall also be translated
+   * @since 2.16.0
+   */
+  public NewickTreeList(String[] newick, NodeBranchDataAdapter internalAdapter, 
+  		NodeBranchDataAdapter branchLengthsAdapter, TranslTable translTable, boolean translateInternals) {
+  	
+  	super();
+  	this.newick = newick;
+  	this.internalAdapter = internalAdapter;
+  	this.branchLengthsAdapter = branchLengthsAdapter;
+  	this.translTable = translTable;
+  	this.translateInternals = translateInternals;
+  	trees = new Tree[newick.length];
+  	hiddenDataAdded = new boolean[newick.length];
+  	internalNamesAdded = new boolean[newick.length];
+  }
   
   
 	public NewickTreeList(Tree[] trees, boolean[] hiddenDataAdded, boolean[] internalNamesAdded) {
@@ -53,17 +90,53 @@ public class NewickTreeList {
   }
 	
 	
-	public Tree getTree(int index) {
+	private void parse(int index) throws NewickException {
+		if ((trees[index] == null) && (newick != null)) {
+			if (reader == null) {
+				reader = new NewickStringReader();
+			}
+			trees[index] = reader.read(newick[index], internalAdapter, branchLengthsAdapter, translTable, translateInternals);
+			hiddenDataAdded[index] = reader.getHiddenDataAdded();
+			internalNamesAdded[index] = reader.getInternalNamesAdded();
+		}
+	}
+	
+	
+	/**
+	 * Returns the tree with the specified index. If this list was created from Newick strings and the tree has
+	 * not been requested before, its string is parsed now.
+	 * 
+	 * @param index - the index of the tree
+	 * @return the tree
+	 * @throws NewickException if the Newick string of the tree is invalid
+	 */
+	public Tree getTree(int index) throws NewickException {
+		parse(index);
 		return trees[index];
 	}
 	
 	
+	/**
+	 * Returns an unmodifiable view of this list. Its elements are created on demand as described in 
+	 * {@link #getTree(int)}.
+	 */
 	public List<Tree> treesAsList() {
-		return Collections.unmodifiableList(Arrays.asList(trees));
+		return new AbstractList<Tree>() {
+			@Override
+			public Tree get(int index) {
+				return getTree(index);
+			}
+
+			@Override
+			public int size() {
+				return NewickTreeList.this.size();
+			}
+		};
 	}
 	
 	
 	public boolean getHiddenDataAdded(int index) {
+		parse(index);
 		return hiddenDataAdded[index];
 	}
 	
@@ -74,6 +147,7 @@ public class NewickTreeList {
 
 
 	public boolean getInternalNamesAdded(int index) {
+		parse(index);
 		return internalNamesAdded[index];
 	}
 }
@@ -19,26 +19,30 @@
 package info.bioinfweb.treegraph.document.io.nexus;
 
 
-import java.util.regex.Pattern;
-
-
 
 public class NexusCommand {
-	private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
 	private String name = "";
 	private String tokens = "";
 	
 	
+  /**
+   * Tests whether the specified character is matched by "\s" in regular expressions.
+   */
+  private static boolean isWhitespace(char c) {
+  	return (c == ' ') || (c == '\t') || (c == '\n') || (c == '\u000B') || (c == '\f') || (c == '\r');
+  }
+  
+  
   public NexusCommand(String content) {
   	content = content.trim();
   	int splitPos = 0;
-  	while ((splitPos < content.length()) && !WHITESPACE_PATTERN.matcher(content.substring(splitPos)).lookingAt()) {
+  	while ((splitPos < content.length()) && !isWhitespace(content.charAt(splitPos))) {
   		if (content.charAt(splitPos) == NexusParser.COMMENT_START) {
   			do {  // Kommentare �berspringen
   				splitPos++;
   			} while ((splitPos < content.length()) && content.charAt(splitPos) != NexusParser.COMMENT_END);
   			splitPos++;  // Kommentarende �berspringen
-  	  	while ((splitPos < content.length()) && WHITESPACE_PATTERN.matcher(content.substring(splitPos)).lookingAt()) {
+  	  	while ((splitPos < content.length()) && isWhitespace(content.charAt(splitPos))) {
   	  		splitPos++;  // Whitespace hinter Kommentar �berspringen
   	  	}
   		}
@@ -0,0 +1,209 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.io.nexus;
+
+
+import java.io.IOException;
+import java.io.Reader;
+
+
+
+/**
+ * Reads the commands of a Nexus file one by one from a character stream, so that the whole file never needs to
+ * be held in memory.
+ * <p>
+ * Commands are split in the same way as in {@link NexusParser#parse(String)}. Comments and quoted words are 
+ * contained in the commands. All line breaks ({@code \r\n}, {@code \r} and {@code \n}) are converted to 
+ * {@code \n}. 
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class NexusCommandReader {
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+	
+	private static final int INITIAL_COMMAND_CAPACITY = 1024;
+	private static final int MAX_UNUSED_CAPACITY_FACTOR = 4;
+	
+	
+	private Reader reader;
+	private char[] buffer;
+	private int bufferPos = 0;
+	private int bufferEnd = 0;
+	private boolean endReached = false;
+	private boolean lastWasCarriageReturn = false;
+	private StringBuilder command = new StringBuilder(INITIAL_COMMAND_CAPACITY);
+	
+	
+	/**
+	 * Creates a new instance of this class.
+	 * 
+	 * @param reader the reader providing the contents of the Nexus file
+	 * @param bufferSize the number of characters to be read from {@code reader} at once
+	 */
+	public NexusCommandReader(Reader reader, int bufferSize) {
+		super();
+		this.reader = reader;
+		buffer = new char[bufferSize];
+	}
+	
+	
+	/**
+	 * Creates a new instance of this class using a buffer of {@link #DEFAULT_BUFFER_SIZE} characters.
+	 * 
+	 * @param reader the reader providing the contents of the Nexus file
+	 */
+	public NexusCommandReader(Reader reader) {
+		this(reader, DEFAULT_BUFFER_SIZE);
+	}
+	
+	
+	/**
+	 * Reads the next chunk of characters and converts all line breaks to {@code \n}.
+	 * 
+	 * @return {@code true} if at least one character is available in the buffer or {@code false} if the end of
+	 *         the stream was reached
+	 */
+	private boolean fillBuffer() throws IOException {
+		bufferPos = 0;
+		bufferEnd = 0;
+		while ((bufferEnd == 0) && !endReached) {
+			int length = reader.read(buffer);
+			if (length == -1) {
+				endReached = true;
+			}
+			else {
+				for (int i = 0; i < length; i++) {
+					char c = buffer[i];
+					if (c == '\r') {
+						buffer[bufferEnd] = '\n';
+						bufferEnd++;
+						lastWasCarriageReturn = true;
+					}
+					else {
+						if ((c != '\n') || !lastWasCarriageReturn) {
+							buffer[bufferEnd] = c;
+							bufferEnd++;
+						}
+						lastWasCarriageReturn = false;
+					}
+				}
+			}
+		}
+		return bufferEnd > 0;
+	}
+	
+	
+	private boolean ensureBuffer() throws IOException {
+		return (bufferPos < bufferEnd) || fillBuffer();
+	}
+	
+	
+	/**
+	 * Reads the first non-whitespace characters of the stream and checks if they are {@link NexusParser#FIRST_LINE}
+	 * (ignoring the case). This method must be called before the first command is read.
+	 * 
+	 * @return {@code true} if the stream starts with a Nexus header, {@code false} otherwise
+	 * @throws IOException if reading from the underlying stream fails
+	 */
+	public boolean readHeader() throws IOException {
+		while (ensureBuffer() && (buffer[bufferPos] <= ' ')) {  // Same whitespace definition as in String.trim().
+			bufferPos++;
+		}
+		for (int i = 0; i < NexusParser.FIRST_LINE.length(); i++) {
+			if (!ensureBuffer() || (Character.toLowerCase(buffer[bufferPos]) != NexusParser.FIRST_LINE.charAt(i))) {
+				return false;
+			}
+			bufferPos++;
+		}
+		return true;
+	}
+	
+	
+	/**
+	 * Appends all characters to the current command until the specified character is found.
+	 * 
+	 * @param end the character that ends the sequence (It is consumed but not appended.)
+	 */
+	private void appendUntil(char end) throws IOException {
+		while (ensureBuffer()) {
+			int start = bufferPos;
+			while ((bufferPos < bufferEnd) && (buffer[bufferPos] != end)) {
+				bufferPos++;
+			}
+			command.append(buffer, start, bufferPos - start);
+			if (bufferPos < bufferEnd) {
+				bufferPos++;  // Skip end character.
+				return;
+			}
+		}
+	}
+	
+	
+	private static boolean isSpecialChar(char c) {
+		return (c == NexusParser.COMMENT_START) || (c == NexusParser.WORD_DELIMITER) || (c == NexusParser.COMMAND_END);
+	}
+	
+	
+	private void prepareCommandBuilder() {
+		if (command.capacity() > MAX_UNUSED_CAPACITY_FACTOR * Math.max(INITIAL_COMMAND_CAPACITY, command.length())) {
+			command = new StringBuilder(Math.max(INITIAL_COMMAND_CAPACITY, 2 * command.length()));  // Release memory of a previous large command.
+		}
+		else {
+			command.setLength(0);
+		}
+	}
+	
+	
+	/**
+	 * Reads the next command from the stream.
+	 * 
+	 * @return the next command or {@code null} if no further terminated command is contained in the stream
+	 * @throws IOException if reading from the underlying stream fails
+	 */
+	public NexusCommand readNextCommand() throws IOException {
+		prepareCommandBuilder();
+		while (ensureBuffer()) {
+			char c = buffer[bufferPos];
+			bufferPos++;
+			switch (c) {
+				case NexusParser.COMMENT_START:
+					command.append(NexusParser.COMMENT_START);
+					appendUntil(NexusParser.COMMENT_END);
+					command.append(NexusParser.COMMENT_END);  // Also added if the comment is unterminated.
+					break;
+				case NexusParser.WORD_DELIMITER:
+					command.append(NexusParser.WORD_DELIMITER);
+					appendUntil(NexusParser.WORD_DELIMITER);
+					command.append(NexusParser.WORD_DELIMITER);
+					break;
+				case NexusParser.COMMAND_END:
+					return new NexusCommand(command.toString());
+				default:
+					int start = bufferPos - 1;
+					while ((bufferPos < bufferEnd) && !isSpecialChar(buffer[bufferPos])) {
+						bufferPos++;
+					}
+					command.append(buffer, start, bufferPos - start);
+					break;
+			}
+		}
+		return null;
+	}
+}
@@ -72,12 +72,13 @@ public class NexusDocument {
 	
 	
 	/**
-	 * Creates a {@link Tree} object from each stored Newick string.
+	 * Creates a list of {@link Tree} objects from the stored Newick strings. The strings are parsed on demand
+	 * when a tree is requested from the returned list.
 	 * 
 	 * @param internalAdapter
 	 * @param branchLengthsAdapter
 	 * @param translateInternals
-	 * @return an array containing all {@link Tree}-objects
+	 * @return a list providing all {@link Tree}-objects
 	 */
 	public NewickTreeList createTrees(NodeBranchDataAdapter internalAdapter, 
   		NodeBranchDataAdapter branchLengthsAdapter, boolean translateInternals) {
@@ -22,7 +22,8 @@ package info.bioinfweb.treegraph.document.io.nexus;
 import info.bioinfweb.treegraph.document.io.newick.NewickStringChars;
 
 import java.io.IOException;
-import java.util.Vector;
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -69,48 +70,6 @@ public class NexusParser {
 	 
 	
 	
-  /**
-   * Splits the passed text into Nexus commands. Comments are not removed.
-   * 
-   * @param content
-   * @return
-   */
-  private static NexusCommand[] scan(String content) {
-  	Vector<NexusCommand> result  = new Vector<NexusCommand>();
-  	StringBuffer command = new StringBuffer(Math.max(MAX_EXPECTED_COMMAND_LENGTH, content.length())); 
-  	for (int i = 0; i < content.length(); i++) {
-  		switch (content.charAt(i)) {
-  			case COMMENT_START:
-  				i++;
-  				command.append(COMMENT_START);
-  				while ((i < content.length()) && (content.charAt(i) != COMMENT_END)) {
-  					command.append(content.charAt(i));
-  					i++;
-  				}
-  				command.append(COMMENT_END);
-  				break;
-  			case WORD_DELIMITER:
-  				i++;
-  				command.append(WORD_DELIMITER);
-  				while ((i < content.length()) && (content.charAt(i) != WORD_DELIMITER)) {
-  					command.append(content.charAt(i));
-  					i++;
-  				}
-  				command.append(WORD_DELIMITER);
-  				break;
-  			case COMMAND_END:
-  				result.add(new NexusCommand(command.toString()));
-  				command.delete(0, command.length());  //TODO Warum gibt es kein clear()?
-  				break;
-  			default:
-  				command.append(content.charAt(i));
-  			  break;
-  		}
-		}
-  	return result.toArray(new NexusCommand[result.size()]);
-  }
-  
-  
   /**
    * Returns the index of the next occurrence of <code>character</code> after <code>start</code>
    * which is not located inside a comment.
@@ -157,31 +116,39 @@ public class NexusParser {
   
   
   /**
-   * Searches for the first occurrence of the given command.
-   * @param commands - the list of all commands
-   * @param start - the command index to start the search
-   * @param end - the command index to stop the search
+   * Tests whether the specified command has the given name and tokens.
+   * 
+   * @param command - the command to be tested
    * @param namePattern - the name of the command (The pattern should describe all 
    *        possible names. Patterns are not matched case sensitive)
    * @param tokenPattern - describes how the token of the command should look like 
    *        (Patterns are not matched case sensitive)
-   * @return the index of the first match in the given array of command or -1 if none was found
+   * @return <code>true</code> if the command matches both patterns
    */
-  private static int findCommand(NexusCommand[] commands, int start, int end, 
-  		Pattern namePattern, Pattern tokenPattern) {
-  	
-  	for (int i = start; i < Math.min(commands.length, end); i++) {
-			if (namePattern.matcher(commands[i].getName().toLowerCase()).matches() && 
-					tokenPattern.matcher(commands[i].getTokens().trim().toLowerCase()).matches()) {
-				return i;
-			}
-		}
-  	return -1;
+  private static boolean matches(NexusCommand command, Pattern namePattern, Pattern tokenPattern) {
+  	return namePattern.matcher(command.getName().toLowerCase()).matches() && 
+  			((tokenPattern == EMPTY_PATTERN) ||  // Avoid copying long tokens (e.g. of tree commands).
+  					tokenPattern.matcher(command.getTokens().trim().toLowerCase()).matches());
+  }
+  
+  
+  static boolean isTreesBlockStart(NexusCommand command) {
+  	return matches(command, BLOCK_BEGIN_PATTERN, TREES_PATTERN);
+  }
+  
+  
+  static boolean isBlockEnd(NexusCommand command) {
+  	return matches(command, BLOCK_END_PATTERN, EMPTY_PATTERN);
+  }
+  
+  
+  static boolean isTranslTable(NexusCommand command) {
+  	return matches(command, TRANSL_TABLE_PATTERN, EMPTY_PATTERN);
   }
   
   
-  private static int findBlockEnd(NexusCommand[] commands, int start, int end) {
-  	return findCommand(commands, start, end, BLOCK_END_PATTERN, EMPTY_PATTERN);
+  static boolean isTree(NexusCommand command) {
+  	return matches(command, TREE_COMMAND_PATTERN, EMPTY_PATTERN);
   }
   
   
@@ -211,7 +178,7 @@ public class NexusParser {
    * @param command
    * @param translTable
    */
-  private static void readTranslTable(NexusCommand command, TranslTable translTable) throws IOException {
+  static void readTranslTable(NexusCommand command, TranslTable translTable) throws IOException {
   	String[] entries = TRANSL_TABLE_SEPARATOR_PATTERN.split(removeComments(command.getTokens()));
   	Matcher entryPatternMatcher;
   	Matcher enclosedPatternMatcher;
@@ -239,6 +206,26 @@ public class NexusParser {
   }
   
   
+  /**
+   * Splits the passed Nexus command tokens of a tree command into the name and the Newick string of the tree.
+   * Comments are left inside both the name and the tree string.
+   * 
+   * @param tokens
+   * @return an array containing the name and the terminated Newick string or <code>null</code> if no
+   *         key/value separator was found 
+   */
+  static String[] splitTree(String tokens) {
+  	int separatorPos = nextPosOutsideComment(tokens, 0, KEY_VALUE_SEPERATOR);
+  	if (separatorPos != -1) {
+  		return new String[]{tokens.substring(0, separatorPos).trim(), 
+  				tokens.substring(separatorPos + 1, tokens.length()).trim() + NewickStringChars.TERMINAL_SYMBOL};
+  	}
+  	else {
+  		return null;
+  	}
+  }
+  
+  
   /**
    * Reads a tree from the passed Nexus command tokens and adds it to the passed document.
    * Comments are left inside both the name and the tree string.
@@ -247,44 +234,28 @@ public class NexusParser {
    * @param document
    */
   private static boolean readTree(String tokens, NexusDocument document) {
-  	int separatorPos = nextPosOutsideComment(tokens, 0, KEY_VALUE_SEPERATOR);
-  	boolean result = separatorPos != -1; 
-  	if (result) {
-  		document.add(tokens.substring(0, separatorPos).trim(), 
-  				tokens.substring(separatorPos + 1, tokens.length()).trim() + 
-  				NewickStringChars.TERMINAL_SYMBOL);
+  	String[] tree = splitTree(tokens);
+  	if (tree != null) {
+  		document.add(tree[0], tree[1]);
   	}
-  	return result;
+  	return tree != null;
   }
   
   
-  public static NexusDocument parse(String content) throws NexusException, IOException {
-  	content = content.trim();
-  	if (content.toLowerCase().startsWith(FIRST_LINE)) {
-  		NexusCommand[] commands = scan(content.substring(FIRST_LINE.length()));
-  		int treesStart = findCommand(commands, 0, commands.length, BLOCK_BEGIN_PATTERN, TREES_PATTERN);
-  		if (treesStart != -1) {
-  			int treesEnd = findBlockEnd(commands, treesStart + 1, commands.length);
-  			if (treesEnd != -1) {
-  				NexusDocument result = new NexusDocument();
-  				int translPos = findCommand(commands, treesStart, treesEnd, TRANSL_TABLE_PATTERN, EMPTY_PATTERN);
-  				if (translPos != -1) {
-  					readTranslTable(commands[translPos], result.getTranslTable());
-  				}
-  				
-  				int treePos = findCommand(commands, treesStart, treesEnd, TREE_COMMAND_PATTERN, EMPTY_PATTERN);
-  				while (treePos != -1) {
-  					readTree(commands[treePos].getTokens(), result);
-    				treePos = findCommand(commands, treePos + 1, treesEnd, TREE_COMMAND_PATTERN, EMPTY_PATTERN);
-  				}
-  				
-  				return result;
-  			}
-  			else {
-  	  		throw new NexusException(NexusError.TREES_UNTERMINATED);
-  			}
+  /**
+   * Reads commands from the passed reader until the start of the first trees block is reached.
+   * 
+   * @param reader - the reader providing the commands of the Nexus file (No command must have been
+   *        read yet.)
+   * @throws NexusException if the stream does not contain a Nexus header or a trees block
+   */
+  static void skipToTreesBlock(NexusCommandReader reader) throws NexusException, IOException {
+  	if (reader.readHeader()) {
+  		NexusCommand command = reader.readNextCommand();
+  		while ((command != null) && !isTreesBlockStart(command)) {
+  			command = reader.readNextCommand();
   		}
-  		else {
+  		if (command == null) {
     		throw new NexusException(NexusError.NO_TREES);
   		}
   	}
@@ -292,4 +263,47 @@ public class NexusParser {
   		throw new NexusException(NexusError.NO_NEXUS);
   	}
   }
+  
+  
+  public static NexusDocument parse(String content) throws NexusException, IOException {
+  	return parse(new StringReader(content));
+  }
+  
+  
+  /**
+   * Reads the trees block of a Nexus file from the passed reader. Commands are read one by one and only 
+   * the commands of the trees block are kept in memory.
+   * 
+   * @param reader - the reader providing the contents of the Nexus file
+   * @return the trees and translation table of the first trees block in the file
+   * @throws NexusException if the file does not contain a valid trees block
+   * @throws IOException if reading fails or the translation table is invalid
+   */
+  public static NexusDocument parse(Reader reader) throws NexusException, IOException {
+  	NexusCommandReader commandReader = new NexusCommandReader(reader);
+  	skipToTreesBlock(commandReader);
+  	
+		NexusDocument result = new NexusDocument();
+		NexusCommand translTableCommand = null;
+		NexusCommand command = commandReader.readNextCommand();
+		while ((command != null) && !isBlockEnd(command)) {
+			if (isTree(command)) {
+				readTree(command.getTokens(), result);
+			}
+			else if ((translTableCommand == null) && isTranslTable(command)) {
+				translTableCommand = command;
+			}
+			command = commandReader.readNextCommand();
+		}
+		
+		if (command == null) {
+  		throw new NexusException(NexusError.TREES_UNTERMINATED);
+		}
+		else {
+			if (translTableCommand != null) {
+				readTranslTable(translTableCommand, result.getTranslTable());  // An unterminated block is reported before errors in the table.
+			}
+			return result;
+		}
+  }
 }
\ No newline at end of file
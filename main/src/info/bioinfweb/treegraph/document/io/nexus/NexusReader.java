@@ -20,16 +20,21 @@ package info.bioinfweb.treegraph.document.io.nexus;
 
 
 import java.io.BufferedInputStream;
+import java.io.InputStreamReader;
 
+import info.bioinfweb.commons.log.ApplicationLogger;
 import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.document.io.AbstractDocumentIterator;
 import info.bioinfweb.treegraph.document.io.DocumentIterator;
 import info.bioinfweb.treegraph.document.io.ReadWriteParameterMap;
 import info.bioinfweb.treegraph.document.io.TextStreamReader;
 import info.bioinfweb.treegraph.document.io.newick.NewickReader;
+import info.bioinfweb.treegraph.document.io.newick.NewickStringReader;
 import info.bioinfweb.treegraph.document.io.newick.NewickTreeList;
 import info.bioinfweb.treegraph.document.nodebranchdata.BranchLengthAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeNameAdapter;
+import info.bioinfweb.treegraph.document.topologicalcalculation.TreeTopology;
 
 
 
@@ -42,6 +47,103 @@ import info.bioinfweb.treegraph.document.nodebranchdata.NodeNameAdapter;
  */
 public class NexusReader extends TextStreamReader {
 	/**
+	 * Reads the trees of the first trees block of a Nexus file one by one. Only the current command and the
+	 * translation table are held in memory.
+	 * <p>
+	 * The translation table is expected to be located in front of the trees, since trees that have already been
+	 * read cannot be translated anymore.
+	 */
+	private class NexusDocumentIterator extends AbstractDocumentIterator {
+		private NexusCommandReader commandReader;
+		private NewickStringReader newickStringReader = new NewickStringReader();
+		private TranslTable translTable = new TranslTable();
+		private boolean translTableRead = false;
+		private boolean blockStarted = false;
+		private boolean blockEnded = false;
+		
+		
+		public NexusDocumentIterator(InputStreamReader reader, ApplicationLogger loadLogger,
+				NodeBranchDataAdapter internalAdapter, NodeBranchDataAdapter branchLengthsAdapter, 
+				boolean translateInternalNodes) {
+			
+			super(loadLogger, internalAdapter, branchLengthsAdapter, translateInternalNodes);
+			commandReader = new NexusCommandReader(reader);
+		}
+
+
+		/**
+		 * Reads the next tree command and returns the name and the Newick string of the tree.
+		 * 
+		 * @return the name and the Newick string of the tree or {@code null} if the end of the trees block was reached
+		 */
+		private String[] readNextTree() throws Exception {
+			if (!blockStarted) {
+				NexusParser.skipToTreesBlock(commandReader);
+				blockStarted = true;
+			}
+			
+			if (!blockEnded) {
+				NexusCommand command = commandReader.readNextCommand();
+				while (command != null) {
+					if (NexusParser.isBlockEnd(command)) {
+						blockEnded = true;
+						return null;
+					}
+					else if (NexusParser.isTree(command)) {
+						String[] tree = NexusParser.splitTree(command.getTokens());
+						if (tree != null) {
+							return tree;
+						}
+					}
+					else if (!translTableRead && NexusParser.isTranslTable(command)) {
+						NexusParser.readTranslTable(command, translTable);
+						translTableRead = true;
+					}
+					command = commandReader.readNextCommand();
+				}
+				throw new NexusException(NexusError.TREES_UNTERMINATED);
+			}
+			return null;
+		}
+
+
+		@Override
+		protected Document readNext() throws Exception {
+			String[] tree = readNextTree();
+			if (tree != null) {
+				Document result = createEmptyDocument();
+				result.setTree(newickStringReader.read(tree[1], 
+						getParameterMap().getNodeBranchDataAdapter(ReadWriteParameterMap.KEY_INTERNAL_NODE_NAMES_ADAPTER, null),  // Default value is null because a value has to be specified in the constructor.
+						getParameterMap().getNodeBranchDataAdapter(ReadWriteParameterMap.KEY_BRANCH_LENGTH_ADAPTER, null),  // Default value is null because a value has to be specified in the constructor.
+						translTable, 
+						getParameterMap().getBoolean(ReadWriteParameterMap.KEY_TRANSLATE_INTERNAL_NODE_NAMES, true)));
+				return result;
+			}
+			else {
+				return null;
+			}
+		}
+
+
+		@Override
+		protected TreeTopology readNextTopology(NodeBranchDataAdapter leavesAdapter) throws Exception {
+			if (leavesAdapter instanceof NodeNameAdapter) {  // Leaf names can be taken directly from the Newick string.
+				String[] tree = readNextTree();
+				if (tree != null) {
+					return newickStringReader.readTopology(tree[1], translTable);
+				}
+				else {
+					return null;
+				}
+			}
+			else {
+				return super.readNextTopology(leavesAdapter);
+			}
+		}
+	}
+	
+	
+	/**
 	 * Constructs an instance of <code>NexusReader</code>.
 	 */
 	public NexusReader() {
@@ -51,7 +153,7 @@ public class NexusReader extends TextStreamReader {
 	
 	@Override
 	public Document readDocument(BufferedInputStream stream) throws Exception {
-		NexusDocument nex = NexusParser.parse(readStream(stream));
+		NexusDocument nex = NexusParser.parse(new InputStreamReader(stream));
 		NewickTreeList trees = nex.createTrees(
 				parameterMap.getNodeBranchDataAdapter(ReadWriteParameterMap.KEY_INTERNAL_NODE_NAMES_ADAPTER, 
 						NodeNameAdapter.getSharedInstance()),
@@ -76,7 +178,11 @@ public class NexusReader extends TextStreamReader {
 
 	@Override
 	public DocumentIterator createIterator(BufferedInputStream stream) throws Exception {
-		//TODO implement (e.g. create local NexusDocument iterator)
-		return null;
+		return new NexusDocumentIterator(new InputStreamReader(stream), loadLogger, 
+				parameterMap.getNodeBranchDataAdapter(ReadWriteParameterMap.KEY_INTERNAL_NODE_NAMES_ADAPTER, 
+						NodeNameAdapter.getSharedInstance()),
+				parameterMap.getNodeBranchDataAdapter(ReadWriteParameterMap.KEY_BRANCH_LENGTH_ADAPTER, 
+						BranchLengthAdapter.getSharedInstance()),
+				parameterMap.getBoolean(ReadWriteParameterMap.KEY_TRANSLATE_INTERNAL_NODE_NAMES, true));
 	}
 }
\ No newline at end of file
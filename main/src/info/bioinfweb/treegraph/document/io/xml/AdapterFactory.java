@@ -67,7 +67,7 @@ public class AdapterFactory {
   }
   
   
-	public static AdapterFactory getInstace() {
+	public static synchronized AdapterFactory getInstace() {
   	if (firstInstance == null) {
   		firstInstance = new AdapterFactory();
   	}
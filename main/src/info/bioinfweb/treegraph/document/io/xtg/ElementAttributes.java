@@ -0,0 +1,162 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.io.xtg;
+
+
+import java.awt.Color;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamReader;
+
+
+
+/**
+ * Stores the attributes of the current start element of an {@link XMLStreamReader} by their local names 
+ * and offers typed read methods similar to the ones of {@link info.bioinfweb.commons.io.XMLUtils}.
+ * <p>
+ * The attributes of an element are copied into a hash map only once by {@link #read(XMLStreamReader)}, 
+ * so that reading many attributes of large elements (as it is done for the formats in XTG) does not 
+ * require a linear search for each attribute. Instances of this class are meant to be reused for all 
+ * elements of a document. Only attributes without a namespace are stored.
+ * <p>
+ * Parsed colors are cached, since documents usually contain only few different colors. 
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class ElementAttributes {
+	private Map<String, String> values = new HashMap<String, String>();
+	private Map<String, Color> colors = new HashMap<String, Color>();
+	
+	
+	/**
+	 * Replaces the currently stored attributes by the attributes of the start element the specified reader
+	 * is currently positioned at.
+	 * 
+	 * @param reader - the reader providing the attributes
+	 */
+	public void read(XMLStreamReader reader) {
+		values.clear();
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			String namespaceURI = reader.getAttributeNamespace(i);
+			if ((namespaceURI == null) || namespaceURI.isEmpty()) {
+				values.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+			}
+		}
+	}
+	
+	
+	/**
+	 * Removes all stored attributes.
+	 */
+	public void clear() {
+		values.clear();
+	}
+	
+	
+	/**
+	 * Returns the value of the specified attribute.
+	 * 
+	 * @param name - the name of the attribute (Only the local part is used.)
+	 * @return the value or {@code null} if the current element does not have such an attribute
+	 */
+	public String getValue(QName name) {
+		return values.get(name.getLocalPart());
+	}
+	
+	
+	public String readString(QName name, String defaultValue) {
+		String result = getValue(name);
+		if (result == null) {
+			result = defaultValue;
+		}
+		return result;
+	}
+	
+	
+	public boolean readBoolean(QName name, boolean defaultValue) {
+		String value = getValue(name);
+		if (value == null) {
+			return defaultValue;
+		}
+		else {
+			return Boolean.parseBoolean(value);
+		}
+	}
+	
+	
+	public int readInt(QName name, int defaultValue) {
+		String value = getValue(name);
+		if (value == null) {
+			return defaultValue;
+		}
+		else {
+			return Integer.parseInt(value);
+		}
+	}
+	
+	
+	public float readFloat(QName name, float defaultValue) {
+		String value = getValue(name);
+		if (value == null) {
+			return defaultValue;
+		}
+		else {
+			return Float.parseFloat(value);
+		}
+	}
+	
+	
+	public double readDouble(QName name, double defaultValue) {
+		String value = getValue(name);
+		if (value == null) {
+			return defaultValue;
+		}
+		else {
+			return Double.parseDouble(value);
+		}
+	}
+	
+	
+	/**
+	 * Reads a color attribute in the format "#RRGGBB".
+	 * 
+	 * @param name - the name of the attribute
+	 * @param defaultValue - the color to be returned if the attribute is not present
+	 * @return the color
+	 * @throws NumberFormatException if the attribute value is not a valid color
+	 */
+	public Color readColor(QName name, Color defaultValue) {
+		String value = getValue(name);
+		if (value == null) {
+			return defaultValue;
+		}
+		else {
+			Color result = colors.get(value);
+			if (result == null) {
+				result = new Color(Integer.parseInt(value.substring(1, 3), 16), 
+						Integer.parseInt(value.substring(3, 5), 16), Integer.parseInt(value.substring(5, 7), 16));
+				colors.put(value, result);
+			}
+			return result;
+		}
+	}
+}
@@ -31,13 +31,17 @@ import javax.xml.namespace.QName;
  * @author Ben St&ouml;ver
  */
 public interface XTGConstants {
-  public static final FormatVersion VERSION = new FormatVersion(1, 5);
+  public static final FormatVersion VERSION = new FormatVersion(1, 6);
   /*
    * Version changes:
    * 
    * 1.5: New formats and data associated with pie chart label captions and heading added. 
+   * 1.6: Shared style table for the formats of nodes, branches and text labels added.
    */
   
+  /** The first version where the dimensions of icon labels are stored in the attributes "Width" and "Height". */
+  public static final FormatVersion LABEL_DIMENSIONS_VERSION = new FormatVersion(1, 2);
+  
   public static final String NAMESPACE_URI = "http://bioinfweb.info/xmlns/xtg";
   public static final String FULL_SCHEMA_LOCATION = NAMESPACE_URI + " " + NAMESPACE_URI + "/" + VERSION + ".xsd";
   
@@ -85,6 +89,15 @@ public interface XTGConstants {
   public static final QName ATTR_LINE_WIDTH = new QName("LineWidth");
   
   public static final QName ATTR_ID = new QName("Id");
+  
+  public static final String TAG_STYLES = "Styles";
+  public static final String TAG_NODE_STYLE = "NodeStyle";
+  public static final String TAG_BRANCH_STYLE = "BranchStyle";
+  public static final String TAG_TEXT_LABEL_STYLE = "TextLabelStyle";
+  public static final QName ATTR_STYLE = new QName("Style");
+  public static final String PRE_NODE_STYLE = "n";  // Prefix of the IDs of node styles
+  public static final String PRE_BRANCH_STYLE = "b";  // Prefix of the IDs of branch styles
+  public static final String PRE_TEXT_LABEL_STYLE = "t";  // Prefix of the IDs of text label styles
   
   public static final String TAG_TREE = "Tree";
   
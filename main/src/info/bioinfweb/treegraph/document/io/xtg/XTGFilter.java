@@ -30,6 +30,13 @@ import info.bioinfweb.treegraph.document.io.TreeFilter;
  */
 public class XTGFilter extends AbstractXMLFilter implements TreeFilter, XTGConstants {
   public static final String EXTENSION = ".xtg";
+  
+  /** 
+   * The extension of GZIP compressed XTG files.
+   * 
+   * @since 2.16.0
+   */
+  public static final String COMPRESSED_EXTENSION = ".xtgz";
 
   
 	@Override
@@ -45,13 +52,13 @@ public class XTGFilter extends AbstractXMLFilter implements TreeFilter, XTGConst
 
 	public boolean validExtension(String name) {
 		name = name.toLowerCase();
-		return name.endsWith(EXTENSION) || name.endsWith(XML_EXTENSION);
+		return name.endsWith(EXTENSION) || name.endsWith(COMPRESSED_EXTENSION) || name.endsWith(XML_EXTENSION);
 	}
   
   
 	@Override
 	public String getDescription() {
-		return "TreeGraph 2 XML format (*.xtg; *.xml)";
+		return "TreeGraph 2 XML format (*.xtg; *.xtgz; *.xml)";
 	}
 
 
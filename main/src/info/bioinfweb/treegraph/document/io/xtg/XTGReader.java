@@ -22,26 +22,27 @@ package info.bioinfweb.treegraph.document.io.xtg;
 import info.bioinfweb.treegraph.document.*;
 import info.bioinfweb.treegraph.document.format.*;
 import info.bioinfweb.treegraph.document.io.AbstractDocumentReader;
-import info.bioinfweb.treegraph.document.io.DocumentIterator;
-import info.bioinfweb.treegraph.document.io.SingleDocumentIterator;
-import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
-import info.bioinfweb.treegraph.document.nodebranchdata.factory.NodeBranchDataAdapterFactory;
+import info.bioinfweb.treegraph.document.io.CompressionUtils;
+import info.bioinfweb.treegraph.document.io.DocumentIterator;
+import info.bioinfweb.treegraph.document.io.SingleDocumentIterator;
+import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
+import info.bioinfweb.treegraph.document.nodebranchdata.factory.NodeBranchDataAdapterFactory;
 import info.bioinfweb.treegraph.gui.mainframe.MainFrame;
 import info.bioinfweb.commons.io.FormatVersion;
 import info.bioinfweb.commons.io.InvalidXSDPathException;
 import info.bioinfweb.commons.io.XMLUtils;
-
-import java.io.BufferedInputStream;
+
+import java.io.BufferedInputStream;
 import java.text.DecimalFormat;
+import java.util.HashMap;
 import java.util.Locale;
-
+import java.util.Map;
+import java.util.regex.Matcher;
+
 import javax.swing.JOptionPane;
 import javax.xml.XMLConstants;
 import javax.xml.namespace.QName;
 import javax.xml.stream.*;
-import javax.xml.stream.events.Attribute;
-import javax.xml.stream.events.StartElement;
-import javax.xml.stream.events.XMLEvent;
 
 
 
@@ -50,40 +51,98 @@ import javax.xml.stream.events.XMLEvent;
  * If the document contains additional (not defined tags) they are ignored. Note that they 
  * can not transfered to the internal data structure and therefor a not written back to a 
  * document generated with TreeGraph 2.<br>
- * If defined attributes are missing in the document, standard values are used.
+ * If defined attributes are missing in the document, standard values are used.
+ * <p>
+ * Since version 2.16.0 this reader uses the cursor API of StAX ({@link XMLStreamReader}) instead of 
+ * creating event objects for each element and attribute. The attributes of each element are stored 
+ * in an {@link ElementAttributes} instance that is reused for all elements and subelements are 
+ * dispatched by a switch over their local names. All read methods expect the reader to be positioned 
+ * at the start element to be read and leave it at the according end element.
  * 
  * @author Ben St&ouml;ver
  */
 public class XTGReader extends AbstractDocumentReader implements XTGConstants {
-  private XMLEventReader reader;
+  private XMLStreamReader reader;
+  private ElementAttributes attributes = new ElementAttributes();
+  private Map<String, DecimalFormat> decimalFormats = new HashMap<String, DecimalFormat>();
+  private Map<String, NodeFormats> nodeStyles = new HashMap<String, NodeFormats>();
+  private Map<String, BranchFormats> branchStyles = new HashMap<String, BranchFormats>();
+  private Map<String, TextLabelFormats> textLabelStyles = new HashMap<String, TextLabelFormats>();
   
   
-	public XTGReader() {
-		super(true);
+	public XTGReader() {
+		super(true);
+	}
+	
+	
+	/**
+	 * Moves the reader to the next start element or to the end element of the current element. Other 
+	 * events are skipped.
+	 * 
+	 * @return {@code true} if the reader is positioned at a start element afterwards or {@code false} if it
+	 *         is positioned at an end element
+	 * @since 2.16.0
+	 */
+	private boolean nextChildElement() throws XMLStreamException {
+		int type = reader.next();
+		while ((type != XMLStreamConstants.START_ELEMENT) && (type != XMLStreamConstants.END_ELEMENT)) {
+			type = reader.next();
+		}
+		return type == XMLStreamConstants.START_ELEMENT;
 	}
 	
 	
-	private void readDistanceValueAttr(DistanceValue value, StartElement element, QName name) {
-		Attribute attr = element.getAttributeByName(name);
-		if (attr != null) {
+	/**
+	 * Reads the text content of the current element and moves the reader to its end element. As in previous 
+	 * versions of this reader, only the text before the first subelement is read and the remaining content 
+	 * is skipped.
+	 * 
+	 * @return the concatenated text (If a string contains e.g. "&amp;lt;" it is reported by several events.)
+	 * @since 2.16.0
+	 */
+	private String readElementText() throws XMLStreamException {
+		QName name = reader.getName();
+		StringBuilder result = new StringBuilder();
+		int type = reader.next();
+		while (XMLUtils.isCharacterType(type) || (type == XMLStreamConstants.COMMENT)) {
+			if (type != XMLStreamConstants.COMMENT) {
+				result.append(reader.getText());
+			}
+			type = reader.next();
+		}
+		
+		if (type != XMLStreamConstants.END_ELEMENT) {
+			if (type == XMLStreamConstants.START_ELEMENT) {
+				XMLUtils.reachElementEnd(reader);
+			}
+			XMLUtils.reachElementEnd(reader);
+			addSkippedElementsWarning(createElementDescription(name));
+		}
+		return result.toString();
+	}
+	
+	
+	private void readDistanceValueAttr(DistanceValue value, QName name) {
+		String text = attributes.getValue(name);
+		if (text != null) {
 			try {
-				value.setInMillimeters(Float.parseFloat(attr.getValue()));
+				value.setInMillimeters(Float.parseFloat(text));
 			}
 			catch (NumberFormatException e) {
-				loadLogger.addWarning("The distance value attribute \"" + attr.getValue() + "\" is malformed. A default " +
+				loadLogger.addWarning("The distance value attribute \"" + text + "\" is malformed. A default " +
 						"value was used instead.");
 			}
 		}
 	}
 	
 	
-	private void readTextElementDataAttr(TextElementData data, StartElement element) {
-		String text = XMLUtils.readStringAttr(element, ATTR_TEXT, null);
+	private void readTextElementDataAttr(TextElementData data) {
+		String text = attributes.readString(ATTR_TEXT, null);
 		if (text == null) {
 			data.clear();
 		}
 		else {
-			if (XMLUtils.readBooleanAttr(element, ATTR_TEXT_IS_DECIMAL, false)) {  // Ist das Attribut nicht angegeben, wird von einem String ausgegangen.
+			if (attributes.readBoolean(ATTR_TEXT_IS_DECIMAL, false)) {  // If the attribute is missing, a textual value is assumed.
 				try {
 					data.setDecimal(Double.parseDouble(text));
 				}
@@ -100,105 +159,95 @@ public class XTGReader extends AbstractDocumentReader implements XTGConstants {
 	}
 	
 	
-  private void readDistanceDimensionAttr(DistanceDimension d, StartElement element) {
-  	readDistanceValueAttr(d.getWidth(), element, ATTR_WIDTH);
-  	readDistanceValueAttr(d.getHeight(), element, ATTR_HEIGHT);
+  private void readAdapter() throws XMLStreamException {
+  	attributes.read(reader);
+  	String adapterName = attributes.readString(ATTR_ADAPTER_NAME, null);
+  	String adapterPurpose =  attributes.readString(ATTR_ADAPTER_PURPOSE, null);
+  	if (adapterName != null) {
+  		NodeBranchDataAdapter adapter = NodeBranchDataAdapterFactory.getInstance().newAdapterInstance(adapterName, attributes.readString(ATTR_ADAPTER_ID, ""));
+  		if (adapter == null) {
+    		loadLogger.addWarning("No NodeBranchDataAdapter with the name \"" + adapterName + "\" could be created. Probably you are not using the most recent version of TreeGraph 2.");
+  		}
+  		else {
+	  		if (VALUE_LEAVES_ADAPTER.equals(adapterPurpose) || DEPRECATED_VALUE_LEAVES_ADAPTER.equals(adapterPurpose)) {
+	  			document.setDefaultLeafAdapter(adapter);
+	  		}
+	  		else if (VALUE_SUPPORT_VALUES_ADAPTER.equals(adapterPurpose)) {
+	  			document.setDefaultSupportAdapter(adapter);
+	  		}
+	  		else if (adapterPurpose == null) {
+	    		loadLogger.addWarning("An adapter could not be read, beacuse no purpose attribute was specified.");
+	  		}
+	  		else {
+	    		loadLogger.addWarning("No default adapter for the purpose \"" + adapterPurpose + "\" could be written to the document. Probably you are not using the most recent version of TreeGraph 2.");
+	  		}
+  		}
+  	}
+  	else {
+  		loadLogger.addWarning("An adapter could not be read, beacuse no name attribute was specified.");
+  	}
+  	reachElementEnd(reader, "XML elements under <" + TAG_ADAPTER + ">");
+  }
+  
+  
+  private void readNodeBranchDataAdapters() throws XMLStreamException {
+    while (nextChildElement()) {
+    	switch (reader.getLocalName()) {
+    		case TAG_ADAPTER:
+    			readAdapter();
+    			break;
+    		default:  // Possibly additional element that is not read
+    			reachElementEnd(reader);
+    			break;
+    	}
+    }
   }
-  
-  
-  private void readAdapter(StartElement element) throws XMLStreamException {
-  	String adapterName = XMLUtils.readStringAttr(element, ATTR_ADAPTER_NAME, null);
-  	String adapterPurpose =  XMLUtils.readStringAttr(element, ATTR_ADAPTER_PURPOSE, null);
-  	if (adapterName != null) {
-  		NodeBranchDataAdapter adapter = NodeBranchDataAdapterFactory.getInstance().newAdapterInstance(adapterName, XMLUtils.readStringAttr(element, ATTR_ADAPTER_ID, ""));
-  		if (adapter == null) {
-    		loadLogger.addWarning("No NodeBranchDataAdapter with the name \"" + adapterName + "\" could be created. Probably you are not using the most recent version of TreeGraph 2.");
-  		}
-  		else {
-	  		if (VALUE_LEAVES_ADAPTER.equals(adapterPurpose) || DEPRECATED_VALUE_LEAVES_ADAPTER.equals(adapterPurpose)) {
-	  			document.setDefaultLeafAdapter(adapter);
-	  		}
-	  		else if (VALUE_SUPPORT_VALUES_ADAPTER.equals(adapterPurpose)) {
-	  			document.setDefaultSupportAdapter(adapter);
-	  		}
-	  		else if (adapterPurpose == null) {
-	    		loadLogger.addWarning("An adapter could not be read, beacuse no purpose attribute was specified.");
-	  		}
-	  		else {
-	    		loadLogger.addWarning("No default adapter for the purpose \"" + adapterPurpose + "\" could be written to the document. Probably you are not using the most recent version of TreeGraph 2.");
-	  		}
-  		}
-  	}
-  	else {
-  		loadLogger.addWarning("An adapter could not be read, beacuse no name attribute was specified.");
-  	}
-  	reachElementEnd(reader, "XML elements under <" + TAG_ADAPTER + ">");
-  }
-  
-  
-  private void readNodeBranchDataAdapters(StartElement rootElement) throws XMLStreamException {
-  	XMLEvent event = reader.nextEvent();
-    while (event.getEventType() != XMLStreamConstants.END_ELEMENT) {
-      if (event.getEventType() == XMLStreamConstants.START_ELEMENT) {
-      	StartElement element = event.asStartElement();
-        if (element.getName().getLocalPart().equals(TAG_ADAPTER)) {
-        	readAdapter(element);
-        }
-        else {  // evtl. zusätzlich vorhandenes Element, dass nicht gelesen wird
-          reachElementEnd(reader, element);  
-        }
-      }
-      event = reader.nextEvent();
-    }
-  }
   
   
   /**
    * @param m
-   * @param element
    * @throws XMLStreamException
    * @since 2.0.41
    */
-  private void readMargin(Margin m, StartElement element) throws XMLStreamException {
-  	readDistanceValueAttr(m.getLeft(), element, ATTR_LEFT);
-  	readDistanceValueAttr(m.getTop(), element, ATTR_TOP);
-  	readDistanceValueAttr(m.getRight(), element, ATTR_RIGHT);
-  	readDistanceValueAttr(m.getBottom(), element, ATTR_BOTTOM);
+  private void readMargin(Margin m) throws XMLStreamException {
+  	attributes.read(reader);
+  	readDistanceValueAttr(m.getLeft(), ATTR_LEFT);
+  	readDistanceValueAttr(m.getTop(), ATTR_TOP);
+  	readDistanceValueAttr(m.getRight(), ATTR_RIGHT);
+  	readDistanceValueAttr(m.getBottom(), ATTR_BOTTOM);
   	
   	reachElementEnd(reader, "XML elements under <" + TAG_LABEL_MARGIN + ">");
   }
 	
 	
-  private void readGlobalFormats(StartElement rootElement) throws XMLStreamException {
+  private void readGlobalFormats() throws XMLStreamException {
+  	attributes.read(reader);
   	GlobalFormats f = document.getTree().getFormats(); 
-  	f.setBackgroundColor(XMLUtils.readColorAttr(rootElement, ATTR_BG_COLOR, f.getBackgroundColor()));
-		readDistanceValueAttr(f.getBranchLengthScale(), rootElement, ATTR_BRANCH_LENGTH_SCALE);
-		f.setShowScaleBar(XMLUtils.readBooleanAttr(rootElement, ATTR_SHOW_SCALE_BAR, f.getShowScaleBar()));
-		f.setShowRooted(XMLUtils.readBooleanAttr(rootElement, ATTR_SHOW_ROOTED, f.getShowRooted()));
-		f.setAlignLegendsToSubtree(XMLUtils.readBooleanAttr(rootElement, ATTR_ALIGN_TO_SUBTREE,	false));  // Default value is false because this feature did not exists in previous versions.
-		f.setAlignLegendsToSubtree(XMLUtils.readBooleanAttr(rootElement, ATTR_POSITION_LABELS_TO_LEFT,	
+  	f.setBackgroundColor(attributes.readColor(ATTR_BG_COLOR, f.getBackgroundColor()));
+		readDistanceValueAttr(f.getBranchLengthScale(), ATTR_BRANCH_LENGTH_SCALE);
+		f.setShowScaleBar(attributes.readBoolean(ATTR_SHOW_SCALE_BAR, f.getShowScaleBar()));
+		f.setShowRooted(attributes.readBoolean(ATTR_SHOW_ROOTED, f.getShowRooted()));
+		f.setAlignLegendsToSubtree(attributes.readBoolean(ATTR_ALIGN_TO_SUBTREE,	false));  // Default value is false because this feature did not exists in previous versions.
+		f.setAlignLegendsToSubtree(attributes.readBoolean(ATTR_POSITION_LABELS_TO_LEFT,	
 				f.getPositionLabelsToLeft()));
 		
-		XMLEvent event = reader.nextEvent();
-    while (event.getEventType() != XMLStreamConstants.END_ELEMENT) {
-      if (event.getEventType() == XMLStreamConstants.START_ELEMENT) {
-      	StartElement element = event.asStartElement();
-        if (element.getName().getLocalPart().equals(TAG_DOC_MARGIN)) {
-        	readMargin(f.getDocumentMargin(), element);
-        }
-        else {  // evtl. zus�tzlich vorhandenes Element, dass nicht gelesen wird
-          reachElementEnd(reader, element);  
-        }
-      }
-      event = reader.nextEvent();
+    while (nextChildElement()) {
+    	switch (reader.getLocalName()) {
+    		case TAG_DOC_MARGIN:
+    			readMargin(f.getDocumentMargin());
+    			break;
+    		default:
+    			reachElementEnd(reader);
+    			break;
+    	}
     }
   }
 	
 	
-	private void readTextStyleAttr(TextFormats f, StartElement element) {
-		Attribute attr = element.getAttributeByName(ATTR_TEXT_STYLE);
-		if (attr != null) {
-			String str = attr.getValue().toLowerCase();
+	private void readTextStyleAttr(TextFormats f) {
+		String str = attributes.getValue(ATTR_TEXT_STYLE);
+		if (str != null) {
+			str = str.toLowerCase();
 			f.setTextStyle(TextFormats.PLAIN);
 			if (str.contains(STYLE_BOLD)) {
 				f.addTextStyle(TextFormats.BOLD);
@@ -214,23 +263,53 @@ public class XTGReader extends AbstractDocumentReader implements XTGConstants {
 	}
 	
 	
-	private void readDecimalFormat(TextFormats f, StartElement element, String prefix) {
-		DecimalFormat format = new DecimalFormat(
-				XMLUtils.readStringAttr(element, new QName(prefix + ATTR_DECIMAL_FORMAT.toString()), 
-    				TextFormats.DEFAULT_DECIMAL_FORMAT_EXPR));
+	/**
+	 * Returns a decimal format for the specified pattern. Instances are reused for all elements of a document 
+	 * with the same pattern, since {@link TextFormats#setDecimalFormat(DecimalFormat, Locale)} stores a copy 
+	 * anyway.
+	 * 
+	 * @since 2.16.0
+	 */
+	private DecimalFormat getDecimalFormat(String pattern) {
+		DecimalFormat result = decimalFormats.get(pattern);
+		if (result == null) {
+			result = new DecimalFormat(pattern);
+			decimalFormats.put(pattern, result);
+		}
+		return result;
+	}
+	
+	
+	/**
+	 * Reads the decimal format and its locale. If neither is specified, the current format is left unchanged, 
+	 * so that the format of a style is not overwritten.
+	 */
+	private void readDecimalFormat(TextFormats f, String prefix) {
+		String pattern = attributes.readString(new QName(prefix + ATTR_DECIMAL_FORMAT), null);
+		String lang = attributes.readString(new QName(prefix + ATTR_LOCALE_LANG), null); 
+		if ((pattern == null) && (lang == null)) {
+			return;
+		}
+		
+		DecimalFormat format;
+		if (pattern == null) {
+			format = f.getDecimalFormat();
+		}
+		else {
+			format = getDecimalFormat(pattern);
+		}
 		
 		Locale locale;
-		String lang = XMLUtils.readStringAttr(element, new QName(prefix + ATTR_LOCALE_LANG), null); 
 		if (lang == null) {
-			locale = TextFormats.DEFAULT_LOCALE;
+			locale = f.getLocale();
 		}
 		else {
-			String country = XMLUtils.readStringAttr(element, new QName(prefix + ATTR_LOCALE_COUNTRY), null);
+			String country = attributes.readString(new QName(prefix + ATTR_LOCALE_COUNTRY), null);
 			if (country == null) {
 				locale = new Locale(lang);
 			}
 			else {
-				String variant = XMLUtils.readStringAttr(element, new QName(prefix + ATTR_LOCALE_VARIANT), null);
+				String variant = attributes.readString(new QName(prefix + ATTR_LOCALE_VARIANT), null);
 				if (variant == null) {
 					locale = new Locale(lang, country);
 				}
@@ -243,178 +322,281 @@ public class XTGReader extends AbstractDocumentReader implements XTGConstants {
 	}
 	
 	
-	private void readTextFormatsAttr(TextFormats f, StartElement element, String prefix) {
-		f.setTextColor(XMLUtils.readColorAttr(element, new QName(prefix + ATTR_TEXT_COLOR.toString()), f.getTextColor()));
-		readDistanceValueAttr(f.getTextHeight(), element, new QName(prefix + ATTR_TEXT_HEIGHT.toString()));
-		readTextStyleAttr(f, element);
-		f.setFontName(XMLUtils.readStringAttr(element, new QName(prefix + ATTR_FONT_FAMILY.toString()), f.getFontName()));
-		readDecimalFormat(f, element, prefix);
+	private void readTextFormatsAttr(TextFormats f, String prefix) {
+		f.setTextColor(attributes.readColor(new QName(prefix + ATTR_TEXT_COLOR), f.getTextColor()));
+		readDistanceValueAttr(f.getTextHeight(), new QName(prefix + ATTR_TEXT_HEIGHT));
+		readTextStyleAttr(f);
+		f.setFontName(attributes.readString(new QName(prefix + ATTR_FONT_FAMILY), f.getFontName()));
+		readDecimalFormat(f, prefix);
 	}
 	
 	
-	private void readLineAttr(LineFormats f, StartElement element) {
-		readDistanceValueAttr(f.getLineWidth(), element, ATTR_LINE_WIDTH);
-		f.setLineColor(XMLUtils.readColorAttr(element, ATTR_LINE_COLOR, f.getLineColor()));
+	private void readLineAttr(LineFormats f) {
+		readDistanceValueAttr(f.getLineWidth(), ATTR_LINE_WIDTH);
+		f.setLineColor(attributes.readColor(ATTR_LINE_COLOR, f.getLineColor()));
 	}
 	
 	
-	private void readBranch(StartElement rootElement, Branch b) throws XMLStreamException {
-		BranchFormats f = b.getFormats();
-		b.setLength(XMLUtils.readDoubleAttr(rootElement, ATTR_BRANCH_LENGTH, b.getLength()));
-		readLineAttr(f, rootElement);
-		readDistanceValueAttr(f.getMinLength(), rootElement, ATTR_MIN_BRANCH_LENGTH);		
-		readDistanceValueAttr(f.getMinSpaceAbove(), rootElement, ATTR_MIN_SPACE_ABOVE);		
-		readDistanceValueAttr(f.getMinSpaceBelow(), rootElement, ATTR_MIN_SPACE_BELOW);		
-		f.setConstantWidth(XMLUtils.readBooleanAttr(rootElement, ATTR_CONSTANT_WIDTH, f.isConstantWidth()));
+	private void readNodeFormatsAttr(NodeFormats f) {
+		readTextFormatsAttr(f, "");
+		readLineAttr(f);
+		readDistanceValueAttr(f.getCornerRadius(), ATTR_EDGE_RADIUS);
+	}
+	
+	
+	private void readBranchFormatsAttr(BranchFormats f) {
+		readLineAttr(f);
+		readDistanceValueAttr(f.getMinLength(), ATTR_MIN_BRANCH_LENGTH);		
+		readDistanceValueAttr(f.getMinSpaceAbove(), ATTR_MIN_SPACE_ABOVE);		
+		readDistanceValueAttr(f.getMinSpaceBelow(), ATTR_MIN_SPACE_BELOW);		
+		f.setConstantWidth(attributes.readBoolean(ATTR_CONSTANT_WIDTH, f.isConstantWidth()));
+	}
+	
+	
+	/**
+	 * Reads a style element and reaches its end. The margin element with the specified name is read into 
+	 * {@code margin}, if it is present.
+	 * 
+	 * @return the ID of the style or {@code null} if no ID was specified
+	 * @since 2.16.0
+	 */
+	private String readStyleMargin(String marginTag, Margin margin) throws XMLStreamException {
+		String id = attributes.readString(ATTR_ID, null);
+		if (id == null) {
+			loadLogger.addWarning("A style without an ID was found and skipped.");
+		}
+    while (nextChildElement()) {
+    	if (reader.getLocalName().equals(marginTag)) {
+    		readMargin(margin);
+    	}
+    	else {
+    		reachElementEnd(reader);
+    	}
+    }
+    return id;
+	}
+	
+	
+	/**
+	 * Reads the table of styles that nodes, branches and text labels can reference (since XTG 1.6).
+	 * 
+	 * @since 2.16.0
+	 */
+	private void readStyles() throws XMLStreamException {
+    while (nextChildElement()) {
+    	String id;
+    	switch (reader.getLocalName()) {
+    		case TAG_NODE_STYLE:
+    			attributes.read(reader);
+    			NodeFormats nodeFormats = new NodeFormats();
+    			readNodeFormatsAttr(nodeFormats);
+    			id = readStyleMargin(TAG_LEAF_MARGIN, nodeFormats.getLeafMargin());
+    			if (id != null) {
+    				nodeStyles.put(id, nodeFormats);
+    			}
+    			break;
+    		case TAG_BRANCH_STYLE:
+    			attributes.read(reader);
+    			BranchFormats branchFormats = new BranchFormats();
+    			readBranchFormatsAttr(branchFormats);
+    			id = readStyleMargin(null, null);
+    			if (id != null) {
+    				branchStyles.put(id, branchFormats);
+    			}
+    			break;
+    		case TAG_TEXT_LABEL_STYLE:
+    			attributes.read(reader);
+    			TextLabelFormats textLabelFormats = new TextLabelFormats(null);
+    			readTextFormatsAttr(textLabelFormats, "");
+    			id = readStyleMargin(TAG_LABEL_MARGIN, textLabelFormats.getMargin());
+    			if (id != null) {
+    				textLabelStyles.put(id, textLabelFormats);
+    			}
+    			break;
+    		default:
+    			reachElementEnd(reader);
+    			break;
+    	}
+    }
+	}
+	
+	
+	/**
+	 * Returns the style referenced by the current element.
+	 * 
+	 * @return the style or {@code null} if the element does not reference a style or the style is unknown
+	 * @since 2.16.0
+	 */
+	private <F extends ElementFormats> F getStyle(Map<String, F> styles) {
+		String id = attributes.getValue(ATTR_STYLE);
+		if (id == null) {
+			return null;
+		}
+		else {
+			F result = styles.get(id);
+			if (result == null) {
+				loadLogger.addWarning("The style \"" + id + "\" is not defined in this document. Default formats " +
+						"were used instead.");
+			}
+			return result;
+		}
+	}
+	
+	
+	private void readBranch(Branch b) throws XMLStreamException {
+		attributes.read(reader);
+		BranchFormats f = b.getFormats();
+		b.setLength(attributes.readDouble(ATTR_BRANCH_LENGTH, b.getLength()));
+		BranchFormats style = getStyle(branchStyles);
+		if (style != null) {
+			f.assign(style);
+		}
+		readBranchFormatsAttr(f);  // Attributes of the element overwrite the style.
 
-		XMLEvent event = reader.nextEvent();
-    while (event.getEventType() != XMLStreamConstants.END_ELEMENT) {
-      if (event.getEventType() == XMLStreamConstants.START_ELEMENT) {
-      	StartElement element = event.asStartElement();
-        if (element.getName().getLocalPart().equals(TAG_TEXT_LABEL)) {
-        	readTextLabel(element, b.getLabels());
-        }
-        else if (element.getName().getLocalPart().equals(TAG_ICON_LABEL)) {
-        	readIconLabel(element, b.getLabels());
-        }
-        else if (element.getName().getLocalPart().equals(TAG_PIE_CHART_LABEL)) {
-        	readPieChartLabel(element, b.getLabels());
-        }
-        else if (element.getName().getLocalPart().equals(TAG_HIDDEN_DATA)) {
-        	readHiddenData(element, b.getHiddenDataMap());
-        }
-        else {
-          reachElementEnd(reader, element);  
-        }
-      }
-      event = reader.nextEvent();
+    while (nextChildElement()) {
+    	switch (reader.getLocalName()) {
+    		case TAG_TEXT_LABEL:
+    			readTextLabel(b.getLabels());
+    			break;
+    		case TAG_ICON_LABEL:
+    			readIconLabel(b.getLabels());
+    			break;
+    		case TAG_PIE_CHART_LABEL:
+    			readPieChartLabel(b.getLabels());
+    			break;
+    		case TAG_HIDDEN_DATA:
+    			readHiddenData(b.getHiddenDataMap());
+    			break;
+    		default:
+    			reachElementEnd(reader);
+    			break;
+    	}
     }
 	}
 	
 	
-	private void readPieChartIDs(StartElement rootElement, PieChartLabel l) throws XMLStreamException {
-		PieChartLabelFormats f = l.getFormats();
-		readTextFormatsAttr(f.getCaptionsTextFormats(), rootElement, "");
+	private void readPieChartIDs(PieChartLabel l) throws XMLStreamException {
+		attributes.read(reader);
+		PieChartLabelFormats f = l.getFormats();
+		readTextFormatsAttr(f.getCaptionsTextFormats(), "");
 		
-    XMLEvent event = reader.nextEvent();
     int index = 0;
-    while (event.getEventType() != XMLStreamConstants.END_ELEMENT) {
-      if (event.getEventType() == XMLStreamConstants.START_ELEMENT) {
-      	StartElement element = event.asStartElement();
-        if (element.getName().getLocalPart().equals(TAG_PIE_CHART_ID)) {
-        	f.setPieColor(index, XMLUtils.readColorAttr(element, ATTR_PIE_COLOR, f.getPieColor(index)));
-        	String caption = XMLUtils.readStringAttr(element, ATTR_PIE_CAPTION, "");
-        	l.getSectionDataList().add(new PieChartLabel.SectionData(XMLUtils.readCharactersAsString(reader), caption));  // If string contains e.g. "&lt;" it will be split into separate events. Therefore the util method needs to be used.
-          reachElementEnd(reader, element);
+    while (nextChildElement()) {
+    	switch (reader.getLocalName()) {
+    		case TAG_PIE_CHART_ID:
+    			attributes.read(reader);
+        	f.setPieColor(index, attributes.readColor(ATTR_PIE_COLOR, f.getPieColor(index)));
+        	String caption = attributes.readString(ATTR_PIE_CAPTION, "");
+        	l.getSectionDataList().add(new PieChartLabel.SectionData(readElementText(), caption));
           index++;
-        }
-        else {
-          reachElementEnd(reader, element);
-        }
-      }
-      event = reader.nextEvent();
+    			break;
+    		default:
+    			reachElementEnd(reader);
+    			break;
+    	}
     }
 	}
 	
 	
 	/**
-	 * This method also reads the subelements of the root element. Therefor no more attributes can be read 
+	 * This method also reads the subelements of the current element. Therefor no more attributes can be read 
 	 * after the call of this method.
-	 * @param rootElement
 	 * @param label
 	 */
-	private void readLabelData(StartElement rootElement, Label l) throws XMLStreamException {
-		l.setID(XMLUtils.readStringAttr(rootElement, ATTR_ID, l.getID()));
+	private void readLabelData(Label l) throws XMLStreamException {
+		l.setID(attributes.readString(ATTR_ID, l.getID()));
 		
 		LabelFormats f = l.getFormats();
-    f.setAbove(XMLUtils.readBooleanAttr(rootElement, ATTR_LABEL_ABOVE, f.isAbove()));
-    f.setLineNumber(XMLUtils.readIntAttr(rootElement, ATTR_LINE_NO, f.getLineNumber()));
-    f.setLinePosition(XMLUtils.readDoubleAttr(rootElement, ATTR_LINE_POS, f.getLinePosition()));
+    f.setAbove(attributes.readBoolean(ATTR_LABEL_ABOVE, f.isAbove()));
+    f.setLineNumber(attributes.readInt(ATTR_LINE_NO, f.getLineNumber()));
+    f.setLinePosition(attributes.readDouble(ATTR_LINE_POS, f.getLinePosition()));
     
-    XMLEvent event = reader.nextEvent();
-    while (event.getEventType() != XMLStreamConstants.END_ELEMENT) {
-      if (event.getEventType() == XMLStreamConstants.START_ELEMENT) {
-      	StartElement element = event.asStartElement();
-        if (element.getName().getLocalPart().equals(TAG_LABEL_MARGIN)) {
-        	readMargin(f.getMargin(), element);
-        }
-        else if (element.getName().getLocalPart().equals(TAG_PIE_CHART_IDS) && 
-        		(l instanceof PieChartLabel)) {
-        	
-        	readPieChartIDs(element, (PieChartLabel)l);
-        }
-        else {
-          reachElementEnd(reader, element);  
-        }
-      }
-      event = reader.nextEvent();
+    while (nextChildElement()) {
+    	String name = reader.getLocalName();
+    	if (name.equals(TAG_LABEL_MARGIN)) {
+    		readMargin(f.getMargin());
+    	}
+    	else if (name.equals(TAG_PIE_CHART_IDS) && (l instanceof PieChartLabel)) {
+    		readPieChartIDs((PieChartLabel)l);
+    	}
+    	else {
+    		reachElementEnd(reader);
+    	}
     }
 	}
 	
 	
-	private void readTextLabel(StartElement rootElement, Labels labels) throws XMLStreamException {
+	private void readTextLabel(Labels labels) throws XMLStreamException {
+		attributes.read(reader);
 		TextLabel l = new TextLabel(null);
 		
-    readTextElementDataAttr(l.getData(), rootElement);
-    readTextFormatsAttr(l.getFormats(), rootElement, "");
-    
-    readLabelData(rootElement, l);
-    labels.add(l);  // label.labels wird hier automatisch gesetzt
+    readTextElementDataAttr(l.getData());
+		TextLabelFormats style = getStyle(textLabelStyles);
+		if (style != null) {
+			l.getFormats().assignTextFormats(style);
+			l.getFormats().getMargin().assign(style.getMargin());
+		}
+    readTextFormatsAttr(l.getFormats(), "");
+    readLabelData(l);
+    labels.add(l);  // label.labels is set automatically here
 	}
 	
 	
-	private void readGraphicalLabelDimensions(GraphicalLabelFormats f, StartElement element) {
-  	readDistanceValueAttr(f.getWidth(), element, ATTR_LABEL_WIDTH);
-    readDistanceValueAttr(f.getHeight(), element, ATTR_LABEL_HEIGHT);
+	private void readGraphicalLabelDimensions(GraphicalLabelFormats f) {
+  	readDistanceValueAttr(f.getWidth(), ATTR_LABEL_WIDTH);
+    readDistanceValueAttr(f.getHeight(), ATTR_LABEL_HEIGHT);
 	}
 	
 	
-  private void readIconLabel(StartElement rootElement, Labels labels) throws XMLStreamException { 
+  private void readIconLabel(Labels labels) throws XMLStreamException { 
+  	attributes.read(reader);
 		IconLabel l = new IconLabel(null);
 		IconLabelFormats f = l.getFormats();
 		
-    readLineAttr(f, rootElement);
-    f.setIcon(XMLUtils.readStringAttr(rootElement, ATTR_ICON, f.getIcon()));
-    if ((document.getVersion() == null) || VERSION.geraterThan(document.getVersion())) {
-    	readDistanceValueAttr(f.getWidth(), rootElement, ATTR_ICON_WIDTH);
-      readDistanceValueAttr(f.getHeight(), rootElement, ATTR_ICON_HEIGHT);
+    readLineAttr(f);
+    f.setIcon(attributes.readString(ATTR_ICON, f.getIcon()));
+    if ((document.getVersion() == null) || LABEL_DIMENSIONS_VERSION.geraterThan(document.getVersion())) {
+    	readDistanceValueAttr(f.getWidth(), ATTR_ICON_WIDTH);
+      readDistanceValueAttr(f.getHeight(), ATTR_ICON_HEIGHT);
     }
     else {
-    	readGraphicalLabelDimensions(f, rootElement);
+    	readGraphicalLabelDimensions(f);
     }
-    f.setIconFilled(XMLUtils.readBooleanAttr(rootElement, ATTR_ICON_FILLED, f.getIconFilled()));
+    f.setIconFilled(attributes.readBoolean(ATTR_ICON_FILLED, f.getIconFilled()));
     
-    readLabelData(rootElement, l);
-    labels.add(l);  // label.labels wird hier automatisch gesetzt
+    readLabelData(l);
+    labels.add(l);  // label.labels is set automatically here
   }
   
   
-  private void readPieChartLabel(StartElement rootElement, Labels labels) throws XMLStreamException { 
+  private void readPieChartLabel(Labels labels) throws XMLStreamException { 
+  	attributes.read(reader);
 		PieChartLabel l = new PieChartLabel(null);
 		PieChartLabelFormats f = l.getFormats();
-		
-		readTextElementDataAttr(l.getData(), rootElement);
-		readTextFormatsAttr(f, rootElement, "");
-    readLineAttr(f, rootElement);
-  	readGraphicalLabelDimensions(f, rootElement);
-    f.setShowInternalLines(XMLUtils.readBooleanAttr(rootElement, ATTR_SHOW_INTERNAL_LINES, f.isShowInternalLines()));
-    f.setShowLinesForZero(XMLUtils.readBooleanAttr(rootElement, ATTR_SHOW_NULL_LINES, f.isShowLinesForZero()));
-    f.setShowTitle(XMLUtils.readBooleanAttr(rootElement, ATTR_SHOW_TITLE, f.isShowTitle()));
-    f.setCaptionsContentType(PieChartLabelCaptionContentType.valueOf(
-    		XMLUtils.readStringAttr(rootElement, ATTR_CAPTION_TYPE, f.getCaptionsContentType().name())));
-    f.setCaptionsLinkType(PieChartLabelCaptionLinkType.valueOf(
-    		XMLUtils.readStringAttr(rootElement, ATTR_CAPTION_LINK_TYPE, f.getCaptionsLinkType().name())));
+		
+		readTextElementDataAttr(l.getData());
+		readTextFormatsAttr(f, "");
+    readLineAttr(f);
+  	readGraphicalLabelDimensions(f);
+    f.setShowInternalLines(attributes.readBoolean(ATTR_SHOW_INTERNAL_LINES, f.isShowInternalLines()));
+    f.setShowLinesForZero(attributes.readBoolean(ATTR_SHOW_NULL_LINES, f.isShowLinesForZero()));
+    f.setShowTitle(attributes.readBoolean(ATTR_SHOW_TITLE, f.isShowTitle()));
+    f.setCaptionsContentType(PieChartLabelCaptionContentType.valueOf(
+    		attributes.readString(ATTR_CAPTION_TYPE, f.getCaptionsContentType().name())));
+    f.setCaptionsLinkType(PieChartLabelCaptionLinkType.valueOf(
+    		attributes.readString(ATTR_CAPTION_LINK_TYPE, f.getCaptionsLinkType().name())));
     
-    readLabelData(rootElement, l);
-    labels.add(l);  // label.labels wird hier automatisch gesetzt
+    readLabelData(l);
+    labels.add(l);  // label.labels is set automatically here
   }
   
   
-	private void readHiddenData(StartElement element, HiddenDataMap list) throws XMLStreamException {
-		String id = XMLUtils.readStringAttr(element, ATTR_ID, null);
+	private void readHiddenData(HiddenDataMap list) throws XMLStreamException {
+		attributes.read(reader);
+		String id = attributes.readString(ATTR_ID, null);
 		if (id != null) {
 			TextElementData data = new TextElementData();
-			readTextElementDataAttr(data, element);
+			readTextElementDataAttr(data);
 			list.put(id, data);
 		}
 		
@@ -422,51 +604,50 @@ public class XTGReader extends AbstractDocumentReader implements XTGConstants {
 	}
 	
 	
-	private Node readSubtree(StartElement rootElement) throws XMLStreamException {
+	private Node readSubtree() throws XMLStreamException {
+		attributes.read(reader);
 		Node result = Node.newInstanceWithBranch();
 		NodeFormats f = result.getFormats();
 		
-    readTextElementDataAttr(result.getData(), rootElement);
-		result.setUniqueName(XMLUtils.readStringAttr(rootElement, ATTR_UNIQUE_NAME, result.getUniqueName()));
-		readTextFormatsAttr(result.getFormats(), rootElement, "");
-		readLineAttr(f, rootElement);
-		readDistanceValueAttr(f.getCornerRadius(), rootElement, ATTR_EDGE_RADIUS);
+    readTextElementDataAttr(result.getData());
+		result.setUniqueName(attributes.readString(ATTR_UNIQUE_NAME, result.getUniqueName()));
+		NodeFormats style = getStyle(nodeStyles);
+		if (style != null) {
+			f.assign(style);
+		}
+		readNodeFormatsAttr(f);  // Attributes of the element overwrite the style.
 		
-    XMLEvent event = reader.nextEvent();
-    while (event.getEventType() != XMLStreamConstants.END_ELEMENT) {
-      if (event.getEventType() == XMLStreamConstants.START_ELEMENT) {
-      	StartElement element = event.asStartElement();
-        if (element.getName().getLocalPart().equals(TAG_BRANCH)) {
-         	readBranch(element, result.getAfferentBranch());
-        }
-        else if (element.getName().getLocalPart().equals(TAG_TEXT_LABEL)) {  // Wird nur zur Abw�rtskompatibilit�t auch hier noch gelesen. Sollte jetzt nur noch unterhalb von Branch stehen.
-        	readTextLabel(element, result.getAfferentBranch().getLabels());
-        }
-        else if (element.getName().getLocalPart().equals(TAG_HIDDEN_DATA)) {
-        	readHiddenData(element, result.getHiddenDataMap());
-        }
-        else if (element.getName().getLocalPart().equals(TAG_LEAF_MARGIN)) {
-        	readMargin(f.getLeafMargin(), element);
-        }
-        else if (element.getName().getLocalPart().equals(TAG_NODE)) {
-        	Node subelement = readSubtree(element);
+    while (nextChildElement()) {
+    	switch (reader.getLocalName()) {
+    		case TAG_BRANCH:
+    			readBranch(result.getAfferentBranch());
+    			break;
+    		case TAG_TEXT_LABEL:  // Only read here for backward compatibility. Should only be located under branch now.
+    			readTextLabel(result.getAfferentBranch().getLabels());
+    			break;
+    		case TAG_HIDDEN_DATA:
+    			readHiddenData(result.getHiddenDataMap());
+    			break;
+    		case TAG_LEAF_MARGIN:
+    			readMargin(f.getLeafMargin());
+    			break;
+    		case TAG_NODE:
+        	Node subelement = readSubtree();
         	subelement.setParent(result);
         	result.getChildren().add(subelement);
-        }
-        else {  // evtl. zus�tzlich vorhandenes Element, dass nicht gelesen wird
-          reachElementEnd(reader, element);  
-        }
-      }
-      event = reader.nextEvent();
+    			break;
+    		default:
+    			reachElementEnd(reader);
+    			break;
+    	}
     }
 		return result;
 	}
   
   
-	private void readScaleValueAttr(ScaleValue value, StartElement element, QName name) {
-		Attribute attr = element.getAttributeByName(name);
-		if (attr != null) {
-			String text = attr.getValue();
+	private void readScaleValueAttr(ScaleValue value, QName name) {
+		String text = attributes.getValue(name);
+		if (text != null) {
 			if (text.endsWith(BRANCH_LENGTH_UNITS)) {
 				value.setInMillimeters(Float.parseFloat(
 						text.substring(0, text.length() - BRANCH_LENGTH_UNITS.length())));
@@ -479,15 +660,16 @@ public class XTGReader extends AbstractDocumentReader implements XTGConstants {
 	}
 	
 	
-	private void readScaleBar(StartElement element, ScaleBar s) throws XMLStreamException {
+	private void readScaleBar(ScaleBar s) throws XMLStreamException {
+		attributes.read(reader);
 		ScaleBarFormats f = s.getFormats();
 		
-		s.getData().setText(XMLUtils.readStringAttr(element, ATTR_TEXT, s.getData().getText()));
+		s.getData().setText(attributes.readString(ATTR_TEXT, s.getData().getText()));
 		
-		readLineAttr(f, element);
-		readTextFormatsAttr(f, element, "");
+		readLineAttr(f);
+		readTextFormatsAttr(f, "");
 		
-		String align = XMLUtils.readStringAttr(element, ATTR_SCALE_BAR_ALIGN, ALIGN_LEFT);
+		String align = attributes.readString(ATTR_SCALE_BAR_ALIGN, ALIGN_LEFT);
 		if (align.equals(ALIGN_LEFT)) {
 			f.setAlignment(ScaleBarAlignment.LEFT);
 		}
@@ -498,24 +680,24 @@ public class XTGReader extends AbstractDocumentReader implements XTGConstants {
 			f.setAlignment(ScaleBarAlignment.TREE_WIDTH);
 		}
 		
-		readDistanceValueAttr(f.getTreeDistance(), element, ATTR_SCALE_BAR_DISTANCE);
-		readScaleValueAttr(f.getWidth(), element, ATTR_SCALE_BAR_WIDTH);
-		readDistanceValueAttr(f.getHeight(), element, ATTR_SCALE_BAR_HEIGHT);
-		f.setSmallInterval(XMLUtils.readFloatAttr(element, ATTR_SMALL_INTERVAL, f.getSmallInterval()));
-		f.setLongInterval(XMLUtils.readIntAttr(element, ATTR_LONG_INTERVAL, f.getLongInterval()));
-		f.setStartLeft(XMLUtils.readBooleanAttr(element, ATTR_SCALE_BAR_START, f.isStartLeft()));
-		f.setIncreasing(XMLUtils.readBooleanAttr(element, ATTR_SCALE_BAR_INCREASE, f.isIncreasing()));
+		readDistanceValueAttr(f.getTreeDistance(), ATTR_SCALE_BAR_DISTANCE);
+		readScaleValueAttr(f.getWidth(), ATTR_SCALE_BAR_WIDTH);
+		readDistanceValueAttr(f.getHeight(), ATTR_SCALE_BAR_HEIGHT);
+		f.setSmallInterval(attributes.readFloat(ATTR_SMALL_INTERVAL, f.getSmallInterval()));
+		f.setLongInterval(attributes.readInt(ATTR_LONG_INTERVAL, f.getLongInterval()));
+		f.setStartLeft(attributes.readBoolean(ATTR_SCALE_BAR_START, f.isStartLeft()));
+		f.setIncreasing(attributes.readBoolean(ATTR_SCALE_BAR_INCREASE, f.isIncreasing()));
 		
     reachElementEnd(reader, "XML elements under <" + TAG_SCALE_BAR + ">");  // Necessary for future subelements of <ScaleBar>
 	}
 	
 	
-  private void readAnchor(StartElement rootElement, Legend l, int no) {
-  	String uniqueName = XMLUtils.readStringAttr(rootElement, new QName(PRE_LEGEND_ANCHOR + no), null);
+  private void readAnchor(Legend l, int no) {
+  	String uniqueName = attributes.readString(new QName(PRE_LEGEND_ANCHOR + no), null);
   	if (uniqueName != null) {
   		Node anchor = document.getTree().getNodeByUniqueName(uniqueName.toLowerCase());
   		if (anchor == null) {
-  			anchor = document.getTree().getPaintStart();  // Willk�rlich gew�hlter Anker, falls Knoten mit dem entsprechenden Namen fehlt.
+  			anchor = document.getTree().getPaintStart();  // Arbitrary anchor, if the node with the according name is missing.
   			JOptionPane.showMessageDialog(MainFrame.getInstance(), "The legend \"" + l.getData() + "\" refers to a node with the unique name \"" + uniqueName + "\" as anchor which does not exist in this document. The root node was set as the new achor.\n(This problem is probably the result of an incorrect manual edit of the document.)", "Missing anchor", JOptionPane.WARNING_MESSAGE);
   		}
   		l.getFormats().setAnchor(no, anchor);
@@ -523,20 +705,21 @@ public class XTGReader extends AbstractDocumentReader implements XTGConstants {
   }
 	
 	
-	private void readLegend(StartElement rootElement, Legends legends) throws XMLStreamException {
+	private void readLegend(Legends legends) throws XMLStreamException {
+		attributes.read(reader);
   	Legend legend = new Legend(legends);
   	LegendFormats f = legend.getFormats();
   	
-    readTextElementDataAttr(legend.getData(), rootElement);
-		readAnchor(rootElement, legend, 0);
-		readAnchor(rootElement, legend, 1);
+    readTextElementDataAttr(legend.getData());
+		readAnchor(legend, 0);
+		readAnchor(legend, 1);
 		
-		String style = XMLUtils.readStringAttr(rootElement, ATTR_LEGEND_STYLE, STYLE_BRACKET);
+		String style = attributes.readString(ATTR_LEGEND_STYLE, STYLE_BRACKET);
 		if (style.equals(STYLE_BRACE)) {
-			f.setLegendStyle(LegendStyle.BRACE);  // LegendStyle.BRACE ist Startwert.  
+			f.setLegendStyle(LegendStyle.BRACE);  // LegendStyle.BRACE is the initial value.  
 		}
 		
-		String orientation = XMLUtils.readStringAttr(rootElement, ATTR_TEXT_ORIENTATION, ORIENT_UP);
+		String orientation = attributes.readString(ATTR_TEXT_ORIENTATION, ORIENT_UP);
 		if (orientation.equals(ORIENT_DOWN)) {
 			f.setOrientation(TextOrientation.DOWN);
 		}
@@ -547,86 +730,111 @@ public class XTGReader extends AbstractDocumentReader implements XTGConstants {
 			f.setOrientation(TextOrientation.UP);
 		}
 
-		f.setPosition(XMLUtils.readIntAttr(rootElement, ATTR_LEGEND_POS, f.getPosition()));
-		readDistanceValueAttr(f.getMinTreeDistance(), rootElement, ATTR_MIN_TREE_DISTANCE);
-		readDistanceValueAttr(f.getSpacing(), rootElement, ATTR_LEGEND_SPACING);
-		readLineAttr(f, rootElement);
-		readTextFormatsAttr(f, rootElement, "");
-		readDistanceValueAttr(f.getCornerRadius(), rootElement, ATTR_EDGE_RADIUS);
+		f.setPosition(attributes.readInt(ATTR_LEGEND_POS, f.getPosition()));
+		readDistanceValueAttr(f.getMinTreeDistance(), ATTR_MIN_TREE_DISTANCE);
+		readDistanceValueAttr(f.getSpacing(), ATTR_LEGEND_SPACING);
+		readLineAttr(f);
+		readTextFormatsAttr(f, "");
+		readDistanceValueAttr(f.getCornerRadius(), ATTR_EDGE_RADIUS);
 		
-    XMLEvent event = reader.nextEvent();
-    while (event.getEventType() != XMLStreamConstants.END_ELEMENT) {
-      if (event.getEventType() == XMLStreamConstants.START_ELEMENT) {
-      	StartElement element = event.asStartElement();
-        if (element.getName().getLocalPart().equals(TAG_LEGEND_MARGIN)) {
-        	readMargin(f.getMargin(), element);
-        }
-        else {  // evtl. zus�tzlich vorhandenes Element, dass nicht gelesen wird
-          reachElementEnd(reader, element);  
-        }
-      }
-      event = reader.nextEvent();
+    while (nextChildElement()) {
+    	switch (reader.getLocalName()) {
+    		case TAG_LEGEND_MARGIN:
+    			readMargin(f.getMargin());
+    			break;
+    		default:
+    			reachElementEnd(reader);
+    			break;
+    	}
     }
 		
   	legends.insert(legend);
   }
 	
 	
-	private void readTree(StartElement rootElement) throws XMLStreamException {
-    XMLEvent event = reader.nextEvent();
-    while (event.getEventType() != XMLStreamConstants.END_ELEMENT) {
-      if (event.getEventType() == XMLStreamConstants.START_ELEMENT) {
-      	StartElement element = event.asStartElement();
-        if (element.getName().getLocalPart().equals(TAG_NODE)) {
-        	document.getTree().setPaintStart(readSubtree(element));
+	private void readTree() throws XMLStreamException {
+    while (nextChildElement()) {
+    	switch (reader.getLocalName()) {
+    		case TAG_NODE:
+        	document.getTree().setPaintStart(readSubtree());
         	document.getTree().assignUniqueNames();  // If nodes without a unique name were present.
-        }
-        else if (element.getName().getLocalPart().equals(TAG_SCALE_BAR)) {
-        	readScaleBar(element, document.getTree().getScaleBar());
-        }
-        else if (element.getName().getLocalPart().equals(TAG_LEGEND)) {
-          readLegend(element, document.getTree().getLegends());
-        }
-        else {  // evtl. zus�tzlich vorhandenes Element, dass nicht gelesen wird
-          reachElementEnd(reader, element);  
-        }
-      }
-      event = reader.nextEvent();
+    			break;
+    		case TAG_SCALE_BAR:
+    			readScaleBar(document.getTree().getScaleBar());
+    			break;
+    		case TAG_LEGEND:
+    			readLegend(document.getTree().getLegends());
+    			break;
+    		default:
+    			reachElementEnd(reader);
+    			break;
+    	}
     }
-  	document.getTree().updateElementSet();
+  	document.getTree().updateElementSet();
   }
 	
 	
-	private void readDocument(StartElement rootElement) throws XMLStreamException {
-    XMLEvent event = reader.nextEvent();
-    while (event.getEventType() != XMLStreamConstants.END_ELEMENT) {
-      if (event.getEventType() == XMLStreamConstants.START_ELEMENT) {
-      	StartElement element = event.asStartElement();
-      	if (element.getName().getLocalPart().equals(TAG_NODE_BRANCH_DATA_ADAPTERS)) {
-      		readNodeBranchDataAdapters(element);
-      	}
-      	else if (element.getName().getLocalPart().equals(TAG_GLOBAL_FORMATS)) {
-         	readGlobalFormats(element);
-          //event = reader.nextEvent();
-        }
-        else if (element.getName().getLocalPart().equals(TAG_TREE)) {
-        	readTree(element);
-        }
-        else {  // evtl. zus�tzlich vorhandenes Element, dass nicht gelesen wird
-          reachElementEnd(reader, element);  
-        }
-      }
-      event = reader.nextEvent();
+	private void readDocument() throws XMLStreamException {
+    while (nextChildElement()) {
+    	switch (reader.getLocalName()) {
+    		case TAG_NODE_BRANCH_DATA_ADAPTERS:
+    			readNodeBranchDataAdapters();
+    			break;
+    		case TAG_GLOBAL_FORMATS:
+    			readGlobalFormats();
+    			break;
+    		case TAG_STYLES:
+    			readStyles();
+    			break;
+    		case TAG_TREE:
+    			readTree();
+    			break;
+    		default:
+    			reachElementEnd(reader);
+    			break;
+    	}
     }
   }
 	
 	
+	/**
+	 * Extracts the format version from the XSD file name in the schema location attribute of the current 
+	 * element.
+	 * 
+	 * @return the version or {@code null} if no schema location is specified
+	 * @throws InvalidXSDPathException if the schema location or the file name is malformed
+	 * @see XMLUtils#extractFormatVersion(javax.xml.stream.events.StartElement)
+	 * @since 2.16.0
+	 */
+	private FormatVersion extractFormatVersion() throws InvalidXSDPathException {
+		String location = reader.getAttributeValue(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, 
+				XMLUtils.ATTR_SCHEMA_LOCATION_LOCAL_PART);
+		if (location == null) {
+			return null;
+		}
+		else {
+			Matcher matcher = XMLUtils.XSD_FILE_NAME_PATTERN.matcher(location);
+			if (matcher.matches()) {
+				try {
+					return FormatVersion.parseFormatVersion(matcher.group(1));
+				}
+				catch (IllegalArgumentException e) {
+					throw new InvalidXSDPathException("The XSD file name \"" + matcher.group(1) + 
+							"\" does not specify a valid format version.");
+				}
+			}
+			else {
+				throw new InvalidXSDPathException("The attrubute value \"" + location + "\" does not contain a valid path.");
+			}
+		}
+	}
+	
+	
 	/**
 	 * Outputs warnings about the XML namespace and sets the version of <code>document</code>.
-	 * @param element
 	 */
-	private void checkNameSpace(StartElement element) {
-		String namespace = element.getNamespaceContext().getNamespaceURI(XMLConstants.DEFAULT_NS_PREFIX);
+	private void checkNameSpace() {
+		String namespace = reader.getNamespaceContext().getNamespaceURI(XMLConstants.DEFAULT_NS_PREFIX);
 		if (namespace == null) {
 			loadLogger.addWarning("No XML namespace declared. Assuming " + NAMESPACE_URI + ".");
 		}
@@ -636,7 +844,7 @@ public class XTGReader extends AbstractDocumentReader implements XTGConstants {
 		}
 		
 		try {
-			FormatVersion version = XMLUtils.extractFormatVersion(element);
+			FormatVersion version = extractFormatVersion();
 			if (version == null) {
 				loadLogger.addWarning("No XML schema location found. Assuming \"" + FULL_SCHEMA_LOCATION + "\".");
 			}
@@ -656,45 +864,44 @@ public class XTGReader extends AbstractDocumentReader implements XTGConstants {
 	}
   
   
-	@Override
+	@Override
 	public Document readDocument(BufferedInputStream stream) throws Exception {
 		document = null;
-		reader = XMLInputFactory.newInstance().createXMLEventReader(stream);
+		stream = CompressionUtils.decompressIfGZIP(stream);  // Compressed XTG files are detected by their content.
+		reader = XMLInputFactory.newInstance().createXMLStreamReader(stream);
+		attributes.clear();
+		decimalFormats.clear();
+		nodeStyles.clear();
+		branchStyles.clear();
+		textLabelStyles.clear();
 		
 		try {
-			XMLEvent event;
+			document = createEmptyDocument();  // The reader is positioned at the start of the document.
 			while (reader.hasNext()) {
-	      event = reader.nextEvent();
-	      switch (event.getEventType()) {
-	        case XMLStreamConstants.START_DOCUMENT:
-	          document = createEmptyDocument();
-	          break;
-	        case XMLStreamConstants.END_DOCUMENT:
-	          reader.close();
-	          return document;
-	        case XMLStreamConstants.START_ELEMENT:
-	        	StartElement element = event.asStartElement();
-	          if (element.getName().getLocalPart().equals(TAG_ROOT)) {
-	          	checkNameSpace(element);
-	        	  readDocument(element);
-	          }
-	          else {
-	            reachElementEnd(reader, element);  
-	          }
-	          break;
-	      }
-	    }
+				if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+					if (reader.getLocalName().equals(TAG_ROOT)) {
+						checkNameSpace();
+						readDocument();
+					}
+					else {
+						reachElementEnd(reader);
+					}
+				}
+			}
+			return document;
 		}
 		finally {
+			nodeStyles.clear();
+			branchStyles.clear();
+			textLabelStyles.clear();
 	    reader.close();
 	    stream.close();
 		}
-		return null;
 	}
 
 
-	@Override
-  public DocumentIterator createIterator(BufferedInputStream stream) throws Exception {
-		return new SingleDocumentIterator(read(stream));
-  }
-}
\ No newline at end of file
+	@Override
+  public DocumentIterator createIterator(BufferedInputStream stream) throws Exception {
+		return new SingleDocumentIterator(read(stream));
+  }
+}
@@ -22,15 +22,25 @@ package info.bioinfweb.treegraph.document.io.xtg;
 import info.bioinfweb.treegraph.document.*;
 import info.bioinfweb.treegraph.document.format.*;
 import info.bioinfweb.treegraph.document.io.AbstractDocumentWriter;
+import info.bioinfweb.treegraph.document.io.CompressionUtils;
 import info.bioinfweb.treegraph.document.io.DocumentWriter;
+import info.bioinfweb.treegraph.document.io.ParallelGZIPOutputStream;
 import info.bioinfweb.treegraph.document.io.ReadWriteParameterMap;
 import info.bioinfweb.treegraph.document.nodebranchdata.IDElementAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
 import info.bioinfweb.commons.io.XMLUtils;
 
 import java.awt.Color;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
@@ -38,6 +48,21 @@ import javax.xml.stream.XMLStreamWriter;
 
 
 
+/**
+ * Writes documents in the TreeGraph 2 specific XML format (*.xtg).
+ * <p>
+ * Since version 2.16.0 (XTG 1.6) the formats of nodes, branches and text labels are not written as attributes 
+ * of each element anymore. Each distinct combination of these formats is written once as a style in the 
+ * <code>Styles</code> element and the elements reference their style by its ID. Two formats objects share a 
+ * style if exactly the same attributes would have been written for them. Writing styles can be switched off 
+ * using {@link ReadWriteParameterMap#KEY_WRITE_STYLES}.
+ * <p>
+ * If {@link ReadWriteParameterMap#KEY_COMPRESS} is set or a file with the extension 
+ * {@link XTGFilter#COMPRESSED_EXTENSION} is written, the output is compressed on the fly using 
+ * {@link ParallelGZIPOutputStream}.
+ * 
+ * @author Ben St&ouml;ver
+ */
 public class XTGWriter extends AbstractDocumentWriter implements XTGConstants, DocumentWriter {
 	public static final String STREAM_ENCODING = "UTF8";
 	public static String XML_VERSION = "1.0";
@@ -45,6 +70,27 @@ public class XTGWriter extends AbstractDocumentWriter implements XTGConstants, D
 	
 	
 	private XMLStreamWriter writer = null;
+	private List<String> collectedAttributes = null;
+	private Map<List<String>, String> styleKeys = null;
+	private Map<ElementFormats, String> styleIDs = null;
+	private List<ElementFormats> styles = null;
+	
+	
+	/**
+	 * Writes the specified attribute or adds its name and value to {@link #collectedAttributes}, if the 
+	 * attributes of a style are currently collected.
+	 * 
+	 * @since 2.16.0
+	 */
+	private void writeAttribute(String name, String value) throws XMLStreamException {
+		if (collectedAttributes == null) {
+			writer.writeAttribute(name, value);
+		}
+		else {
+			collectedAttributes.add(name);
+			collectedAttributes.add(value);
+		}
+	}
 	
 	
 	private String formatColorByte(int value) {
@@ -113,12 +159,19 @@ public class XTGWriter extends AbstractDocumentWriter implements XTGConstants, D
 	
 	
 	private void writeMargin(String name, Margin m) throws XMLStreamException {
-		writer.writeStartElement(name);
-		writer.writeAttribute(ATTR_LEFT.toString(), "" + m.getLeft().getInMillimeters());
-		writer.writeAttribute(ATTR_TOP.toString(), "" + m.getTop().getInMillimeters());
-		writer.writeAttribute(ATTR_RIGHT.toString(), "" + m.getRight().getInMillimeters());
-		writer.writeAttribute(ATTR_BOTTOM.toString(), "" + m.getBottom().getInMillimeters());
-		writer.writeEndElement();
+		if (collectedAttributes == null) {
+			writer.writeStartElement(name);
+		}
+		else {
+			collectedAttributes.add(name);
+		}
+		writeAttribute(ATTR_LEFT.toString(), "" + m.getLeft().getInMillimeters());
+		writeAttribute(ATTR_TOP.toString(), "" + m.getTop().getInMillimeters());
+		writeAttribute(ATTR_RIGHT.toString(), "" + m.getRight().getInMillimeters());
+		writeAttribute(ATTR_BOTTOM.toString(), "" + m.getBottom().getInMillimeters());
+		if (collectedAttributes == null) {
+			writer.writeEndElement();
+		}
 	}
 	
 	
@@ -141,23 +194,172 @@ public class XTGWriter extends AbstractDocumentWriter implements XTGConstants, D
 	
 	
 	private void writeTextFormatsAttr(TextFormats f, String prefix, boolean includeTextHeight) throws XMLStreamException {
-  	writer.writeAttribute(prefix + ATTR_TEXT_COLOR.toString(), formatColor(f.getTextColor()));
+  	writeAttribute(prefix + ATTR_TEXT_COLOR.toString(), formatColor(f.getTextColor()));
   	if (includeTextHeight) {
-  		writer.writeAttribute(prefix + ATTR_TEXT_HEIGHT.toString(), "" + f.getTextHeight().getInMillimeters());
+  		writeAttribute(prefix + ATTR_TEXT_HEIGHT.toString(), "" + f.getTextHeight().getInMillimeters());
   	}
-  	writer.writeAttribute(prefix + ATTR_TEXT_STYLE.toString(), formatTextStyle(f));
-  	writer.writeAttribute(prefix + ATTR_FONT_FAMILY.toString(), f.getFontName());
+  	writeAttribute(prefix + ATTR_TEXT_STYLE.toString(), formatTextStyle(f));
+  	writeAttribute(prefix + ATTR_FONT_FAMILY.toString(), f.getFontName());
   	
-  	writer.writeAttribute(prefix + ATTR_DECIMAL_FORMAT, f.getDecimalFormat().toPattern());
-  	writer.writeAttribute(prefix + ATTR_LOCALE_LANG, f.getLocale().getLanguage());
-  	writer.writeAttribute(prefix + ATTR_LOCALE_COUNTRY, f.getLocale().getCountry());
-  	writer.writeAttribute(prefix + ATTR_LOCALE_VARIANT, f.getLocale().getVariant());
+  	writeAttribute(prefix + ATTR_DECIMAL_FORMAT, f.getDecimalFormat().toPattern());
+  	writeAttribute(prefix + ATTR_LOCALE_LANG, f.getLocale().getLanguage());
+  	writeAttribute(prefix + ATTR_LOCALE_COUNTRY, f.getLocale().getCountry());
+  	writeAttribute(prefix + ATTR_LOCALE_VARIANT, f.getLocale().getVariant());
 	}
 	
 	
 	private void writeLineAttr(LineFormats f) throws XMLStreamException {
-  	writer.writeAttribute(ATTR_LINE_COLOR.toString(), formatColor(f.getLineColor()));
-  	writer.writeAttribute(ATTR_LINE_WIDTH.toString(), "" + f.getLineWidth().getInMillimeters());
+  	writeAttribute(ATTR_LINE_COLOR.toString(), formatColor(f.getLineColor()));
+  	writeAttribute(ATTR_LINE_WIDTH.toString(), "" + f.getLineWidth().getInMillimeters());
+	}
+	
+	
+	/**
+	 * Writes the attributes and the leaf margin element that are contained in a node style.
+	 * 
+	 * @since 2.16.0
+	 */
+	private void writeNodeFormats(NodeFormats f) throws XMLStreamException {
+		writeTextFormatsAttr(f);
+		writeLineAttr(f);
+  	writeAttribute(ATTR_EDGE_RADIUS.toString(), "" + f.getCornerRadius().getInMillimeters());
+  	writeMargin(TAG_LEAF_MARGIN.toString(), f.getLeafMargin());
+	}
+	
+	
+	/**
+	 * Writes the attributes that are contained in a branch style.
+	 * 
+	 * @since 2.16.0
+	 */
+	private void writeBranchFormats(BranchFormats f) throws XMLStreamException {
+		writeLineAttr(f);
+		writeAttribute(ATTR_CONSTANT_WIDTH.toString(), "" + f.isConstantWidth());
+		writeAttribute(ATTR_MIN_BRANCH_LENGTH.toString(), "" + f.getMinLength().getInMillimeters());
+		writeAttribute(ATTR_MIN_SPACE_ABOVE.toString(), "" + f.getMinSpaceAbove().getInMillimeters());
+		writeAttribute(ATTR_MIN_SPACE_BELOW.toString(), "" + f.getMinSpaceBelow().getInMillimeters());
+	}
+	
+	
+	/**
+	 * Writes the attributes and the label margin element that are contained in a text label style.
+	 * 
+	 * @since 2.16.0
+	 */
+	private void writeTextLabelFormats(TextLabelFormats f) throws XMLStreamException {
+		writeTextFormatsAttr(f);
+  	writeMargin(TAG_LABEL_MARGIN.toString(), f.getMargin());
+	}
+	
+	
+	/**
+	 * Returns the ID of the style the specified formats are stored in.
+	 * 
+	 * @return the ID or {@code null} if the formats shall be written as attributes of their element
+	 * @since 2.16.0
+	 */
+	private String getStyleID(ElementFormats f) {
+		if (styleIDs == null) {
+			return null;
+		}
+		else {
+			return styleIDs.get(f);
+		}
+	}
+	
+	
+	/**
+	 * Adds the attributes that have been collected since the last call of {@link #startCollecting(String)} 
+	 * as a new style, if no style with the same attributes exists yet, and stores the ID of the style for 
+	 * the specified formats.
+	 * 
+	 * @since 2.16.0
+	 */
+	private void registerStyle(ElementFormats f, String idPrefix) {
+		List<String> key = collectedAttributes;
+		collectedAttributes = null;
+		String id = styleKeys.get(key);
+		if (id == null) {
+			id = idPrefix + styles.size();
+			styleKeys.put(key, id);
+			styles.add(f);
+		}
+		styleIDs.put(f, id);
+	}
+	
+	
+	/**
+	 * @param tag - the name of the style element which is used to distinguish styles of different elements 
+	 *        having the same attributes
+	 * @since 2.16.0
+	 */
+	private void startCollecting(String tag) {
+		collectedAttributes = new ArrayList<String>();
+		collectedAttributes.add(tag);
+	}
+	
+	
+	private void collectLabelStyles(Labels labels, boolean above) throws XMLStreamException {
+		for (int lineNo = 0; lineNo < labels.lineCount(above); lineNo++) {
+			for (int lineIndex = 0; lineIndex < labels.labelCount(above, lineNo); lineIndex++) {
+				Label l = labels.get(above, lineNo, lineIndex);
+				if (l instanceof TextLabel) {
+					TextLabelFormats f = ((TextLabel)l).getFormats();
+					startCollecting(TAG_TEXT_LABEL_STYLE);
+					writeTextLabelFormats(f);
+					registerStyle(f, PRE_TEXT_LABEL_STYLE);
+				}
+			}
+		}
+	}
+	
+	
+	/**
+	 * Determines the styles of all nodes, branches and text labels in the specified subtree.
+	 * 
+	 * @since 2.16.0
+	 */
+	private void collectStyles(Node root) throws XMLStreamException {
+		startCollecting(TAG_NODE_STYLE);
+		writeNodeFormats(root.getFormats());
+		registerStyle(root.getFormats(), PRE_NODE_STYLE);
+		
+		if (root.hasAfferentBranch()) {
+			Branch b = root.getAfferentBranch();
+			startCollecting(TAG_BRANCH_STYLE);
+			writeBranchFormats(b.getFormats());
+			registerStyle(b.getFormats(), PRE_BRANCH_STYLE);
+			collectLabelStyles(b.getLabels(), true);
+			collectLabelStyles(b.getLabels(), false);
+		}
+		
+		for (int i = 0; i < root.getChildren().size(); i++) {
+			collectStyles(root.getChildren().get(i));
+		}
+	}
+	
+	
+	private void writeStyles() throws XMLStreamException {
+		writer.writeStartElement(TAG_STYLES);
+		for (ElementFormats f : styles) {
+			if (f instanceof NodeFormats) {
+				writer.writeStartElement(TAG_NODE_STYLE);
+				writer.writeAttribute(ATTR_ID.toString(), styleIDs.get(f));
+				writeNodeFormats((NodeFormats)f);
+			}
+			else if (f instanceof BranchFormats) {
+				writer.writeStartElement(TAG_BRANCH_STYLE);
+				writer.writeAttribute(ATTR_ID.toString(), styleIDs.get(f));
+				writeBranchFormats((BranchFormats)f);
+			}
+			else {
+				writer.writeStartElement(TAG_TEXT_LABEL_STYLE);
+				writer.writeAttribute(ATTR_ID.toString(), styleIDs.get(f));
+				writeTextLabelFormats((TextLabelFormats)f);
+			}
+			writer.writeEndElement();
+		}
+		writer.writeEndElement();
 	}
 	
 	
@@ -171,10 +373,16 @@ public class XTGWriter extends AbstractDocumentWriter implements XTGConstants, D
 		for (int lineNo = 0; lineNo < labels.lineCount(above); lineNo++) {
 			for (int lineIndex = 0; lineIndex < labels.labelCount(above, lineNo); lineIndex++) {
 				Label l = labels.get(above, lineNo, lineIndex);
+	    	String styleID = getStyleID(l.getFormats());
 	    	if (l instanceof TextLabel) {
 	    		writer.writeStartElement(TAG_TEXT_LABEL);
 			  	writeTextElementData(((TextElement)l).getData());
-					writeTextFormatsAttr(((TextElement)l).getFormats());
+			  	if (styleID == null) {
+			  		writeTextFormatsAttr(((TextElement)l).getFormats());
+			  	}
+			  	else {
+			  		writer.writeAttribute(ATTR_STYLE.toString(), styleID);
+			  	}
 	    	}
 	    	else if (l instanceof IconLabel) {
 	    		writer.writeStartElement(TAG_ICON_LABEL);
@@ -205,7 +413,9 @@ public class XTGWriter extends AbstractDocumentWriter implements XTGConstants, D
 	    	writer.writeAttribute(ATTR_LINE_NO.toString(), "" + l.getFormats().getLineNumber());
 	    	writer.writeAttribute(ATTR_LINE_POS.toString(), "" + l.getFormats().getLinePosition());
 	    	
-	    	writeMargin(TAG_LABEL_MARGIN.toString(), l.getFormats().getMargin());
+	    	if (styleID == null) {  // The margin of text labels may be contained in their style.
+	    		writeMargin(TAG_LABEL_MARGIN.toString(), l.getFormats().getMargin());
+	    	}
 	    	
 	    	if (l instanceof PieChartLabel) {
 	    		PieChartLabel pieChartLabel = (PieChartLabel)l;
@@ -242,44 +452,53 @@ public class XTGWriter extends AbstractDocumentWriter implements XTGConstants, D
 	}
 	
 	
+	private void writeNodeData(Node node) throws XMLStreamException {
+		writeTextElementData(node.getData());
+  	if (node.hasUniqueName()) {
+  		writer.writeAttribute(ATTR_UNIQUE_NAME.toString(), node.getUniqueName());
+  	}
+  	String styleID = getStyleID(node.getFormats());
+  	if (styleID == null) {
+  		writeNodeFormats(node.getFormats());
+  	}
+  	else {
+  		writer.writeAttribute(ATTR_STYLE.toString(), styleID);
+  	}
+	}
+	
+	
+	private void writeBranch(Branch b) throws XMLStreamException {
+		BranchFormats f = b.getFormats();
+		writer.writeStartElement(TAG_BRANCH.toString());
+		if (b.hasLength()) {
+			writer.writeAttribute(ATTR_BRANCH_LENGTH.toString(), "" + b.getLength());
+		}
+		String styleID = getStyleID(f);
+		if (styleID == null) {
+			writeBranchFormats(f);
+		}
+		else {
+			writer.writeAttribute(ATTR_STYLE.toString(), styleID);
+		}
+		
+  	// Labels:
+  	writeLabelBlock(b.getLabels(), true);
+  	writeLabelBlock(b.getLabels(), false);
+  	
+  	writeHiddenDataMap(b.getHiddenDataMap());
+  	
+  	writer.writeEndElement();
+	}
+	
+	
 	private void writeSubtree(Node root) throws XMLStreamException {
 		writer.writeStartElement(TAG_NODE.toString());
 
 		// Node data:
-		writeTextElementData(root.getData());
-  	if (root.hasUniqueName()) {
-  		writer.writeAttribute(ATTR_UNIQUE_NAME.toString(), root.getUniqueName());
-  	}
-		writeTextFormatsAttr(root.getFormats());
-		writeLineAttr(root.getFormats());
-  	writer.writeAttribute(ATTR_EDGE_RADIUS.toString(), "" + root.getFormats().getCornerRadius().getInMillimeters());
-  	
-  	writeMargin(TAG_LEAF_MARGIN.toString(), root.getFormats().getLeafMargin());
+		writeNodeData(root);
   	
   	if (root.hasAfferentBranch()) {
-    	// Branch:
-    	Branch b = root.getAfferentBranch();
-  		BranchFormats f = b.getFormats();
-  		writer.writeStartElement(TAG_BRANCH.toString());
-  		if (b.hasLength()) {
-  			writer.writeAttribute(ATTR_BRANCH_LENGTH.toString(), "" + b.getLength());
-  		}
-  		writeLineAttr(f);
-  		writer.writeAttribute(ATTR_CONSTANT_WIDTH.toString(), "" + f.isConstantWidth());
-  		writer.writeAttribute(ATTR_MIN_BRANCH_LENGTH.toString(), "" + f.getMinLength().getInMillimeters());
-  		writer.writeAttribute(ATTR_MIN_SPACE_ABOVE.toString(), "" + f.getMinSpaceAbove().getInMillimeters());
-  		writer.writeAttribute(ATTR_MIN_SPACE_BELOW.toString(), "" + f.getMinSpaceBelow().getInMillimeters());
-  		
-    	// Labels:
-    	writeLabelBlock(b.getLabels(), true);
-    	writeLabelBlock(b.getLabels(), false);
-    	
-    	writeHiddenDataMap(b.getHiddenDataMap());
-    	
-    	writer.writeEndElement();
-    	
-    	
-    	// Branch data:
+    	writeBranch(root.getAfferentBranch());
   	}
   	writeHiddenDataMap(root.getHiddenDataMap());
   	
@@ -289,9 +508,9 @@ public class XTGWriter extends AbstractDocumentWriter implements XTGConstants, D
 		}
 	  
   	writer.writeEndElement();
-	}
-	
-	
+	}
+	
+	
 	private void writeScaleValue(String name, ScaleValue v) throws XMLStreamException {
 		String s = "" + v.getStoredValue();
 		if (v.isInScaleUnits()) {
@@ -391,7 +610,33 @@ public class XTGWriter extends AbstractDocumentWriter implements XTGConstants, D
 	}
 	
 	
+	/**
+	 * Writes the specified document to a file. The output is compressed, if {@link ReadWriteParameterMap#KEY_COMPRESS}
+	 * is set to {@code true} or if it is not set and the file name ends with {@link XTGFilter#COMPRESSED_EXTENSION}.
+	 * 
+	 * @since 2.16.0
+	 */
+	@Override
+	public void write(Document document, File file, ReadWriteParameterMap properties) throws Exception {
+		write(document, new FileOutputStream(file), properties, properties.getBoolean(ReadWriteParameterMap.KEY_COMPRESS, 
+				file.getName().toLowerCase().endsWith(XTGFilter.COMPRESSED_EXTENSION)));
+	}
+	
+	
 	public void write(Document document, OutputStream stream, ReadWriteParameterMap properties) throws Exception {
+		write(document, stream, properties, properties.getBoolean(ReadWriteParameterMap.KEY_COMPRESS, false));
+	}
+	
+	
+	private void write(Document document, OutputStream stream, ReadWriteParameterMap properties, boolean compress) 
+			throws Exception {
+		
+		if (compress) {
+			stream = new ParallelGZIPOutputStream(stream);
+		}
+		else {
+			stream = new BufferedOutputStream(stream, CompressionUtils.BUFFER_SIZE);
+		}
 		try {
 			writer = XMLOutputFactory.newInstance().createXMLStreamWriter(
 					stream, STREAM_ENCODING);
@@ -405,6 +650,13 @@ public class XTGWriter extends AbstractDocumentWriter implements XTGConstants, D
 			  writeGlobalFormats(document.getTree().getFormats());
 			  writeNodeBranchDataAdapters(document);
 			  //TODO write default adapters
+			  if (!document.getTree().isEmpty() && properties.getBoolean(ReadWriteParameterMap.KEY_WRITE_STYLES, true)) {
+					styleKeys = new HashMap<List<String>, String>();
+					styleIDs = new IdentityHashMap<ElementFormats, String>();
+					styles = new ArrayList<ElementFormats>();
+			  	collectStyles(document.getTree().getPaintStart());
+			  	writeStyles();
+			  }
 				writer.writeStartElement(TAG_TREE.toString());
 			  if (!document.getTree().isEmpty()) {
 				  writeSubtree(document.getTree().getPaintStart());
@@ -417,7 +669,11 @@ public class XTGWriter extends AbstractDocumentWriter implements XTGConstants, D
 				writer.writeEndDocument();
 			}
 			finally {
+				writer.flush();
 				writer.close();
+				styleKeys = null;
+				styleIDs = null;
+				styles = null;
 			}
 		}
 		finally {
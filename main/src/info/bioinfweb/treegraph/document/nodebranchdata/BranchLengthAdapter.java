@@ -32,7 +32,7 @@ public class BranchLengthAdapter extends AbstractNodeBranchDataAdapter
 	private static BranchLengthAdapter sharedInstance = null;
 	
 	
-	public static BranchLengthAdapter getSharedInstance() {
+	public static synchronized BranchLengthAdapter getSharedInstance() {
 		if (sharedInstance == null) {
 			sharedInstance = new BranchLengthAdapter();
 		}
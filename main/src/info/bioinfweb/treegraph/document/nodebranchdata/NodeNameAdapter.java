@@ -30,7 +30,7 @@ public class NodeNameAdapter extends AbstractTextElementDataAdapter implements N
 	private static NodeNameAdapter sharedInstance = null;
 	
 	
-	public static NodeNameAdapter getSharedInstance() {
+	public static synchronized NodeNameAdapter getSharedInstance() {
 		if (sharedInstance == null) {
 			sharedInstance = new NodeNameAdapter();
 		}
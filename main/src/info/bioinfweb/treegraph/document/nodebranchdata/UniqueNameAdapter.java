@@ -28,7 +28,7 @@ public class UniqueNameAdapter extends AbstractNodeBranchDataAdapter implements
 	private static UniqueNameAdapter sharedInstance = null;
 	
 	
-	public static UniqueNameAdapter getSharedInstance() {
+	public static synchronized UniqueNameAdapter getSharedInstance() {
 		if (sharedInstance == null) {
 			sharedInstance = new UniqueNameAdapter();
 		}
@@ -107,7 +107,7 @@ public class NodeBranchDataAdapterFactory {
 	}
 	
 	
-	public static NodeBranchDataAdapterFactory getInstance() {
+	public static synchronized NodeBranchDataAdapterFactory getInstance() {
 		if (firstInstance == null) {
 			firstInstance = new NodeBranchDataAdapterFactory();
 		}
@@ -203,6 +203,21 @@ public class NodeBranchDataColumnManager {
    */
   public static String[] getLabelIDs(Node root, Class<? extends Label> labelClass) {
   	List<String> list = getLabelIDListFromSubtree(root, labelClass);
+  	return list.toArray(new String[list.size()]);
+  }
+  
+  
+  /**
+   * Returns all label IDs present in the specified tree. The IDs are taken from the column registry of the tree, 
+   * which is only recreated if the tree was changed.
+   * 
+   * @param tree - the tree to be searched
+   * @return a list of all IDs (every string is contained only once)
+   * @since 2.16.0
+   * @see Tree#getColumnRegistry()
+   */
+  public static String[] getLabelIDs(Tree tree, Class<? extends Label> labelClass) {
+  	List<String> list = tree.getColumnRegistry().getLabelIDs(labelClass);
   	return list.toArray(new String[list.size()]);
   }
   
@@ -543,6 +558,21 @@ public class NodeBranchDataColumnManager {
   }
   
   
+  /**
+   * Tests whether any type of label or any hidden data entry with the specified ID is present 
+   * in the specified tree. The column registry of the tree is used for this test.
+   * 
+   * @param tree - the tree to be searched
+   * @param id - the ID to be searched for
+   * @return <code>true</code>, if any element was found
+   * @since 2.16.0
+   * @see Tree#getColumnRegistry()
+   */
+  public static boolean idExistsInTree(Tree tree, String id) {
+  	return tree.getColumnRegistry().containsID(id);
+  }
+  
+  
   /**
    * Tests whether any type of label or any hidden data entry with the specified is attached 
    * to <code>node</code>.
@@ -643,19 +673,20 @@ public class NodeBranchDataColumnManager {
 		// More adapters can be added here.
 		
 		if (tree != null) {
-			String[] labelIDs = NodeBranchDataColumnManager.getLabelIDs(tree.getPaintStart(), TextLabel.class);
-			String[] hiddenBranchDataIDs = NodeBranchDataColumnManager.getHiddenBranchDataIDs(tree.getPaintStart());
-			String[] hiddenNodeDataIDs = NodeBranchDataColumnManager.getHiddenNodeDataIDs(tree.getPaintStart());
+			NodeBranchDataColumnRegistry registry = tree.getColumnRegistry();
+			List<String> labelIDs = registry.getLabelIDs(TextLabel.class);
+			List<String> hiddenBranchDataIDs = registry.getHiddenBranchDataIDs();
+			List<String> hiddenNodeDataIDs = registry.getHiddenNodeDataIDs();
 			Map<String, Integer> idDuplication = new TreeMap<String, Integer>();
 			
-			for (int i = 0; i < labelIDs.length; i++) {
-				countIDs(labelIDs[i], idDuplication);
+			for (String id : labelIDs) {
+				countIDs(id, idDuplication);
 			}			
-			for (int i = 0; i < hiddenBranchDataIDs.length; i++) {
-				countIDs(hiddenBranchDataIDs[i], idDuplication);
+			for (String id : hiddenBranchDataIDs) {
+				countIDs(id, idDuplication);
 			}			
-			for (int i = 0; i < hiddenNodeDataIDs.length; i++) {
-				countIDs(hiddenNodeDataIDs[i], idDuplication);
+			for (String id : hiddenNodeDataIDs) {
+				countIDs(id, idDuplication);
 			}
 			
 			for (String key : idDuplication.keySet()) {
@@ -664,14 +695,14 @@ public class NodeBranchDataColumnManager {
 				}
 			}
 			
-			for (int i = 0; i < labelIDs.length; i++) {				
-				result.add(new TextLabelAdapter(labelIDs[i],((TextLabel)NodeBranchDataColumnManager.getFirstLabel(tree.getPaintStart(), TextLabel.class, labelIDs[i])).getFormats().getDecimalFormat()));
+			for (String id : labelIDs) {				
+				result.add(new TextLabelAdapter(id, ((TextLabel)registry.getFirstLabel(TextLabel.class, id)).getFormats().getDecimalFormat()));
 			}			
-			for (int i = 0; i < hiddenBranchDataIDs.length; i++) {
-				result.add(new HiddenBranchDataAdapter(hiddenBranchDataIDs[i]));				
+			for (String id : hiddenBranchDataIDs) {
+				result.add(new HiddenBranchDataAdapter(id));				
 			}			
-			for (int i = 0; i < hiddenNodeDataIDs.length; i++) {				
-				result.add(new HiddenNodeDataAdapter(hiddenNodeDataIDs[i]));							
+			for (String id : hiddenNodeDataIDs) {				
+				result.add(new HiddenNodeDataAdapter(id));							
 			}
 		}
 		
@@ -0,0 +1,302 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.tools;
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import info.bioinfweb.treegraph.document.HiddenDataMap;
+import info.bioinfweb.treegraph.document.Label;
+import info.bioinfweb.treegraph.document.Labels;
+import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.Tree;
+
+
+
+/**
+ * Stores which label and hidden data IDs are present in a tree and how many elements each of these columns
+ * contains. All values are determined in a single traversal of the tree, so that listing the available columns
+ * afterwards only depends on the number of columns and not on the number of nodes anymore.
+ * <p>
+ * Instances for whole trees are cached by {@link Tree#getColumnRegistry()}. Instances are not updated if the tree
+ * is modified afterwards.
+ *
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class NodeBranchDataColumnRegistry {
+	/**
+	 * Stores the information on a single column.
+	 */
+	private static class Column {
+		private int count = 0;
+		
+		/** The pre-order index of the first node containing an element of this column. */
+		private int firstIndex;
+		
+		/** The first label of this column in pre-order. (Remains {@code null} for hidden data columns.) */
+		private Label firstLabel = null;
+		
+		
+		public Column(int firstIndex) {
+			super();
+			this.firstIndex = firstIndex;
+		}
+	}
+	
+	
+	private Map<Class<? extends Label>, Map<String, Column>> labelColumns = new HashMap<Class<? extends Label>, Map<String, Column>>();
+	private Map<String, Column> hiddenNodeDataColumns = new HashMap<String, Column>();
+	private Map<String, Column> hiddenBranchDataColumns = new HashMap<String, Column>();
+	private int nodeCount = 0;
+	
+	
+	/**
+	 * Creates a new instance containing the columns of the subtree under the specified node.
+	 * 
+	 * @param root the root of the subtree to be registered (Can be {@code null}.)
+	 */
+	public NodeBranchDataColumnRegistry(Node root) {
+		super();
+		if (root != null) {
+			addSubtree(root);
+		}
+	}
+	
+	
+	private static Column addElement(Map<String, Column> columns, String id, int nodeIndex) {
+		Column column = columns.get(id);
+		if (column == null) {
+			column = new Column(nodeIndex);
+			columns.put(id, column);
+		}
+		column.count++;
+		return column;
+	}
+	
+	
+	private void addLabelBlock(Labels labels, boolean above, int nodeIndex) {
+		for (int lineNo = 0; lineNo < labels.lineCount(above); lineNo++) {
+			for (int lineIndex = 0; lineIndex < labels.labelCount(above, lineNo); lineIndex++) {
+				Label label = labels.get(above, lineNo, lineIndex);
+				String id = label.getID();
+				if ((id != null) && !id.equals("")) {
+					Map<String, Column> columns = labelColumns.get(label.getClass());
+					if (columns == null) {
+						columns = new HashMap<String, Column>();
+						labelColumns.put(label.getClass(), columns);
+					}
+					Column column = addElement(columns, id, nodeIndex);
+					if (column.firstLabel == null) {
+						column.firstLabel = label;
+					}
+				}
+			}
+		}
+	}
+	
+	
+	private static void addHiddenData(HiddenDataMap map, Map<String, Column> columns, int nodeIndex) {
+		Iterator<String> iterator = map.idIterator();
+		while (iterator.hasNext()) {
+			String id = iterator.next();
+			if ((id != null) && !id.equals("")) {
+				addElement(columns, id, nodeIndex);
+			}
+		}
+	}
+	
+	
+	private void addSubtree(Node root) {
+		int nodeIndex = nodeCount;
+		nodeCount++;
+		if (root.hasAfferentBranch()) {  // Consistent with the search methods of NodeBranchDataColumnManager.
+			addLabelBlock(root.getAfferentBranch().getLabels(), true, nodeIndex);
+			addLabelBlock(root.getAfferentBranch().getLabels(), false, nodeIndex);
+			addHiddenData(root.getHiddenDataMap(), hiddenNodeDataColumns, nodeIndex);
+			addHiddenData(root.getAfferentBranch().getHiddenDataMap(), hiddenBranchDataColumns, nodeIndex);
+		}
+		
+		for (Node child : root.getChildren()) {
+			addSubtree(child);
+		}
+	}
+	
+	
+	private static List<String> toSortedList(TreeSet<String> ids) {
+		return new ArrayList<String>(ids);
+	}
+	
+	
+	/**
+	 * Returns the IDs of all labels of the specified type.
+	 * 
+	 * @param labelClass the class defining the sought-after type(s) of labels
+	 * @return an alphabetically sorted list containing each ID only once
+	 */
+	public List<String> getLabelIDs(Class<? extends Label> labelClass) {
+		TreeSet<String> result = new TreeSet<String>();
+		for (Class<? extends Label> storedClass : labelColumns.keySet()) {
+			if (labelClass.isAssignableFrom(storedClass)) {
+				result.addAll(labelColumns.get(storedClass).keySet());
+			}
+		}
+		return toSortedList(result);
+	}
+	
+	
+	/**
+	 * Returns the IDs of all hidden node data columns.
+	 * 
+	 * @return an alphabetically sorted list containing each ID only once
+	 */
+	public List<String> getHiddenNodeDataIDs() {
+		return toSortedList(new TreeSet<String>(hiddenNodeDataColumns.keySet()));
+	}
+	
+	
+	/**
+	 * Returns the IDs of all hidden branch data columns.
+	 * 
+	 * @return an alphabetically sorted list containing each ID only once
+	 */
+	public List<String> getHiddenBranchDataIDs() {
+		return toSortedList(new TreeSet<String>(hiddenBranchDataColumns.keySet()));
+	}
+	
+	
+	/**
+	 * Returns the IDs of all labels and hidden data columns.
+	 * 
+	 * @return an alphabetically sorted list containing each ID only once
+	 */
+	public List<String> getIDs() {
+		TreeSet<String> result = new TreeSet<String>(hiddenNodeDataColumns.keySet());
+		result.addAll(hiddenBranchDataColumns.keySet());
+		for (Map<String, Column> columns : labelColumns.values()) {
+			result.addAll(columns.keySet());
+		}
+		return toSortedList(result);
+	}
+	
+	
+	/**
+	 * Tests whether any type of label or any hidden data entry with the specified ID is present.
+	 * 
+	 * @param id the ID to be searched for
+	 * @return {@code true}, if any element was found
+	 */
+	public boolean containsID(String id) {
+		if (hiddenNodeDataColumns.containsKey(id) || hiddenBranchDataColumns.containsKey(id)) {
+			return true;
+		}
+		for (Map<String, Column> columns : labelColumns.values()) {
+			if (columns.containsKey(id)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	
+	/**
+	 * Returns the first label (in pre-order) of the specified type with the specified ID.
+	 * 
+	 * @param labelClass the class defining the sought-after type(s) of labels
+	 * @param id the ID of the sought-after label
+	 * @return the label or {@code null} if none was found
+	 */
+	public Label getFirstLabel(Class<? extends Label> labelClass, String id) {
+		Column result = null;
+		for (Class<? extends Label> storedClass : labelColumns.keySet()) {
+			if (labelClass.isAssignableFrom(storedClass)) {
+				Column column = labelColumns.get(storedClass).get(id);
+				if ((column != null) && ((result == null) || (column.firstIndex < result.firstIndex))) {
+					result = column;
+				}
+			}
+		}
+		
+		if (result == null) {
+			return null;
+		}
+		else {
+			return result.firstLabel;
+		}
+	}
+	
+	
+	/**
+	 * Returns the number of labels of the specified type with the specified ID.
+	 * 
+	 * @param labelClass the class defining the sought-after type(s) of labels
+	 * @param id the ID of the column
+	 * @return the number of labels (0 if the column does not exist)
+	 */
+	public int getLabelCount(Class<? extends Label> labelClass, String id) {
+		int result = 0;
+		for (Class<? extends Label> storedClass : labelColumns.keySet()) {
+			if (labelClass.isAssignableFrom(storedClass)) {
+				Column column = labelColumns.get(storedClass).get(id);
+				if (column != null) {
+					result += column.count;
+				}
+			}
+		}
+		return result;
+	}
+	
+	
+	private static int getCount(Map<String, Column> columns, String id) {
+		Column column = columns.get(id);
+		if (column == null) {
+			return 0;
+		}
+		else {
+			return column.count;
+		}
+	}
+	
+	
+	/**
+	 * Returns the number of hidden node data entries with the specified ID.
+	 * 
+	 * @param id the ID of the column
+	 * @return the number of entries (0 if the column does not exist)
+	 */
+	public int getHiddenNodeDataCount(String id) {
+		return getCount(hiddenNodeDataColumns, id);
+	}
+	
+	
+	/**
+	 * Returns the number of hidden branch data entries with the specified ID.
+	 * 
+	 * @param id the ID of the column
+	 * @return the number of entries (0 if the column does not exist)
+	 */
+	public int getHiddenBranchDataCount(String id) {
+		return getCount(hiddenBranchDataColumns, id);
+	}
+}
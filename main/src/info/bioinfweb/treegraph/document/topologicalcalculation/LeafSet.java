@@ -26,48 +26,135 @@ import info.bioinfweb.commons.Math2;
 /**
  * Used to store which leaf nodes of a tree are contained in a certain subtree. Internally a compressed boolean field 
  * is used to store a value for each leaf node index. 
+ * <p>
+ * The field is stored as an array of {@code long} words and all set operations work on whole words. Bits in the last 
+ * word that lie behind {@link #size()} are always kept {@code 0}, so that {@link #equals(Object)} and 
+ * {@link #hashCode()} can directly operate on the words.
  * 
  * @author Ben St&ouml;ver
  * @since 2.0.33
  */
 public class LeafSet {
-	private int[] field;
+	private static final int ADDRESS_BITS_PER_WORD = 6;
+	private static final int BITS_PER_WORD = 1 << ADDRESS_BITS_PER_WORD;
+	
+	
+	private long[] field;
 	private int size;
 
 	
 	public LeafSet(int size) {
 		super();
 		
-		field = new int[Math2.divAbove(size, Integer.SIZE)];
+		field = new long[Math2.divAbove(size, BITS_PER_WORD)];
 		this.size = size; 
-		for (int i = 0; i < field.length; i++) {
-			field[i] = 0;
+	}
+	
+	
+	private static int wordIndex(int pos) {
+		return pos >> ADDRESS_BITS_PER_WORD;
+	}
+	
+	
+	/**
+	 * Returns the mask of the valid bits in the last word of the field.
+	 */
+	private long tailMask() {
+		int usedBits = size % BITS_PER_WORD;
+		if (usedBits == 0) {
+			return -1L;
+		}
+		else {
+			return (1L << usedBits) - 1;
 		}
 	}
 	
 	
+	/**
+	 * Returns the word with the specified index of this field or of its complement. Bits behind {@link #size()} are 
+	 * always {@code 0} in the returned value.
+	 * 
+	 * @param index the index of the word
+	 * @param complement defines whether the word of the complement shall be returned 
+	 * @return the (possibly inverted) word
+	 */
+	private long word(int index, boolean complement) {
+		if (complement) {
+			long result = ~field[index];
+			if (index == field.length - 1) {
+				result &= tailMask();
+			}
+			return result;
+		}
+		else {
+			return field[index];
+		}
+	}
+	
+	
+	private void checkSize(LeafSet other) {
+		if (other.size() != size()) {
+			throw new IllegalArgumentException("The other set has a different size than this set. " +
+					"Comparing sets of different sizes is not allowed.");
+		}
+	}
+	
+	
+	/**
+	 * Returns a hash code calculated from the size and all words of this set. The position of each word is taken into account,
+	 * so that sets containing the same number of leaves in different words do not collide, which is important if many leaf 
+	 * sets of one tree are used as keys of a hash map.
+	 */
 	@Override
 	public int hashCode() {
-		int result = 0;
+		long result = size;
 		for (int i = 0; i < field.length; i++) {
-			result += field[i];
+			result = 31 * result + field[i];
+			result ^= (result >>> 29);  // Spread differences in single bits over the whole hash value.
 		}
-		return result;
+		return (int)(result ^ (result >>> 32));
 	}
 
 
 	public boolean isChild(int pos) {
-		return (field[pos / Integer.SIZE] & Math2.intPow(2, pos % Integer.SIZE)) != 0; 
+		return (field[wordIndex(pos)] & (1L << pos)) != 0;  // Shift distances are taken modulo 64.
 	}
 	
 	
 	public void setChild(int pos, boolean value) {
 		if (value) {
-			field[pos / Integer.SIZE] = field[pos / Integer.SIZE] | Math2.intPow(2, pos % Integer.SIZE);
+			field[wordIndex(pos)] |= (1L << pos);
 		}
 		else {
-			field[pos / Integer.SIZE] = field[pos / Integer.SIZE] & ~Math2.intPow(2, pos % Integer.SIZE);
+			field[wordIndex(pos)] &= ~(1L << pos);
 	  }
+	}
+	
+	
+	/**
+	 * Returns the index of the first leaf contained in this set that occurs on or after the specified position.
+	 * 
+	 * @param fromPos the position to start searching from (inclusive)
+	 * @return the index of the next contained leaf or -1 if no such leaf exists
+	 */
+	public int nextChild(int fromPos) {
+		if (fromPos < size()) {
+			int index = wordIndex(fromPos);
+			long word = field[index] & (-1L << fromPos);
+			while (true) {
+				if (word != 0) {
+					return index * BITS_PER_WORD + Long.numberOfTrailingZeros(word);
+				}
+				index++;
+				if (index >= field.length) {
+					return -1;
+				}
+				word = field[index];
+			}
+		}
+		else {
+			return -1;
+		}
 	}
 	
 	
@@ -78,20 +165,45 @@ public class LeafSet {
 	
 	public int childCount() {
 		int result = 0;
-		for (int pos = 0; pos < size(); pos++) {
-	    if (isChild(pos)) {
-	    	result++;
-	    }
-    }
+		for (int i = 0; i < field.length; i++) {
+			result += Long.bitCount(field[i]);
+		}
 		return result;
 	}
+	
+	
+	/**
+	 * Tests whether this set contains no leaves at all.
+	 * 
+	 * @return {@code true} if no leaf is contained, {@code false} otherwise
+	 */
+	public boolean isEmpty() {
+		for (int i = 0; i < field.length; i++) {
+			if (field[i] != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Removes all leaves from this set.
+	 */
+	public void clear() {
+		for (int i = 0; i < field.length; i++) {
+			field[i] = 0;
+		}
+	}
 
 
 	public void addField(LeafSet other) {
-		for (int i = 0; i < other.size(); i++) {
-			if (other.isChild(i)) {
-				setChild(i, true);
-			}
+		int length = Math.min(field.length, other.field.length);
+		for (int i = 0; i < length; i++) {
+			field[i] |= other.field[i];
+		}
+		if ((length > 0) && (length == field.length)) {
+			field[length - 1] &= tailMask();  // Bits of a larger set must not be copied behind the end of this set.
 		}
 	}
 	
@@ -131,21 +243,13 @@ public class LeafSet {
 	 */
 	public int compareTo(LeafSet other, boolean complement) {
 		int additionalCount = 0;
-		for (int i = 0; i < size(); i++) {
-			boolean isChildHere = isChild(i);
-			if (complement) {
-				isChildHere = !isChildHere;
-			}
-			if (isChildHere) {
-				if (!other.isChild(i)) {
-					return -1;
-				}
-			}
-			else {
-				if (other.isChild(i)) {
-					additionalCount++;
-				}
+		for (int i = 0; i < field.length; i++) {
+			long here = word(i, complement);
+			long there = other.field[i];
+			if ((here & ~there) != 0) {
+				return -1;
 			}
+			additionalCount += Long.bitCount(~here & there);
 		}
 		return additionalCount;
 	}
@@ -164,15 +268,13 @@ public class LeafSet {
 	 */
 	public boolean inSubtreeOf(LeafSet parent, boolean complement) {
 		boolean oneLess = false;
-		for (int i = 0; i < size(); i++) {
-			boolean isChildHere = isChild(i);
-			if (complement) {
-				isChildHere = !isChildHere;
-			}
-			if (isChildHere && !parent.isChild(i)) {
+		for (int i = 0; i < field.length; i++) {
+			long here = word(i, complement);
+			long there = parent.field[i];
+			if ((here & ~there) != 0) {
 				return false;
 			}
-			oneLess = oneLess || (!isChildHere && parent.isChild(i));
+			oneLess = oneLess || ((~here & there) != 0);
 		}
 		return oneLess;
 	}
@@ -180,8 +282,8 @@ public class LeafSet {
 
 	public LeafSet complement() {
 		LeafSet result = new LeafSet(size());
-		for(int i = 0 ; i < field.length; i++ ){
-			result.field[i] = ~field[i];
+		for (int i = 0 ; i < field.length; i++) {
+			result.field[i] = word(i, true);
 		}
 		return result;
 	}
@@ -198,13 +300,11 @@ public class LeafSet {
 	public boolean containsAnyAndOther(LeafSet other, boolean complement) {
 		boolean containsOther = false;
 		boolean containsAny = false;
-		for (int i = 0; i < size(); i++) {
-			boolean isChildHere = isChild(i);
-			if (complement) {
-				isChildHere = !isChildHere;
-			}
-			containsAny = containsAny || (isChildHere && other.isChild(i));
-			containsOther = containsOther || (isChildHere && !other.isChild(i));
+		for (int i = 0; i < field.length; i++) {
+			long here = word(i, complement);
+			long there = other.field[i];
+			containsAny = containsAny || ((here & there) != 0);
+			containsOther = containsOther || ((here & ~there) != 0);
 			if (containsAny && containsOther) {
 				return true;
 			}
@@ -223,18 +323,13 @@ public class LeafSet {
 	 * @throws IllegalArgumentException if the other set differs in size from this set.
 	 */
 	public boolean containsAll(LeafSet subset) {
-		if (subset.size() == size()) {
-			for (int i = 0; i < field.length; i++) {
-		    if ((field[i] & subset.field[i]) != subset.field[i]) {
-		    	return false;
-		    }
+		checkSize(subset);
+		for (int i = 0; i < field.length; i++) {
+	    if ((field[i] & subset.field[i]) != subset.field[i]) {
+	    	return false;
 	    }
-			return true;
-		}
-		else {
-			throw new IllegalArgumentException("The other set has a different size than this set. " +
-					"Comparing sets of different sizes is not allowed.");
-		}
+    }
+		return true;
 	}
 
 
@@ -0,0 +1,324 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.topologicalcalculation;
+
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.io.DocumentIterator;
+import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
+
+
+
+/**
+ * Counts how often the splits of the internal nodes of a target tree occur in a (possibly very large) set of trees.
+ * <p>
+ * Trees are read from a {@link DocumentIterator} in the calling thread as lightweight topologies (containing only the
+ * structure and the leaf names, see {@link DocumentIterator#nextTopology(NodeBranchDataAdapter)}), so that no 
+ * {@link Document} needs to be created for Newick and Nexus files. These topologies are passed through a bounded queue to
+ * a set of worker threads, which calculate the leaf set of each node and look it up in a read-only map of the splits of the
+ * target tree. Each worker counts into its own array and all arrays are summed up after the last tree was processed.
+ * <p>
+ * The results are identical to looking up each leaf set and, if not found, its complement in a map of the leaf sets of all
+ * internal target nodes.
+ *
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class SplitFrequencyCounter {
+	private static final int QUEUE_CAPACITY_PER_THREAD = 16;
+
+	/** The time in milliseconds to wait for free space in the queue before checking whether a worker has failed. */
+	private static final long OFFER_TIMEOUT = 100;
+
+	/** Marks the end of the input in the queue. */
+	private static final TreeTopology END = new TreeTopology();
+
+
+	private TopologicalCalculator calculator;
+	private int leafSetSize;
+	private List<Node> targetNodes = new ArrayList<Node>();
+	private Map<Node, Integer> targetNodeIndices = new IdentityHashMap<Node, Integer>();
+
+	/**
+	 * Contains the leaf sets of all internal target nodes and their complements. Index 0 of each value references the node with
+	 * the respective leaf set, index 1 the node with the complement of the key as its leaf set. (-1 is used if no such node
+	 * exists.)
+	 */
+	private Map<LeafSet, int[]> splits = new HashMap<LeafSet, int[]>();
+
+	private int[] frequencies;
+	private int treeCount = 0;
+	private int threadCount;
+
+
+	/**
+	 * Creates a new instance of this class.
+	 *
+	 * @param calculator the calculator that contains the leaf index map and the leaf sets of the target tree (Leaf sets must
+	 *        already have been added to all nodes under {@code targetRoot}.)
+	 * @param targetRoot the root of the target tree
+	 * @param threadCount the number of worker threads to be used to process the topologies
+	 */
+	public SplitFrequencyCounter(TopologicalCalculator calculator, Node targetRoot, int threadCount) {
+		super();
+		this.calculator = calculator;
+		this.threadCount = Math.max(1, threadCount);
+		leafSetSize = calculator.getLeafSet(targetRoot).size();
+		addTargetSubtree(targetRoot);
+		frequencies = new int[targetNodes.size()];
+	}
+
+
+	/**
+	 * Creates a new instance of this class using a worker thread for each available processor.
+	 *
+	 * @param calculator the calculator that contains the leaf index map and the leaf sets of the target tree (Leaf sets must
+	 *        already have been added to all nodes under {@code targetRoot}.)
+	 * @param targetRoot the root of the target tree
+	 */
+	public SplitFrequencyCounter(TopologicalCalculator calculator, Node targetRoot) {
+		this(calculator, targetRoot, Runtime.getRuntime().availableProcessors());
+	}
+
+
+	private int[] getSplitEntry(LeafSet leafSet) {
+		int[] result = splits.get(leafSet);
+		if (result == null) {
+			result = new int[]{-1, -1};
+			splits.put(leafSet, result);
+		}
+		return result;
+	}
+
+
+	private void addTargetSubtree(Node root) {
+		if (!root.isLeaf()) {
+			int index = targetNodes.size();
+			targetNodes.add(root);
+			targetNodeIndices.put(root, index);
+
+			LeafSet leafSet = calculator.getLeafSet(root);
+			getSplitEntry(leafSet)[0] = index;  // Nodes with identical leaf sets further down overwrite previous ones.
+			getSplitEntry(leafSet.complement())[1] = index;
+
+			for (Node child : root.getChildren()) {
+				addTargetSubtree(child);
+			}
+		}
+	}
+
+
+	/**
+	 * Calculates the leaf sets of all internal nodes of the specified topology in post-order and counts the ones matching a
+	 * target node. Leaf sets are taken from and returned to {@code pool} to avoid allocating a new one for each node.
+	 */
+	private void countTopology(TreeTopology topology, int[] counts, Deque<LeafSet> pool) {
+		LeafSet[] setStack = new LeafSet[topology.getNodeCount()];  // Contains null for leaves.
+		int[] leafIndexStack = new int[topology.getNodeCount()];
+		int stackSize = 0;
+		int leafPos = 0;
+
+		for (int i = 0; i < topology.getNodeCount(); i++) {
+			int childCount = topology.getChildCount(i);
+			if (childCount == 0) {
+				setStack[stackSize] = null;
+				leafIndexStack[stackSize] = calculator.getLeafIndex(topology.getLeafName(leafPos));
+				leafPos++;
+			}
+			else {
+				LeafSet leafSet = pool.poll();
+				if (leafSet == null) {
+					leafSet = new LeafSet(leafSetSize);
+				}
+				for (int childPos = stackSize - childCount; childPos < stackSize; childPos++) {
+					if (setStack[childPos] == null) {
+						if (leafIndexStack[childPos] >= 0) {  // Ignore leaves that are not contained in the target tree.
+							leafSet.setChild(leafIndexStack[childPos], true);
+						}
+					}
+					else {
+						leafSet.addField(setStack[childPos]);
+						setStack[childPos].clear();
+						pool.push(setStack[childPos]);
+						setStack[childPos] = null;
+					}
+				}
+				stackSize -= childCount;
+
+				int[] entry = splits.get(leafSet);
+				if (entry != null) {
+					int index = entry[0];
+					if (index == -1) {
+						index = entry[1];  // Only use a node matching the complement, if there is no direct match.
+					}
+					counts[index]++;
+				}
+				setStack[stackSize] = leafSet;
+			}
+			stackSize++;
+		}
+
+		if ((stackSize == 1) && (setStack[0] != null)) {  // Return the leaf set of the root.
+			setStack[0].clear();
+			pool.push(setStack[0]);
+		}
+	}
+
+
+	private Callable<int[]> createWorker(final BlockingQueue<TreeTopology> queue) {
+		return new Callable<int[]>() {
+			@Override
+			public int[] call() throws Exception {
+				int[] counts = new int[targetNodes.size()];
+				Deque<LeafSet> pool = new ArrayDeque<LeafSet>();
+				TreeTopology topology = queue.take();
+				while (topology != END) {
+					countTopology(topology, counts, pool);
+					topology = queue.take();
+				}
+				return counts;
+			}
+		};
+	}
+
+
+	/**
+	 * Returns the counts of a worker or rethrows the exception or error that terminated it.
+	 */
+	private static int[] getCounts(Future<int[]> result) throws Exception {
+		try {
+			return result.get();
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception)e.getCause();
+			}
+			else if (e.getCause() instanceof Error) {
+				throw (Error)e.getCause();
+			}
+			else {
+				throw e;
+			}
+		}
+	}
+
+
+	/**
+	 * Adds the specified topology to the queue. If the queue stays full, it is checked whether a worker has terminated 
+	 * with an exception or error, so that the calling thread is not blocked forever if no worker takes topologies from the 
+	 * queue anymore.
+	 */
+	private static void put(BlockingQueue<TreeTopology> queue, TreeTopology topology, List<Future<int[]>> results) throws Exception {
+		while (!queue.offer(topology, OFFER_TIMEOUT, TimeUnit.MILLISECONDS)) {
+			for (Future<int[]> result : results) {
+				if (result.isDone()) {
+					getCounts(result);  // Throws the exception of a failed worker. (Workers that received END have completed normally.)
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Reads all remaining documents from the specified iterator and adds the frequencies of the splits of the target tree in
+	 * these documents to the current frequencies.
+	 *
+	 * @param documents the iterator providing the trees to be compared with the target tree
+	 * @param leavesAdapter the adapter providing the leaf names of the trees provided by {@code documents}
+	 * @throws Exception if reading a document failed or an exception occurred in a worker thread
+	 */
+	public void countSplits(DocumentIterator documents, NodeBranchDataAdapter leavesAdapter) throws Exception {
+		BlockingQueue<TreeTopology> queue = new ArrayBlockingQueue<TreeTopology>(QUEUE_CAPACITY_PER_THREAD * threadCount);
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			List<Future<int[]>> results = new ArrayList<Future<int[]>>(threadCount);
+			for (int i = 0; i < threadCount; i++) {
+				results.add(executor.submit(createWorker(queue)));
+			}
+
+			TreeTopology topology = documents.nextTopology(leavesAdapter);
+			while (topology != null) {
+				treeCount++;
+				put(queue, topology, results);
+				topology = documents.nextTopology(leavesAdapter);
+			}
+			for (int i = 0; i < threadCount; i++) {
+				put(queue, END, results);
+			}
+
+			int[][] counts = new int[threadCount][];
+			for (int i = 0; i < threadCount; i++) {
+				counts[i] = getCounts(results.get(i));
+			}
+			for (int[] workerCounts : counts) {  // Frequencies are only changed if all workers completed successfully.
+				for (int i = 0; i < workerCounts.length; i++) {
+					frequencies[i] += workerCounts[i];
+				}
+			}
+		}
+		finally {
+			executor.shutdownNow();  // Interrupts workers still waiting for topologies, if reading or another worker failed.
+		}
+	}
+
+
+	/**
+	 * Returns the number of trees that have been processed by {@link #countSplits(DocumentIterator, NodeBranchDataAdapter)}
+	 * until now.
+	 *
+	 * @return the number of trees
+	 */
+	public int getTreeCount() {
+		return treeCount;
+	}
+
+
+	/**
+	 * Returns the number of trees that contained the split of the specified target node.
+	 *
+	 * @param targetNode an internal node of the target tree
+	 * @return the number of trees containing the split or 0 if {@code targetNode} is not an internal node of the target tree
+	 */
+	public int getFrequency(Node targetNode) {
+		Integer index = targetNodeIndices.get(targetNode);
+		if (index == null) {
+			return 0;
+		}
+		else {
+			return frequencies[index];
+		}
+	}
+}
@@ -0,0 +1,236 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.topologicalcalculation;
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import info.bioinfweb.treegraph.document.Node;
+
+
+
+/**
+ * Index of the (possibly restricted) leaf sets of all nodes in a subtree, that is used by {@link TopologicalCalculator}
+ * to find nodes with a specified leaf set without visiting the whole tree.
+ * <p>
+ * Nodes are stored under a canonical key, which is either their leaf set or its complement, depending on which one
+ * does not contain the last leaf index. In rooted mode this last index belongs to the root, which is never contained
+ * in the leaf set of a node, so that keys are the leaf sets themselves there. In unrooted mode a split and its
+ * complement share one key.
+ * <p>
+ * Instances of this class are only valid as long as the leaf sets attached to the indexed nodes are not changed.
+ *
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class SplitIndex {
+	private Node root;
+	private LeafSet restrictingLeafSet;
+	private Map<LeafSet, List<Node>> nodesByKey = new HashMap<LeafSet, List<Node>>();
+	private Map<Node, LeafSet> leafSets = new IdentityHashMap<Node, LeafSet>();
+	private Map<Node, Integer> preOrderIndices = new IdentityHashMap<Node, Integer>();
+	private Node[] leavesByIndex = null;
+	private boolean uniqueLeaves = true;
+
+
+	/**
+	 * Creates a new index for the specified subtree.
+	 *
+	 * @param calculator the calculator providing the leaf sets attached to the nodes
+	 * @param root the root of the subtree to be indexed
+	 * @param restrictingLeafSet an optional set of terminals that all leaf sets shall be restricted to before they are
+	 *        added to the index (Can be {@code null}.)
+	 */
+	public SplitIndex(TopologicalCalculator calculator, Node root, LeafSet restrictingLeafSet) {
+		super();
+		this.root = root;
+		this.restrictingLeafSet = restrictingLeafSet;
+		addSubtree(calculator, root);
+	}
+
+
+	private void addSubtree(TopologicalCalculator calculator, Node root) {
+		LeafSet leafSet = calculator.getLeafSet(root);
+		if (restrictingLeafSet != null) {
+			leafSet = leafSet.and(restrictingLeafSet);
+		}
+
+		leafSets.put(root, leafSet);
+		preOrderIndices.put(root, preOrderIndices.size());
+		LeafSet key = createKey(leafSet);
+		List<Node> nodes = nodesByKey.get(key);
+		if (nodes == null) {
+			nodes = new ArrayList<Node>(1);
+			nodesByKey.put(key, nodes);
+		}
+		nodes.add(root);
+
+		if (root.isLeaf()) {
+			if (leavesByIndex == null) {
+				leavesByIndex = new Node[leafSet.size()];
+			}
+			for (int index = leafSet.nextChild(0); index != -1; index = leafSet.nextChild(index + 1)) {
+				if (leavesByIndex[index] == null) {
+					leavesByIndex[index] = root;
+				}
+				else {
+					uniqueLeaves = false;  // Leaf sets of different branches may overlap, if a terminal occurs more than once.
+				}
+			}
+		}
+		else {
+			for (Node child : root.getChildren()) {
+				addSubtree(calculator, child);
+			}
+		}
+	}
+
+
+	/**
+	 * Returns the canonical key for the specified leaf set.
+	 */
+	private static LeafSet createKey(LeafSet leafSet) {
+		if ((leafSet.size() > 0) && leafSet.isChild(leafSet.size() - 1)) {
+			return leafSet.complement();
+		}
+		else {
+			return leafSet;
+		}
+	}
+
+
+	/**
+	 * Tests whether this index was created for the specified subtree and restricting leaf set.
+	 *
+	 * @param root the root of the subtree
+	 * @param restrictingLeafSet the restricting leaf set (Can be {@code null}.)
+	 * @return {@code true} if this index can be used for the specified parameters, {@code false} otherwise
+	 */
+	public boolean isValidFor(Node root, LeafSet restrictingLeafSet) {
+		if (this.root != root) {
+			return false;
+		}
+		else if (this.restrictingLeafSet == null) {
+			return restrictingLeafSet == null;
+		}
+		else {
+			return this.restrictingLeafSet.equals(restrictingLeafSet);
+		}
+	}
+
+
+	/**
+	 * Indicates whether each terminal index is contained in the leaf set of at most one leaf of the indexed subtree. If
+	 * this is not the case, nodes containing a certain set of terminals do not necessarily lie on a single path and
+	 * {@link #findAncestorContainingAll(LeafSet)} cannot be used.
+	 *
+	 * @return {@code true} if no terminal occurs more than once, {@code false} otherwise
+	 */
+	public boolean hasUniqueLeaves() {
+		return uniqueLeaves;
+	}
+
+
+	/**
+	 * Returns the (restricted) leaf set of the specified node.
+	 *
+	 * @param node a node in the indexed subtree
+	 * @return the leaf set or {@code null} if the node is not contained in the indexed subtree
+	 */
+	public LeafSet getLeafSet(Node node) {
+		return leafSets.get(node);
+	}
+
+
+	/**
+	 * Returns the position of the specified node in a pre-order traversal of the indexed subtree.
+	 *
+	 * @param node a node in the indexed subtree
+	 * @return the index or -1 if the node is not contained in the indexed subtree
+	 */
+	public int getPreOrderIndex(Node node) {
+		Integer result = preOrderIndices.get(node);
+		if (result == null) {
+			return -1;
+		}
+		else {
+			return result;
+		}
+	}
+
+
+	/**
+	 * Returns the parent of the specified node, if it is also part of the indexed subtree.
+	 *
+	 * @param node a node in the indexed subtree
+	 * @return the parent or {@code null} if {@code node} is the root of the indexed subtree
+	 */
+	public Node getParent(Node node) {
+		if (node == root) {
+			return null;
+		}
+		else {
+			return node.getParent();
+		}
+	}
+
+
+	/**
+	 * Returns all nodes in the indexed subtree that have either the specified leaf set or its complement in the order
+	 * of a pre-order traversal.
+	 *
+	 * @param leafSet the leaf set to search for
+	 * @return a list of nodes which is empty, if no matching node was found (The returned instance must not be modified.)
+	 */
+	public List<Node> getNodesBySplit(LeafSet leafSet) {
+		List<Node> result = nodesByKey.get(createKey(leafSet));
+		if (result == null) {
+			result = new ArrayList<Node>(0);
+		}
+		return result;
+	}
+
+
+	/**
+	 * Returns the deepest node in the indexed subtree which contains all terminals of the specified leaf set. Only
+	 * the ancestors of one terminal of that set are visited.
+	 * <p>
+	 * This method may only be called if {@link #hasUniqueLeaves()} returns {@code true}.
+	 *
+	 * @param leafSet the leaf set that shall be contained in the returned node
+	 * @return the MRCA of all terminals in {@code leafSet} or {@code null} if no node in the indexed subtree contains them
+	 */
+	public Node findAncestorContainingAll(LeafSet leafSet) {
+		int index = leafSet.nextChild(0);
+		if ((index == -1) || (leavesByIndex == null) || (index >= leavesByIndex.length)) {
+			return null;
+		}
+		else {
+			Node node = leavesByIndex[index];
+			while ((node != null) && !getLeafSet(node).containsAll(leafSet)) {
+				node = getParent(node);
+			}
+			return node;
+		}
+	}
+}
@@ -20,6 +20,7 @@ package info.bioinfweb.treegraph.document.topologicalcalculation;
 
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -46,6 +47,7 @@ public class TopologicalCalculator {
 	protected boolean processRooted;
 	protected String keyLeafReference;
 	protected CompareTextElementDataParameters parameters;
+	private Map<Tree, SplitIndex> splitIndices = new IdentityHashMap<Tree, SplitIndex>();
 	
 	
 	public TopologicalCalculator(boolean processRooted,	String keyLeafReference, CompareTextElementDataParameters parameters) {
@@ -180,6 +182,7 @@ public class TopologicalCalculator {
 	 */
 	public void addLeafSets(Node root, NodeBranchDataAdapter leafAdapter) {
 		root.getAttributeMap().remove(keyLeafReference);  // Necessary to overwrite possible leaf sets from previous edits which might not be valid anymore.
+		splitIndices.clear();  // Indices may contain the leaf sets that are replaced here.
 		LeafSet field = getLeafSet(root);
 		if (!root.isLeaf()) {
 			for (int i = 0; i < root.getChildren().size(); i++) {
@@ -223,6 +226,11 @@ public class TopologicalCalculator {
 	 * <p>
 	 * The returned list may contain more than one entry of multiple splits were found that only differ by the placement of terminals
 	 * that are not contained in the restricting leaf set (if one was provided).
+	 * <p>
+	 * Exact matches are looked up in a {@link SplitIndex} of {@code tree}, which is created on the first call and reused as long
+	 * as the same restricting leaf set is specified and the leaf sets of {@code tree} are not recalculated using 
+	 * {@link #addLeafSets(Node, NodeBranchDataAdapter)}. If no exact match exists, only the ancestors of the closest matching nodes
+	 * are visited.
 	 * 
 	 * @param tree the tree to be searched
 	 * @param searchedLeafSet the leaves that should be contained in the sought-after subtree
@@ -233,38 +241,135 @@ public class TopologicalCalculator {
 	public List<NodeInfo> findNodeWithAllLeaves(Tree tree, LeafSet searchedLeafSet, LeafSet restrictingLeafSet) {
 		searchedLeafSet = restrictLeafSet(searchedLeafSet, restrictingLeafSet);
 		List<NodeInfo> result = new ArrayList<NodeInfo>();
-		findNodeWithAllLeavesRecursive(result, tree.getPaintStart(), searchedLeafSet, restrictingLeafSet);
+		if (!isLeafSetEmpty(searchedLeafSet)) {
+			SplitIndex index = getSplitIndex(tree, restrictingLeafSet);
+			
+			for (Node node : index.getNodesBySplit(searchedLeafSet)) {  // Exact matches
+				result.add(createNodeInfo(node, index.getLeafSet(node), searchedLeafSet));
+			}
+			
+			if (result.isEmpty()) {
+				LeafSet complement = searchedLeafSet.complement();
+				if (index.hasUniqueLeaves() && !isLeafSetEmpty(complement)) {
+					findClosestNodes(result, index, searchedLeafSet, complement);
+				}
+				else {  // Nodes containing all searched terminals do not necessarily lie on a single path in these cases.
+					findNodeWithAllLeavesRecursive(result, tree.getPaintStart(), searchedLeafSet, restrictingLeafSet);
+				}
+			}
+		}
 		return result;
 	}
 	
 	
-	private void findNodeWithAllLeavesRecursive(List<NodeInfo> result, Node root, LeafSet searchedLeafSet, LeafSet restrictingLeafSet) {
-		if (!isLeafSetEmpty(searchedLeafSet)) {
-			LeafSet comparedLeafSet = getLeafSet(root);
-			comparedLeafSet = restrictLeafSet(comparedLeafSet, restrictingLeafSet);
-			
-			int additionalCount = searchedLeafSet.compareTo(comparedLeafSet, false);
-			boolean downwards = additionalCount != -1;
-			if (!downwards) {
-				additionalCount = searchedLeafSet.compareTo(comparedLeafSet, true);
+	/**
+	 * Returns the split index for the specified tree and restricting leaf set. A new index is created, if none was created 
+	 * before or if the paint start or restricting leaf set changed since then. 
+	 * 
+	 * @param tree the tree to be indexed
+	 * @param restrictingLeafSet the leaf set to restrict all indexed leaf sets to (Can be {@code null}.)
+	 * @return the split index
+	 */
+	private SplitIndex getSplitIndex(Tree tree, LeafSet restrictingLeafSet) {
+		SplitIndex result = splitIndices.get(tree);
+		if ((result == null) || !result.isValidFor(tree.getPaintStart(), restrictingLeafSet)) {
+			result = new SplitIndex(this, tree.getPaintStart(), restrictingLeafSet);
+			splitIndices.put(tree, result);
+		}
+		return result;
+	}
+	
+	
+	/**
+	 * Removes all split indices that have been created by this instance. They will be recreated on demand.
+	 * <p>
+	 * This method should be called if the indexed trees are no longer needed, since the indices reference 
+	 * their nodes.
+	 */
+	public void clearSplitIndices() {
+		splitIndices.clear();
+	}
+	
+	
+	private NodeInfo createNodeInfo(Node node, LeafSet comparedLeafSet, LeafSet searchedLeafSet) {
+		int additionalCount = searchedLeafSet.compareTo(comparedLeafSet, false);
+		boolean downwards = additionalCount != -1;
+		if (!downwards) {
+			additionalCount = searchedLeafSet.compareTo(comparedLeafSet, true);
+		}
+		return new NodeInfo(node, additionalCount, downwards);
+	}
+	
+	
+	/**
+	 * Adds the specified node info object to the result list, if it has an additional count that is equal or lower than the 
+	 * additional count of the entries already contained. Entries with a higher count are removed from the list.
+	 */
+	private void addIfClosest(List<NodeInfo> result, NodeInfo info) {
+		if (info.getAdditionalCount() != -1) {
+			if (result.isEmpty()) {
+				result.add(info);
 			}
-			//NodeInfo result = null;
-			NodeInfo info = new NodeInfo(root, additionalCount, downwards);
-			if (additionalCount != -1) {
-				if (result.isEmpty()) {
+			else {
+				int previousAdditionalCount = result.get(0).getAdditionalCount();
+				if (info.getAdditionalCount() < previousAdditionalCount) {  // previousAdditionalCount should never be -1. (Was tested here before.)
+					result.clear();
 					result.add(info);
 				}
-				else {
-					int previousAdditionalCount = result.get(0).getAdditionalCount();
-					if (additionalCount < previousAdditionalCount) {  // previousAdditionalCount should never be -1. (Was tested here before.)
-						result.clear();
-						result.add(info);
-					}
-					else if (additionalCount == previousAdditionalCount) {
-						result.add(info);
-					}
+				else if (info.getAdditionalCount() == previousAdditionalCount) {
+					result.add(info);
 				}
 			}
+		}
+	}
+	
+	
+	/**
+	 * Finds the closest non-exact matches of {@code searchedLeafSet} by only walking up from the MRCA of the searched leaf set 
+	 * and from the MRCA of its complement. All other nodes either do not contain one of these sets or are descendants of these 
+	 * nodes and therefore cannot be a match. The additional count along each of these paths can only grow towards the root, 
+	 * so the walks stop as soon as it becomes greater than the lowest count found.
+	 * <p>
+	 * Can only be used if the index contains no terminal more than once and if neither the searched leaf set nor its 
+	 * complement is empty. 
+	 */
+	private void findClosestNodes(List<NodeInfo> result, SplitIndex index, LeafSet searchedLeafSet, LeafSet complement) {
+		List<NodeInfo> candidates = new ArrayList<NodeInfo>();
+		Node[] mrcas = {index.findAncestorContainingAll(searchedLeafSet), index.findAncestorContainingAll(complement)};
+		for (int i = 0; i < mrcas.length; i++) {
+			Node node = mrcas[i];
+			if (node != null) {
+				NodeInfo info = createNodeInfo(node, index.getLeafSet(node), searchedLeafSet);
+				int count = info.getAdditionalCount();
+				do {
+					candidates.add(info);
+					node = index.getParent(node);
+					if (node != null) {
+						info = createNodeInfo(node, index.getLeafSet(node), searchedLeafSet);
+					}
+				} while ((node != null) && (info.getAdditionalCount() == count));
+			}
+		}
+		
+		List<NodeInfo> closest = new ArrayList<NodeInfo>();
+		for (NodeInfo candidate : candidates) {
+			addIfClosest(closest, candidate);
+		}
+		
+		// Sort according to the order of the previous full tree traversal:
+		Map<Integer, NodeInfo> sorted = new TreeMap<Integer, NodeInfo>();
+		for (NodeInfo info : closest) {
+			sorted.put(index.getPreOrderIndex(info.getNode()), info);  // Nodes found by both walks are only added once.
+		}
+		result.addAll(sorted.values());
+	}
+	
+	
+	private void findNodeWithAllLeavesRecursive(List<NodeInfo> result, Node root, LeafSet searchedLeafSet, LeafSet restrictingLeafSet) {
+		if (!isLeafSetEmpty(searchedLeafSet)) {
+			LeafSet comparedLeafSet = getLeafSet(root);
+			comparedLeafSet = restrictLeafSet(comparedLeafSet, restrictingLeafSet);
+			addIfClosest(result, createNodeInfo(root, comparedLeafSet, searchedLeafSet));
 	  	
 			for (Node child : root.getChildren()) {
 				findNodeWithAllLeavesRecursive(result, child, searchedLeafSet, restrictingLeafSet);
@@ -410,11 +515,6 @@ public class TopologicalCalculator {
 	
 	
 	private boolean isLeafSetEmpty(LeafSet leafSet) {
-		for (int i = 0; i < leafSet.size(); i++) {
-			if(leafSet.isChild(i)) {
-				return false;
-			}
-		}
-		return true;
+		return leafSet.isEmpty();
 	}
 }
\ No newline at end of file
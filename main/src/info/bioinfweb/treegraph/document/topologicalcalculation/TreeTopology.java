@@ -0,0 +1,166 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.topologicalcalculation;
+
+
+import java.util.Arrays;
+
+import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
+
+
+
+/**
+ * Lightweight representation of a tree topology, which only contains the number of children of each node and the 
+ * names of the leaves. Nodes are stored in post-order, which is also the order in which they are defined in a 
+ * Newick string.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class TreeTopology {
+	private static final int INITIAL_CAPACITY = 64;
+	
+	
+	private int[] childCounts = new int[INITIAL_CAPACITY];
+	private int nodeCount = 0;
+	private String[] leafNames = new String[INITIAL_CAPACITY];
+	private int leafCount = 0;
+	
+	
+	/**
+	 * Adds a leaf as the next node in post-order.
+	 * 
+	 * @param name the name of the leaf
+	 */
+	public void addLeaf(String name) {
+		if (leafCount == leafNames.length) {
+			leafNames = Arrays.copyOf(leafNames, 2 * leafNames.length);
+		}
+		leafNames[leafCount] = name;
+		leafCount++;
+		addNode(0);
+	}
+	
+	
+	/**
+	 * Adds an internal node as the next node in post-order. Its children are the last {@code childCount} nodes on 
+	 * the same level that have been added before.
+	 * 
+	 * @param childCount the number of children of the new node
+	 */
+	public void addInternalNode(int childCount) {
+		if (childCount < 1) {
+			throw new IllegalArgumentException("An internal node must have at least one child.");
+		}
+		addNode(childCount);
+	}
+	
+	
+	private void addNode(int childCount) {
+		if (nodeCount == childCounts.length) {
+			childCounts = Arrays.copyOf(childCounts, 2 * childCounts.length);
+		}
+		childCounts[nodeCount] = childCount;
+		nodeCount++;
+	}
+	
+	
+	/**
+	 * Returns the number of nodes (including leaves) in this topology.
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+	
+	
+	/**
+	 * Returns the number of children of the node at the specified position in post-order.
+	 * 
+	 * @param index the index of the node in post-order
+	 * @return the number of children or 0 if the node is a leaf
+	 */
+	public int getChildCount(int index) {
+		return childCounts[index];
+	}
+	
+	
+	/**
+	 * Returns the number of leaves in this topology.
+	 */
+	public int getLeafCount() {
+		return leafCount;
+	}
+	
+	
+	/**
+	 * Returns the name of the leaf at the specified position.
+	 * 
+	 * @param index the index of the leaf in post-order (only counting leaves)
+	 * @return the name of the leaf
+	 */
+	public String getLeafName(int index) {
+		return leafNames[index];
+	}
+	
+	
+	/**
+	 * Creates the topology of the specified subtree.
+	 * 
+	 * @param root the root of the subtree
+	 * @param leavesAdapter the adapter providing the names of the leaves
+	 * @return the new topology
+	 */
+	public static TreeTopology fromTree(Node root, NodeBranchDataAdapter leavesAdapter) {
+		TreeTopology result = new TreeTopology();
+		result.addSubtree(root, leavesAdapter);
+		return result;
+	}
+	
+	
+	/**
+	 * Creates the topology of the tree of the specified document.
+	 * 
+	 * @param document the document containing the tree (may be {@code null})
+	 * @param leavesAdapter the adapter providing the names of the leaves
+	 * @return the new topology or {@code null} if {@code null} was specified for {@code document}
+	 */
+	public static TreeTopology fromDocument(Document document, NodeBranchDataAdapter leavesAdapter) {
+		if (document == null) {
+			return null;
+		}
+		else {
+			return fromTree(document.getTree().getPaintStart(), leavesAdapter);
+		}
+	}
+	
+	
+	private void addSubtree(Node root, NodeBranchDataAdapter leavesAdapter) {
+		if (root.isLeaf()) {
+			addLeaf(leavesAdapter.toTextElementData(root).toString());
+		}
+		else {
+			for (Node child : root.getChildren()) {
+				addSubtree(child, leavesAdapter);
+			}
+			addInternalNode(root.getChildren().size());
+		}
+	}
+}
@@ -60,4 +60,15 @@ public abstract class AbstractTopologicalCalculationEdit extends ComplexDocument
 	public NodeBranchDataAdapter getTargetLeavesAdapter() {
 		return targetLeavesAdapter;
 	}
+
+
+	/**
+	 * Releases the split indices of the topological calculator, since they reference the nodes of the 
+	 * discarded copy.
+	 */
+	@Override
+	protected void copyMerged() {
+		super.copyMerged();
+		topologicalCalculator.clearSplitIndices();
+	}
 }
\ No newline at end of file
@@ -19,6 +19,9 @@
 package info.bioinfweb.treegraph.document.undo;
 
 
+import java.util.IdentityHashMap;
+import java.util.Map;
+
 import javax.swing.undo.CannotRedoException;
 import javax.swing.undo.CannotUndoException;
 
@@ -38,12 +41,20 @@ import info.bioinfweb.treegraph.document.change.DocumentChangeType;
  * This class creates a copy of the old tree in the document before calling {@link #performRedo()}
  * so all classes implementing {@link #performRedo()} have to translate references to elements of
  * the old tree by using the {@link #findEquivilant(Node)} or {@link #findEquivalent(Branch)} methods.
+ * <p>
+ * After {@link #performRedo()} has been executed for the first time, the changes of the copy are merged 
+ * back into the nodes of the old tree and the copy is discarded. Only the previous states of the nodes 
+ * that were actually changed are kept in a {@link TreeDelta} to be able to undo the edit. Descendant 
+ * classes that keep references to elements of the copy after {@link #performRedo()} must replace them 
+ * in {@link #copyMerged()}.
  * 
  * @author Ben St&ouml;ver
  */
 public abstract class ComplexDocumentEdit extends DocumentEdit {
 	private Node oldRoot = null;
 	private Node newRoot = null;
+	private Map<Node, Node> originals = new IdentityHashMap<Node, Node>();
+	private TreeDelta delta = null;
 	private boolean firstRedone = false;
 	
 	
@@ -51,8 +62,17 @@ public abstract class ComplexDocumentEdit extends DocumentEdit {
 		super(document, changeType);
 		oldRoot = document.getTree().getPaintStart();
 		newRoot = oldRoot.cloneWithSubtree(true);  // Unique names are copied as well.
+		addOriginals(oldRoot, newRoot);
 		// Legends do not have to be copied since they are anchored by unique node names.
 		//TODO A legend could be anchored on a deleted node!
+	}
+	
+	
+	private void addOriginals(Node original, Node copy) {
+		originals.put(copy, original);
+		for (int i = 0; i < original.getChildren().size(); i++) {
+			addOriginals(original.getChildren().get(i), copy.getChildren().get(i));
+		}
 	}
 	
 	
@@ -78,30 +98,103 @@ public abstract class ComplexDocumentEdit extends DocumentEdit {
 	public Branch findEquivalent(Branch old) {
 		return new TreePath(old.getTargetNode()).findNode(newRoot).getAfferentBranch();
 	}
+	
+	
+	/**
+	 * Returns the node that represents the specified node of the modified copy in the document after 
+	 * the copy was merged. This method can only be called from {@link #copyMerged()}.
+	 * 
+	 * @param copy - a node of the copy that was modified by {@link #performRedo()}
+	 * @return the node in the document
+	 */
+	protected Node findMerged(Node copy) {
+		return TreeDelta.getMergedNode(copy, originals);
+	}
+	
+	
+	/**
+	 * Returns the branch that represents the specified branch of the modified copy in the document after 
+	 * the copy was merged. This method can only be called from {@link #copyMerged()}.
+	 * 
+	 * @param copy - a branch of the copy that was modified by {@link #performRedo()}
+	 * @return the branch in the document
+	 */
+	protected Branch findMerged(Branch copy) {
+		return findMerged(copy.getTargetNode()).getAfferentBranch();
+	}
 
 	
 	protected abstract void performRedo();
 	
 	
+	/**
+	 * This method is called after the changes made by {@link #performRedo()} have been merged into the 
+	 * nodes of the document. Descendant classes that keep references to elements of the copy must replace 
+	 * them here using {@link #findMerged(Node)} or {@link #findMerged(Branch)} or release them.
+	 * <p>
+	 * This default implementation is empty.
+	 */
+	protected void copyMerged() {}
+	
+	
 	@Override
 	public void redo() throws CannotRedoException {
-		getDocument().getTree().setPaintStart(newRoot);
-		
-		getDocument().getTree().updateElementSet();  // This is done again in super.redo(), but should also be done before performRedo(), so that these collections contain values according to the copied tree this method works on.
-		getDocument().getTree().assignUniqueNames();
-		
   	if (!firstRedone) {
+  		getDocument().getTree().setPaintStart(newRoot);
+  		getDocument().getTree().updateElementSet();  // This is done again in super.redo(), but should also be done before performRedo(), so that these collections contain values according to the copied tree this method works on.
+  		getDocument().getTree().assignUniqueNames();
+  		
 			performRedo();  // Can't be called in the constructor already
-			newRoot = getDocument().getTree().getPaintStart();  // In case the root changed in performRedo()
+			
+			Node modifiedRoot = getDocument().getTree().getPaintStart();  // In case the root changed in performRedo()
+			delta = new TreeDelta(modifiedRoot, originals);
+			newRoot = findMerged(modifiedRoot);
+			getDocument().getTree().setPaintStart(newRoot);
+			copyMerged();
+			originals = null;  // Release the copy.
 			firstRedone = true;
 		}
+  	else {
+  		delta.swap();
+  		getDocument().getTree().setPaintStart(newRoot);
+  	}
 		super.redo();
 	}
 
 
 	@Override
 	public void undo() throws CannotUndoException {
+		delta.swap();
 		getDocument().getTree().setPaintStart(oldRoot);
 		super.undo();
 	}
-}
\ No newline at end of file
+
+
+	@Override
+	public void die() {
+		super.die();
+		oldRoot = null;
+		newRoot = null;
+		originals = null;
+		delta = null;
+	}
+
+
+	/**
+	 * Returns an estimate of the memory occupied by the copy of the tree or, after the first execution, by 
+	 * the stored previous states of the changed nodes.
+	 * 
+	 * @see info.bioinfweb.treegraph.document.undo.DocumentEdit#getEstimatedMemoryUsage()
+	 */
+	@Override
+	public long getEstimatedMemoryUsage() {
+		long result = super.getEstimatedMemoryUsage();
+		if (delta != null) {
+			result += delta.getEstimatedMemoryUsage();
+		}
+		else if (newRoot != null) {
+			result += TreeDelta.estimateMemoryUsage(newRoot);
+		}
+		return result;
+	}
+}
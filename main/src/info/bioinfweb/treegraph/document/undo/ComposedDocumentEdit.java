@@ -76,4 +76,14 @@ public abstract class ComposedDocumentEdit extends DocumentEdit {
 		}
 		super.undo();
 	}
+
+
+	@Override
+	public long getEstimatedMemoryUsage() {
+		long result = super.getEstimatedMemoryUsage();
+		for (DocumentEdit edit : getEdits()) {
+			result += edit.getEstimatedMemoryUsage();
+		}
+		return result;
+	}
 }
@@ -34,6 +34,10 @@ import javax.swing.undo.UndoableEdit;
  * @author Ben St&ouml;ver
  */
 public abstract class DocumentEdit extends AbstractDocumentEdit implements UndoableEdit {
+	/** The estimated memory usage of a simple edit in bytes. */
+	public static final long DEFAULT_MEMORY_USAGE = 256;
+	
+	
 	private Document document;
 	private DocumentChangeType changeType;
 	
@@ -60,6 +64,38 @@ public abstract class DocumentEdit extends AbstractDocumentEdit implements Undoa
 	}
 
 
+	/**
+	 * Returns a rough estimate of the memory that is occupied by this edit. It is used by 
+	 * {@link DocumentUndoManager} to limit the memory occupied by the undo history.
+	 * <p>
+	 * This default implementation returns {@link #DEFAULT_MEMORY_USAGE}. Edits that store larger amounts
+	 * of data (e.g. copies of parts of the tree) should overwrite this method.
+	 * 
+	 * @return the estimated number of bytes
+	 * @since 2.16.0
+	 */
+	public long getEstimatedMemoryUsage() {
+		return DEFAULT_MEMORY_USAGE;
+	}
+
+
+	/**
+	 * Returns the elements of the tree that are modified by this edit. After such an edit the positioners only need to 
+	 * recalculate the positions of the subtrees containing these elements.
+	 * <p>
+	 * This default implementation returns {@code null}, which means that the whole document has to be positioned 
+	 * again. Edits that only modify the contents or formats of single elements without changing the topology should
+	 * overwrite this method.
+	 * 
+	 * @return the changed elements or {@code null} if the changes are not restricted to single elements 
+	 * @since 2.16.0
+	 * @see info.bioinfweb.treegraph.graphics.positionpaint.TreePositioner#positionChanged(Document, float)
+	 */
+	public PaintableElement[] getChangedElements() {
+		return null;
+	}
+	
+	
 	@Override
 	public void registerDocumentChange() {
   	getDocument().getTree().assignUniqueNames();  // Must be called to update the uniqueNameMap. There not necessarily nodes without unique names present, but the content of the map might not match the current tree.
@@ -0,0 +1,115 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.undo;
+
+
+import javax.swing.undo.UndoableEdit;
+
+import info.bioinfweb.commons.swing.AccessibleUndoManager;
+
+
+
+/**
+ * The undo manager used by documents. It limits the memory occupied by the undo history by discarding the 
+ * oldest edits as soon as the sum of the memory estimates of all contained edits (see 
+ * {@link DocumentEdit#getEstimatedMemoryUsage()}) exceeds a specified budget. The last edit that was 
+ * executed is never discarded.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class DocumentUndoManager extends AccessibleUndoManager {
+	private static final long serialVersionUID = 1L;
+	
+	/** The default memory budget, which is a quarter of the maximum heap size. */
+	public static final long DEFAULT_MEMORY_BUDGET = Runtime.getRuntime().maxMemory() / 4;
+	
+	
+	private long memoryBudget;
+	
+	
+	/**
+	 * Creates a new instance of this class using {@link #DEFAULT_MEMORY_BUDGET}.
+	 */
+	public DocumentUndoManager() {
+		this(DEFAULT_MEMORY_BUDGET);
+	}
+	
+	
+	/**
+	 * Creates a new instance of this class.
+	 * 
+	 * @param memoryBudget - the maximal estimated number of bytes the contained edits may occupy
+	 */
+	public DocumentUndoManager(long memoryBudget) {
+		super();
+		this.memoryBudget = memoryBudget;
+	}
+
+
+	public synchronized long getMemoryBudget() {
+		return memoryBudget;
+	}
+
+
+	/**
+	 * Sets a new memory budget and discards old edits, if the new budget is already exceeded.
+	 * 
+	 * @param memoryBudget - the maximal estimated number of bytes the contained edits may occupy
+	 */
+	public synchronized void setMemoryBudget(long memoryBudget) {
+		this.memoryBudget = memoryBudget;
+		trimToMemoryBudget();
+	}
+	
+	
+	/**
+	 * Returns the sum of the memory estimates of all contained edits.
+	 * 
+	 * @return the estimated number of bytes
+	 */
+	public synchronized long getEstimatedMemoryUsage() {
+		long result = 0;
+		for (UndoableEdit edit : edits) {
+			if (edit instanceof DocumentEdit) {
+				result += ((DocumentEdit)edit).getEstimatedMemoryUsage();
+			}
+		}
+		return result;
+	}
+	
+	
+	/**
+	 * Discards the oldest edits until the estimated memory usage does not exceed the memory budget anymore.
+	 * Edits that can be redone and the last edit that can be undone are never discarded. 
+	 * <p>
+	 * Since the memory usage of an edit may not be known before it is executed, this method should be
+	 * called each time an edit was executed.
+	 */
+	public synchronized void trimToMemoryBudget() {
+		long usage = getEstimatedMemoryUsage();
+		while ((usage > memoryBudget) && (undoCount() > 1)) {
+			UndoableEdit edit = edits.get(0);
+			if (edit instanceof DocumentEdit) {
+				usage -= ((DocumentEdit)edit).getEstimatedMemoryUsage();
+			}
+			trimEdits(0, 0);
+		}
+	}
+}
@@ -0,0 +1,518 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.undo;
+
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import info.bioinfweb.treegraph.document.Branch;
+import info.bioinfweb.treegraph.document.GraphicalLabel;
+import info.bioinfweb.treegraph.document.HiddenDataMap;
+import info.bioinfweb.treegraph.document.IconLabel;
+import info.bioinfweb.treegraph.document.Label;
+import info.bioinfweb.treegraph.document.Labels;
+import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.PieChartLabel;
+import info.bioinfweb.treegraph.document.TextElementData;
+import info.bioinfweb.treegraph.document.TextLabel;
+import info.bioinfweb.treegraph.document.format.BranchFormats;
+import info.bioinfweb.treegraph.document.format.GraphicalLabelFormats;
+import info.bioinfweb.treegraph.document.format.IconLabelFormats;
+import info.bioinfweb.treegraph.document.format.LabelFormats;
+import info.bioinfweb.treegraph.document.format.LineFormats;
+import info.bioinfweb.treegraph.document.format.NodeFormats;
+import info.bioinfweb.treegraph.document.format.PieChartLabelFormats;
+import info.bioinfweb.treegraph.document.format.TextFormats;
+
+
+
+/**
+ * Stores the differences between two states of a set of nodes, so that these nodes can be switched between both
+ * states by {@link #swap()}. Only the nodes that differ between the two states are referenced and for each of 
+ * these only the differing parts (content, afferent branch or position in the tree) are stored.
+ * <p>
+ * Instances are created from a modified copy of a tree. The changes of the copy are transferred to the original
+ * nodes, so that the original node objects represent the modified tree afterwards and the copy can be discarded. 
+ * Nodes of the copy that have no original (because they were created during the modification) are taken over 
+ * directly.
+ * <p>
+ * The contents of two nodes or branches are considered equal, if their data, formats, labels and hidden data 
+ * are equal.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+class TreeDelta {
+	/** Rough estimate of the memory in bytes needed to store the change of one node. */
+	public static final long NODE_CHANGE_SIZE = 64;
+	
+	/** Rough estimate of the memory in bytes needed to store the data, formats and hidden data of a node. */
+	public static final long NODE_CONTENT_SIZE = 512;
+	
+	/** Rough estimate of the memory in bytes needed to store a branch without its labels. */
+	public static final long BRANCH_SIZE = 384;
+	
+	/** Rough estimate of the memory in bytes needed to store a label. */
+	public static final long LABEL_SIZE = 768;
+	
+	/** Rough estimate of the memory in bytes needed to store a reference in a list. */
+	public static final long REFERENCE_SIZE = 8;
+	
+	
+	private static class NodeChange {
+		private Node node;
+		
+		private boolean contentChanged = false;
+		private TextElementData data;
+		private String uniqueName;
+		private NodeFormats formats;
+		private HiddenDataMap hiddenData;
+		
+		private boolean branchChanged = false;
+		private Branch branch;
+		
+		private boolean positionChanged = false;
+		private Node parent;
+		private List<Node> children;
+		
+		
+		public NodeChange(Node node) {
+			super();
+			this.node = node;
+		}
+		
+		
+		public boolean hasChanges() {
+			return contentChanged || branchChanged || positionChanged;
+		}
+		
+		
+		/**
+		 * Exchanges the state stored in this object with the current state of the node.
+		 */
+		public void swap() {
+			if (contentChanged) {
+				TextElementData currentData = node.getData().clone();
+				node.getData().assign(data);
+				data = currentData;
+				
+				String currentUniqueName = node.getUniqueName();
+				node.setUniqueName(uniqueName);
+				uniqueName = currentUniqueName;
+				
+				NodeFormats currentFormats = node.getFormats();
+				node.setFormats(formats);
+				formats = currentFormats;
+				
+				HiddenDataMap currentHiddenData = new HiddenDataMap(node);
+				currentHiddenData.assign(node.getHiddenDataMap());
+				node.getHiddenDataMap().assign(hiddenData);
+				hiddenData = currentHiddenData;
+			}
+			
+			if (branchChanged) {
+				Branch currentBranch = node.getAfferentBranch();
+				if (branch == null) {  // The node had no afferent branch in the stored state.
+					node.removeAfferentBranch();
+				}
+				else {
+					node.setAfferentBranch(branch);
+				}
+				branch = currentBranch;
+			}
+			
+			if (positionChanged) {
+				Node currentParent = node.getParent();
+				List<Node> currentChildren = new ArrayList<Node>(node.getChildren());
+				node.setParent(parent);
+				setChildren(node, children);
+				parent = currentParent;
+				children = currentChildren;
+			}
+		}
+		
+		
+		public long getEstimatedMemoryUsage() {
+			long result = NODE_CHANGE_SIZE;
+			if (contentChanged) {
+				result += NODE_CONTENT_SIZE;
+			}
+			if (branchChanged && (branch != null)) {
+				result += estimateMemoryUsage(branch);
+			}
+			if (positionChanged) {
+				result += children.size() * REFERENCE_SIZE;
+			}
+			return result;
+		}
+	}
+	
+	
+	private static boolean equalObjects(Object object1, Object object2) {
+		if (object1 == null) {
+			return object2 == null;
+		}
+		else {
+			return object1.equals(object2);
+		}
+	}
+	
+	
+	private static boolean equalData(TextElementData data1, TextElementData data2) {
+		if (data1.isDecimal()) {
+			return data2.isDecimal() && (Double.compare(data1.getDecimal(), data2.getDecimal()) == 0);
+		}
+		else if (data1.isString()) {
+			return data2.isString() && data1.getText().equals(data2.getText());
+		}
+		else {
+			return data2.isEmpty();
+		}
+	}
+	
+	
+	private static boolean equalHiddenData(HiddenDataMap map1, HiddenDataMap map2) {
+		if (map1.size() != map2.size()) {
+			return false;
+		}
+		else {
+			Iterator<String> iterator = map1.idIterator();
+			while (iterator.hasNext()) {
+				String id = iterator.next();
+				TextElementData data2 = map2.get(id);
+				if ((data2 == null) || !equalData(map1.get(id), data2)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+	
+	
+	private static boolean equalTextFormats(TextFormats formats1, TextFormats formats2) {
+		return equalObjects(formats1.getFontName(), formats2.getFontName()) && 
+				formats1.getTextHeight().equals(formats2.getTextHeight()) &&
+				(formats1.getTextStyle() == formats2.getTextStyle()) &&
+				equalObjects(formats1.getTextColor(), formats2.getTextColor()) &&
+				equalObjects(formats1.getLocale(), formats2.getLocale()) &&
+				formats1.getDecimalFormat().toPattern().equals(formats2.getDecimalFormat().toPattern());
+	}
+	
+	
+	private static boolean equalLineFormats(LineFormats formats1, LineFormats formats2) {
+		return equalObjects(formats1.getLineColor(), formats2.getLineColor()) && 
+				formats1.getLineWidth().equals(formats2.getLineWidth());
+	}
+	
+	
+	/**
+	 * Compares the data, unique name, formats and hidden data of two nodes. Branches and subtrees are not 
+	 * compared.
+	 */
+	private static boolean equalNodes(Node node1, Node node2) {
+		NodeFormats formats1 = node1.getFormats();
+		NodeFormats formats2 = node2.getFormats();
+		return equalData(node1.getData(), node2.getData()) && 
+				equalObjects(node1.getUniqueName(), node2.getUniqueName()) &&
+				equalTextFormats(formats1, formats2) && equalLineFormats(formats1, formats2) &&
+				formats1.getCornerRadius().equals(formats2.getCornerRadius()) &&
+				formats1.getLeafMargin().equals(formats2.getLeafMargin()) &&
+				equalHiddenData(node1.getHiddenDataMap(), node2.getHiddenDataMap());
+	}
+	
+	
+	private static boolean equalGraphicalLabels(GraphicalLabel label1, GraphicalLabel label2) {
+		GraphicalLabelFormats formats1 = label1.getFormats();
+		GraphicalLabelFormats formats2 = label2.getFormats();
+		return equalObjects(formats1.getLineColor(), formats2.getLineColor()) && 
+				formats1.getLineWidth().equals(formats2.getLineWidth()) &&
+				formats1.getWidth().equals(formats2.getWidth()) && formats1.getHeight().equals(formats2.getHeight());
+	}
+	
+	
+	private static boolean equalPieChartLabels(PieChartLabel label1, PieChartLabel label2) {
+		PieChartLabelFormats formats1 = label1.getFormats();
+		PieChartLabelFormats formats2 = label2.getFormats();
+		if (!equalData(label1.getData(), label2.getData()) || !equalTextFormats(formats1, formats2) || 
+				!equalTextFormats(formats1.getCaptionsTextFormats(), formats2.getCaptionsTextFormats()) ||
+				(formats1.isShowInternalLines() != formats2.isShowInternalLines()) ||
+				(formats1.isShowLinesForZero() != formats2.isShowLinesForZero()) ||
+				(formats1.isShowTitle() != formats2.isShowTitle()) ||
+				!formats1.getCaptionsContentType().equals(formats2.getCaptionsContentType()) ||
+				!formats1.getCaptionsLinkType().equals(formats2.getCaptionsLinkType()) ||
+				!label1.getSectionDataList().equals(label2.getSectionDataList()) ||
+				(formats1.pieColorCount() != formats2.pieColorCount())) {
+			
+			return false;
+		}
+		else {
+			for (int i = 0; i < formats1.pieColorCount(); i++) {
+				if (!equalObjects(formats1.getPieColor(i), formats2.getPieColor(i))) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+	
+	
+	private static boolean equalLabels(Label label1, Label label2) {
+		LabelFormats formats1 = label1.getFormats();
+		LabelFormats formats2 = label2.getFormats();
+		if (!label1.getClass().equals(label2.getClass()) || !equalObjects(label1.getID(), label2.getID()) || 
+				(formats1.isAbove() != formats2.isAbove()) || (formats1.getLineNumber() != formats2.getLineNumber()) ||
+				(formats1.getLinePosition() != formats2.getLinePosition()) || 
+				!formats1.getMargin().equals(formats2.getMargin())) {
+			
+			return false;
+		}
+		else if (label1 instanceof TextLabel) {
+			return equalData(((TextLabel)label1).getData(), ((TextLabel)label2).getData()) &&
+					equalTextFormats(((TextLabel)label1).getFormats(), ((TextLabel)label2).getFormats());
+		}
+		else if (label1 instanceof IconLabel) {
+			IconLabelFormats iconFormats1 = ((IconLabel)label1).getFormats();
+			IconLabelFormats iconFormats2 = ((IconLabel)label2).getFormats();
+			return equalGraphicalLabels((GraphicalLabel)label1, (GraphicalLabel)label2) &&
+					equalObjects(iconFormats1.getIcon(), iconFormats2.getIcon()) && 
+					(iconFormats1.getIconFilled() == iconFormats2.getIconFilled());
+		}
+		else if (label1 instanceof PieChartLabel) {
+			return equalGraphicalLabels((GraphicalLabel)label1, (GraphicalLabel)label2) &&
+					equalPieChartLabels((PieChartLabel)label1, (PieChartLabel)label2);
+		}
+		else {
+			throw new InternalError("Unsupported label of type " + label1.getClass().getCanonicalName() + " found.");
+		}
+	}
+	
+	
+	private static boolean equalLabelBlocks(Labels labels1, Labels labels2, boolean above) {
+		if (labels1.lineCount(above) != labels2.lineCount(above)) {
+			return false;
+		}
+		for (int lineNo = 0; lineNo < labels1.lineCount(above); lineNo++) {
+			if (labels1.labelCount(above, lineNo) != labels2.labelCount(above, lineNo)) {
+				return false;
+			}
+			for (int lineIndex = 0; lineIndex < labels1.labelCount(above, lineNo); lineIndex++) {
+				if (!equalLabels(labels1.get(above, lineNo, lineIndex), labels2.get(above, lineNo, lineIndex))) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+	
+	
+	/**
+	 * Compares the length, formats, labels and hidden data of two branches.
+	 */
+	private static boolean equalBranches(Branch branch1, Branch branch2) {
+		BranchFormats formats1 = branch1.getFormats();
+		BranchFormats formats2 = branch2.getFormats();
+		return (Double.compare(branch1.getLength(), branch2.getLength()) == 0) &&
+				equalLineFormats(formats1, formats2) && (formats1.isConstantWidth() == formats2.isConstantWidth()) &&
+				formats1.getMinLength().equals(formats2.getMinLength()) &&
+				formats1.getMinSpaceAbove().equals(formats2.getMinSpaceAbove()) &&
+				formats1.getMinSpaceBelow().equals(formats2.getMinSpaceBelow()) &&
+				equalHiddenData(branch1.getHiddenDataMap(), branch2.getHiddenDataMap()) &&
+				equalLabelBlocks(branch1.getLabels(), branch2.getLabels(), true) && 
+				equalLabelBlocks(branch1.getLabels(), branch2.getLabels(), false);
+	}
+	
+	
+	private List<NodeChange> changes = new ArrayList<NodeChange>();
+	
+	
+	/**
+	 * Creates a new instance by transferring the state of a modified copy of a tree to the original nodes. The 
+	 * original nodes and all nodes of the copy without an original are linked to a tree with the topology of 
+	 * the modified copy afterwards. 
+	 * 
+	 * @param modifiedRoot the root of the modified copy
+	 * @param originals a map that contains the original node for each node of the copy (Nodes that have been 
+	 *        added to the copy during the modification are not contained.)
+	 */
+	public TreeDelta(Node modifiedRoot, Map<Node, Node> originals) {
+		super();
+		mergeSubtree(modifiedRoot, null, originals);
+	}
+	
+	
+	/**
+	 * Returns the node that represents the specified node of the modified copy after merging.
+	 * 
+	 * @param modified a node of the modified copy
+	 * @param originals the map of original nodes
+	 * @return the original node or {@code modified} itself if it has no original
+	 */
+	public static Node getMergedNode(Node modified, Map<Node, Node> originals) {
+		Node result = originals.get(modified);
+		if (result == null) {
+			result = modified;
+		}
+		return result;
+	}
+	
+	
+	private static void setChildren(Node node, List<Node> children) {
+		node.getChildren().clear();
+		node.getChildren().addAll(children);
+	}
+	
+	
+	private static boolean equalNodeLists(List<Node> list1, List<Node> list2) {
+		if (list1.size() != list2.size()) {
+			return false;
+		}
+		else {
+			for (int i = 0; i < list1.size(); i++) {
+				if (list1.get(i) != list2.get(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+	
+	
+	private void mergeSubtree(Node modified, Node newParent, Map<Node, Node> originals) {
+		Node target = getMergedNode(modified, originals);
+		List<Node> modifiedChildren = new ArrayList<Node>(modified.getChildren());
+		List<Node> newChildren = new ArrayList<Node>(modifiedChildren.size());
+		for (Node child : modifiedChildren) {
+			newChildren.add(getMergedNode(child, originals));
+		}
+		
+		if (target == modified) {  // Node was created during the modification.
+			target.setParent(newParent);
+			setChildren(target, newChildren);
+		}
+		else {
+			NodeChange change = new NodeChange(target);
+			
+			if (!equalNodes(target, modified)) {
+				change.contentChanged = true;
+				change.data = target.getData().clone();
+				change.uniqueName = target.getUniqueName();
+				change.formats = target.getFormats();
+				change.hiddenData = new HiddenDataMap(target);
+				change.hiddenData.assign(target.getHiddenDataMap());
+				
+				target.getData().assign(modified.getData());
+				target.setUniqueName(modified.getUniqueName());
+				target.setFormats(modified.getFormats());
+				target.getHiddenDataMap().assign(modified.getHiddenDataMap());
+			}
+			
+			if (modified.hasAfferentBranch() && 
+					(!target.hasAfferentBranch() || !equalBranches(target.getAfferentBranch(), modified.getAfferentBranch()))) {
+				
+				change.branchChanged = true;
+				change.branch = target.getAfferentBranch();
+				target.setAfferentBranch(modified.getAfferentBranch());
+			}
+			
+			if ((target.getParent() != newParent) || !equalNodeLists(target.getChildren(), newChildren)) {
+				change.positionChanged = true;
+				change.parent = target.getParent();
+				change.children = new ArrayList<Node>(target.getChildren());
+				target.setParent(newParent);
+				setChildren(target, newChildren);
+			}
+			
+			if (change.hasChanges()) {
+				changes.add(change);
+			}
+		}
+		
+		for (Node child : modifiedChildren) {
+			mergeSubtree(child, target, originals);
+		}
+	}
+	
+	
+	/**
+	 * Exchanges the current state of all changed nodes with the stored state. Calling this method twice restores
+	 * the initial state.
+	 */
+	public void swap() {
+		for (NodeChange change : changes) {
+			change.swap();
+		}
+	}
+	
+	
+	/**
+	 * Returns the number of nodes that differ between the two states.
+	 * 
+	 * @return the number of changed nodes
+	 */
+	public int getChangedNodeCount() {
+		return changes.size();
+	}
+	
+	
+	/**
+	 * Returns a rough estimate of the memory occupied by the stored states.
+	 * 
+	 * @return the estimated number of bytes
+	 */
+	public long getEstimatedMemoryUsage() {
+		long result = 0;
+		for (NodeChange change : changes) {
+			result += change.getEstimatedMemoryUsage();
+		}
+		return result;
+	}
+	
+	
+	private static long estimateMemoryUsage(Branch branch) {
+		long result = BRANCH_SIZE;
+		for (int i = 0; i <= 1; i++) {
+			boolean above = (i == 0);
+			for (int lineNo = 0; lineNo < branch.getLabels().lineCount(above); lineNo++) {
+				result += branch.getLabels().labelCount(above, lineNo) * LABEL_SIZE;
+			}
+		}
+		return result;
+	}
+	
+	
+	/**
+	 * Returns a rough estimate of the memory occupied by the specified subtree including all branches and labels.
+	 * 
+	 * @param root the root of the subtree
+	 * @return the estimated number of bytes
+	 */
+	public static long estimateMemoryUsage(Node root) {
+		long result = NODE_CHANGE_SIZE + NODE_CONTENT_SIZE;
+		if (root.hasAfferentBranch()) {
+			result += estimateMemoryUsage(root.getAfferentBranch());
+		}
+		for (Node child : root.getChildren()) {
+			result += REFERENCE_SIZE + estimateMemoryUsage(child);
+		}
+		return result;
+	}
+}
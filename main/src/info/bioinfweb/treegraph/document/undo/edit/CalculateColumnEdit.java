@@ -38,6 +38,7 @@ import info.bioinfweb.treegraph.document.nodebranchdata.UniqueNameAdapter;
 import info.bioinfweb.treegraph.document.tools.NodeBranchDataColumnManager;
 import info.bioinfweb.treegraph.document.undo.DocumentEdit;
 import info.bioinfweb.treegraph.document.undo.edit.calculatecolumn.AbstractFunction;
+import info.bioinfweb.treegraph.document.undo.edit.calculatecolumn.ColumnAggregateCache;
 import info.bioinfweb.treegraph.document.undo.edit.calculatecolumn.ErrorInfo;
 import info.bioinfweb.treegraph.document.undo.edit.calculatecolumn.UndefinedIDException;
 import info.bioinfweb.treegraph.document.undo.edit.calculatecolumn.string.ContainsFunction;
@@ -87,6 +88,23 @@ import org.nfunk.jep.ParseException;
  * @since 2.0.24
  */
 public class CalculateColumnEdit extends DocumentEdit {
+	/**
+	 * Stores the result of parsing an expression once, so that it can be evaluated for each line without parsing it 
+	 * again.
+	 */
+	private static class CompiledExpression {
+		private org.nfunk.jep.Node topNode;
+		private String errorInfo;
+		
+		
+		public CompiledExpression(org.nfunk.jep.Node topNode, String errorInfo) {
+			super();
+			this.topNode = topNode;
+			this.errorInfo = errorInfo;
+		}
+	}
+	
+	
 	public static final String CURRENT_VALUE_VAR = "THIS";
 	public static final String UNIQUE_NODE_NAMES_VAR = "UNIQUE";
 	public static final String NODE_NAMES_VAR = "NAME";
@@ -104,11 +122,14 @@ public class CalculateColumnEdit extends DocumentEdit {
   private TextElementData defaultValue;
   
   private JEP parser;
+  private CompiledExpression compiledTargetExpression = null;
+  private CompiledExpression compiledValueExpression = null;
   private Map<String, NodeBranchDataAdapter> adapterMap;
   private boolean isEvaluating = false;
   private boolean isEvaluatingDecimal = true;
   private Node position = null;
   private List<ErrorInfo> errors = new ArrayList<ErrorInfo>();
+  private ColumnAggregateCache aggregateCache = new ColumnAggregateCache();
   private Map<String, NodeBranchDataColumnBackup> backups = new HashMap<>();
 	
 	
@@ -273,6 +294,17 @@ public class CalculateColumnEdit extends DocumentEdit {
 	}
 
 
+	/**
+	 * Returns the cache for results of functions that aggregate whole columns. It is cleared each time
+	 * {@link #redo()} is called and results for a column are removed when this edit writes into it.
+	 * 
+	 * @return the cache instance of this edit
+	 */
+	public ColumnAggregateCache getAggregateCache() {
+		return aggregateCache;
+	}
+	
+	
 	public NodeBranchDataAdapter getCurrentTargetAdapter() {
 		return (NodeBranchDataAdapter)parser.getVarValue(CURRENT_VALUE_VAR);
 	}
@@ -422,19 +454,66 @@ public class CalculateColumnEdit extends DocumentEdit {
 	}
 	
 	
-	private NodeBranchDataAdapter calculateTargetAdapter() {
+	/**
+	 * Parses the specified expression with the variables currently defined in the parser.
+	 * <p>
+	 * Note that the returned parse tree references the variable objects of the parser. Variables used in it must 
+	 * therefore not be removed and added again, but their values should be changed using {@link JEP#setVarValue(String, Object)}.
+	 */
+	private CompiledExpression compile(String expression) {
+		org.nfunk.jep.Node topNode = parser.parseExpression(expression);
+		if (parser.hasError()) {
+			return new CompiledExpression(null, parser.getErrorInfo());
+		}
+		else {
+			return new CompiledExpression(topNode, null);
+		}
+	}
+	
+	
+	/**
+	 * Parses the target column and value expressions once before the calculation of all lines is started.
+	 */
+	private void compileExpressions() {
 		if (targetAdapter == null) {
 	  	parser.removeVariable(CURRENT_VALUE_VAR);  // Remove since it is not available when calculating the target ID.
 	  	parser.removeVariable(UNIQUE_NODE_NAMES_VAR);  // Remove since unique node names may not be modified.
+	  	compiledTargetExpression = compile(targetColumnExpression);
 	  	
-	    parser.parseExpression(targetColumnExpression);
-	    if (parser.hasError()) {
-	  		errors.add(new ErrorInfo(position.getUniqueName(), parser.getErrorInfo(), false));
+	  	parser.addVariable(CURRENT_VALUE_VAR, null);  // The value is set for each line in calculateTargetAdapter().
+	  	parser.addVariable(UNIQUE_NODE_NAMES_VAR, UniqueNameAdapter.getSharedInstance());
+		}
+		compiledValueExpression = compile(valueExpression);
+	}
+	
+	
+	/**
+	 * Evaluates a compiled expression for the current line. Errors that occur during the evaluation lead to a 
+	 * {@code null} result, as it is the case in {@link JEP#getValueAsObject()}.
+	 */
+	private Object evaluateCompiled(CompiledExpression expression) {
+		try {
+			return parser.evaluate(expression.topNode);
+		}
+		catch (ParseException e) {
+			return null;
+		}
+		catch (RuntimeException e) {
+			return null;
+		}
+	}
+	
+	
+	private NodeBranchDataAdapter calculateTargetAdapter() {
+		if (targetAdapter == null) {
+	  	parser.setVarValue(CURRENT_VALUE_VAR, null);  // Not available when calculating the target ID.
+	    if (compiledTargetExpression.errorInfo != null) {
+	  		errors.add(new ErrorInfo(position.getUniqueName(), compiledTargetExpression.errorInfo, false));
 	  		return null;
 	    }                                                                                                                                                                       
 	    else {
 	    	NodeBranchDataAdapter result;
-	    	Object value = parser.getValueAsObject();
+	    	Object value = evaluateCompiled(compiledTargetExpression);
 	    	if (value instanceof NodeBranchDataAdapter) {
 	    		result = (NodeBranchDataAdapter)value;
 	    	}
@@ -456,8 +535,7 @@ public class CalculateColumnEdit extends DocumentEdit {
 		  		return null;
 	    	}
 	    	
-		  	parser.addVariable(CURRENT_VALUE_VAR, result);
-		  	parser.addVariable(UNIQUE_NODE_NAMES_VAR, UniqueNameAdapter.getSharedInstance()); 
+		  	parser.setVarValue(CURRENT_VALUE_VAR, result);
 		  	return result;
 	    }
 		}
@@ -485,12 +563,12 @@ public class CalculateColumnEdit extends DocumentEdit {
   	if (adapter != null) {
   		prepareColumn(adapter);  // Make a column backup and possibly clear, if this column has been edited on another node before.
   		
-	    parser.parseExpression(valueExpression);
-	    if (parser.hasError()) {
-	    	errors.add(new ErrorInfo(root.getUniqueName(), parser.getErrorInfo(), true));
+	    if (compiledValueExpression.errorInfo != null) {
+	    	errors.add(new ErrorInfo(root.getUniqueName(), compiledValueExpression.errorInfo, true));
 	    }
 	    else {
-	    	Object result = parser.getValueAsObject();
+	    	Object result = evaluateCompiled(compiledValueExpression);
+	    	aggregateCache.invalidate(adapter);  // The column is modified in any case below.
 	    	if (result instanceof Double) {
 	    		adapter.setDecimal(root, (Double)result);
 	    	}
@@ -518,6 +596,7 @@ public class CalculateColumnEdit extends DocumentEdit {
   
   
 	private void clearColumn(NodeBranchDataAdapter adapter, Node root) {
+		aggregateCache.invalidate(adapter);
 		adapter.delete(root);
 		for (Node child : root.getChildren()) {
 			clearColumn(adapter, child);
@@ -552,12 +631,15 @@ public class CalculateColumnEdit extends DocumentEdit {
 	@Override
 	public void redo() throws CannotRedoException {
 		errors.clear();
+		aggregateCache.clear();
 		if ((targetAdapter != null) && clearTargetColumns) {  // Clear single target column. Calculated target columns are cleared in prepareColumn().
 			clearColumn(targetAdapter, getDocument().getTree().getPaintStart());
 		}
 		
+		compileExpressions();
 		calculateSubtree(getDocument().getTree().getPaintStart());  // Keeps previously present labels and only changes their value.
 		setDefaultValue();
+		aggregateCache.clear();  // Free memory.
 		
 		super.redo();
 	}
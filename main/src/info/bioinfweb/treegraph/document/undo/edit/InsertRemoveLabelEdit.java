@@ -58,6 +58,12 @@ public abstract class InsertRemoveLabelEdit extends DocumentEdit {
 	}
 	
 	
+	@Override
+	public PaintableElement[] getChangedElements() {
+		return new PaintableElement[]{owner.getHoldingBranch()};
+	}
+	
+	
 	protected void remove() {
 		owner.remove(label);
 		label.setLabels(null);
@@ -66,6 +66,13 @@ public class LadderizeEdit extends ComplexDocumentEdit {
 	}
 
 
+	@Override
+	protected void copyMerged() {
+		super.copyMerged();
+		root = findMerged(root);
+	}
+
+
 	public String getPresentationName() {
 		return "Ladderize subtree";
 	} 
@@ -45,7 +45,7 @@ public class PieChartLabelIDsEdit extends DocumentEdit {
 	
 	
 	public PieChartLabelIDsEdit(Document document, PieChartLabel[] labels, List<PieChartLabel.SectionData> newIDs) {
-		super(document, DocumentChangeType.NEUTRAL);
+		super(document, DocumentChangeType.POSITION);  // The number of sections determines the positions of the captions.
 		this.labels = labels;
 		this.newIDs = newIDs;
 		
@@ -246,6 +246,18 @@ public class RerootByLeafSetEdit extends AbstractTopologicalCalculationEdit impl
 	}
 
 
+	@Override
+	protected void copyMerged() {
+		super.copyMerged();
+		rootingPoint = findMerged(rootingPoint);
+		ArrayList<Branch> copy = new ArrayList<Branch>(alternativeRootingPoints);
+		alternativeRootingPoints.clear();
+		for (Branch branch : copy) {
+			alternativeRootingPoints.add(findMerged(branch));
+		}
+	}
+
+
 	@Override
   protected void performRedo() {
 		warningText = RerootEdit.reroot(getDocument().getTree(), rootingPoint);
@@ -263,6 +263,15 @@ public class RerootEdit extends ComplexDocumentEdit implements WarningMessageEdi
 	
 	
 	@Override
+	protected void copyMerged() {
+		super.copyMerged();
+		if (rootingPoint != null) {
+			rootingPoint = findMerged(rootingPoint);
+		}
+	}
+
+
+	@Override
 	protected void performRedo() {
 		warningText = reroot(getDocument().getTree(), rootingPoint);
 	}
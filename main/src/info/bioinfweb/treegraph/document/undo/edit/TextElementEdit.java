@@ -73,4 +73,10 @@ public class TextElementEdit extends DocumentEdit {
 		}
 		super.undo();
 	}
+
+
+	@Override
+	public PaintableElement[] getChangedElements() {
+		return elements;
+	}
 }
\ No newline at end of file
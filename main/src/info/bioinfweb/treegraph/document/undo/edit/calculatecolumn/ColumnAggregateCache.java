@@ -0,0 +1,118 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.undo.edit.calculatecolumn;
+
+
+import java.util.HashMap;
+import java.util.Map;
+
+import info.bioinfweb.treegraph.document.nodebranchdata.NewNodeBranchDataAdapter;
+import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
+import info.bioinfweb.treegraph.document.undo.edit.CalculateColumnEdit;
+import info.bioinfweb.treegraph.document.undo.edit.calculatecolumn.vararg.WholeColumnFunction;
+
+
+
+/**
+ * Stores the results of functions that aggregate all values of a node/branch data column (e.g.
+ * {@link WholeColumnFunction}), so that they need to be calculated only once during a run of
+ * {@link CalculateColumnEdit} instead of once for every line.
+ * <p>
+ * {@link CalculateColumnEdit} invalidates the results for a column each time it writes into that column.
+ * Cached results therefore always match the current content of their column.
+ *
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class ColumnAggregateCache {
+	private Map<NodeBranchDataAdapter, Map<String, Object>> results = new HashMap<NodeBranchDataAdapter, Map<String, Object>>();
+
+
+	/**
+	 * Returns the adapter that is used as the key for the column of the specified adapter. Instances of
+	 * {@link NewNodeBranchDataAdapter} are replaced by their permanent adapter, since they write into the
+	 * same column.
+	 */
+	private static NodeBranchDataAdapter getColumnKey(NodeBranchDataAdapter adapter) {
+		if (adapter instanceof NewNodeBranchDataAdapter) {
+			return ((NewNodeBranchDataAdapter)adapter).getPermanentAdapter();
+		}
+		else {
+			return adapter;
+		}
+	}
+
+
+	/**
+	 * Returns a previously stored result.
+	 *
+	 * @param adapter the adapter of the aggregated column
+	 * @param functionName the name of the aggregating function
+	 * @return the result or {@code null} if no valid result is currently stored
+	 */
+	public Object get(NodeBranchDataAdapter adapter, String functionName) {
+		Map<String, Object> columnResults = results.get(getColumnKey(adapter));
+		if (columnResults == null) {
+			return null;
+		}
+		else {
+			return columnResults.get(functionName);
+		}
+	}
+
+
+	/**
+	 * Stores the result of an aggregating function.
+	 *
+	 * @param adapter the adapter of the aggregated column
+	 * @param functionName the name of the aggregating function
+	 * @param result the result to be stored (Functions may also store an exception that occurred during the
+	 *        calculation here.)
+	 */
+	public void put(NodeBranchDataAdapter adapter, String functionName, Object result) {
+		NodeBranchDataAdapter key = getColumnKey(adapter);
+		Map<String, Object> columnResults = results.get(key);
+		if (columnResults == null) {
+			columnResults = new HashMap<String, Object>();
+			results.put(key, columnResults);
+		}
+		columnResults.put(functionName, result);
+	}
+
+
+	/**
+	 * Removes all results calculated from the column of the specified adapter. This method must be called
+	 * whenever the content of that column is modified.
+	 *
+	 * @param adapter the adapter of the modified column
+	 */
+	public void invalidate(NodeBranchDataAdapter adapter) {
+		if (!results.isEmpty()) {
+			results.remove(getColumnKey(adapter));
+		}
+	}
+
+
+	/**
+	 * Removes all stored results.
+	 */
+	public void clear() {
+		results.clear();
+	}
+}
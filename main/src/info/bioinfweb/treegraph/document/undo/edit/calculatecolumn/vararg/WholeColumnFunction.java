@@ -26,12 +26,16 @@ import org.nfunk.jep.ParseException;
 import info.bioinfweb.treegraph.document.Node;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
 import info.bioinfweb.treegraph.document.undo.edit.CalculateColumnEdit;
+import info.bioinfweb.treegraph.document.undo.edit.calculatecolumn.ColumnAggregateCache;
 import info.bioinfweb.treegraph.document.undo.edit.calculatecolumn.IDFunction;
 
 
 
 /**
  * Calculates the result of a vararg function from all values of a node/branch data column.
+ * <p>
+ * Results (and errors) are stored in the {@link ColumnAggregateCache} of the edit, so that the column is
+ * only iterated once, even if the function is evaluated for every line.
  * 
  * @author Ben St&ouml;ver
  * @since 2.4.0
@@ -76,7 +80,7 @@ public class WholeColumnFunction extends IDFunction {
 	}
 	
 	
-	private Object calculate(NodeBranchDataAdapter adapter) throws ParseException {
+	private Object calculateFromColumn(NodeBranchDataAdapter adapter) throws ParseException {
 		Stack stack = new Stack();
 		addSubtreeToStack(getEdit().getDocument().getTree().getPaintStart(), adapter, stack);  // Would lead to NullPointerException if document would be empty, but no node values can be calculated in empty documents.
 		implementingVersion.setCurNumberOfParameters(stack.size());
@@ -85,6 +89,33 @@ public class WholeColumnFunction extends IDFunction {
 	}
 	
 	
+	private Object calculate(NodeBranchDataAdapter adapter) throws ParseException {
+		if (getEdit().isEvaluating()) {  // Values returned during the evaluation are only placeholders.
+			return calculateFromColumn(adapter);
+		}
+		else {
+			ColumnAggregateCache cache = getEdit().getAggregateCache();
+			Object result = cache.get(adapter, getName());
+			if (result == null) {
+				try {
+					result = calculateFromColumn(adapter);
+				}
+				catch (ParseException e) {
+					result = e;
+				}
+				cache.put(adapter, getName(), result);
+			}
+			
+			if (result instanceof ParseException) {
+				throw (ParseException)result;
+			}
+			else {
+				return result;
+			}
+		}
+	}
+	
+	
 	@Override
   public void run(Stack stack) throws ParseException {
 		Object idValue = stack.pop();
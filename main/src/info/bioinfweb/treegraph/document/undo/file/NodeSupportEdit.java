@@ -19,8 +19,6 @@
 package info.bioinfweb.treegraph.document.undo.file;
 
 
-import java.util.HashMap;
-
 import javax.swing.JOptionPane;
 
 import info.bioinfweb.treegraph.document.Document;
@@ -30,7 +28,7 @@ import info.bioinfweb.treegraph.document.io.DocumentIterator;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeNameAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.TextElementDataAdapter;
-import info.bioinfweb.treegraph.document.topologicalcalculation.LeafSet;
+import info.bioinfweb.treegraph.document.topologicalcalculation.SplitFrequencyCounter;
 import info.bioinfweb.treegraph.document.undo.AbstractTopologicalCalculationEdit;
 import info.bioinfweb.treegraph.gui.mainframe.MainFrame;
 
@@ -47,7 +45,6 @@ public class NodeSupportEdit extends AbstractTopologicalCalculationEdit {  // is
 	private DocumentIterator documentIterator = null; 
 	private NodeBranchDataAdapter supportValuesAdapter = null;
 	private TextElementDataAdapter sourceLeafsAdapter = NodeNameAdapter.getSharedInstance();
-	private HashMap<LeafSet, Node> hashMap = new HashMap<LeafSet, Node>();
 	
 	
 	public NodeSupportEdit(Document document, TextElementDataAdapter terminalsAdapter, 
@@ -70,15 +67,11 @@ public class NodeSupportEdit extends AbstractTopologicalCalculationEdit {  // is
 	@Override
 	protected void performRedo() {
 		 getTopologicalCalculator().addLeafSets(getDocument().getTree().getPaintStart(), getTargetLeavesAdapter());	
-		 createHashmap(getDocument().getTree().getPaintStart());
-		 initialiseSupportValues(getDocument().getTree().getPaintStart());
+		 SplitFrequencyCounter counter = new SplitFrequencyCounter(getTopologicalCalculator(), getDocument().getTree().getPaintStart());
 		 try {
-			 Document result = documentIterator.next();
-			 while (result != null) {
-				 treeCounter++; 
-				 countSimilarNodes(result.getTree().getPaintStart());
-				 result = documentIterator.next();
-			}
+			 counter.countSplits(documentIterator, sourceLeafsAdapter);
+			 treeCounter = counter.getTreeCount();
+			 setSupportValues(getDocument().getTree().getPaintStart(), counter);
 			 if(normalisationBorder != -1){
 				 normalisationValues(getDocument().getTree().getPaintStart());
 			 }
@@ -92,11 +85,11 @@ public class NodeSupportEdit extends AbstractTopologicalCalculationEdit {  // is
 	}
 	
 	
-	public void initialiseSupportValues(Node node){
+	private void setSupportValues(Node node, SplitFrequencyCounter counter){
 		if(!node.isLeaf()){
-			supportValuesAdapter.setDecimal(node, 0);
+			supportValuesAdapter.setDecimal(node, counter.getFrequency(node));
 			for (int i = 0; i < node.getChildren().size(); i++) {
-				initialiseSupportValues(node.getChildren().get(i));
+				setSupportValues(node.getChildren().get(i), counter);
 			}
 		}
 	}
@@ -110,44 +103,4 @@ public class NodeSupportEdit extends AbstractTopologicalCalculationEdit {  // is
 			}
 		}
 	}
-	
-	
-	public void createHashmap (Node root){
-		if (!root.isLeaf()) {
-			LeafSet field = getTopologicalCalculator().getLeafSet(root);
-			hashMap.put(field, root);
-			for (int i = 0; i < root.getChildren().size(); i++) {
-				Node child = root.getChildren().get(i);	
-				createHashmap(child);
-			}
-		}
-	}
-	
-	
-	private void counter(Node node){
-		supportValuesAdapter.setDecimal(node, supportValuesAdapter.getDecimal(node) + 1);
-	}
-	
-	
-	private void countSimilarNodes(Node root) {
-		getTopologicalCalculator().addLeafSets(root, sourceLeafsAdapter);
-
-		if (!root.isLeaf()) {
-			Node corresponding = hashMap.get(getTopologicalCalculator().getLeafSet(root));
-			if (corresponding != null) {
-				counter(corresponding);
-			}
-			else {
-				corresponding = hashMap.get(getTopologicalCalculator().getLeafSet(root).complement());
-				if (corresponding != null){
-					counter(corresponding);
-				}
-			}
-		
-			for (int i = 0; i < root.getChildren().size(); i++) {
-				countSimilarNodes(root.getChildren().get(i));
-			}
-		}
-	}
 }
-
@@ -211,6 +211,13 @@ public class ImportBayesTraitsDataEdit extends AbstractTopologicalCalculationEdi
 	}
 
 
+	@Override
+	protected void copyMerged() {
+		super.copyMerged();
+		internalNodes.clear();  // References nodes of the discarded copy.
+	}
+
+
 	@Override
 	protected void performRedo() {
 		getTopologicalCalculator().addLeafSets(getDocument().getTree().getPaintStart(), parameters.getKeyAdapter());		
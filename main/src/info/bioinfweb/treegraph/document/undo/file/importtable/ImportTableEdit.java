@@ -21,8 +21,10 @@ package info.bioinfweb.treegraph.document.undo.file.importtable;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.Vector;
@@ -109,24 +111,41 @@ public class ImportTableEdit extends DocumentEdit implements WarningMessageEdit
 	}
 
 	
-	private void addNodesByData(Collection<Node> result, Node root, TextElementData data) {
-		TextElementData rootData = parameters.getKeyAdapter().toTextElementData(root);
-    if (rootData.equals(data) ||  // second condition is only evaluated if necessary
-    		parameters.createEditedValue(rootData.toString()).equals(data)) {
-    	
-    	result.add(root);
-    }
+	private static void addToKeyIndex(Map<TextElementData, List<Node>> index, TextElementData key, Node node) {
+		List<Node> nodes = index.get(key);
+		if (nodes == null) {
+			nodes = new ArrayList<Node>(1);
+			index.put(key, nodes);
+		}
+		nodes.add(node);
+	}
+	
+	
+	private void addSubtreeToKeyIndex(Map<TextElementData, List<Node>> index, Node root) {
+		TextElementData rootData = parameters.getKeyAdapter().toTextElementData(root).clone();  // Cloned since the keys of the index must not change. 
+		TextElementData editedData = parameters.createEditedValue(rootData.toString());
+		addToKeyIndex(index, rootData, root);
+		if (!editedData.equals(rootData)) {  // A node matching both ways must only be imported once per row.
+			addToKeyIndex(index, editedData, root);
+		}
     
     Iterator<Node> iterator = root.getChildren().iterator();
     while (iterator.hasNext()) {
-    	addNodesByData(result, iterator.next(), data);
+    	addSubtreeToKeyIndex(index, iterator.next());
     }
 	}
 	
 	
-	private Collection<Node> getNodesByData(TextElementData data) {
-		Collection<Node> result = new ArrayList<Node>();
-		addNodesByData(result, getDocument().getTree().getPaintStart(), data);
+	/**
+	 * Creates an index of all nodes in the tree by the value of their key column. Each node is stored under its 
+	 * original value and under the value edited according to {@link #parameters}, so that a table key matches
+	 * a node if it equals any of these. The lists of nodes are in pre-order.
+	 */
+	private Map<TextElementData, List<Node>> createKeyIndex() {
+		Map<TextElementData, List<Node>> result = new HashMap<TextElementData, List<Node>>();
+		if (!getDocument().getTree().isEmpty()) {
+			addSubtreeToKeyIndex(result, getDocument().getTree().getPaintStart());
+		}
 		return result;
 	}
 	
@@ -137,11 +156,12 @@ public class ImportTableEdit extends DocumentEdit implements WarningMessageEdit
   private void importData() {
   	keysNotInTree.clear();
   	if (parameters.getImportAdapters().length == data.columnCount()) {
+  		Map<TextElementData, List<Node>> keyIndex = createKeyIndex();
   		Iterator<TextElementData> keyIterator = data.keySet().iterator();
   		while (keyIterator.hasNext()) {  // iterate over rows
   			TextElementData key = keyIterator.next();
-				Collection<Node> nodes = getNodesByData(key);
-				if (nodes.size() > 0) {
+				Collection<Node> nodes = keyIndex.get(key);
+				if (nodes != null) {
 					int row = data.getRowByKey(key);
 					Iterator<Node> nodeIterator = nodes.iterator();
 					while (nodeIterator.hasNext()) {  // iterate over all nodes affected by the current row
@@ -88,6 +88,12 @@ public class OperatorsEdit extends DocumentEdit {
 	}
 
 
+	@Override
+	public PaintableElement[] getChangedElements() {
+		return applyElements;
+	}
+
+
 	public String getPresentationName() {
 		return "Format element";
 	}
@@ -0,0 +1,95 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.graphics.export;
+
+
+import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.document.format.DistanceDimension;
+import info.bioinfweb.treegraph.graphics.positionpaint.PositionPaintFactory;
+import info.bioinfweb.treegraph.graphics.positionpaint.TreePainter;
+import info.bioinfweb.treegraph.gui.treeframe.TreeViewPanel;
+import info.bioinfweb.commons.collections.ParameterMap;
+
+
+
+/**
+ * Calculates the size and the paint resolution of an exported image from the graphic writer hints 
+ * <code>KEY_PIXELS_PER_MILLIMETER</code>, <code>KEY_WIDTH</code>, <code>KEY_HEIGHT</code> and 
+ * <code>KEY_DIMENSIONS_IN_PIXELS</code> as described in 
+ * {@link SVGTranscodeWriter#write(Document, TreePainter, ParameterMap, java.io.OutputStream)}.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class ExportDimensions {
+	private float pixelsPerMillimeter;
+	private float width;
+	private float height;
+	private float paintResolution;
+	
+	
+	public ExportDimensions(Document document, TreePainter painter, ParameterMap hints) {
+		super();
+		
+	  DistanceDimension paintDim = document.getTree().getPaintDimension(
+				PositionPaintFactory.getInstance().getType(painter));
+	  pixelsPerMillimeter = hints.getFloat(GraphicWriter.KEY_PIXELS_PER_MILLIMETER, TreeViewPanel.PIXELS_PER_MM_100);
+	  
+  	width = pixelsPerMillimeter *	paintDim.getWidth().getInMillimeters();
+  	height = pixelsPerMillimeter *	paintDim.getHeight().getInMillimeters();
+	  if (hints.containsKey(GraphicWriter.KEY_WIDTH) && hints.containsKey(GraphicWriter.KEY_HEIGHT)) {
+	  	width = hints.getFloat(GraphicWriter.KEY_WIDTH, width);
+	  	height = hints.getFloat(GraphicWriter.KEY_HEIGHT, height);
+	  }
+	  
+	  if (hints.getBoolean(GraphicWriter.KEY_DIMENSIONS_IN_PIXELS, false)) {
+	  	paintResolution = width / paintDim.getWidth().getInMillimeters();
+	  }
+	  else {
+	  	width *= pixelsPerMillimeter;
+	  	height *= pixelsPerMillimeter;
+	  	paintResolution = TreeViewPanel.PIXELS_PER_MM_100 * 
+          (width / paintDim.getWidth().getInPixels(TreeViewPanel.PIXELS_PER_MM_100));
+	  }
+	}
+
+
+	/** Returns the resolution specified by <code>KEY_PIXELS_PER_MILLIMETER</code>. */
+	public float getPixelsPerMillimeter() {
+		return pixelsPerMillimeter;
+	}
+
+
+	/** Returns the width of the image in pixels. */
+	public float getWidth() {
+		return width;
+	}
+
+
+	/** Returns the height of the image in pixels. */
+	public float getHeight() {
+		return height;
+	}
+
+
+	/** Returns the resolution in pixels per millimeter that has to be passed to the painter. */
+	public float getPaintResolution() {
+		return paintResolution;
+	}
+}
@@ -23,8 +23,10 @@ import info.bioinfweb.treegraph.graphics.export.emf.EMFFactory;
 import info.bioinfweb.treegraph.graphics.export.jpeg.JPEGFactory;
 import info.bioinfweb.treegraph.graphics.export.pdf.PDFFactory;
 import info.bioinfweb.treegraph.graphics.export.png.PNGFactory;
+import info.bioinfweb.treegraph.graphics.export.png.TiledPNGWriter;
 import info.bioinfweb.treegraph.graphics.export.svg.SVGFactory;
 import info.bioinfweb.treegraph.graphics.export.tiff.TIFFFactory;
+import info.bioinfweb.treegraph.graphics.export.tiff.TiledTIFFWriter;
 
 import java.util.EnumMap;
 import java.util.Iterator;
@@ -37,6 +39,8 @@ public class GraphicWriterFactory {
 	
   private EnumMap<GraphicFormat, GraphicsFactory> factories = 
   	  new EnumMap<GraphicFormat, GraphicsFactory>(GraphicFormat.class);
+  private EnumMap<GraphicFormat, GraphicWriter> tiledWriters = 
+  	  new EnumMap<GraphicFormat, GraphicWriter>(GraphicFormat.class);
   
   
   private GraphicWriterFactory() {
@@ -45,7 +49,7 @@ public class GraphicWriterFactory {
   }
   
   
-  public static GraphicWriterFactory getInstance() {
+  public static synchronized GraphicWriterFactory getInstance() {
   	if (firstInstance == null) {
   		firstInstance = new GraphicWriterFactory();
   	}
@@ -60,6 +64,9 @@ public class GraphicWriterFactory {
   	factories.put(GraphicFormat.TIFF, new TIFFFactory());
   	factories.put(GraphicFormat.JPEG, new JPEGFactory());
   	factories.put(GraphicFormat.EMF, new EMFFactory());
+  	
+  	tiledWriters.put(GraphicFormat.PNG, new TiledPNGWriter());
+  	tiledWriters.put(GraphicFormat.TIFF, new TiledTIFFWriter());
   }
   
   
@@ -75,6 +82,32 @@ public class GraphicWriterFactory {
   
   public GraphicWriter getWriter(GraphicFormat f) {
   	return factories.get(f).getWriter();
+  }
+  
+  
+  /**
+   * Returns a writer that renders the image in tiles, so that the whole image is never held in memory. Such 
+   * writers are available for raster formats that can be written in tiles (a directory of PNG tiles in the
+   * Deep Zoom format or a tiled TIFF image).
+   * 
+   * @param f - the graphic format
+   * @return the tiled writer or <code>null</code> if no tiled writer is available for the specified format
+   * @since 2.16.0
+   */
+  public GraphicWriter getTiledWriter(GraphicFormat f) {
+  	return tiledWriters.get(f);
+  }
+  
+  
+  /**
+   * Determines whether a writer that renders the image in tiles is available for the specified format.
+   * 
+   * @param f - the graphic format
+   * @return <code>true</code> if {@link #getTiledWriter(GraphicFormat)} will return a writer
+   * @since 2.16.0
+   */
+  public boolean hasTiledWriter(GraphicFormat f) {
+  	return tiledWriters.containsKey(f);
   }
   
   
@@ -0,0 +1,110 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.graphics.export;
+
+
+import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.graphics.positionpaint.TreePainter;
+import info.bioinfweb.commons.collections.ParameterMap;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.OutputStream;
+
+
+
+/**
+ * This class generates a raster image file from a tree document. In contrast to {@link SVGTranscodeWriter} the
+ * tree is painted directly into an image in memory without creating an SVG document first. Inherited classes
+ * encode this image in the respective format (e.g. PNG or JPEG).
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public abstract class RasterImageWriter extends AbstractGraphicWriter implements GraphicWriter {
+	/**
+	 * Sets the rendering hints used for all raster exports to the specified graphics object.
+	 * 
+	 * @param g - the graphics object of the image to paint on
+	 */
+	static void setRenderingHints(Graphics2D g) {
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+		g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+		g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+	}
+	
+	
+	/**
+	 * Creates the image the tree will be painted on. This default implementation returns an image that supports 
+	 * transparency. Writers of formats that do not support transparency should overwrite this method. 
+	 * 
+	 * @param width - the width of the image in pixels
+	 * @param height - the height of the image in pixels
+	 * @return the new image
+	 */
+	protected BufferedImage createImage(int width, int height) {
+		return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+	}
+	
+	
+	/**
+	 * Encodes the specified image in the format of this writer. 
+	 * 
+	 * @param image - the image containing the painted tree
+	 * @param hints - the hints that were specified when the <code>write</code>-method of this
+	 *        writer was called
+	 * @param stream - the stream to write the encoded image to
+	 * @throws Exception if the image cannot be encoded or written
+	 */
+	protected abstract void writeImage(BufferedImage image, ParameterMap hints, OutputStream stream) throws Exception;
+	
+	
+	/**
+	 * Writes the given document to the given stream in the graphic format of this writer. The hints 
+	 * <code>KEY_PIXELS_PER_MILLIMETER</code>, <code>KEY_WIDTH</code>, <code>KEY_HEIGHT</code>, 
+	 * <code>KEY_DIMENSIONS_IN_PIXELS</code> and <code>KEY_TRANSPARENT</code> are interpreted in the same way 
+	 * as in {@link SVGTranscodeWriter#write(Document, TreePainter, ParameterMap, OutputStream)}. 
+	 * 
+	 * @param document - the document to be exported 
+	 * @param painter - the painter to display the document
+	 * @param hints - the graphic writer hints to specify certain writing options
+	 * @param stream - the output stream to write the graphic to
+	 */
+	@Override
+	public void write(Document document, TreePainter painter, ParameterMap hints, OutputStream stream) 
+			throws Exception {
+		
+		ExportDimensions dimensions = new ExportDimensions(document, painter, hints);
+		BufferedImage image = createImage((int)(dimensions.getWidth() + 0.5f), (int)(dimensions.getHeight() + 0.5f));
+		Graphics2D g = image.createGraphics();
+		try {
+			setRenderingHints(g);
+			painter.paintTree(g, document, null, null, dimensions.getPaintResolution(), hints.getBoolean(KEY_TRANSPARENT, false));
+		}
+		finally {
+			g.dispose();
+		}
+		
+		writeImage(image, hints, stream);
+		stream.close();
+	}
+}
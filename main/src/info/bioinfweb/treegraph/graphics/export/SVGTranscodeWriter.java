@@ -21,10 +21,7 @@ package info.bioinfweb.treegraph.graphics.export;
 
 import info.bioinfweb.treegraph.Main;
 import info.bioinfweb.treegraph.document.Document;
-import info.bioinfweb.treegraph.document.format.DistanceDimension;
-import info.bioinfweb.treegraph.graphics.positionpaint.PositionPaintFactory;
 import info.bioinfweb.treegraph.graphics.positionpaint.TreePainter;
-import info.bioinfweb.treegraph.gui.treeframe.TreeViewPanel;
 import info.bioinfweb.commons.Math2;
 import info.bioinfweb.commons.collections.ParameterMap;
 
@@ -107,28 +104,9 @@ public class SVGTranscodeWriter extends AbstractGraphicWriter implements Graphic
 	public void write(Document document, TreePainter painter, ParameterMap hints, 
 			OutputStream stream) throws Exception {
 		
-	  DistanceDimension paintDim = document.getTree().getPaintDimension(
-				PositionPaintFactory.getInstance().getType(painter));
-	  float pixelsPerMillimeter = 
-	  	  hints.getFloat(KEY_PIXELS_PER_MILLIMETER, TreeViewPanel.PIXELS_PER_MM_100);
-	  
-  	float width = pixelsPerMillimeter *	paintDim.getWidth().getInMillimeters();
-  	float height = pixelsPerMillimeter *	paintDim.getHeight().getInMillimeters();
-	  if (hints.containsKey(KEY_WIDTH) && hints.containsKey(KEY_HEIGHT)) {
-	  	width = hints.getFloat(KEY_WIDTH, width);
-	  	height = hints.getFloat(KEY_HEIGHT, height);
-	  }
-	  
-	  float paintResolution;
-	  if (hints.getBoolean(KEY_DIMENSIONS_IN_PIXELS, false)) {
-	  	paintResolution = width / paintDim.getWidth().getInMillimeters();
-	  }
-	  else {
-	  	width *= pixelsPerMillimeter;
-	  	height *= pixelsPerMillimeter;
-	  	paintResolution = TreeViewPanel.PIXELS_PER_MM_100 * 
-          (width / paintDim.getWidth().getInPixels(TreeViewPanel.PIXELS_PER_MM_100));
-	  }
+	  ExportDimensions dimensions = new ExportDimensions(document, painter, hints);
+	  float width = dimensions.getWidth();
+	  float height = dimensions.getHeight();
 	  
 	  SVGGeneratorContext context = SVGGeneratorContext.createDefault(
 	  		GenericDOMImplementation.getDOMImplementation().createDocument("http://www.w3.org/2000/svg", "svg", null));
@@ -139,14 +117,14 @@ public class SVGTranscodeWriter extends AbstractGraphicWriter implements Graphic
 	  svgGenerator.setSVGCanvasSize(new Dimension(Math2.roundUp(width), Math2.roundUp(height)));
 	  svgGenerator.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
 	  
-	  painter.paintTree(svgGenerator, document, null, null, paintResolution, hints.getBoolean(KEY_TRANSPARENT, false));
+	  painter.paintTree(svgGenerator, document, null, null, dimensions.getPaintResolution(), hints.getBoolean(KEY_TRANSPARENT, false));
 	  StringWriter stringWriter = new StringWriter();
   	svgGenerator.stream(stringWriter);
   	
   	Transcoder t = transcoderClass.newInstance();
   	
 	  t.addTranscodingHint(SVGAbstractTranscoder.KEY_PIXEL_UNIT_TO_MILLIMETER, 
-	  		new Float(1f / pixelsPerMillimeter));
+	  		new Float(1f / dimensions.getPixelsPerMillimeter()));
 	  t.addTranscodingHint(SVGAbstractTranscoder.KEY_WIDTH, width);
 	  t.addTranscodingHint(SVGAbstractTranscoder.KEY_HEIGHT, height);
 	  addTranscodingHints(t, hints);
@@ -30,7 +30,7 @@ public abstract class SingletonGraphicsFactory implements GraphicsFactory {
 	protected abstract GraphicFilter createFilter();
 	
 	
-	public GraphicWriter getWriter() {
+	public synchronized GraphicWriter getWriter() {
 		if (writer == null) {
 			writer = createWriter();
 		}
@@ -38,7 +38,7 @@ public abstract class SingletonGraphicsFactory implements GraphicsFactory {
 	}
 
 
-	public GraphicFilter getFilter() {
+	public synchronized GraphicFilter getFilter() {
 		if (filter == null) {
 			filter = createFilter();
 		}
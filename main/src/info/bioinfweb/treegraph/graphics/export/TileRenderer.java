@@ -0,0 +1,206 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.graphics.export;
+
+
+import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.graphics.positionpaint.TreePainter;
+import info.bioinfweb.commons.collections.ParameterMap;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+
+/**
+ * Paints single rectangular tiles of an exported tree image. The size of the whole image and the paint resolution
+ * are calculated from the graphic writer hints as in {@link RasterImageWriter}, but the whole image is never held 
+ * in memory. This allows to export images that are larger than a single {@link BufferedImage} can be.
+ * <p>
+ * Tiles may be rendered by different threads at the same time, since painters do not store the state of a paint
+ * operation in fields. 
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class TileRenderer {
+	public static final String KEY_TILE_SIZE = "tileSize";
+	public static final String KEY_THREAD_COUNT = "threadCount";
+	public static final int DEFAULT_TILE_SIZE = 512;
+	
+	
+	private Document document;
+	private TreePainter painter;
+	private int width;
+	private int height;
+	private float paintResolution;
+	private int tileSize;
+	private boolean transparent;
+	private int imageType;
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param document - the document to be exported 
+	 * @param painter - the painter to display the document
+	 * @param hints - the graphic writer hints specifying the dimensions, the tile size and the transparency
+	 * @param imageType - the type of the tile images (e.g. {@link BufferedImage#TYPE_INT_ARGB})
+	 */
+	public TileRenderer(Document document, TreePainter painter, ParameterMap hints, int imageType) {
+		super();
+		ExportDimensions dimensions = new ExportDimensions(document, painter, hints);
+		this.document = document;
+		this.painter = painter;
+		width = Math.max(1, (int)(dimensions.getWidth() + 0.5f));
+		height = Math.max(1, (int)(dimensions.getHeight() + 0.5f));
+		paintResolution = dimensions.getPaintResolution();
+		tileSize = Math.max(1, hints.getInteger(KEY_TILE_SIZE, DEFAULT_TILE_SIZE));
+		transparent = hints.getBoolean(GraphicWriter.KEY_TRANSPARENT, false);
+		this.imageType = imageType;
+	}
+	
+	
+	private TileRenderer(TileRenderer source, int reduction) {
+		super();
+		document = source.document;
+		painter = source.painter;
+		width = Math.max(1, (int)Math.ceil(source.width / Math.pow(2, reduction)));
+		height = Math.max(1, (int)Math.ceil(source.height / Math.pow(2, reduction)));
+		paintResolution = (float)(source.paintResolution / Math.pow(2, reduction));
+		tileSize = source.tileSize;
+		transparent = source.transparent;
+		imageType = source.imageType;
+	}
+	
+	
+	/**
+	 * Returns a renderer for the same document with the width and height of this renderer divided by 
+	 * 2^<code>reduction</code>. The tree is painted again at the lower resolution and not downsampled 
+	 * from the tiles of this instance.
+	 * 
+	 * @param reduction - the number of times the size shall be halved
+	 * @return the new renderer
+	 */
+	public TileRenderer createReduced(int reduction) {
+		return new TileRenderer(this, reduction);
+	}
+
+
+	/** Returns the width of the whole image in pixels. */
+	public int getWidth() {
+		return width;
+	}
+
+
+	/** Returns the height of the whole image in pixels. */
+	public int getHeight() {
+		return height;
+	}
+
+
+	/** Returns the width and height of a tile in pixels. */
+	public int getTileSize() {
+		return tileSize;
+	}
+
+
+	public int getImageType() {
+		return imageType;
+	}
+
+
+	public int getColumnCount() {
+		return (width + tileSize - 1) / tileSize;
+	}
+	
+	
+	public int getRowCount() {
+		return (height + tileSize - 1) / tileSize;
+	}
+	
+	
+	/**
+	 * Returns the area of the specified tile in the whole image. Tiles in the last column or row may be smaller 
+	 * than the tile size.
+	 * 
+	 * @param column - the column of the tile
+	 * @param row - the row of the tile
+	 * @return the bounds in pixels
+	 */
+	public Rectangle getTileBounds(int column, int row) {
+		int x = column * tileSize;
+		int y = row * tileSize;
+		return new Rectangle(x, y, Math.min(tileSize, width - x), Math.min(tileSize, height - y));
+	}
+	
+	
+	/**
+	 * Returns the number of threads specified by <code>KEY_THREAD_COUNT</code> or the number of available 
+	 * processors if this hint is not present.
+	 */
+	public static int getThreadCount(ParameterMap hints) {
+		return Math.max(1, hints.getInteger(KEY_THREAD_COUNT, Runtime.getRuntime().availableProcessors()));
+	}
+	
+	
+	/**
+	 * Creates a thread pool with the number of threads specified by <code>KEY_THREAD_COUNT</code>.
+	 */
+	public static ExecutorService createExecutor(ParameterMap hints) {
+		return Executors.newFixedThreadPool(getThreadCount(hints));
+	}
+	
+	
+	/**
+	 * Paints the specified area of the tree into a new image. The area may also exceed the bounds of the
+	 * whole image.
+	 * 
+	 * @param bounds - the area to be painted in pixels
+	 * @return a new image with the size of <code>bounds</code>
+	 */
+	public BufferedImage renderTile(Rectangle bounds) {
+		BufferedImage result = new BufferedImage(bounds.width, bounds.height, imageType);
+		Graphics2D g = result.createGraphics();
+		try {
+			RasterImageWriter.setRenderingHints(g);
+			g.translate(-bounds.x, -bounds.y);
+			painter.paintTree(g, bounds, document, null, null, paintResolution, transparent);
+		}
+		finally {
+			g.dispose();
+		}
+		return result;
+	}
+	
+	
+	/**
+	 * Paints the specified tile into a new image.
+	 * 
+	 * @param column - the column of the tile
+	 * @param row - the row of the tile
+	 * @return a new image with the size returned by {@link #getTileBounds(int, int)}
+	 */
+	public BufferedImage renderTile(int column, int row) {
+		return renderTile(getTileBounds(column, row));
+	}
+}
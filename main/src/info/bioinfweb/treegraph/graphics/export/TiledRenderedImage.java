@@ -0,0 +1,305 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.graphics.export;
+
+
+import java.awt.Image;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+
+
+/**
+ * A {@link RenderedImage} whose tiles are painted by a {@link TileRenderer} when they are requested. Image
+ * encoders that process an image tile by tile (e.g. TIFF writers in tiled mode) can therefore write images that 
+ * are larger than the available memory. 
+ * <p>
+ * Tiles are expected to be requested in row major order. When a tile is requested the following tiles are 
+ * already rendered in the background by the specified executor. At most <code>prefetchCount</code> tiles are 
+ * held in memory at once. The last requested tile is kept, since encoders often request a tile line by line.
+ * Other tiles that are requested a second time are painted again.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class TiledRenderedImage implements RenderedImage {
+	private TileRenderer renderer;
+	private ExecutorService executor;
+	private int prefetchCount;
+	private ColorModel colorModel;
+	private SampleModel sampleModel;
+	private Map<Integer, Future<BufferedImage>> pendingTiles = new HashMap<Integer, Future<BufferedImage>>();
+	private int nextIndex = 0;
+	private int currentIndex = -1;
+	private BufferedImage currentTile = null;
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param renderer - the renderer that paints the tiles
+	 * @param executor - the executor used to paint the following tiles in the background
+	 * @param prefetchCount - the maximal number of tiles that are painted in advance
+	 */
+	public TiledRenderedImage(TileRenderer renderer, ExecutorService executor, int prefetchCount) {
+		super();
+		this.renderer = renderer;
+		this.executor = executor;
+		this.prefetchCount = Math.max(1, prefetchCount);
+		
+		BufferedImage prototype = new BufferedImage(1, 1, renderer.getImageType());
+		colorModel = prototype.getColorModel();
+		sampleModel = prototype.getSampleModel().createCompatibleSampleModel(renderer.getTileSize(), renderer.getTileSize());
+	}
+	
+	
+	private Rectangle getFullTileBounds(int index) {
+		return new Rectangle((index % getNumXTiles()) * getTileWidth(), (index / getNumXTiles()) * getTileHeight(), 
+				getTileWidth(), getTileHeight());
+	}
+	
+	
+	private Future<BufferedImage> submit(int index) {
+		final Rectangle bounds = getFullTileBounds(index);
+		return executor.submit(new Callable<BufferedImage>() {
+					@Override
+					public BufferedImage call() throws Exception {
+						return renderer.renderTile(bounds);
+					}
+				});
+	}
+	
+	
+	private synchronized BufferedImage getTileImage(int index) {
+		if (index != currentIndex) {
+			currentTile = null;  // Allow garbage collection before the next tile is rendered.
+			currentTile = fetchTileImage(index);
+			currentIndex = index;
+		}
+		return currentTile;
+	}
+	
+	
+	private BufferedImage fetchTileImage(int index) {
+		Future<BufferedImage> future = pendingTiles.remove(index);
+		if ((future == null) && (index >= nextIndex)) {
+			nextIndex = index;  // Skip tiles that were not requested.
+		}
+		int count = getNumXTiles() * getNumYTiles();
+		while ((nextIndex < count) && (nextIndex < index + prefetchCount)) {
+			if (nextIndex == index) {
+				future = submit(nextIndex);
+			}
+			else {
+				pendingTiles.put(nextIndex, submit(nextIndex));
+			}
+			nextIndex++;
+		}
+		
+		if (future == null) {  // Tile was requested again.
+			return renderer.renderTile(getFullTileBounds(index));
+		}
+		else {
+			try {
+				return future.get();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Rendering the tile " + index + " was interrupted.", e);
+			}
+			catch (ExecutionException e) {
+				throw new IllegalStateException("Rendering the tile " + index + " failed.", e.getCause());
+			}
+		}
+	}
+	
+	
+	@Override
+	public Raster getTile(int tileX, int tileY) {
+		Rectangle bounds = getFullTileBounds(tileY * getNumXTiles() + tileX);
+		return getTileImage(tileY * getNumXTiles() + tileX).getRaster().createTranslatedChild(bounds.x, bounds.y);
+	}
+
+
+	@Override
+	public Raster getData(Rectangle rect) {
+		WritableRaster result = Raster.createWritableRaster(sampleModel.createCompatibleSampleModel(rect.width, rect.height), 
+				new Point(rect.x, rect.y));
+		copyData(result);
+		return result;
+	}
+
+
+	@Override
+	public Raster getData() {
+		return getData(new Rectangle(getMinX(), getMinY(), getWidth(), getHeight()));
+	}
+
+
+	@Override
+	public WritableRaster copyData(WritableRaster raster) {
+		if (raster == null) {
+			raster = colorModel.createCompatibleWritableRaster(getWidth(), getHeight());
+		}
+		Rectangle bounds = raster.getBounds().intersection(new Rectangle(getMinX(), getMinY(), getWidth(), getHeight()));
+		if (!bounds.isEmpty()) {
+			int firstColumn = bounds.x / getTileWidth();
+			int lastColumn = (bounds.x + bounds.width - 1) / getTileWidth();
+			int firstRow = bounds.y / getTileHeight();
+			int lastRow = (bounds.y + bounds.height - 1) / getTileHeight();
+			for (int row = firstRow; row <= lastRow; row++) {
+				for (int column = firstColumn; column <= lastColumn; column++) {
+					Raster tile = getTile(column, row);
+					Rectangle area = tile.getBounds().intersection(bounds);
+					raster.setDataElements(0, 0, tile.createChild(area.x, area.y, area.width, area.height, 
+							area.x, area.y, null));
+				}
+			}
+		}
+		return raster;
+	}
+
+
+	@Override
+	public Vector<RenderedImage> getSources() {
+		return null;
+	}
+
+
+	@Override
+	public Object getProperty(String name) {
+		return Image.UndefinedProperty;
+	}
+
+
+	@Override
+	public String[] getPropertyNames() {
+		return null;
+	}
+
+
+	@Override
+	public ColorModel getColorModel() {
+		return colorModel;
+	}
+
+
+	@Override
+	public SampleModel getSampleModel() {
+		return sampleModel;
+	}
+
+
+	@Override
+	public int getWidth() {
+		return renderer.getWidth();
+	}
+
+
+	@Override
+	public int getHeight() {
+		return renderer.getHeight();
+	}
+
+
+	@Override
+	public int getMinX() {
+		return 0;
+	}
+
+
+	@Override
+	public int getMinY() {
+		return 0;
+	}
+
+
+	@Override
+	public int getNumXTiles() {
+		return renderer.getColumnCount();
+	}
+
+
+	@Override
+	public int getNumYTiles() {
+		return renderer.getRowCount();
+	}
+
+
+	@Override
+	public int getMinTileX() {
+		return 0;
+	}
+
+
+	@Override
+	public int getMinTileY() {
+		return 0;
+	}
+
+
+	@Override
+	public int getTileWidth() {
+		return renderer.getTileSize();
+	}
+
+
+	@Override
+	public int getTileHeight() {
+		return renderer.getTileSize();
+	}
+
+
+	@Override
+	public int getTileGridXOffset() {
+		return 0;
+	}
+
+
+	@Override
+	public int getTileGridYOffset() {
+		return 0;
+	}
+	
+	
+	/**
+	 * Cancels all tiles that are still rendered in the background.
+	 */
+	public synchronized void dispose() {
+		for (Future<BufferedImage> future : pendingTiles.values()) {
+			future.cancel(true);
+		}
+		pendingTiles.clear();
+		currentTile = null;
+		currentIndex = -1;
+	}
+}
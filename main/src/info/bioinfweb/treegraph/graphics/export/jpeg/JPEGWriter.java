@@ -20,31 +20,68 @@ package info.bioinfweb.treegraph.graphics.export.jpeg;
 
 
 import info.bioinfweb.treegraph.graphics.export.GraphicWriter;
-import info.bioinfweb.treegraph.graphics.export.SVGTranscodeWriter;
+import info.bioinfweb.treegraph.graphics.export.RasterImageWriter;
 import info.bioinfweb.commons.collections.ParameterMap;
 
-import org.apache.batik.transcoder.Transcoder;
-import org.apache.batik.transcoder.image.JPEGTranscoder;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.OutputStream;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
 
 
 
-public class JPEGWriter extends SVGTranscodeWriter implements GraphicWriter {
+public class JPEGWriter extends RasterImageWriter implements GraphicWriter {
 	public static final float DEFAULT_QUALITY = 0.8f;
 	public static final float MIN_QUALITY = 0.01f;
 	public static final float MAX_QUALITY = 1f;
 	public static final String KEY_JPEG_QUALITY = "jpegCompression";
+	public static final String FORMAT_NAME = "jpeg";
 	
-	
-	public JPEGWriter() {
-		super(JPEGTranscoder.class);
+
+	/**
+	 * Returns an image without alpha channel which is filled white, since JPEG does not support transparency.
+	 */
+	@Override
+	protected BufferedImage createImage(int width, int height) {
+		BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = result.createGraphics();
+		try {
+			g.setColor(Color.WHITE);
+			g.fillRect(0, 0, width, height);
+		}
+		finally {
+			g.dispose();
+		}
+		return result;
 	}
 
 
 	@Override
-	protected void addTranscodingHints(Transcoder transcoder, ParameterMap writerHints) {
-		super.addTranscodingHints(transcoder, writerHints);
-		transcoder.addTranscodingHint(JPEGTranscoder.KEY_QUALITY, 
-				new Float(Math.max(MIN_QUALITY, Math.min(MAX_QUALITY, 
-						writerHints.getFloat(KEY_JPEG_QUALITY, DEFAULT_QUALITY)))));
+	protected void writeImage(BufferedImage image, ParameterMap hints, OutputStream stream) throws Exception {
+		ImageWriter writer = ImageIO.getImageWritersByFormatName(FORMAT_NAME).next();
+		try {
+			ImageWriteParam parameters = writer.getDefaultWriteParam();
+			parameters.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			parameters.setCompressionQuality(Math.max(MIN_QUALITY, Math.min(MAX_QUALITY, 
+					hints.getFloat(KEY_JPEG_QUALITY, DEFAULT_QUALITY))));
+			
+			ImageOutputStream imageStream = ImageIO.createImageOutputStream(stream);
+			try {
+				writer.setOutput(imageStream);
+				writer.write(null, new IIOImage(image, null, null), parameters);
+			}
+			finally {
+				imageStream.close();
+			}
+		}
+		finally {
+			writer.dispose();
+		}
 	}
 }
\ No newline at end of file
@@ -20,14 +20,22 @@ package info.bioinfweb.treegraph.graphics.export.png;
 
 
 import info.bioinfweb.treegraph.graphics.export.GraphicWriter;
-import info.bioinfweb.treegraph.graphics.export.SVGTranscodeWriter;
+import info.bioinfweb.treegraph.graphics.export.RasterImageWriter;
+import info.bioinfweb.commons.collections.ParameterMap;
 
-import org.apache.batik.transcoder.image.PNGTranscoder;
+import java.awt.image.BufferedImage;
+import java.io.OutputStream;
+
+import javax.imageio.ImageIO;
 
 
 
-public class PNGWriter extends SVGTranscodeWriter implements GraphicWriter {
-	public PNGWriter() {
-		super(PNGTranscoder.class);
+public class PNGWriter extends RasterImageWriter implements GraphicWriter {
+	public static final String FORMAT_NAME = "png";
+	
+	
+	@Override
+	protected void writeImage(BufferedImage image, ParameterMap hints, OutputStream stream) throws Exception {
+		ImageIO.write(image, FORMAT_NAME, stream);
 	}
 }
\ No newline at end of file
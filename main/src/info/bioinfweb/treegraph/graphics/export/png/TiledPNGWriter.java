@@ -0,0 +1,271 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.graphics.export.png;
+
+
+import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.graphics.export.AbstractGraphicWriter;
+import info.bioinfweb.treegraph.graphics.export.GraphicWriter;
+import info.bioinfweb.treegraph.graphics.export.TileRenderer;
+import info.bioinfweb.treegraph.graphics.positionpaint.TreePainter;
+import info.bioinfweb.commons.collections.ParameterMap;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.imageio.ImageIO;
+
+
+
+/**
+ * Exports a tree as PNG tiles in the Deep Zoom format. If a file is specified, it is the <code>.dzi</code> 
+ * descriptor and the tiles are written into the directory <code>&lt;name&gt;_files</code> next to it, which 
+ * contains a subdirectory for each zoom level with files named <code>&lt;column&gt;_&lt;row&gt;.png</code>. 
+ * If a stream is specified, the same structure is written as a ZIP archive containing the descriptor 
+ * <code>image.dzi</code> and the directory <code>image_files</code>. 
+ * <p>
+ * Tiles are rendered and encoded by several threads (see {@link TileRenderer#KEY_THREAD_COUNT}), so that the 
+ * memory needed is bounded by the tile size and the number of threads and not by the size of the whole image. 
+ * Lower zoom levels are painted again at the respective resolution. The number of levels is determined by 
+ * <code>KEY_ZOOM_LEVELS</code>.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class TiledPNGWriter extends AbstractGraphicWriter implements GraphicWriter {
+	public static final String KEY_ZOOM_LEVELS = "zoomLevels";
+	
+	/** Value of <code>KEY_ZOOM_LEVELS</code> that specifies that all levels down to one pixel shall be written. */
+	public static final int ALL_ZOOM_LEVELS = 0;
+	
+	public static final int DEFAULT_ZOOM_LEVELS = 1;
+	public static final String DESCRIPTOR_EXTENSION = ".dzi";
+	public static final String DIRECTORY_SUFFIX = "_files";
+	public static final String DEEP_ZOOM_NAMESPACE = "http://schemas.microsoft.com/deepzoom/2008";
+	
+	/** The name of the descriptor (without extension) in archives written to a stream. */
+	public static final String ARCHIVE_IMAGE_NAME = "image";
+	
+	/** The number of tiles per thread that may be encoded in advance. */
+	public static final int PREFETCH_TILES_PER_THREAD = 2;
+
+	
+	/**
+	 * Returns the index of the Deep Zoom level with the full resolution. (Level 0 has a size of one pixel.)
+	 * 
+	 * @param width - the width of the whole image
+	 * @param height - the height of the whole image
+	 * @return the index of the highest level
+	 */
+	public static int getMaxLevel(int width, int height) {
+		int size = Math.max(width, height);
+		int result = 0;
+		while ((1L << result) < size) {
+			result++;
+		}
+		return result;
+	}
+	
+	
+	/**
+	 * Returns the directory that contains the tiles belonging to the specified descriptor file.
+	 */
+	public static File getTileDirectory(File descriptor) {
+		String name = descriptor.getName();
+		if (name.toLowerCase().endsWith(DESCRIPTOR_EXTENSION)) {
+			name = name.substring(0, name.length() - DESCRIPTOR_EXTENSION.length());
+		}
+		return new File(descriptor.getAbsoluteFile().getParentFile(), name + DIRECTORY_SUFFIX);
+	}
+	
+	
+	private void writeDescriptor(TileRenderer renderer, OutputStream stream) throws IOException {
+		Writer writer = new OutputStreamWriter(stream, "UTF-8");
+		writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		writer.write("<Image xmlns=\"" + DEEP_ZOOM_NAMESPACE + "\" TileSize=\"" + renderer.getTileSize() + 
+				"\" Overlap=\"0\" Format=\"" + PNGWriter.FORMAT_NAME + "\">\n");
+		writer.write("  <Size Width=\"" + renderer.getWidth() + "\" Height=\"" + renderer.getHeight() + "\"/>\n");
+		writer.write("</Image>\n");
+		writer.flush();
+	}
+	
+	
+	private Future<byte[]> submitTile(ExecutorService executor, final TileRenderer renderer, final int column, 
+			final int row, final File file) {
+		
+		return executor.submit(new Callable<byte[]>() {
+					@Override
+					public byte[] call() throws Exception {
+						BufferedImage tile = renderer.renderTile(column, row);
+						if (file == null) {
+							ByteArrayOutputStream stream = new ByteArrayOutputStream();
+							if (!ImageIO.write(tile, PNGWriter.FORMAT_NAME, stream)) {
+								throw new IOException("No PNG writer available.");
+							}
+							return stream.toByteArray();
+						}
+						else {
+							if (!ImageIO.write(tile, PNGWriter.FORMAT_NAME, file)) {
+								throw new IOException("No PNG writer available.");
+							}
+							return null;
+						}
+					}
+				});
+	}
+	
+	
+	private void completeTile(Future<byte[]> future, String entryName, ZipOutputStream zipStream) throws Exception {
+		byte[] data;
+		try {
+			data = future.get();
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception)e.getCause();
+			}
+			throw e;
+		}
+		
+		if (zipStream != null) {
+			zipStream.putNextEntry(new ZipEntry(entryName));
+			zipStream.write(data);
+			zipStream.closeEntry();
+		}
+	}
+	
+	
+	/**
+	 * Renders and encodes all tiles of all levels. If <code>zipStream</code> is <code>null</code> the tiles are 
+	 * written to files in <code>tileDirectory</code>, otherwise they are added to the archive. At most 
+	 * {@link #PREFETCH_TILES_PER_THREAD} tiles per thread are waiting to be completed at once. 
+	 */
+	private void writeTiles(TileRenderer renderer, ParameterMap hints, File tileDirectory, ZipOutputStream zipStream) 
+			throws Exception {
+		
+		int maxLevel = getMaxLevel(renderer.getWidth(), renderer.getHeight());
+		int levelCount = hints.getInteger(KEY_ZOOM_LEVELS, DEFAULT_ZOOM_LEVELS);
+		if ((levelCount <= ALL_ZOOM_LEVELS) || (levelCount > maxLevel + 1)) {
+			levelCount = maxLevel + 1;
+		}
+		int prefetchCount = TileRenderer.getThreadCount(hints) * PREFETCH_TILES_PER_THREAD;
+		
+		LinkedList<Future<byte[]>> futures = new LinkedList<Future<byte[]>>();
+		LinkedList<String> entryNames = new LinkedList<String>();
+		ExecutorService executor = TileRenderer.createExecutor(hints);
+		try {
+			for (int reduction = 0; reduction < levelCount; reduction++) {
+				TileRenderer levelRenderer = renderer.createReduced(reduction);
+				String level = Integer.toString(maxLevel - reduction);
+				File levelDirectory = null;
+				if (zipStream == null) {
+					levelDirectory = new File(tileDirectory, level);
+					if (!levelDirectory.isDirectory() && !levelDirectory.mkdirs()) {
+						throw new IOException("The directory \"" + levelDirectory.getAbsolutePath() + 
+								"\" could not be created.");
+					}
+				}
+				
+				for (int row = 0; row < levelRenderer.getRowCount(); row++) {
+					for (int column = 0; column < levelRenderer.getColumnCount(); column++) {
+						String name = column + "_" + row + "." + PNGWriter.FORMAT_NAME;
+						File file = null;
+						if (levelDirectory != null) {
+							file = new File(levelDirectory, name);
+						}
+						futures.add(submitTile(executor, levelRenderer, column, row, file));
+						entryNames.add(ARCHIVE_IMAGE_NAME + DIRECTORY_SUFFIX + "/" + level + "/" + name);
+						if (futures.size() >= prefetchCount) {
+							completeTile(futures.removeFirst(), entryNames.removeFirst(), zipStream);
+						}
+					}
+				}
+			}
+			while (!futures.isEmpty()) {
+				completeTile(futures.removeFirst(), entryNames.removeFirst(), zipStream);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	
+	/**
+	 * Writes the Deep Zoom descriptor to the specified file and the tiles to the according directory.
+	 * 
+	 * @param document - the document to be exported 
+	 * @param painter - the painter to display the document
+	 * @param hints - the graphic writer hints to specify certain writing options
+	 * @param file - the descriptor file (usually with the extension <code>.dzi</code>)
+	 */
+	@Override
+	public void write(Document document, TreePainter painter, ParameterMap hints, File file) throws Exception {
+		TileRenderer renderer = new TileRenderer(document, painter, hints, BufferedImage.TYPE_INT_ARGB);
+		writeTiles(renderer, hints, getTileDirectory(file), null);
+		
+		OutputStream stream = new FileOutputStream(file);
+		try {
+			writeDescriptor(renderer, stream);
+		}
+		finally {
+			stream.close();
+		}
+	}
+
+
+	/**
+	 * Writes a ZIP archive containing the Deep Zoom descriptor <code>image.dzi</code> and the tiles in the directory 
+	 * <code>image_files</code>.
+	 * 
+	 * @param document - the document to be exported 
+	 * @param painter - the painter to display the document
+	 * @param hints - the graphic writer hints to specify certain writing options
+	 * @param stream - the stream to write the archive to (will be closed by this method)
+	 */
+	@Override
+	public void write(Document document, TreePainter painter, ParameterMap hints, OutputStream stream) 
+			throws Exception {
+		
+		TileRenderer renderer = new TileRenderer(document, painter, hints, BufferedImage.TYPE_INT_ARGB);
+		ZipOutputStream zipStream = new ZipOutputStream(stream);
+		try {
+			zipStream.putNextEntry(new ZipEntry(ARCHIVE_IMAGE_NAME + DESCRIPTOR_EXTENSION));
+			writeDescriptor(renderer, zipStream);
+			zipStream.closeEntry();
+			writeTiles(renderer, hints, null, zipStream);
+		}
+		finally {
+			zipStream.close();
+		}
+	}
+}
@@ -0,0 +1,600 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.graphics.export.svg;
+
+
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Paint;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.PathIterator;
+import java.awt.image.BufferedImage;
+import java.awt.image.ImageObserver;
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.RenderableImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.text.AttributedCharacterIterator;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import org.apache.batik.ext.awt.g2d.AbstractGraphics2D;
+import org.apache.batik.ext.awt.g2d.GraphicContext;
+import org.apache.batik.util.Base64EncoderStream;
+
+
+
+/**
+ * A {@link Graphics2D} implementation that writes SVG elements directly to a {@link Writer} while the tree is 
+ * painted, without creating a DOM document first. The memory needed is therefore independent of the size of 
+ * the tree.
+ * <p>
+ * The presentation attributes of the elements are written as CSS classes. A <code>&lt;style&gt;</code> element 
+ * defining a class is written before the first element that uses it, so that elements painted with the same
+ * stroke, fill or font only reference the same class.
+ * <p>
+ * Clipping and composites other than {@link AlphaComposite} are not supported, since they are not used by the 
+ * tree painters. 
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class SVGStreamGraphics2D extends AbstractGraphics2D {
+	public static final String SVG_NAMESPACE = "http://www.w3.org/2000/svg";
+	public static final String XLINK_NAMESPACE = "http://www.w3.org/1999/xlink";
+	
+	/** The number of decimal places written for coordinates and lengths. */
+	public static final int PRECISION = 3;
+	
+	private static final double PRECISION_FACTOR = Math.pow(10, PRECISION);
+	
+	
+	/** The state shared by all instances created from the same document. */
+	private static class Output {
+		public PrintWriter writer;
+		public Map<String, String> styleClasses = new HashMap<String, String>();
+		public Graphics2D fontMetricsGraphics;
+		
+		public Output(Writer writer) {
+			super();
+			this.writer = new PrintWriter(writer);
+			fontMetricsGraphics = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+			fontMetricsGraphics.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+		}
+	}
+	
+	
+	private Output output;
+	private StringBuilder buffer = new StringBuilder();
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param writer - the writer to write the SVG document to (Should be buffered.)
+	 * @param textAsShapes - Specify <code>true</code> here, if text shall be written as paths or 
+	 *        <code>false</code> if <code>text</code>-elements shall be used.
+	 */
+	public SVGStreamGraphics2D(Writer writer, boolean textAsShapes) {
+		super(textAsShapes);
+		output = new Output(writer);
+		gc = new GraphicContext();
+		gc.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		gc.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		gc.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+		gc.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+	}
+	
+	
+	private SVGStreamGraphics2D(SVGStreamGraphics2D g) {
+		super(g);
+		output = g.output;
+	}
+
+
+	/**
+	 * Writes the XML declaration and the start tag of the root element. This method must be called before any 
+	 * painting is done.
+	 * 
+	 * @param width - the width of the document in pixels
+	 * @param height - the height of the document in pixels
+	 * @param comment - a comment to be written at the beginning of the document (Can be <code>null</code>.)
+	 */
+	public void startDocument(int width, int height, String comment) {
+		output.writer.print("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n");
+		output.writer.print("<svg xmlns=\"" + SVG_NAMESPACE + "\" xmlns:xlink=\"" + XLINK_NAMESPACE + 
+				"\" version=\"1.1\" width=\"" + width + "\" height=\"" + height + "\" xml:space=\"preserve\">\n");
+		if (comment != null) {
+			output.writer.print("<!--" + comment.replace("--", "- -") + "-->\n");
+		}
+	}
+	
+	
+	/**
+	 * Writes the end tag of the root element and flushes the underlying writer. 
+	 * 
+	 * @throws IOException if an error occurred while writing any part of the document
+	 */
+	public void endDocument() throws IOException {
+		output.writer.print("</svg>\n");
+		output.writer.flush();
+		if (output.writer.checkError()) {
+			throw new IOException("The SVG document could not be written.");
+		}
+	}
+	
+	
+	private static void appendNumber(StringBuilder builder, double value) {
+		long scaled = Math.round(value * PRECISION_FACTOR);
+		if (scaled < 0) {
+			builder.append('-');
+			scaled = -scaled;
+		}
+		builder.append(scaled / (long)PRECISION_FACTOR);
+		long fraction = scaled % (long)PRECISION_FACTOR;
+		if (fraction != 0) {
+			builder.append('.');
+			long divisor = (long)PRECISION_FACTOR / 10;
+			while ((fraction != 0) && (divisor > 0)) {
+				builder.append((char)('0' + fraction / divisor));
+				fraction %= divisor;
+				divisor /= 10;
+			}
+		}
+	}
+	
+	
+	private static void appendEscaped(StringBuilder builder, String text) {
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			switch (c) {
+				case '&':
+					builder.append("&amp;");
+					break;
+				case '<':
+					builder.append("&lt;");
+					break;
+				case '>':
+					builder.append("&gt;");
+					break;
+				case '"':
+					builder.append("&quot;");
+					break;
+				default:
+					if ((c >= 0x20) || (c == '\t') || (c == '\n') || (c == '\r')) {  // Other control characters are not allowed in XML.
+						builder.append(c);
+					}
+					break;
+			}
+		}
+	}
+	
+	
+	private static void appendColor(StringBuilder builder, String property, Color color, float alpha) {
+		builder.append(property).append(":#");
+		String hex = Integer.toHexString(color.getRGB() & 0xFFFFFF);
+		for (int i = hex.length(); i < 6; i++) {
+			builder.append('0');
+		}
+		builder.append(hex).append(';');
+		alpha *= color.getAlpha() / 255f;
+		if (alpha < 1f) {
+			builder.append(property).append("-opacity:");
+			appendNumber(builder, alpha);
+			builder.append(';');
+		}
+	}
+	
+	
+	private Color getPaintColor() {
+		Paint paint = gc.getPaint();
+		if (paint instanceof Color) {
+			return (Color)paint;
+		}
+		else {
+			return gc.getColor();
+		}
+	}
+	
+	
+	private float getCompositeAlpha() {
+		Composite composite = gc.getComposite();
+		if (composite instanceof AlphaComposite) {
+			return ((AlphaComposite)composite).getAlpha();
+		}
+		else {
+			return 1f;
+		}
+	}
+	
+	
+	/**
+	 * Returns the name of the CSS class with the specified declarations. If no such class has been defined yet, 
+	 * a <code>style</code>-element defining it is written.
+	 */
+	private String getStyleClass(String declarations) {
+		String result = output.styleClasses.get(declarations);
+		if (result == null) {
+			result = "s" + output.styleClasses.size();
+			output.styleClasses.put(declarations, result);
+			output.writer.print("<style type=\"text/css\">." + result + "{" + declarations + "}</style>\n");
+		}
+		return result;
+	}
+	
+	
+	private void appendShapeRendering(StringBuilder builder) {
+		Object value = gc.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+		if (RenderingHints.VALUE_ANTIALIAS_ON.equals(value)) {
+			builder.append(";shape-rendering:geometricPrecision");
+		}
+		else if (RenderingHints.VALUE_ANTIALIAS_OFF.equals(value)) {
+			builder.append(";shape-rendering:crispEdges");
+		}
+	}
+	
+	
+	private void appendTextRendering(StringBuilder builder) {
+		Object value = gc.getRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING);
+		if (RenderingHints.VALUE_TEXT_ANTIALIAS_ON.equals(value)) {
+			builder.append(";text-rendering:geometricPrecision");
+		}
+		else if (RenderingHints.VALUE_TEXT_ANTIALIAS_OFF.equals(value)) {
+			builder.append(";text-rendering:optimizeSpeed");
+		}
+	}
+	
+	
+	private String getStrokeClass(BasicStroke stroke) {
+		StringBuilder builder = new StringBuilder();
+		builder.append("fill:none;");
+		appendColor(builder, "stroke", getPaintColor(), getCompositeAlpha());
+		builder.append("stroke-width:");
+		appendNumber(builder, stroke.getLineWidth());
+		builder.append(";stroke-linecap:");
+		switch (stroke.getEndCap()) {
+			case BasicStroke.CAP_BUTT:
+				builder.append("butt");
+				break;
+			case BasicStroke.CAP_ROUND:
+				builder.append("round");
+				break;
+			default:
+				builder.append("square");
+				break;
+		}
+		builder.append(";stroke-linejoin:");
+		switch (stroke.getLineJoin()) {
+			case BasicStroke.JOIN_BEVEL:
+				builder.append("bevel");
+				break;
+			case BasicStroke.JOIN_ROUND:
+				builder.append("round");
+				break;
+			default:
+				builder.append("miter;stroke-miterlimit:");
+				appendNumber(builder, stroke.getMiterLimit());
+				break;
+		}
+		float[] dashArray = stroke.getDashArray();
+		if ((dashArray != null) && (dashArray.length > 0)) {
+			builder.append(";stroke-dasharray:");
+			for (int i = 0; i < dashArray.length; i++) {
+				if (i > 0) {
+					builder.append(',');
+				}
+				appendNumber(builder, dashArray[i]);
+			}
+			builder.append(";stroke-dashoffset:");
+			appendNumber(builder, stroke.getDashPhase());
+		}
+		appendShapeRendering(builder);
+		return getStyleClass(builder.toString());
+	}
+	
+	
+	private String getFillClass() {
+		StringBuilder builder = new StringBuilder();
+		appendColor(builder, "fill", getPaintColor(), getCompositeAlpha());
+		builder.append("stroke:none");
+		appendShapeRendering(builder);
+		return getStyleClass(builder.toString());
+	}
+	
+	
+	private static String getGenericFamily(String family) {
+		String name = family.toLowerCase();
+		if (name.equals("serif") || name.equals("timesroman")) {
+			return "serif";
+		}
+		else if (name.equals("monospaced") || name.equals("courier") || name.equals("dialoginput")) {
+			return "monospace";
+		}
+		else {
+			return "sans-serif";
+		}
+	}
+	
+	
+	private String getTextClass(Font font) {
+		StringBuilder builder = new StringBuilder();
+		builder.append("font-family:'");
+		appendEscaped(builder, font.getFamily().replace("'", "").replace("\\", "").replace("}", ""));
+		builder.append("',").append(getGenericFamily(font.getFamily())).append(";font-size:");
+		appendNumber(builder, font.getSize2D());
+		builder.append("px;");
+		if (font.isBold()) {
+			builder.append("font-weight:bold;");
+		}
+		if (font.isItalic()) {
+			builder.append("font-style:italic;");
+		}
+		appendColor(builder, "fill", getPaintColor(), getCompositeAlpha());
+		builder.append("stroke:none");
+		appendTextRendering(builder);
+		return getStyleClass(builder.toString());
+	}
+	
+	
+	private void appendTransform(StringBuilder builder, AffineTransform transform) {
+		if (!transform.isIdentity()) {
+			builder.append(" transform=\"");
+			if (transform.getType() == AffineTransform.TYPE_TRANSLATION) {
+				builder.append("translate(");
+				appendNumber(builder, transform.getTranslateX());
+				builder.append(' ');
+				appendNumber(builder, transform.getTranslateY());
+			}
+			else {
+				double[] matrix = new double[6];
+				transform.getMatrix(matrix);
+				builder.append("matrix(");
+				for (int i = 0; i < matrix.length; i++) {
+					if (i > 0) {
+						builder.append(' ');
+					}
+					appendNumber(builder, matrix[i]);
+				}
+			}
+			builder.append(")\"");
+		}
+	}
+	
+	
+	private void appendPathData(StringBuilder builder, Shape shape) {
+		double[] coordinates = new double[6];
+		PathIterator iterator = shape.getPathIterator(null);
+		while (!iterator.isDone()) {
+			int pointCount = 0;
+			switch (iterator.currentSegment(coordinates)) {
+				case PathIterator.SEG_MOVETO:
+					builder.append('M');
+					pointCount = 1;
+					break;
+				case PathIterator.SEG_LINETO:
+					builder.append('L');
+					pointCount = 1;
+					break;
+				case PathIterator.SEG_QUADTO:
+					builder.append('Q');
+					pointCount = 2;
+					break;
+				case PathIterator.SEG_CUBICTO:
+					builder.append('C');
+					pointCount = 3;
+					break;
+				case PathIterator.SEG_CLOSE:
+					builder.append('Z');
+					break;
+			}
+			for (int i = 0; i < 2 * pointCount; i++) {
+				if (i > 0) {
+					builder.append(' ');
+				}
+				appendNumber(builder, coordinates[i]);
+			}
+			iterator.next();
+		}
+	}
+	
+	
+	private void writePath(Shape shape, String styleClass) {
+		buffer.setLength(0);
+		buffer.append("<path class=\"").append(styleClass).append('"');
+		appendTransform(buffer, gc.getTransform());
+		buffer.append(" d=\"");
+		appendPathData(buffer, shape);
+		buffer.append("\"/>\n");
+		output.writer.append(buffer);
+	}
+	
+	
+	@Override
+	public void draw(Shape shape) {
+		Stroke stroke = gc.getStroke();
+		if (stroke instanceof BasicStroke) {
+			writePath(shape, getStrokeClass((BasicStroke)stroke));
+		}
+		else {
+			fill(stroke.createStrokedShape(shape));
+		}
+	}
+
+
+	@Override
+	public void fill(Shape shape) {
+		writePath(shape, getFillClass());
+	}
+
+
+	@Override
+	public void drawString(String text, float x, float y) {
+		if (textAsShapes) {
+			fill(gc.getFont().createGlyphVector(getFontRenderContext(), text).getOutline(x, y));
+		}
+		else {
+			buffer.setLength(0);
+			buffer.append("<text class=\"").append(getTextClass(gc.getFont())).append("\" x=\"");
+			appendNumber(buffer, x);
+			buffer.append("\" y=\"");
+			appendNumber(buffer, y);
+			buffer.append('"');
+			appendTransform(buffer, gc.getTransform());
+			buffer.append('>');
+			appendEscaped(buffer, text);
+			buffer.append("</text>\n");
+			output.writer.append(buffer);
+		}
+	}
+
+
+	@Override
+	public void drawString(AttributedCharacterIterator iterator, float x, float y) {
+		StringBuilder text = new StringBuilder();
+		for (char c = iterator.first(); c != AttributedCharacterIterator.DONE; c = iterator.next()) {
+			text.append(c);
+		}
+		drawString(text.toString(), x, y);
+	}
+
+
+	@Override
+	public void drawRenderedImage(RenderedImage image, AffineTransform transform) {
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		try {
+			Base64EncoderStream encoder = new Base64EncoderStream(data, false);
+			ImageIO.write(image, "png", encoder);
+			encoder.close();
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("The image could not be encoded.", e);
+		}
+		
+		AffineTransform imageTransform = gc.getTransform();
+		if (transform != null) {
+			imageTransform.concatenate(transform);
+		}
+		buffer.setLength(0);
+		buffer.append("<image x=\"").append(image.getMinX()).append("\" y=\"").append(image.getMinY()).
+				append("\" width=\"").append(image.getWidth()).append("\" height=\"").append(image.getHeight()).append('"');
+		appendTransform(buffer, imageTransform);
+		buffer.append(" xlink:href=\"data:image/png;base64,");
+		buffer.append(data.toString());
+		buffer.append("\"/>\n");
+		output.writer.append(buffer);
+	}
+
+
+	@Override
+	public void drawRenderableImage(RenderableImage image, AffineTransform transform) {
+		drawRenderedImage(image.createDefaultRendering(), transform);
+	}
+
+
+	private BufferedImage toBufferedImage(Image image, ImageObserver observer) {
+		if (image instanceof BufferedImage) {
+			return (BufferedImage)image;
+		}
+		else {
+			int width = image.getWidth(observer);
+			int height = image.getHeight(observer);
+			if ((width <= 0) || (height <= 0)) {
+				return null;
+			}
+			BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+			Graphics2D g = result.createGraphics();
+			try {
+				g.drawImage(image, 0, 0, observer);
+			}
+			finally {
+				g.dispose();
+			}
+			return result;
+		}
+	}
+
+
+	@Override
+	public boolean drawImage(Image image, int x, int y, ImageObserver observer) {
+		BufferedImage bufferedImage = toBufferedImage(image, observer);
+		if (bufferedImage == null) {
+			return false;
+		}
+		drawRenderedImage(bufferedImage, AffineTransform.getTranslateInstance(x, y));
+		return true;
+	}
+
+
+	@Override
+	public boolean drawImage(Image image, int x, int y, int width, int height, ImageObserver observer) {
+		BufferedImage bufferedImage = toBufferedImage(image, observer);
+		if (bufferedImage == null) {
+			return false;
+		}
+		AffineTransform transform = AffineTransform.getTranslateInstance(x, y);
+		transform.scale((double)width / bufferedImage.getWidth(), (double)height / bufferedImage.getHeight());
+		drawRenderedImage(bufferedImage, transform);
+		return true;
+	}
+
+
+	@Override
+	public GraphicsConfiguration getDeviceConfiguration() {
+		return null;
+	}
+
+
+	@Override
+	public Graphics create() {
+		return new SVGStreamGraphics2D(this);
+	}
+
+
+	@Override
+	public void dispose() {}
+
+
+	@Override
+	public FontMetrics getFontMetrics(Font font) {
+		return output.fontMetricsGraphics.getFontMetrics(font);
+	}
+
+
+	@Override
+	public void setXORMode(Color color) {}  // XOR mode is not supported by SVG.
+
+
+	@Override
+	public void copyArea(int x, int y, int width, int height, int dx, int dy) {}  // Not supported, since the written output cannot be read again.
+}
@@ -19,15 +19,55 @@
 package info.bioinfweb.treegraph.graphics.export.svg;
 
 
+import info.bioinfweb.treegraph.Main;
+import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.graphics.export.AbstractGraphicWriter;
+import info.bioinfweb.treegraph.graphics.export.ExportDimensions;
 import info.bioinfweb.treegraph.graphics.export.GraphicWriter;
-import info.bioinfweb.treegraph.graphics.export.SVGTranscodeWriter;
+import info.bioinfweb.treegraph.graphics.positionpaint.TreePainter;
+import info.bioinfweb.commons.Math2;
+import info.bioinfweb.commons.collections.ParameterMap;
 
-import org.apache.batik.transcoder.svg2svg.SVGTranscoder;
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 
 
 
-public class SVGWriter extends SVGTranscodeWriter implements GraphicWriter {
-	public SVGWriter() {
-		super(SVGTranscoder.class);
+/**
+ * Writes a tree document as an SVG file. The elements are written to the stream while the tree is painted
+ * using {@link SVGStreamGraphics2D}.
+ * 
+ * @author Ben St&ouml;ver
+ */
+public class SVGWriter extends AbstractGraphicWriter implements GraphicWriter {
+	/**
+	 * Writes the given document to the given stream. The hints are interpreted as described in 
+	 * {@link info.bioinfweb.treegraph.graphics.export.SVGTranscodeWriter#write(Document, TreePainter, ParameterMap, OutputStream)}.
+	 * Additionally <code>KEY_TEXT_AS_SHAPES</code> determines whether text is written as paths.
+	 * 
+	 * @param document - the document to be exported 
+	 * @param painter - the painter to display the document
+	 * @param hints - the graphic writer hints to specify certain writing options
+	 * @param stream - the output stream to write the graphic to
+	 */
+	@Override
+	public void write(Document document, TreePainter painter, ParameterMap hints, OutputStream stream) 
+			throws Exception {
+		
+		ExportDimensions dimensions = new ExportDimensions(document, painter, hints);
+		Writer writer = new BufferedWriter(new OutputStreamWriter(stream, "UTF-8"));
+		try {
+			SVGStreamGraphics2D g = new SVGStreamGraphics2D(writer, hints.getBoolean(KEY_TEXT_AS_SHAPES, false));
+			g.startDocument(Math2.roundUp(dimensions.getWidth()), Math2.roundUp(dimensions.getHeight()), 
+					" Generated by TreeGraph " + Main.getInstance().getVersion().toString() + " <" + Main.TG_URL + "> ");
+			painter.paintTree(g, document, null, null, dimensions.getPaintResolution(), 
+					hints.getBoolean(KEY_TRANSPARENT, false));
+			g.endDocument();
+		}
+		finally {
+			writer.close();
+		}
 	}
 }
\ No newline at end of file
@@ -16,32 +16,117 @@
  * You should have received a copy of the GNU General Public License
  * along with this program. If not, see <http://www.gnu.org/licenses/>.
  */
-package info.bioinfweb.treegraph.graphics.export.tiff;
-
-
-import info.bioinfweb.treegraph.graphics.export.GraphicWriter;
-import info.bioinfweb.treegraph.graphics.export.SVGTranscodeWriter;
+package info.bioinfweb.treegraph.graphics.export.tiff;
+
+
+import info.bioinfweb.treegraph.graphics.export.GraphicWriter;
+import info.bioinfweb.treegraph.graphics.export.RasterImageWriter;
 import info.bioinfweb.commons.collections.ParameterMap;
-
-import org.apache.batik.transcoder.Transcoder;
-import org.apache.batik.transcoder.image.TIFFTranscoder;
-
-
-
-public class TIFFWriter extends SVGTranscodeWriter implements GraphicWriter {
-	public static final String KEY_TIFF_COMPRESSION_METHOD = "tiffCompressionMethod";
-	public static final String DEFAULT_COMPRESSION_METHOD = "none";
-
-	
-	public TIFFWriter() {
-		super(TIFFTranscoder.class);
-	}
-
-
-	@Override
-	protected void addTranscodingHints(Transcoder transcoder, ParameterMap writerHints) {
-		super.addTranscodingHints(transcoder, writerHints);
-		transcoder.addTranscodingHint(TIFFTranscoder.KEY_COMPRESSION_METHOD, 
-				writerHints.getString(KEY_TIFF_COMPRESSION_METHOD, DEFAULT_COMPRESSION_METHOD));
-	}
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.apache.batik.transcoder.TranscoderOutput;
+import org.apache.batik.transcoder.image.TIFFTranscoder;
+
+
+
+/**
+ * Writes TIFF images. If an image IO writer for TIFF is available (which is the case since Java 9) it is used
+ * to encode the image. Otherwise the codec of Batik is used.
+ * 
+ * @author Ben St&ouml;ver
+ */
+public class TIFFWriter extends RasterImageWriter implements GraphicWriter {
+	public static final String KEY_TIFF_COMPRESSION_METHOD = "tiffCompressionMethod";
+	public static final String DEFAULT_COMPRESSION_METHOD = "none";
+	public static final String FORMAT_NAME = "tiff";
+	
+
+	/**
+	 * Returns the name of the image IO compression type that corresponds to the specified compression method 
+	 * of Batik.
+	 * 
+	 * @param method - the compression method as it is specified by {@link #KEY_TIFF_COMPRESSION_METHOD}
+	 * @return the compression type or <code>null</code> if no compression shall be used
+	 */
+	static String getCompressionType(String method) {
+		if (method.equalsIgnoreCase("packbits")) {
+			return "PackBits";
+		}
+		else if (method.equalsIgnoreCase("jpeg")) {
+			return "JPEG";
+		}
+		else {
+			return null;
+		}
+	}
+	
+	
+	private static void writeImageIO(ImageWriter writer, BufferedImage image, String method, OutputStream stream) 
+			throws Exception {
+		
+		ImageWriteParam parameters = writer.getDefaultWriteParam();
+		String type = getCompressionType(method);
+		if (type == null) {
+			parameters.setCompressionMode(ImageWriteParam.MODE_DISABLED);
+		}
+		else {
+			parameters.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			parameters.setCompressionType(type);
+			if (type.equals("JPEG") && image.getColorModel().hasAlpha()) {  // JPEG compression does not support an alpha channel.
+				BufferedImage opaqueImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+				Graphics2D g = opaqueImage.createGraphics();
+				try {
+					g.drawImage(image, 0, 0, Color.WHITE, null);
+				}
+				finally {
+					g.dispose();
+				}
+				image = opaqueImage;
+			}
+		}
+		
+		ImageOutputStream imageStream = ImageIO.createImageOutputStream(stream);
+		try {
+			writer.setOutput(imageStream);
+			writer.write(null, new IIOImage(image, null, null), parameters);
+		}
+		finally {
+			imageStream.close();
+		}
+	}
+	
+	
+	@Override
+	protected void writeImage(BufferedImage image, ParameterMap hints, OutputStream stream) throws Exception {
+		String method = hints.getString(KEY_TIFF_COMPRESSION_METHOD, DEFAULT_COMPRESSION_METHOD);
+		Iterator<ImageWriter> iterator = ImageIO.getImageWritersByFormatName(FORMAT_NAME);
+		if (iterator.hasNext()) {
+			ImageWriter writer = iterator.next();
+			try {
+				writeImageIO(writer, image, method, stream);
+			}
+			finally {
+				writer.dispose();
+			}
+		}
+		else {
+			TIFFTranscoder transcoder = new TIFFTranscoder();
+			transcoder.addTranscodingHint(TIFFTranscoder.KEY_COMPRESSION_METHOD, method);
+			BufferedOutputStream bufferedStream = new BufferedOutputStream(stream);
+			transcoder.writeImage(image, new TranscoderOutput(bufferedStream));
+			bufferedStream.flush();
+		}
+	}
 }
\ No newline at end of file
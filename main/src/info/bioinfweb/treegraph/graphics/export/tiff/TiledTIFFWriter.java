@@ -0,0 +1,178 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.graphics.export.tiff;
+
+
+import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.graphics.export.AbstractGraphicWriter;
+import info.bioinfweb.treegraph.graphics.export.GraphicWriter;
+import info.bioinfweb.treegraph.graphics.export.TileRenderer;
+import info.bioinfweb.treegraph.graphics.export.TiledRenderedImage;
+import info.bioinfweb.treegraph.graphics.positionpaint.TreePainter;
+import info.bioinfweb.commons.collections.ParameterMap;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.apache.batik.ext.awt.image.codec.tiff.TIFFEncodeParam;
+import org.apache.batik.ext.awt.image.codec.tiff.TIFFImageEncoder;
+
+
+
+/**
+ * Writes a tiled TIFF image. The tiles are painted by several threads while the image is encoded (see 
+ * {@link TileRenderer} and {@link TiledRenderedImage}), so that the whole image is never held in memory. 
+ * <p>
+ * The hints supported by {@link TIFFWriter} and {@link TileRenderer} are used. JPEG compressed images are
+ * written without transparency. 
+ * <p>
+ * Classic TIFF files use 32 bit offsets and can therefore not be larger than 4 GB (see {@link #MAX_FILE_SIZE}).
+ * Uncompressed images whose pixel data would exceed this limit are rejected before any tile is painted. The
+ * size of compressed images depends on their content and is not checked in advance, so PackBits or JPEG 
+ * compression must be used for such large images.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class TiledTIFFWriter extends AbstractGraphicWriter implements GraphicWriter {
+	/** The number of tiles per thread that may be rendered in advance. */
+	public static final int PREFETCH_TILES_PER_THREAD = 2;
+	
+	/** The maximal number of bytes a classic TIFF file can contain, since it uses 32 bit offsets. */
+	public static final long MAX_FILE_SIZE = 0xFFFFFFFFL;
+	
+	
+	/**
+	 * Returns the number of bytes the pixel data of the tiles painted by the specified renderer occupies without
+	 * compression. (Tiles at the right and bottom border are padded to the full tile size in TIFF files.)
+	 * 
+	 * @param renderer - the renderer that paints the tiles of the image
+	 * @return the size of the uncompressed pixel data in bytes
+	 */
+	public static long getUncompressedSize(TileRenderer renderer) {
+		int bitsPerPixel = 0;
+		for (int sampleSize : new BufferedImage(1, 1, renderer.getImageType()).getSampleModel().getSampleSize()) {
+			bitsPerPixel += sampleSize;
+		}
+		return (long)renderer.getColumnCount() * renderer.getTileSize() * renderer.getRowCount() * 
+				renderer.getTileSize() * bitsPerPixel / 8;
+	}
+	
+	
+	private void writeImageIO(ImageWriter writer, TiledRenderedImage image, String type, OutputStream stream) 
+			throws Exception {
+		
+		ImageWriteParam parameters = writer.getDefaultWriteParam();
+		parameters.setTilingMode(ImageWriteParam.MODE_EXPLICIT);
+		parameters.setTiling(image.getTileWidth(), image.getTileHeight(), 0, 0);
+		if (type == null) {
+			parameters.setCompressionMode(ImageWriteParam.MODE_DISABLED);
+		}
+		else {
+			parameters.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			parameters.setCompressionType(type);
+		}
+		
+		ImageOutputStream imageStream = ImageIO.createImageOutputStream(stream);
+		try {
+			writer.setOutput(imageStream);
+			writer.write(null, new IIOImage(image, null, null), parameters);
+		}
+		finally {
+			imageStream.close();
+		}
+	}
+	
+	
+	private void writeBatik(TiledRenderedImage image, String type, OutputStream stream) throws Exception {
+		TIFFEncodeParam parameters = new TIFFEncodeParam();
+		parameters.setWriteTiled(true);
+		parameters.setTileSize(image.getTileWidth(), image.getTileHeight());
+		if ("PackBits".equals(type)) {
+			parameters.setCompression(TIFFEncodeParam.COMPRESSION_PACKBITS);
+		}
+		else if ("JPEG".equals(type)) {
+			parameters.setCompression(TIFFEncodeParam.COMPRESSION_JPEG_TTN2);
+		}
+		else {
+			parameters.setCompression(TIFFEncodeParam.COMPRESSION_NONE);
+		}
+		
+		BufferedOutputStream bufferedStream = new BufferedOutputStream(stream);
+		new TIFFImageEncoder(bufferedStream, parameters).encode(image);
+		bufferedStream.flush();
+	}
+	
+	
+	@Override
+	public void write(Document document, TreePainter painter, ParameterMap hints, OutputStream stream) 
+			throws Exception {
+		
+		String type = TIFFWriter.getCompressionType(
+				hints.getString(TIFFWriter.KEY_TIFF_COMPRESSION_METHOD, TIFFWriter.DEFAULT_COMPRESSION_METHOD));
+		int imageType = BufferedImage.TYPE_INT_ARGB;
+		if ("JPEG".equals(type)) {  // JPEG compression does not support an alpha channel.
+			ParameterMap opaqueHints = new ParameterMap();
+			opaqueHints.putAll(hints);
+			hints = opaqueHints;
+			hints.put(GraphicWriter.KEY_TRANSPARENT, false);
+			imageType = BufferedImage.TYPE_INT_RGB;
+		}
+		
+		TileRenderer renderer = new TileRenderer(document, painter, hints, imageType);
+		if ((type == null) && (getUncompressedSize(renderer) > MAX_FILE_SIZE)) {
+			throw new IOException("An uncompressed TIFF image of " + renderer.getWidth() + " x " + renderer.getHeight() + 
+					" pixels would be larger than 4 GB, which is not supported by the TIFF format. Use PackBits or JPEG " +
+					"compression or reduce the size or resolution of the image.");
+		}
+		ExecutorService executor = TileRenderer.createExecutor(hints);
+		TiledRenderedImage image = new TiledRenderedImage(renderer, executor, 
+				TileRenderer.getThreadCount(hints) * PREFETCH_TILES_PER_THREAD);
+		try {
+			Iterator<ImageWriter> iterator = ImageIO.getImageWritersByFormatName(TIFFWriter.FORMAT_NAME);
+			if (iterator.hasNext()) {
+				ImageWriter writer = iterator.next();
+				try {
+					writeImageIO(writer, image, type, stream);
+				}
+				finally {
+					writer.dispose();
+				}
+			}
+			else {
+				writeBatik(image, type, stream);
+			}
+		}
+		finally {
+			image.dispose();
+			executor.shutdownNow();
+		}
+		stream.close();
+	}
+}
@@ -24,7 +24,7 @@ public class PhylogramPainter extends RectangularCladogramPainter {
   private static PhylogramPainter firstInstance = null;
   
   
-	public static PhylogramPainter getInstance() {
+	public static synchronized PhylogramPainter getInstance() {
   	if (firstInstance == null) {
   		firstInstance = new PhylogramPainter();
   	}
@@ -20,6 +20,7 @@ package info.bioinfweb.treegraph.graphics.positionpaint;
 
 
 import info.bioinfweb.treegraph.document.Branch;
+import info.bioinfweb.treegraph.document.Document;
 import info.bioinfweb.treegraph.document.Node;
 import info.bioinfweb.treegraph.graphics.positionpaint.positiondata.PositionData;
 
@@ -35,7 +36,7 @@ public class PhylogramPositioner extends RectangularCladogramPositioner {
 	}
 
 
-	public static PhylogramPositioner getInstance() {
+	public static synchronized PhylogramPositioner getInstance() {
 		if (firstInstance == null) {
 			firstInstance = new PhylogramPositioner();
 		}
@@ -46,10 +47,10 @@ public class PhylogramPositioner extends RectangularCladogramPositioner {
 	/**
 	 * This method is overwritten to ensure that no corner radius in painted.
 	 * 
-	 * @see info.bioinfweb.treegraph.graphics.positionpaint.RectangularCladogramPositioner#rescaleNodeWidth(info.bioinfweb.treegraph.document.Node, float)
+	 * @see info.bioinfweb.treegraph.graphics.positionpaint.RectangularCladogramPositioner#rescaleNodeWidth(info.bioinfweb.treegraph.graphics.positionpaint.RectangularCladogramPositioner.PositionContext, info.bioinfweb.treegraph.document.Node, float)
 	 */
 	@Override
-	protected float rescaleNodeWidth(Node node, float width) {
+	protected float rescaleNodeWidth(PositionContext context, Node node, float width) {
 		if (node.isLeaf()) {
 			return width;
 		}
@@ -62,19 +63,20 @@ public class PhylogramPositioner extends RectangularCladogramPositioner {
 	/**
 	 * This method is overwritten to regard the stored branch lengths.
 	 * 
-	 * @see info.bioinfweb.treegraph.graphics.positionpaint.RectangularCladogramPositioner#rescaleBranchWidth(info.bioinfweb.treegraph.document.Branch, float)
+	 * @see info.bioinfweb.treegraph.graphics.positionpaint.RectangularCladogramPositioner#rescaleBranchWidth(info.bioinfweb.treegraph.graphics.positionpaint.RectangularCladogramPositioner.PositionContext, info.bioinfweb.treegraph.document.Branch, float)
 	 */
 	@Override
-	protected float rescaleBranchWidth(Branch branch, float width) {
+	protected float rescaleBranchWidth(PositionContext context, Branch branch, float width) {
 		if (branch.hasLength()) {
+			Document document = context.getDocument();
 			if (branch.getTargetNode().hasParent() || document.getTree().getFormats().getShowRooted()) {
 				float branchLength = (float)branch.getLength() * document.getTree().getFormats().getBranchLengthScale().getInMillimeters();
 		  	if (branch.getTargetNode().hasParent()) {
 		  		float nodeWidth = branch.getTargetNode().getParent().getPosition(type).getWidth().getInMillimeters();
-		  		return ((branchLength + nodeWidth) * rescalingFactorX - nodeWidth) - nodeWidth;
+		  		return ((branchLength + nodeWidth) * context.getRescalingFactorX() - nodeWidth) - nodeWidth;
 		  	}
 		  	else {
-		  		return branchLength * rescalingFactorX;  // Leave space to display labels if they use more space than the branch.
+		  		return branchLength * context.getRescalingFactorX();  // Leave space to display labels if they use more space than the branch.
 		  	}
 			}
 			else {
@@ -82,7 +84,7 @@ public class PhylogramPositioner extends RectangularCladogramPositioner {
 			}
 		}
 		else {
-			return super.rescaleBranchWidth(branch, width);
+			return super.rescaleBranchWidth(context, branch, width);
 		}
 	}
 
@@ -0,0 +1,277 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.graphics.positionpaint;
+
+
+import info.bioinfweb.commons.Math2;
+import info.bioinfweb.treegraph.document.AbstractPaintableElement;
+import info.bioinfweb.treegraph.graphics.positionpaint.positiondata.PositionData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+
+
+/**
+ * Spatial index of the rectangles of all positioned elements of a document, which allows to determine the 
+ * elements at a point or inside a rectangle without iterating over the whole tree.
+ * <p>
+ * The index is implemented as a static R-tree which is bulk loaded using the sort tile recursive algorithm, when 
+ * the first query is performed after elements have been added. The rectangles are copied when an element is added, 
+ * so the index has to be recreated whenever the document is positioned again. 
+ * <p>
+ * Each element has a priority which is defined by the order in which the elements have been added. All query 
+ * results are ordered by this priority.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class PositionIndex {
+	public static final int NODE_CAPACITY = 16;
+	
+	
+	private static class Bounds {
+		public float left = Float.POSITIVE_INFINITY;
+		public float top = Float.POSITIVE_INFINITY;
+		public float right = Float.NEGATIVE_INFINITY;
+		public float bottom = Float.NEGATIVE_INFINITY;
+		
+		
+		public void include(Bounds other) {
+			left = Math.min(left, other.left);
+			top = Math.min(top, other.top);
+			right = Math.max(right, other.right);
+			bottom = Math.max(bottom, other.bottom);
+		}
+		
+		
+		public float getCenterX() {
+			return 0.5f * (left + right);
+		}
+		
+		
+		public float getCenterY() {
+			return 0.5f * (top + bottom);
+		}
+		
+		
+		public boolean contains(float x, float y, float margin) {
+			return Math2.isBetween(x, left - margin, right + margin) && Math2.isBetween(y, top - margin, bottom + margin);
+		}
+		
+		
+		public boolean intersects(float left, float top, float right, float bottom) {
+			return (this.left <= right) && (this.right >= left) && (this.top <= bottom) && (this.bottom >= top);
+		}
+	}
+	
+	
+	private static class Entry extends Bounds {
+		public AbstractPaintableElement element;
+		public int rank;
+		
+		
+		public Entry(AbstractPaintableElement element, PositionData position, int rank) {
+			super();
+			this.element = element;
+			this.rank = rank;
+			left = position.getLeft().getInMillimeters();
+			top = position.getTop().getInMillimeters();
+			right = position.getRightInMillimeters();
+			bottom = position.getBottomInMillimeters();
+		}
+	}
+	
+	
+	private static class IndexNode extends Bounds {
+		public Bounds[] children;  // Contains instances of Entry in leaf nodes and instances of IndexNode otherwise.
+		
+		
+		public IndexNode(Bounds[] children) {
+			super();
+			this.children = children;
+			for (int i = 0; i < children.length; i++) {
+				include(children[i]);
+			}
+		}
+	}
+	
+	
+	private static final Comparator<Bounds> X_COMPARATOR = new Comparator<Bounds>() {
+		@Override
+		public int compare(Bounds b1, Bounds b2) {
+			return Float.compare(b1.getCenterX(), b2.getCenterX());
+		}
+	};
+	
+	
+	private static final Comparator<Bounds> Y_COMPARATOR = new Comparator<Bounds>() {
+		@Override
+		public int compare(Bounds b1, Bounds b2) {
+			return Float.compare(b1.getCenterY(), b2.getCenterY());
+		}
+	};
+	
+	
+	private static final Comparator<Entry> RANK_COMPARATOR = new Comparator<Entry>() {
+		@Override
+		public int compare(Entry e1, Entry e2) {
+			return e1.rank - e2.rank;
+		}
+	};
+	
+	
+	private List<Entry> entries = new ArrayList<Entry>();
+	private IndexNode root = null;
+	
+	
+	/**
+	 * Adds an element to this index. Elements that are added earlier have a higher priority.
+	 * 
+	 * @param element - the element to be added
+	 * @param position - the position of the element (The rectangle is copied.)
+	 */
+	public void add(AbstractPaintableElement element, PositionData position) {
+		entries.add(new Entry(element, position, entries.size()));
+		root = null;
+	}
+	
+	
+	/**
+	 * Returns the number of elements contained in this index.
+	 */
+	public int size() {
+		return entries.size();
+	}
+	
+	
+	private static IndexNode[] packLevel(Bounds[] level) {
+		int nodeCount = (level.length + NODE_CAPACITY - 1) / NODE_CAPACITY;
+		int sliceCount = (int)Math.ceil(Math.sqrt(nodeCount));
+		int sliceSize = sliceCount * NODE_CAPACITY;
+		
+		Arrays.sort(level, X_COMPARATOR);
+		List<IndexNode> result = new ArrayList<IndexNode>(nodeCount);
+		for (int sliceStart = 0; sliceStart < level.length; sliceStart += sliceSize) {
+			int sliceEnd = Math.min(sliceStart + sliceSize, level.length);
+			Arrays.sort(level, sliceStart, sliceEnd, Y_COMPARATOR);
+			for (int start = sliceStart; start < sliceEnd; start += NODE_CAPACITY) {
+				result.add(new IndexNode(Arrays.copyOfRange(level, start, Math.min(start + NODE_CAPACITY, sliceEnd))));
+			}
+		}
+		return result.toArray(new IndexNode[result.size()]);
+	}
+	
+	
+	private IndexNode getRoot() {
+		if ((root == null) && !entries.isEmpty()) {
+			Bounds[] level = entries.toArray(new Bounds[entries.size()]);
+			do {
+				level = packLevel(level);
+			} while (level.length > 1);
+			root = (IndexNode)level[0];
+		}
+		return root;
+	}
+	
+	
+	private static void searchPoint(IndexNode node, float x, float y, float margin, List<Entry> result) {
+		for (int i = 0; i < node.children.length; i++) {
+			Bounds child = node.children[i];
+			if (child.contains(x, y, margin)) {
+				if (child instanceof Entry) {
+					result.add((Entry)child);
+				}
+				else {
+					searchPoint((IndexNode)child, x, y, margin, result);
+				}
+			}
+		}
+	}
+	
+	
+	private static List<AbstractPaintableElement> toElementList(List<Entry> entries) {
+		Collections.sort(entries, RANK_COMPARATOR);
+		List<AbstractPaintableElement> result = new ArrayList<AbstractPaintableElement>(entries.size());
+		for (Entry entry : entries) {
+			result.add(entry.element);
+		}
+		return result;
+	}
+	
+	
+	/**
+	 * Returns all elements which contain the specified point.
+	 * 
+	 * @param x - the x-coordinate in millimeters
+	 * @param y - the y-coordinate in millimeters
+	 * @param margin - the distance in millimeters the point may be located outside of an element
+	 * @return a list of the elements ordered by their priority (which is empty if no element was found)
+	 * @see PositionData#contains(float, float, float)
+	 */
+	public List<AbstractPaintableElement> getElementsAt(float x, float y, float margin) {
+		List<Entry> result = new ArrayList<Entry>();
+		IndexNode root = getRoot();
+		if (root != null) {
+			searchPoint(root, x, y, margin, result);
+		}
+		return toElementList(result);
+	}
+	
+	
+	private static void searchRectangle(IndexNode node, float left, float top, float right, float bottom, 
+			List<Entry> result) {
+		
+		for (int i = 0; i < node.children.length; i++) {
+			Bounds child = node.children[i];
+			if (child.intersects(left, top, right, bottom)) {
+				if (child instanceof Entry) {
+					result.add((Entry)child);
+				}
+				else {
+					searchRectangle((IndexNode)child, left, top, right, bottom, result);
+				}
+			}
+		}
+	}
+	
+	
+	/**
+	 * Returns all elements which intersect the specified rectangle (e.g. to select all elements inside a rectangle
+	 * drawn with the mouse).
+	 * 
+	 * @param left - the left side of the rectangle in millimeters
+	 * @param top - the top side of the rectangle in millimeters
+	 * @param right - the right side of the rectangle in millimeters
+	 * @param bottom - the bottom side of the rectangle in millimeters
+	 * @return a list of the elements ordered by their priority (which is empty if no element was found)
+	 */
+	public List<AbstractPaintableElement> getElementsInRectangle(float left, float top, float right, float bottom) {
+		List<Entry> result = new ArrayList<Entry>();
+		IndexNode root = getRoot();
+		if (root != null) {
+			searchRectangle(root, Math.min(left, right), Math.min(top, bottom), Math.max(left, right), 
+					Math.max(top, bottom), result);
+		}
+		return toElementList(result);
+	}
+}
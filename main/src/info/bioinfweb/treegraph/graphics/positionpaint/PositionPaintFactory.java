@@ -33,7 +33,7 @@ public class PositionPaintFactory {
   }
   
   
-  public static PositionPaintFactory getInstance() {
+  public static synchronized PositionPaintFactory getInstance() {
   	if (firstInstance == null) {
   		firstInstance = new PositionPaintFactory();
   	}
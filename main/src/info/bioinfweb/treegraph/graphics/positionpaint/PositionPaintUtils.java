@@ -20,6 +20,10 @@ package info.bioinfweb.treegraph.graphics.positionpaint;
 
 
 import info.bioinfweb.commons.graphics.FontCalculator;
+import info.bioinfweb.treegraph.document.Branch;
+import info.bioinfweb.treegraph.document.Label;
+import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.PaintableElement;
 import info.bioinfweb.treegraph.document.TextElement;
 import info.bioinfweb.treegraph.document.format.DistanceDimension;
 import info.bioinfweb.treegraph.document.format.TextFormats;
@@ -47,6 +51,8 @@ public class PositionPaintUtils {
 	 * Calculates the Dimensions of this text element. The height is already defined in
 	 * by the provided formats and the width will calculated from the the text length scaled
 	 * with the provided height.
+	 * <p>
+	 * Formatted values and text widths are taken from {@link TextMetricsCache#getSharedInstance()}.
 	 * 
 	 * @param textElement the text element for which the dimensions shall be calculated
 	 * @return the dimensions of the element not including optional margins
@@ -55,17 +61,60 @@ public class PositionPaintUtils {
 		DistanceDimension result = new DistanceDimension();
 		
 		TextFormats formats = textElement.getFormats();
-		String text = textElement.getData().formatValue(formats.getDecimalFormat());
+		TextMetricsCache cache = TextMetricsCache.getSharedInstance();
+		String text = cache.formatValue(textElement.getData(), formats.getDecimalFormat());
 		float height = formats.getTextHeight().getInMillimeters();
 		result.getHeight().setInMillimeters(height);
 		result.getWidth().setInMillimeters(
-			  FontCalculator.getInstance().getTextWidthToTextHeigth(formats.getFontName(), 
+			  cache.getTextWidthToTextHeight(formats.getFontName(), 
 			  		formats.getTextStyle() & ~TextFormats.UNDERLINE, text, height));
 		
 		return result;
 	}
 	
 	
+	private static void setDirty(Node node) {
+		for (PositionPaintType type : PositionPaintType.values()) {
+			node.getPosition(type).setDirty(true);
+		}
+	}
+	
+	
+	/**
+	 * Marks the positioning data of the node the specified element belongs to and of all its ancestors as dirty for
+	 * all positioner types. Branches belong to their target nodes and labels to the target nodes of their holding 
+	 * branches. The children of a changed node are marked as well, since the heights of their branches depend on the 
+	 * formats of the node. Other elements are ignored, because legends and the scale bar are always positioned again.
+	 * 
+	 * @param element - the element that was changed
+	 * @since 2.16.0
+	 * @see TreePositioner#positionChanged(info.bioinfweb.treegraph.document.Document, float)
+	 */
+	public static void markDirty(PaintableElement element) {
+		Node node = null;
+		if (element instanceof Node) {
+			node = (Node)element;
+			for (Node child : node.getChildren()) {
+				setDirty(child);
+			}
+		}
+		else if (element instanceof Branch) {
+			node = ((Branch)element).getTargetNode();
+		}
+		else if (element instanceof Label) {
+			Branch branch = ((Label)element).getHoldingBranch();
+			if (branch != null) {
+				node = branch.getTargetNode();
+			}
+		}
+		
+		while (node != null) {
+			setDirty(node);
+			node = node.getParent();
+		}
+	}
+	
+	
 	public static float paintText(Graphics2D g, float pixelsPerMillimeter, String text, TextFormats f, float x, float y) {
 		Font font = f.getFont(pixelsPerMillimeter);
 		g.setColor(f.getTextColor());
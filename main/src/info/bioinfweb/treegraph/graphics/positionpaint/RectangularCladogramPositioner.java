@@ -42,23 +42,99 @@ import info.bioinfweb.treegraph.graphics.positionpaint.label.LabelPainterMap;
 import info.bioinfweb.treegraph.graphics.positionpaint.positiondata.LegendPositionData;
 import info.bioinfweb.treegraph.graphics.positionpaint.positiondata.NodePositionData;
 import info.bioinfweb.treegraph.graphics.positionpaint.positiondata.PositionData;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 
 
+/**
+ * Positions the document in the rectangular cladogram view.
+ * <p>
+ * Instances of this class do not store any state of a call of {@link #positionAll(Document, float)} in fields.
+ * The state of each call is kept in a {@link PositionContext} instead, so that a shared instance can position 
+ * different documents in different threads at the same time. 
+ * <p>
+ * The extents of each subtree are cached in the {@link NodePositionData} of its root. After single elements have 
+ * been changed, {@link #positionChanged(Document, float)} only recalculates the data of the nodes marked as dirty and
+ * moves all unchanged subtrees to their new positions. 
+ * 
+ * @author Ben St&ouml;ver
+ */
 public class RectangularCladogramPositioner implements TreePositioner {
 	private static RectangularCladogramPositioner firstInstance = null;
 	
 	
 	protected PositionPaintType type = PositionPaintFactory.getInstance().getType(this);
-	protected Document document;
-	private float maxLeafWidth = 0;  // Notwendig zur linksbündigen Positionierung der Blätter (wären sonst rechtsbündig)
-	protected float rescalingFactorX = 1f;
+	
+	
+	/**
+	 * Stores the state of a single call of {@link RectangularCladogramPositioner#positionAll(Document, float)} or
+	 * {@link RectangularCladogramPositioner#positionChanged(Document, float)}.
+	 * 
+	 * @author Ben St&ouml;ver
+	 * @since 2.16.0
+	 */
+	protected static class PositionContext {
+		private Document document;
+		private float rescalingFactorX;
+		private TreeLayout previousLayout;
+		private Map<Node, PositionData> unchangedSubtrees = new HashMap<Node, PositionData>();  // Contains the previous positions of the roots of all subtrees that are only moved.
+		private float offsetX = 0;
+		private float offsetY = 0;
+		
+		
+		public PositionContext(Document document, float rescalingFactorX) {
+			this(document, rescalingFactorX, null);
+		}
+		
+		
+		/**
+		 * Creates a new instance of this class.
+		 * 
+		 * @param document - the document to be positioned
+		 * @param rescalingFactorX - the factor by which the widths of the branches are rescaled
+		 * @param previousLayout - the layout of the last positioning of the document, if only the dirty nodes shall be 
+		 *        positioned again, or {@code null} if all elements shall be positioned
+		 */
+		public PositionContext(Document document, float rescalingFactorX, TreeLayout previousLayout) {
+			super();
+			this.document = document;
+			this.rescalingFactorX = rescalingFactorX;
+			this.previousLayout = previousLayout;
+		}
+
+
+		/**
+		 * Returns the document that is currently positioned.
+		 */
+		public Document getDocument() {
+			return document;
+		}
+
+
+		/**
+		 * Returns the factor by which the widths of the branches are rescaled.
+		 */
+		public float getRescalingFactorX() {
+			return rescalingFactorX;
+		}
+		
+		
+		/**
+		 * Determines whether only the nodes marked as dirty are positioned again.
+		 */
+		public boolean isIncremental() {
+			return previousLayout != null;
+		}
+	}
 	
 	
 	protected RectangularCladogramPositioner() {}
 	
 	
-	public static RectangularCladogramPositioner getInstance() {
+	public static synchronized RectangularCladogramPositioner getInstance() {
 		if (firstInstance == null) {
 			firstInstance = new RectangularCladogramPositioner();
 		}
@@ -147,9 +223,39 @@ public class RectangularCladogramPositioner implements TreePositioner {
 	}
 	
 	
-	private float calculateWidthsHeights(Node root) {
+	/**
+	 * Restores the widths and x-positions of an unchanged node and its afferent branch as they were calculated by 
+	 * {@link #calculateWidthsHeights(PositionContext, Node)} during the last positioning. The current position of 
+	 * the node is stored in the context to move the descendants later on.
+	 * 
+	 * @return the width of the subtree including the afferent branch
+	 */
+	private float restoreInitialWidths(PositionContext context, Node root) {
+		NodePositionData pd = root.getPosition(type);
+		PositionData oldPosition = new PositionData();
+		oldPosition.assignPositionData(pd);
+		context.unchangedSubtrees.put(root, oldPosition);
+		
+		pd.getLeft().setInMillimeters(pd.getInitialLeft());
+		pd.getWidth().setInMillimeters(pd.getInitialWidth());
+		float result = -pd.getInitialLeft();
+		if (root.hasAfferentBranch()) {
+			PositionData branchPD = root.getAfferentBranch().getPosition(type);
+			branchPD.getLeft().setInMillimeters(pd.getInitialBranchLeft());
+			branchPD.getWidth().setInMillimeters(pd.getInitialBranchWidth());
+			result = -pd.getInitialBranchLeft();
+		}
+		return result;
+	}
+	
+	
+	private float calculateWidthsHeights(PositionContext context, Node root) {
+	  NodePositionData pd = root.getPosition(type);
+	  if (context.isIncremental() && !pd.isDirty()) {
+	  	return restoreInitialWidths(context, root);
+	  }
+	  
 	  float result = 0;  // breite = 0;
-	  NodePositionData pd = root.getPosition(type);
 	  pd.setHeightAbove(0);  // wurzel.h�heOben = 0;
 	  pd.setHeightBelow(0);  // wurzel.h�heUnten = 0;
 	  float branchHeight = 0;
@@ -174,19 +280,19 @@ public class RectangularCladogramPositioner implements TreePositioner {
 	  
 		DistanceDimension d = calculateTaxonDimension(root);
 	  if (root.getChildren().size() > 0) {  // wenn (Anzahl(Unter�ste) > 0) dann
-	    result = Math.max(result, calculateWidthsHeights(root.getChildren().get(0)));  // breite = max(breite, Schritt1(wurzel.ersterUnterknoten));
+	    result = Math.max(result, calculateWidthsHeights(context, root.getChildren().get(0)));  // breite = max(breite, Schritt1(wurzel.ersterUnterknoten));
 	    Node subnode = root.getChildren().get(0);
 	    pd.setDifAbove(subnode.getPosition(type).getHeightAbove());  // wurzel.difOben = wurzel.ersterUnterast.h�heOben;
 	    if (root.getChildren().size() > 1) {  // wenn (Anzahl(Unter�ste) > 1) dann
 	      pd.getHeight().setInMillimeters(subnode.getPosition(type).getHeightBelow()); // wurzel.h�he = wurzel.ersterUnterast.h�heUnten;
 	      for (int i = 1; i <= root.getChildren().size() - 2; i++) {  // f�r alle Unter�ste zwischen 1 und n-2  // wird ggf. gar nicht durchlaufen
 	        subnode = root.getChildren().get(i);
-					result = Math.max(result, calculateWidthsHeights(subnode));  // breite = max(breite, Schritt1(wurzel.unterknoten[i]));
+					result = Math.max(result, calculateWidthsHeights(context, subnode));  // breite = max(breite, Schritt1(wurzel.unterknoten[i]));
 	        pd.getHeight().add(subnode.getPosition(type).getHeightAbove() + root.getChildren().get(i).getPosition(type).getHeightBelow()); // wurzel.h�he += wurzel.unterast[i].h�heOben + wurzel.unterast[i].h�heUnten;
 				}  // f�r_ende
 			
         subnode = root.getChildren().get(root.getChildren().size() - 1);
-	      result = Math.max(result, calculateWidthsHeights(subnode));  // breite = max(breite, Schritt1(wurzel.letzterUnterknoten));
+	      result = Math.max(result, calculateWidthsHeights(context, subnode));  // breite = max(breite, Schritt1(wurzel.letzterUnterknoten));
 	      pd.getHeight().add(subnode.getPosition(type).getHeightAbove());  // wurzel.h�he += wurzel.letzterUnterast.h�heOben;
 	    }
 	    else {  // sonst
@@ -219,13 +325,21 @@ public class RectangularCladogramPositioner implements TreePositioner {
     
 	  if (root.isLeaf()) {  // wenn (wurzel ist Blatt) dann
 	    pd.getWidth().assign(d.getWidth());  // wurzel.breite = (Breite von Wurzel als Blatt bestimmen)
-	    maxLeafWidth = Math.max(maxLeafWidth, pd.getWidth().getInMillimeters());
+	    pd.setMaxLeafWidth(pd.getWidth().getInMillimeters());  // Notwendig zur linksbündigen Positionierung der Blätter (wären sonst rechtsbündig)
 	  }
 	  else {  // sonst
 	    pd.getWidth().setInMillimeters(Math.min(root.getFormats().getCornerRadius().getInMillimeters() + root.getFormats().getLineWidth().getInMillimeters(), 0.5f * root.getPosition(type).getHeight().getInMillimeters()));  // wurzel.breite = (Breite von Wurzel als innerer Knoten bestimmen, dh. Liniendicke + REALER cornerRadius) 
 		  result += pd.getWidth().getInMillimeters();  // breite = breite + wurzel.breite;
+		  
+		  float maxLeafWidth = 0;
+		  for (Node child : root.getChildren()) {
+		  	maxLeafWidth = Math.max(maxLeafWidth, child.getPosition(type).getMaxLeafWidth());
+		  }
+		  pd.setMaxLeafWidth(maxLeafWidth);
 	  }  // wenn_ende
 	  pd.getLeft().setInMillimeters(-result);  // wurzel.x = -breite;
+	  pd.setInitialLeft(pd.getLeft().getInMillimeters());
+	  pd.setInitialWidth(pd.getWidth().getInMillimeters());
 
 	  if (root.hasAfferentBranch()) {  // wenn (zuf�hrender Ast vorhanden) dann
 	    //  (Breiten der Labels des zuf�hrenden Asts bestimmen);  // bereits oben erfolgt
@@ -234,13 +348,16 @@ public class RectangularCladogramPositioner implements TreePositioner {
 	    		Math.max(labelBlockWidth(b.getLabels()), b.getFormats().getMinLength().getInMillimeters()));  // ast.breite = max(labels.blockWidth, minBranchWidth);  // Hier ggf. gespeicherte Astl�nge ber�cksichtigen.
 	    result += b.getPosition(type).getWidth().getInMillimeters();  // breite = breite + ast.breite;
 	    b.getPosition(type).getLeft().setInMillimeters(-result);  // ast.x = -breite;
+	    pd.setInitialBranchLeft(b.getPosition(type).getLeft().getInMillimeters());
+	    pd.setInitialBranchWidth(b.getPosition(type).getWidth().getInMillimeters());
 	  }  // wenn_ende
 
+	  pd.setDirty(false);
 	  return result;  // rückgabe breite;
 	}
 	
 	
-	private void positionLabelBlockX(Branch branch, boolean above) {
+	private void positionLabelBlockX(Document document, Branch branch, boolean above) {
 		for (int lineNo = 0; lineNo < branch.getLabels().lineCount(above); lineNo++) {
 			float lengthDif = branch.getPosition(type).getWidth().getInMillimeters() -
 	        labelLineWidth(branch.getLabels(), above, lineNo);
@@ -340,14 +457,17 @@ public class RectangularCladogramPositioner implements TreePositioner {
 	
 	
 	/**
-	 * Positions the subtree under root. (Widths ans heights must have been calculated already.)
+	 * Positions the subtree under root. (Widths ans heights must have been calculated already.) The descendants of 
+	 * unchanged nodes are not positioned during an incremental positioning.
 	 * 
+	 * @param context the state of the current positioning process
 	 * @param root the root of the subtree to position
 	 * @param overallWidth
 	 * @param y0 the start of the subtree on y
 	 * @return the y coodinates untl which the positiones subtree reaches
 	 */
-	private float positionElements(Node root, float overallWidth, float y0) {
+	private float positionElements(PositionContext context, Node root, float overallWidth, float y0) {
+		Document document = context.getDocument();
 		NodePositionData pd = root.getPosition(type);
 	  pd.getLeft().add(overallWidth);  // wurzel.x += gesamtbreite;
 	
@@ -361,20 +481,20 @@ public class RectangularCladogramPositioner implements TreePositioner {
 		    branchPos.getWidth().add(-cornerRadiusShift);  // -cornerRadiusShift ist positiv
 	    }
 
-	    positionLabelBlockX(root.getAfferentBranch(), true);  // (x-Positionen der Labels in Abhängigkeit von unterast.x und zentriert über unterast.breite bestimmen);
-	    positionLabelBlockX(root.getAfferentBranch(), false);
+	    positionLabelBlockX(document, root.getAfferentBranch(), true);  // (x-Positionen der Labels in Abhängigkeit von unterast.x und zentriert über unterast.breite bestimmen);
+	    positionLabelBlockX(document, root.getAfferentBranch(), false);
 	    positionLabelBlockY(root.getAfferentBranch());  // (Labels von wurzel.elternast ebenfalls entsprechendes y zuweisen);
 	  }  // wenn_ende
 	  pd.getTop().setInMillimeters(y0 + pd.getDifAbove());  // wurzel.y = y0 + wuzel.difOben;  // Knoten.y ist oben und nicht in der Mitte des Knotens!
 	
-	  if (!root.isLeaf()) {  //wenn (wurzel hat unterknoten) dann
+	  if (!root.isLeaf() && !context.unchangedSubtrees.containsKey(root)) {  //wenn (wurzel hat unterknoten) dann
 	  	float currentY0 = y0 + pd.getDifAbove() - root.getChildren().get(0).getPosition(type).getHeightAbove();  // aktY0 = y0 + wurzel.difOben - wurzel.ersterUnterast.höheOben
 	    float newX = pd.getLeft().getInMillimeters() + pd.getWidth().getInMillimeters();  // neuesX = wurzel.x + wurzel.breite;
 		  for (int i = 0; i < root.getChildren().size(); i++) {  // für alle Unteräste bzw. Unterknoten von wurzel
 		    PositionData childPD = root.getChildren().get(i).getAfferentBranch().getPosition(type);  
 		    childPD.getWidth().add(childPD.getLeft().getInMillimeters() + overallWidth - newX);  // ast.breite = ast.breite + ((ast.x + gesamtbreite) - neuesX);  // ! alteBreite <= neueBreite
 		    childPD.getLeft().setInMillimeters(newX);  // ast.x = neuesX;
-		    currentY0 = positionElements(root.getChildren().get(i), overallWidth, currentY0);  // aktY0 = Schritt2(unterknoten, gesamtbreite, aktY0);
+		    currentY0 = positionElements(context, root.getChildren().get(i), overallWidth, currentY0);  // aktY0 = Schritt2(unterknoten, gesamtbreite, aktY0);
 			}  // für_ende
 	  }  // wenn_ende
 	
@@ -382,7 +502,7 @@ public class RectangularCladogramPositioner implements TreePositioner {
 	}
 	
 	
-  protected void calculatePaintDimension(float overallWidth, float overallHeight) {
+  protected void calculatePaintDimension(Document document, float overallWidth, float overallHeight) {
   	GlobalFormats gf = document.getTree().getFormats();
     document.getTree().getPaintDimension(type).getWidth().setInMillimeters(
 				gf.getDocumentMargin().getLeft().getInMillimeters() + 
@@ -399,11 +519,12 @@ public class RectangularCladogramPositioner implements TreePositioner {
   /**
    * This methode can be overwritten by extending classes to define a different rescaling
    * process. It could e.g. be used to reduce the corner radius of a node
+   * @param context - the state of the current positioning process
    * @param node - the node to be rescaled
    * @param width - the old width of the node in millimeters
    * @return the new width of the node in millimeters
    */
-  protected float rescaleNodeWidth(Node node, float width) {
+  protected float rescaleNodeWidth(PositionContext context, Node node, float width) {
   	return width;
   }
   
@@ -412,17 +533,18 @@ public class RectangularCladogramPositioner implements TreePositioner {
    * This methode can be overwritten by extending classes to define a different rescaling
    * process.
    * 
+   * @param context the state of the current positioning process
    * @param branch the branch to be rescaled 
    * @param width the old width of the branch in millimeters 
    * @return the new width of the branch in millimeters
    */
-  protected float rescaleBranchWidth(Branch branch, float width) {
+  protected float rescaleBranchWidth(PositionContext context, Branch branch, float width) {
   	if (branch.getTargetNode().hasParent()) {
   		float nodeWidth = branch.getTargetNode().getParent().getPosition(type).getWidth().getInMillimeters();
-  		return (width + nodeWidth) * rescalingFactorX - nodeWidth;
+  		return (width + nodeWidth) * context.getRescalingFactorX() - nodeWidth;
   	}
   	else {
-  		return width * rescalingFactorX;
+  		return width * context.getRescalingFactorX();
   	}
   }
   
@@ -430,39 +552,48 @@ public class RectangularCladogramPositioner implements TreePositioner {
 	/**
 	 * Rescales the subtree under root.
 	 * 
+	 * @param context
 	 * @param root
 	 * @param shift
 	 * @return the maximal y cooronate for the end of a branch
 	 */
-	private float rescaleSubtree(Node root, float shift) {
+	private float rescaleSubtree(PositionContext context, Node root, float shift) {
 		if (root.hasAfferentBranch()) {
 			PositionData branchPD = root.getAfferentBranch().getPosition(type);
 			branchPD.getLeft().add(shift);
 			
 			float oldWidth = branchPD.getWidth().getInMillimeters();
-			float newWidth = rescaleBranchWidth(root.getAfferentBranch(), oldWidth);
+			float newWidth = rescaleBranchWidth(context, root.getAfferentBranch(), oldWidth);
 			branchPD.getWidth().setInMillimeters(newWidth);
-			positionLabelBlockX(root.getAfferentBranch(), true);
-			positionLabelBlockX(root.getAfferentBranch(), false);
+			positionLabelBlockX(context.getDocument(), root.getAfferentBranch(), true);
+			positionLabelBlockX(context.getDocument(), root.getAfferentBranch(), false);
 			shift += newWidth - oldWidth;
 		}
-		PositionData nodePD = root.getPosition(type); 
+		NodePositionData nodePD = root.getPosition(type); 
 		nodePD.getLeft().add(shift);
 
 		float oldWidth = nodePD.getWidth().getInMillimeters();
-		float newWidth = rescaleNodeWidth(root, oldWidth);
+		float newWidth = rescaleNodeWidth(context, root, oldWidth);
 		nodePD.getWidth().setInMillimeters(newWidth);
 		shift += newWidth - oldWidth;
 		
 		float maxWidth = root.getAfferentBranch().getPosition(type).getRightInMillimeters();
-		for (int i = 0; i < root.getChildren().size(); i++) {
-			maxWidth = Math.max(maxWidth, rescaleSubtree(root.getChildren().get(i), shift));
+		if (context.unchangedSubtrees.containsKey(root)) {  // The descendants are only moved later on.
+			maxWidth = Math.max(maxWidth, nodePD.getLeft().getInMillimeters() + nodePD.getDescendantsRightOffset());
+		}
+		else {
+			float descendantsRight = Float.NEGATIVE_INFINITY;
+			for (int i = 0; i < root.getChildren().size(); i++) {
+				descendantsRight = Math.max(descendantsRight, rescaleSubtree(context, root.getChildren().get(i), shift));
+			}
+			nodePD.setDescendantsRightOffset(descendantsRight - nodePD.getLeft().getInMillimeters());
+			maxWidth = Math.max(maxWidth, descendantsRight);
 		}
 		return maxWidth;
 	}
 	
 	
-	private float getLegendStartX(LegendFormats f, float treeRight) {
+	private float getLegendStartX(Document document, LegendFormats f, float treeRight) {
 		if (document.getTree().getFormats().getAlignLegendsToSubtree()) {
 			f.sortAnchors(type);
 			Node lowerAnchor = f.getAnchor(1);
@@ -528,7 +659,7 @@ public class RectangularCladogramPositioner implements TreePositioner {
 	 * @return the right border of the legends sector (= new width of the document without 
 	 * margin) 
 	 */
-	private float positionLegends(float startX) {
+	private float positionLegends(Document document, float startX) {
 		float result = startX;
 		Legends legends = document.getTree().getLegends();
 		
@@ -577,7 +708,7 @@ public class RectangularCladogramPositioner implements TreePositioner {
 				// Calculation of left:
 				top -= m.getTop().getInMillimeters();
 				bottom += m.getBottom().getInMillimeters(); 
-				positionLeft = Math.max(positionLeft, getLegendStartX(f, startX) + m.getLeft().getInMillimeters() + 
+				positionLeft = Math.max(positionLeft, getLegendStartX(document, f, startX) + m.getLeft().getInMillimeters() + 
 				    f.getMinTreeDistance().getInMillimeters());
 				positionLeft = alignToOtherLegends(legends, 0, positionIndexStart - 1, positionLeft, top, bottom);
 				
@@ -625,7 +756,7 @@ public class RectangularCladogramPositioner implements TreePositioner {
 	 * @param maxTreeY - the end of the tree positioned above on y
 	 * @return the end of the scale bar on y
 	 */
-	private float positionScaleBar(float treeWidth, float maxTreeY) {
+	private float positionScaleBar(Document document, float treeWidth, float maxTreeY) {
 		ScaleBar scaleBar = document.getTree().getScaleBar();
 		if (scaleBar == null) {
 			return maxTreeY;
@@ -681,22 +812,52 @@ public class RectangularCladogramPositioner implements TreePositioner {
 	}
   
   
-  private void moveSubtree(Node root, float dX, float dY) {
-		if (root.hasAfferentBranch()) {
-			Branch b = root.getAfferentBranch();
+  private void moveNode(Node node, float dX, float dY) {
+		if (node.hasAfferentBranch()) {
+			Branch b = node.getAfferentBranch();
 			movePosition(b.getPosition(type), dX, dY);
 			moveLabels(b.getLabels(), true, dX, dY);
 			moveLabels(b.getLabels(), false, dX, dY);
 		}
-		movePosition(root.getPosition(type), dX, dY);
-		
+		movePosition(node.getPosition(type), dX, dY);
+  }
+  
+  
+  private void moveSubtree(Node root, float dX, float dY) {
+  	moveNode(root, dX, dY);
 		for (int i = 0; i < root.getChildren().size(); i++) {
 			moveSubtree(root.getChildren().get(i), dX, dY);
 		}
 	}
+  
+  
+  /**
+   * Moves all elements that have been positioned again during an incremental positioning by the specified distance.
+   * The descendants of unchanged nodes are moved by the distance between the new and the previous position of 
+   * these nodes.
+   */
+  private void moveChangedSubtree(PositionContext context, Node root, float dX, float dY) {
+  	moveNode(root, dX, dY);
+  	PositionData oldPosition = context.unchangedSubtrees.get(root);
+  	if (oldPosition == null) {
+			for (int i = 0; i < root.getChildren().size(); i++) {
+				moveChangedSubtree(context, root.getChildren().get(i), dX, dY);
+			}
+  	}
+  	else {
+  		PositionData pd = root.getPosition(type);
+  		float subtreeDX = pd.getLeft().getInMillimeters() - oldPosition.getLeft().getInMillimeters();
+  		float subtreeDY = pd.getTop().getInMillimeters() - oldPosition.getTop().getInMillimeters();
+  		if ((subtreeDX != 0f) || (subtreeDY != 0f)) {
+				for (int i = 0; i < root.getChildren().size(); i++) {
+					moveSubtree(root.getChildren().get(i), subtreeDX, subtreeDY);
+				}
+  		}
+  	}
+  }
   
   
-  private void moveAll(float dX, float dY) {
+  private void moveAll(Document document, float dX, float dY) {
   	if (!document.getTree().isEmpty()) {
   		moveSubtree(document.getTree().getPaintStart(), dX, dY);
   	}
@@ -719,7 +880,7 @@ public class RectangularCladogramPositioner implements TreePositioner {
    * but carries labels or if the branch is shorter than the space its labels consume. (The latter is only relevant for
    * {@link PhylogramPositioner}, but is already implemented here automatically.)
    */
-  private float invisibleRootBranchOffset() {
+  private float invisibleRootBranchOffset(Document document) {
 		Branch rootBranch = document.getTree().getPaintStart().getAfferentBranch();
 	  return Math.max(0f, labelBlockWidth(rootBranch.getLabels()) - rootBranch.getPosition(type).getWidth().getInMillimeters());
   }
@@ -728,11 +889,15 @@ public class RectangularCladogramPositioner implements TreePositioner {
   /**
    * Moves the tree down by the legends overlay on the top and calculates the new document 
    * height including the possible overlay of the legends. Additionaly the tree is moves
-   * to the left according to the document margin and the return value of {@link #invisibleRootBranchOffset()}.
+   * to the left according to the document margin and the return value of {@link #invisibleRootBranchOffset(Document)}.
+   * <p>
+   * All elements are expected to be already moved by the offsets stored in the context, which are replaced by the 
+   * new offsets.
    * 
    * @return the new overall height of the document (without document margin)
    */
-  private float moveForLegends() {
+  private float moveForLegends(PositionContext context) {
+  	Document document = context.getDocument();
   	Margin m = document.getTree().getFormats().getDocumentMargin();
   	float top = m.getTop().getInMillimeters();
   	float bottom = 0f;
@@ -740,11 +905,16 @@ public class RectangularCladogramPositioner implements TreePositioner {
   	Legends legends = document.getTree().getLegends();
   	for (int i = 0; i < legends.size(); i++) {
 			LegendPositionData pd = legends.get(i).getPosition(type);
-			top = Math.min(top, pd.getTop().getInMillimeters());
-			bottom = Math.max(bottom, pd.getBottomInMillimeters());
+			top = Math.min(top, pd.getTop().getInMillimeters() - context.offsetY);
+			bottom = Math.max(bottom, pd.getBottomInMillimeters() - context.offsetY);
 		}
   	float dTop = m.getTop().getInMillimeters() - top;
-  	moveAll(document.getTree().getFormats().getDocumentMargin().getLeft().getInMillimeters() + invisibleRootBranchOffset(), dTop);
+  	float dLeft = m.getLeft().getInMillimeters() + invisibleRootBranchOffset(document);
+  	if ((dLeft != context.offsetX) || (dTop != context.offsetY)) {
+  		moveAll(document, dLeft - context.offsetX, dTop - context.offsetY);
+  	}
+  	context.offsetX = dLeft;
+  	context.offsetY = dTop;
   	
   	NodePositionData pd = document.getTree().getPaintStart().getPosition(type);
   	float treeHeight = pd.getHeightAbove() + pd.getHeightBelow();
@@ -752,37 +922,41 @@ public class RectangularCladogramPositioner implements TreePositioner {
   }
 	
 	
-	public void positionAll(Document document, float rescalingFactorX) {
-		this.document = document;
-		this.rescalingFactorX = rescalingFactorX;
-		maxLeafWidth = 0;
-		
+	private void position(PositionContext context) {
+		Document document = context.getDocument();
 	  if (!document.getTree().isEmpty()) {
 	  	// Position tree:
-			float overallWidth = calculateWidthsHeights(document.getTree().getPaintStart()); // gesamtbreite = Schritt1(Zeichenausgangspunkt);
-	    Branch rootBranch = document.getTree().getPaintStart().getAfferentBranch(); 
+	  	Node paintStart = document.getTree().getPaintStart();
+			float overallWidth = calculateWidthsHeights(context, paintStart); // gesamtbreite = Schritt1(Zeichenausgangspunkt);
+	    Branch rootBranch = paintStart.getAfferentBranch(); 
 	    if ((rootBranch != null) && !document.getTree().getFormats().getShowRooted()) {
     		overallWidth -= rootBranch.getPosition(type).getWidth().getInMillimeters();
 	    	rootBranch.getPosition(type).getWidth().setInMillimeters(0f);
 	    	//overallWidth += labelBlockWidth(rootBranch.getLabels());  // Add width of root label block, which will still need space, even if the branch is not visible.
 	    }
-	    float overallHeight = positionElements(document.getTree().getPaintStart(), overallWidth, 
+	    float overallHeight = positionElements(context, paintStart, overallWidth, 
 	    		document.getTree().getFormats().getDocumentMargin().getTop().getInMillimeters());  // Schritt2(Zeichenausgangspunkt, gesamtbreite1, DocumentMargin.Top);
 	    if (rootBranch != null) {
 	    	rootBranch.getPosition(type).getLeft().setInMillimeters(0f);  // Baum wird nachher um DocumentMargin verschoben
 	    }
-	    overallWidth = rescaleSubtree(document.getTree().getPaintStart(), 0);
+	    overallWidth = rescaleSubtree(context, paintStart, 0);
+	    if (context.isIncremental()) {  // Unchanged subtrees still have the offsets of the previous layout.
+	    	context.offsetX = context.previousLayout.getOffsetX();
+	    	context.offsetY = context.previousLayout.getOffsetY();
+	    	moveChangedSubtree(context, paintStart, context.offsetX, context.offsetY);
+	    }
 	    
 	    // Position scale bar:
-	    float newHeight = positionScaleBar(overallWidth, overallHeight);
-	    overallWidth += maxLeafWidth;
+	    float newHeight = positionScaleBar(document, overallWidth, overallHeight);
+	    overallWidth += paintStart.getPosition(type).getMaxLeafWidth();
 	    if (document.getTree().getFormats().getShowScaleBar()) {
 	    	overallHeight = newHeight; 
+	    	movePosition(document.getTree().getScaleBar().getPosition(type), context.offsetX, context.offsetY);
 	    }
 	    
 	    // Position legends:
-	    overallWidth = positionLegends(overallWidth);
-	    overallHeight = Math.max(overallHeight, moveForLegends());
+	    overallWidth = positionLegends(document, overallWidth + context.offsetX) - context.offsetX;
+	    overallHeight = Math.max(overallHeight, moveForLegends(context));
 	    
 	  	// Add possible space for root labels:
 	  	if ((rootBranch != null) && !rootBranch.getLabels().isEmpty()) {
@@ -790,82 +964,150 @@ public class RectangularCladogramPositioner implements TreePositioner {
 	  		overallWidth += Math.max(rootBranchWidth, labelBlockWidth(rootBranch.getLabels())) - rootBranchWidth;
 	  	}
 	  	
-	    calculatePaintDimension(overallWidth, overallHeight);
+	    calculatePaintDimension(document, overallWidth, overallHeight);
+	    document.getTree().setLayout(type, new TreeLayout(context.getRescalingFactorX(), context.offsetX, context.offsetY));
 	  }
 	  else {
-	    calculatePaintDimension(0, 0);
+	    calculatePaintDimension(document, 0, 0);
+	    document.getTree().setLayout(type, null);
 	  }
+	}
+	
+	
+	public void positionAll(Document document, float rescalingFactorX) {
+		position(new PositionContext(document, rescalingFactorX));
+	  document.getTree().setPositionIndex(type, createPositionIndex(document));
+	}
+	
+	
+	/**
+	 * Updates the positions after some nodes of the document have been marked as dirty. The data of the dirty nodes is
+	 * calculated again, while the subtrees under the unchanged children of dirty nodes are only moved, if the height or
+	 * width of a preceding subtree changed. The scale bar and the legends are always positioned again. The spatial index 
+	 * of the element positions is recreated when it is needed the next time.
+	 * 
+	 * @see info.bioinfweb.treegraph.graphics.positionpaint.TreePositioner#positionChanged(info.bioinfweb.treegraph.document.Document, float)
+	 * @since 2.16.0
+	 */
+	@Override
+	public void positionChanged(Document document, float rescalingFactorX) {
+		TreeLayout layout = document.getTree().getLayout(type);
+		if ((layout == null) || (layout.getRescalingFactorX() != rescalingFactorX)) {
+			positionAll(document, rescalingFactorX);
+		}
+		else {
+			position(new PositionContext(document, rescalingFactorX, layout));
+		  document.getTree().setPositionIndex(type, null);
+		}
 	}
 	
 	
-  private AbstractPaintableElement searchLabelBlock(Branch branch, float x, float y, 
-  		float margin) {
-  	
-  	boolean above = false;  // Vorgabe: Gesuchtes Label befindet sich h�chstens unterhalb des Asts.
-  	if (y <= branch.getPosition(type).getTop().getInMillimeters()) {  // Gesuchtes Label kann h�chstens oben sein.
-  		above = true;
-  	}
-  	
-		for (int lineNo = 0; lineNo < branch.getLabels().lineCount(above); lineNo++) {  //TODO Labelsuche kann ggf. effizienter implementiert werden.
-			for (int lineIndex = 0; lineIndex < branch.getLabels().labelCount(above, lineNo); lineIndex++) {
-				Label label = branch.getLabels().get(above, lineNo, lineIndex);
-				if (label.getPosition(type).contains(x, y, margin)) {
-					return label;
-				}
+  private void addLabelBlock(PositionIndex index, Labels labels, boolean above) {
+		for (int lineNo = 0; lineNo < labels.lineCount(above); lineNo++) {
+			for (int lineIndex = 0; lineIndex < labels.labelCount(above, lineNo); lineIndex++) {
+				Label label = labels.get(above, lineNo, lineIndex);
+				index.add(label, label.getPosition(type));
 			}
 		}
-		return null;
+  }
+  
+  
+  private void addSubtree(PositionIndex index, Node root) {
+  	if (root.hasAfferentBranch()) {
+  		Branch branch = root.getAfferentBranch();
+  		index.add(branch, branch.getPosition(type));
+  		addLabelBlock(index, branch.getLabels(), true);
+  		addLabelBlock(index, branch.getLabels(), false);
+  	}
+  	index.add(root, root.getPosition(type));
+		for (int i = 0; i < root.getChildren().size(); i++) {
+			addSubtree(index, root.getChildren().get(i));
+		}
+  }
+  
+  
+  /**
+   * Creates a spatial index of the current positions of all elements of the specified document. The priority of the
+   * elements is defined by the order in which they are searched by {@link #elementToPosition(Document, float, float, float)}:
+   * Tree elements are added in pre-order (each branch followed by its labels and its target node), followed by the 
+   * scale bar (if shown) and the legends.
+   * 
+   * @param document the document containing the elements to be indexed
+   * @return the new index
+   * @since 2.16.0
+   */
+  protected PositionIndex createPositionIndex(Document document) {
+  	PositionIndex result = new PositionIndex();
+		if (!document.getTree().isEmpty()) {
+			addSubtree(result, document.getTree().getPaintStart());
+		}
+		if (document.getTree().getFormats().getShowScaleBar()) {
+			result.add(document.getTree().getScaleBar(), document.getTree().getScaleBar().getPosition(type));
+		}
+		Legends legends = document.getTree().getLegends();
+		for (int i = 0; i < legends.size(); i++) {
+			result.add(legends.get(i), legends.get(i).getPosition(type));
+		}
+		return result;
+  }
+  
+  
+  private PositionIndex getPositionIndex(Document document) {
+		PositionIndex result = document.getTree().getPositionIndex(type);
+		if (result == null) {  // The document was not positioned since the last paint start was set.
+			result = createPositionIndex(document);
+			document.getTree().setPositionIndex(type, result);
+		}
+		return result;
   }
   
   
   protected boolean xToLow(float x, PositionData pd) {
   	return x < pd.getLeft().getInMillimeters();
   }
-	
-	
-	private AbstractPaintableElement searchElementToPosition(Node root, float x, float y, 
-			float margin) {
-		
+  
+  
+  /**
+   * Checks if the point is located inside the area that is searched for elements of the subtree under the specified
+   * node, which is the vertical range of the subtree right of the afferent branch. The areas of all ancestors are 
+   * checked as well. 
+   */
+  private boolean isInSearchedArea(Node root, float x, float y) {
+  	if (root.hasParent()) {
+  		if (!isInSearchedArea(root.getParent(), x, y) || xToLow(x, root.getParent().getPosition(type))) {
+  			return false;
+  		}
+  		else if (xToLow(x, root.getAfferentBranch().getPosition(type))) {  // Invisible root branches may still have labels.
+  			return false;
+  		}
+  	}
 		NodePositionData pd = root.getPosition(type);
 		float centerY = pd.getTop().getInMillimeters() + 0.5f * pd.getHeight().getInMillimeters();
-		if (Math2.isBetween(y, centerY - pd.getHeightAbove(), centerY + pd.getHeightBelow())) {
-			if (root.hasAfferentBranch()) {
-				if (root.hasParent() && xToLow(x, root.getAfferentBranch().getPosition(type))) {  // Invisible root branches may still have labels.
-					return null;  // Weder Label noch kommender Unterbaum kommen in Frage.
-				}
-				if (root.getAfferentBranch().getPosition(type).contains(x, y, margin)) {
-					if (root.getPosition(type).contains(x, y, margin)) {  // Bei Überlappung Knoten bevorzugen
-						return root;
-					}
-					else {
-						return root.getAfferentBranch();
-					}
-	  		}
-				else {
-					AbstractPaintableElement result = searchLabelBlock(root.getAfferentBranch(), x, y, margin);
-					if (result != null) {
-						return result;
-					}
-				}
-			}
-			
-			if (xToLow(x, pd)) {
-				return null;  // Punkt liegt links vom folgenden Teilbaum.
-			}
-			else if (root.getPosition(type).contains(x, y, margin)) {
-				return root;
-			}
-			else {
-				for (int i = 0; i < root.getChildren().size(); i++) {
-					AbstractPaintableElement result = searchElementToPosition(root.getChildren().get(i), x, y, margin);
-					if (result != null) {
-						return result;
-					}
-				}
-			}
-		}
-		return null;
-	}
+		return Math2.isBetween(y, centerY - pd.getHeightAbove(), centerY + pd.getHeightBelow());
+  }
+  
+  
+  /**
+   * Checks if an element found in the position index at the specified point would be found by a search starting 
+   * from the paint start, which only checks elements of subtrees in which the point is located and only one label
+   * block of each branch.
+   */
+  private boolean isSearched(AbstractPaintableElement element, float x, float y) {
+  	if (element instanceof Node) {
+  		return isInSearchedArea((Node)element, x, y) && !xToLow(x, ((Node)element).getPosition(type));
+  	}
+  	else if (element instanceof Branch) {
+  		return isInSearchedArea(((Branch)element).getTargetNode(), x, y);
+  	}
+  	else if (element instanceof Label) {
+  		Branch branch = ((Label)element).getHoldingBranch();
+  		return isInSearchedArea(branch.getTargetNode(), x, y) && 
+  				(((Label)element).isAbove() == (y <= branch.getPosition(type).getTop().getInMillimeters()));
+  	}
+  	else {  // Scale bar and legends
+  		return true;
+  	}
+  }
 	
 	
 	/**
@@ -878,31 +1120,35 @@ public class RectangularCladogramPositioner implements TreePositioner {
 	public AbstractPaintableElement elementToPosition(Document document, float x, float y, 
 			float margin) {
 		
-		this.document = document;
-		
-		// Search tree elements: 
-		if (!document.getTree().isEmpty()) {
-			AbstractPaintableElement result = searchElementToPosition(
-					document.getTree().getPaintStart(), x, y, margin);
-			if (result != null) {
-				return result;
-			}
-		}
-		
-		// Check scale bar
-		if (document.getTree().getFormats().getShowScaleBar() &&
-				document.getTree().getScaleBar().getPosition(type).contains(x, y, margin)) {
-			return document.getTree().getScaleBar();
-		}
-		
-		// Search legends:
-		Legends legends = document.getTree().getLegends();
-		for (int i = 0; i < legends.size(); i++) {
-			if (legends.get(i).getPosition(type).contains(x, y, margin)) {
-				return legends.get(i);
+		List<AbstractPaintableElement> candidates = getPositionIndex(document).getElementsAt(x, y, margin);
+		for (AbstractPaintableElement element : candidates) {
+			if (isSearched(element, x, y)) {
+				if ((element instanceof Branch) && 
+						((Branch)element).getTargetNode().getPosition(type).contains(x, y, margin)) {  // Bei Überlappung Knoten bevorzugen
+					
+					return ((Branch)element).getTargetNode();
+				}
+				return element;
 			}
 		}
-		
 		return null;
 	}
+	
+	
+	/**
+	 * Determines all elements that intersect the specified rectangle (e.g. to select all elements inside a rectangle
+	 * drawn by the user).
+	 * 
+	 * @param document the document where the elements should be determined
+	 * @param left the left side of the rectangle in mm
+	 * @param top the top side of the rectangle in mm
+	 * @param right the right side of the rectangle in mm
+	 * @param bottom the bottom side of the rectangle in mm
+	 * @since 2.16.0
+	 */
+	public List<AbstractPaintableElement> elementsInRectangle(Document document, float left, float top, float right, 
+			float bottom) {
+		
+		return getPositionIndex(document).getElementsInRectangle(left, top, right, bottom);
+	}
 }
\ No newline at end of file
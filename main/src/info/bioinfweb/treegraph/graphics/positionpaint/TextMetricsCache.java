@@ -0,0 +1,275 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.graphics.positionpaint;
+
+
+import info.bioinfweb.commons.graphics.FontCalculator;
+import info.bioinfweb.treegraph.document.TextElementData;
+
+import java.text.DecimalFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+
+/**
+ * Caches the widths of texts and the string representations of formatted decimal values, that are 
+ * needed by the tree positioners. Since a document is repositioned after every edit, this avoids measuring
+ * all texts again, if only few of them changed.
+ * <p>
+ * Widths are stored per unit text height for each combination of font name, style and text and are 
+ * scaled to the requested height. Both caches have a maximum size and discard the least recently used 
+ * entries if that size is exceeded.
+ * <p>
+ * All methods of this class are synchronized, so that a shared instance can be used by different 
+ * threads.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class TextMetricsCache {
+	public static final int DEFAULT_MAX_SIZE = 16 * 1024;
+	
+	
+	private static TextMetricsCache sharedInstance = null;
+	
+	
+	private static class LRUMap<K, V> extends LinkedHashMap<K, V> {
+		private static final long serialVersionUID = 1L;
+
+		private int maxSize;
+		
+		
+		public LRUMap(int maxSize) {
+			super(16, 0.75f, true);  // Access order is used.
+			this.maxSize = maxSize;
+		}
+
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+			return size() > maxSize;
+		}
+	}
+	
+	
+	private static class WidthKey {
+		private String fontName;
+		private int style;
+		private String text;
+		
+		
+		public WidthKey(String fontName, int style, String text) {
+			super();
+			this.fontName = fontName;
+			this.style = style;
+			this.text = text;
+		}
+
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * fontName.hashCode() + style) + text.hashCode();
+		}
+
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			else if (obj instanceof WidthKey) {
+				WidthKey other = (WidthKey)obj;
+				return (style == other.style) && fontName.equals(other.fontName) && text.equals(other.text);
+			}
+			else {
+				return false;
+			}
+		}
+	}
+	
+	
+	private static class FormatKey {
+		private DecimalFormat format;
+		private double value;
+		
+		
+		public FormatKey(DecimalFormat format, double value) {
+			super();
+			this.format = format;
+			this.value = value;
+		}
+
+
+		@Override
+		public int hashCode() {
+			long bits = Double.doubleToLongBits(value);
+			return 31 * format.hashCode() + (int)(bits ^ (bits >>> 32));
+		}
+
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			else if (obj instanceof FormatKey) {
+				FormatKey other = (FormatKey)obj;
+				return (Double.doubleToLongBits(value) == Double.doubleToLongBits(other.value)) && format.equals(other.format);
+			}
+			else {
+				return false;
+			}
+		}
+	}
+	
+	
+	private Map<WidthKey, Float> widths;
+	private Map<FormatKey, String> formattedValues;
+	private long hitCount = 0;
+	private long missCount = 0;
+	
+	
+	/**
+	 * Creates a new instance of this class.
+	 * 
+	 * @param maxSize the maximal number of widths and the maximal number of formatted values that shall be 
+	 *        stored
+	 */
+	public TextMetricsCache(int maxSize) {
+		super();
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("The maximal size must be at least 1.");
+		}
+		widths = new LRUMap<WidthKey, Float>(maxSize);
+		formattedValues = new LRUMap<FormatKey, String>(maxSize);
+	}
+	
+	
+	/**
+	 * Returns the instance of this class that is used by {@link PositionPaintUtils} and the label painters.
+	 * 
+	 * @return the shared instance
+	 */
+	public static synchronized TextMetricsCache getSharedInstance() {
+		if (sharedInstance == null) {
+			sharedInstance = new TextMetricsCache(DEFAULT_MAX_SIZE);
+		}
+		return sharedInstance;
+	}
+	
+	
+	/**
+	 * Returns the width the specified text has if it is painted with the specified font and text height. 
+	 * 
+	 * @param fontName the name of the font
+	 * @param style the style of the font (e.g. {@link java.awt.Font#BOLD})
+	 * @param text the text to be measured
+	 * @param height the text height
+	 * @return the width in the unit of {@code height}
+	 * @see FontCalculator#getTextWidthToTextHeigth(String, int, String, float)
+	 */
+	public synchronized float getTextWidthToTextHeight(String fontName, int style, String text, float height) {
+		WidthKey key = new WidthKey(fontName, style, text);
+		Float width = widths.get(key);
+		if (width == null) {
+			missCount++;
+			FontCalculator calculator = FontCalculator.getInstance();
+			synchronized (calculator) {  // FontCalculator caches font metrics in an unsynchronized map.
+				width = calculator.getTextWidthToTextHeigth(fontName, style, text, 1f);
+			}
+			widths.put(key, width);
+		}
+		else {
+			hitCount++;
+		}
+		return width * height;
+	}
+	
+	
+	/**
+	 * Returns the string representation of the specified data.
+	 * 
+	 * @param data the data to be formatted
+	 * @param format the format to be used, if {@code data} contains a decimal value
+	 * @return the same string as {@link TextElementData#formatValue(DecimalFormat)}
+	 */
+	public synchronized String formatValue(TextElementData data, DecimalFormat format) {
+		if (data.isDecimal()) {
+			FormatKey key = new FormatKey(format, data.getDecimal());
+			String result = formattedValues.get(key);
+			if (result == null) {
+				missCount++;
+				result = format.format(data.getDecimal());
+				key.format = (DecimalFormat)format.clone();  // Formats are mutable and may be changed later on.
+				formattedValues.put(key, result);
+			}
+			else {
+				hitCount++;
+			}
+			return result;
+		}
+		else {
+			return data.formatValue(format);
+		}
+	}
+	
+	
+	/**
+	 * Returns the number of requests that could be answered from this cache since its creation or the 
+	 * last call of {@link #clear()}.
+	 * 
+	 * @return the number of cache hits
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+	
+	
+	/**
+	 * Returns the number of requests that could not be answered from this cache since its creation or the 
+	 * last call of {@link #clear()}.
+	 * 
+	 * @return the number of cache misses
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+	
+	
+	/**
+	 * Returns the number of widths and formatted values currently stored.
+	 * 
+	 * @return the number of entries
+	 */
+	public synchronized int size() {
+		return widths.size() + formattedValues.size();
+	}
+	
+	
+	/**
+	 * Removes all entries and resets the hit and miss counters.
+	 */
+	public synchronized void clear() {
+		widths.clear();
+		formattedValues.clear();
+		hitCount = 0;
+		missCount = 0;
+	}
+}
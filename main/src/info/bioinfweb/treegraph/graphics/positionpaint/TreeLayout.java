@@ -0,0 +1,76 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.graphics.positionpaint;
+
+
+import info.bioinfweb.treegraph.document.Document;
+
+
+
+/**
+ * Stores the parameters of the last positioning of a tree, which are needed to update the positions incrementally 
+ * after single elements of the tree have been changed.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ * @see TreePositioner#positionChanged(Document, float)
+ */
+public class TreeLayout {
+	private float rescalingFactorX;
+	private float offsetX;
+	private float offsetY;
+	
+	
+	/**
+	 * Creates a new instance of this class.
+	 * 
+	 * @param rescalingFactorX - the rescaling factor that was used to position the tree
+	 * @param offsetX - the distance by which the tree was moved on x after positioning its elements
+	 * @param offsetY - the distance by which the tree was moved on y after positioning its elements
+	 */
+	public TreeLayout(float rescalingFactorX, float offsetX, float offsetY) {
+		super();
+		this.rescalingFactorX = rescalingFactorX;
+		this.offsetX = offsetX;
+		this.offsetY = offsetY;
+	}
+
+
+	public float getRescalingFactorX() {
+		return rescalingFactorX;
+	}
+
+
+	/**
+	 * Returns the distance by which the tree was moved on x to regard the document margin and possible labels of an 
+	 * invisible root branch.
+	 */
+	public float getOffsetX() {
+		return offsetX;
+	}
+
+
+	/**
+	 * Returns the distance by which the tree was moved on y to regard the document margin and possible legends 
+	 * reaching over the top of the tree.
+	 */
+	public float getOffsetY() {
+		return offsetY;
+	}
+}
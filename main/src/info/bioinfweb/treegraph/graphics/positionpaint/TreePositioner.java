@@ -21,10 +21,25 @@ package info.bioinfweb.treegraph.graphics.positionpaint;
 
 import info.bioinfweb.treegraph.document.*;
 
+import java.util.List;
+
 
 
 public interface TreePositioner {
 	public void positionAll(Document document, float rescalingFactorX);
+	
+	
+	/**
+	 * Updates the positions of the elements of the specified document after some of its nodes have been marked as 
+	 * dirty (see {@link PositionPaintUtils#markDirty(PaintableElement)}). Only the positioning data of the dirty nodes
+	 * is calculated again, while unchanged subtrees are only moved. If the document was not positioned before with 
+	 * the same rescaling factor, all elements are positioned as by {@link #positionAll(Document, float)}.
+	 * 
+	 * @param document - the document to be positioned
+	 * @param rescalingFactorX - the factor by which the widths of the branches are rescaled
+	 * @since 2.16.0
+	 */
+	public void positionChanged(Document document, float rescalingFactorX);
 
 	
 	/**Return the SelectableElement of the tree in which the given coordinates are located.
@@ -33,4 +48,18 @@ public interface TreePositioner {
 	 * @return The element or null if the given koordinates are located araound the elements.
 	 */
 	public AbstractPaintableElement elementToPosition(Document document, float x, float y, float margin);
+	
+	
+	/**
+	 * Returns all elements of the tree which intersect the given rectangle.
+	 * 
+	 * @param left left side of the rectangle
+	 * @param top top side of the rectangle
+	 * @param right right side of the rectangle
+	 * @param bottom bottom side of the rectangle
+	 * @return a list of the elements (which is empty if no element was found)
+	 * @since 2.16.0
+	 */
+	public List<AbstractPaintableElement> elementsInRectangle(Document document, float left, float top, float right, 
+			float bottom);
 }
\ No newline at end of file
@@ -33,7 +33,7 @@ public class LabelPainterMap {
 	private Map<Class<? extends Label>, LabelPainter<?, ?>> map = new HashMap<>();
 	
 	
-	public static LabelPainterMap getInstance() {
+	public static synchronized LabelPainterMap getInstance() {
 		if (firstInstance == null) {
 			firstInstance = new LabelPainterMap();
 		}
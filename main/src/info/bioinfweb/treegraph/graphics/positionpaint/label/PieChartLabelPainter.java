@@ -19,7 +19,6 @@
 package info.bioinfweb.treegraph.graphics.positionpaint.label;
 
 
-import info.bioinfweb.commons.graphics.FontCalculator;
 import info.bioinfweb.treegraph.document.PieChartLabel;
 import info.bioinfweb.treegraph.document.format.DistanceDimension;
 import info.bioinfweb.treegraph.document.format.PieChartLabelCaptionContentType;
@@ -27,6 +26,7 @@ import info.bioinfweb.treegraph.document.format.PieChartLabelCaptionLinkType;
 import info.bioinfweb.treegraph.document.format.PieChartLabelFormats;
 import info.bioinfweb.treegraph.document.format.TextFormats;
 import info.bioinfweb.treegraph.graphics.positionpaint.PositionPaintUtils;
+import info.bioinfweb.treegraph.graphics.positionpaint.TextMetricsCache;
 import info.bioinfweb.treegraph.graphics.positionpaint.positiondata.PieChartLabelPositionData;
 import info.bioinfweb.treegraph.graphics.positionpaint.positiondata.PositionData;
 
@@ -201,7 +201,7 @@ public class PieChartLabelPainter extends AbstractGraphicalLabelPainter<PieChart
 			float rightColumnWidth = 0f;  // Remains 0 if only one columns is present.
 			for (int i = 0; i < positionData.getCaptionPositions().size(); i++) {
 				PieChartLabelPositionData.CaptionPositionData data = positionData.getCaptionPositions().get(i);
-				float width = FontCalculator.getInstance().getTextWidthToTextHeigth(captionFormats.getFontName(), 
+				float width = TextMetricsCache.getSharedInstance().getTextWidthToTextHeight(captionFormats.getFontName(), 
 								captionFormats.getTextStyle(), label.getCaptionText(data.getCaptionIndex()), captionHeight);
 				if (i % 2 == 0) {  // left
 					leftColumnWidth = Math.max(leftColumnWidth, width);
@@ -69,7 +69,7 @@ public class LabelIconMap {
 	}
   
 	
-	public static LabelIconMap getInstance() {
+	public static synchronized LabelIconMap getInstance() {
 		if (firstInstance == null) {
 			firstInstance = new LabelIconMap();
 		}
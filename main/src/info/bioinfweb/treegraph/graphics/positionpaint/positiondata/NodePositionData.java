@@ -25,6 +25,13 @@ public class NodePositionData extends PositionData {
 	private float difAbove = 0; 
 	private float heightBelow = 0;
 	private float difBelow = 0;
+	private boolean dirty = true;
+	private float initialLeft = 0;
+	private float initialWidth = 0;
+	private float initialBranchLeft = 0;
+	private float initialBranchWidth = 0;
+	private float maxLeafWidth = 0;
+	private float descendantsRightOffset = 0;
 	
 	
 	public float getDifAbove() {
@@ -65,4 +72,144 @@ public class NodePositionData extends PositionData {
 	public void setHeightBelow(float heightBelow) {
 		this.heightBelow = heightBelow;
 	} 
+	
+	
+	/**
+	 * Determines whether the cached positioning data of the subtree under this node is outdated. Nodes are marked as dirty
+	 * when they or one of their descendants are changed.
+	 * 
+	 * @return {@code true} if the data has to be recalculated, {@code false} if it can be reused
+	 * @since 2.16.0
+	 */
+	public boolean isDirty() {
+		return dirty;
+	}
+
+
+	/**
+	 * @since 2.16.0
+	 * @see #isDirty()
+	 */
+	public void setDirty(boolean dirty) {
+		this.dirty = dirty;
+	}
+
+
+	/**
+	 * Returns the left side of the node relative to the end of the tree as it was calculated, before the tree was 
+	 * moved and rescaled.
+	 * 
+	 * @since 2.16.0
+	 */
+	public float getInitialLeft() {
+		return initialLeft;
+	}
+
+
+	/**
+	 * @since 2.16.0
+	 * @see #getInitialLeft()
+	 */
+	public void setInitialLeft(float initialLeft) {
+		this.initialLeft = initialLeft;
+	}
+
+
+	/**
+	 * Returns the width of the node as it was calculated, before the tree was rescaled.
+	 * 
+	 * @since 2.16.0
+	 */
+	public float getInitialWidth() {
+		return initialWidth;
+	}
+
+
+	/**
+	 * @since 2.16.0
+	 * @see #getInitialWidth()
+	 */
+	public void setInitialWidth(float initialWidth) {
+		this.initialWidth = initialWidth;
+	}
+
+
+	/**
+	 * Returns the left side of the afferent branch of the node relative to the end of the tree as it was calculated, 
+	 * before the tree was moved and rescaled.
+	 * 
+	 * @since 2.16.0
+	 */
+	public float getInitialBranchLeft() {
+		return initialBranchLeft;
+	}
+
+
+	/**
+	 * @since 2.16.0
+	 * @see #getInitialBranchLeft()
+	 */
+	public void setInitialBranchLeft(float initialBranchLeft) {
+		this.initialBranchLeft = initialBranchLeft;
+	}
+
+
+	/**
+	 * Returns the width of the afferent branch of the node as it was calculated, before it was extended to its parent
+	 * node and rescaled.
+	 * 
+	 * @since 2.16.0
+	 */
+	public float getInitialBranchWidth() {
+		return initialBranchWidth;
+	}
+
+
+	/**
+	 * @since 2.16.0
+	 * @see #getInitialBranchWidth()
+	 */
+	public void setInitialBranchWidth(float initialBranchWidth) {
+		this.initialBranchWidth = initialBranchWidth;
+	}
+
+
+	/**
+	 * Returns the width of the widest leaf in the subtree under this node.
+	 * 
+	 * @since 2.16.0
+	 */
+	public float getMaxLeafWidth() {
+		return maxLeafWidth;
+	}
+
+
+	/**
+	 * @since 2.16.0
+	 * @see #getMaxLeafWidth()
+	 */
+	public void setMaxLeafWidth(float maxLeafWidth) {
+		this.maxLeafWidth = maxLeafWidth;
+	}
+
+
+	/**
+	 * Returns the distance between the left side of this node and the rightmost end of a branch of its descendants. 
+	 * (Since this value is relative to the node, it remains valid if the subtree is moved.)
+	 * 
+	 * @return the distance in millimeters or {@link Float#NEGATIVE_INFINITY} if this node is a leaf
+	 * @since 2.16.0
+	 */
+	public float getDescendantsRightOffset() {
+		return descendantsRightOffset;
+	}
+
+
+	/**
+	 * @since 2.16.0
+	 * @see #getDescendantsRightOffset()
+	 */
+	public void setDescendantsRightOffset(float descendantsRightOffset) {
+		this.descendantsRightOffset = descendantsRightOffset;
+	}
 }
\ No newline at end of file
@@ -61,7 +61,7 @@ public class AutoPositionLabelsAction extends DocumentAction {
 
 	private boolean containsSupportConflictIDs(Document document) {
   	List<String> ids = new ArrayList<String>(Arrays.asList(NodeBranchDataColumnManager.getLabelIDs(
-  			document.getTree().getPaintStart(), Label.class)));
+  			document.getTree(), Label.class)));
 		for (String id : ids) {
 			if (id.endsWith(AddSupportValuesEdit.SUPPORT_NAME) && 
 					ids.contains(id.replace(AddSupportValuesEdit.SUPPORT_NAME, AddSupportValuesEdit.CONFLICT_NAME))) {
@@ -61,7 +61,7 @@ public class ChangePainterIDAction extends DocumentAction {
 	protected void onActionPerformed(ActionEvent e, TreeInternalFrame frame) {
 		if (PositionPaintFactory.getInstance().needsBrancheLengths(type)) {
 			Tree tree = frame.getDocument().getTree();
-			if (!Tree.hasAllBranchLengths(tree.getPaintStart(), false)) {
+			if (!tree.getMetrics(false).hasAllBranchLengths()) {
 				WikiHelpOptionPane.showMessageDialog(MainFrame.getInstance(), 
 						"Not all branch lengths of the current tree have been specified.\n\n" +
 						"Undefined branches will be displayed as specified by their minimal " +
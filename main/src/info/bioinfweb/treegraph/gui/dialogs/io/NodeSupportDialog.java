@@ -100,7 +100,7 @@ public class NodeSupportDialog extends FileDialog {
 		}
 		if (adapter instanceof NewNodeBranchDataAdapter){
 			String id = ((NewNodeBranchDataAdapter)adapter).getID();
-			if (NodeBranchDataColumnManager.idExistsInSubtree(getDocument().getTree().getPaintStart(), id)){
+			if (NodeBranchDataColumnManager.idExistsInTree(getDocument().getTree(), id)){
 				JOptionPane.showMessageDialog(this, "The ID " + id + " already exists", "Error", JOptionPane.ERROR_MESSAGE);
 				result = false; 
 			}
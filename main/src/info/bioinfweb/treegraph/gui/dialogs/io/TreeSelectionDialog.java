@@ -23,6 +23,7 @@ import info.bioinfweb.treegraph.Main;
 import info.bioinfweb.treegraph.document.Document;
 import info.bioinfweb.treegraph.document.Tree;
 import info.bioinfweb.treegraph.document.io.TreeSelector;
+import info.bioinfweb.treegraph.document.io.newick.NewickException;
 import info.bioinfweb.treegraph.gui.mainframe.MainFrame;
 import info.bioinfweb.treegraph.gui.treeframe.TreeViewPanel;
 import info.bioinfweb.commons.text.StringUtils;
@@ -52,6 +53,7 @@ public class TreeSelectionDialog extends OkCancelApplyWikiHelpDialog
 	private JPanel previewPanel = null;
 	private JScrollPane previewScrollPane = null;
 	private TreeViewPanel treeViewPanel = null;
+	private NewickExceptionDialog newickExceptionDialog = null;
 
 
 	/**
@@ -75,6 +77,27 @@ public class TreeSelectionDialog extends OkCancelApplyWikiHelpDialog
 
 	private int getSelectedIndex() {
 		return getTreeComboBox().getSelectedIndex();
+	}
+	
+	
+	/**
+	 * Displays the selected tree in the preview. Since trees are parsed on demand, a syntax error of the
+	 * selected tree is first noticed here and is displayed in the same way as in {@link OpenDialog}.
+	 */
+	private void showPreview() {
+		Tree tree;
+		try {
+			tree = trees.get(getSelectedIndex());
+		}
+		catch (NewickException e) {
+			if (newickExceptionDialog == null) {
+				newickExceptionDialog = new NewickExceptionDialog(this);
+			}
+			newickExceptionDialog.show(e);
+			e.printStackTrace();
+			tree = new Tree();  // Display an empty preview.
+		}
+		getTreeViewPanel().getDocument().setTree(tree);
 	}
 	
 	
@@ -169,7 +192,7 @@ public class TreeSelectionDialog extends OkCancelApplyWikiHelpDialog
 				public void itemStateChanged(java.awt.event.ItemEvent e) {
 					if (currentTree != getSelectedIndex()) {
 						currentTree = getSelectedIndex();
-						getTreeViewPanel().getDocument().setTree(trees.get(getSelectedIndex()));
+						showPreview();
 					}
 				}
 			});
@@ -97,7 +97,7 @@ public abstract class AbstractNodeBranchDataColumnsDialog extends OkCancelApplyW
 					boolean columnExists = false;
 					if (!(adapter instanceof VoidNodeBranchDataAdapter)) {	
 						if (adapter instanceof IDElementAdapter) {
-							columnExists = NodeBranchDataColumnManager.idExistsInSubtree(tree.getPaintStart(), ((IDElementAdapter)adapter).getID());
+							columnExists = NodeBranchDataColumnManager.idExistsInTree(tree, ((IDElementAdapter)adapter).getID());
 							if (columnExists) {
 								duplicateColumns.add("Node/branch data columns with the ID \"" + ((IDElementAdapter)adapter).getID() + "\"");
 							}						
@@ -87,7 +87,7 @@ public class CopyColumnDialog extends EditDialog {
 	@Override
 	protected boolean apply() {
 		boolean result = !getDestAdapter().isNewColumn() || 
-		    !NodeBranchDataColumnManager.idExistsInSubtree(getDocument().getTree().getPaintStart(), 
+		    !NodeBranchDataColumnManager.idExistsInTree(getDocument().getTree(), 
 				    ((NewNodeBranchDataAdapter)getDestAdapter()).getID());
 		if (result) {
 			getDocument().executeEdit(new CopyColumnEdit(getDocument(), getSrcAdapter(), getDestAdapter(), 
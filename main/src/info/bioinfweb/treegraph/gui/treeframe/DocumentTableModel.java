@@ -40,7 +40,7 @@ import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeNameAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.TextLabelAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.UniqueNameAdapter;
-import info.bioinfweb.treegraph.document.tools.NodeBranchDataColumnManager;
+import info.bioinfweb.treegraph.document.tools.NodeBranchDataColumnRegistry;
 import info.bioinfweb.treegraph.document.undo.edit.ChangeCellTypeEdit;
 import info.bioinfweb.treegraph.document.undo.edit.ChangeNumercalValueEdit;
 import info.bioinfweb.treegraph.document.undo.edit.ChangeTextualValueEdit;
@@ -106,7 +106,7 @@ public class DocumentTableModel extends AbstractTableModel implements DocumentLi
   
   
 	public void changeHappened(DocumentChangeEvent e) {
-		fillAdapterList(getDocument().getTree().getPaintStart());
+		fillAdapterList(getDocument().getTree().getColumnRegistry());
 		nodes.clear();
 		if (!getDocument().getTree().isEmpty()) {
 			fillNodeList(getDocument().getTree().getPaintStart());
@@ -115,24 +115,24 @@ public class DocumentTableModel extends AbstractTableModel implements DocumentLi
 	}
 	
 	
-	private void fillAdapterList(Node root) {
+	private void fillAdapterList(NodeBranchDataColumnRegistry registry) {
 		adapters.clear();
 		adapters.add(new UniqueNameAdapter());
 		adapters.add(new NodeNameAdapter());
 		adapters.add(new BranchLengthAdapter());
 
-		List<String> ids = NodeBranchDataColumnManager.getLabelIDListFromSubtree(root, TextLabel.class);
+		List<String> ids = registry.getLabelIDs(TextLabel.class);
 		for (int i = 0; i < ids.size(); i++) {
 			adapters.add(new TextLabelAdapter(ids.get(i), 
-					((TextLabel)NodeBranchDataColumnManager.getFirstLabel(root, TextLabel.class, ids.get(i))).getFormats().getDecimalFormat()));
+					((TextLabel)registry.getFirstLabel(TextLabel.class, ids.get(i))).getFormats().getDecimalFormat()));
 		}
   	        
-		ids = NodeBranchDataColumnManager.getHiddenNodeDataIDListFromSubtree(root);
+		ids = registry.getHiddenNodeDataIDs();
 		for (int i = 0; i < ids.size(); i++) {
 			adapters.add(new HiddenNodeDataAdapter(ids.get(i)));
 		}
 		
-		ids = NodeBranchDataColumnManager.getHiddenBranchDataIDListFromSubtree(root);
+		ids = registry.getHiddenBranchDataIDs();
 		for (int i = 0; i < ids.size(); i++) {
 			adapters.add(new HiddenBranchDataAdapter(ids.get(i)));
 		}
@@ -25,7 +25,10 @@ import info.bioinfweb.treegraph.graphics.positionpaint.PositionPaintFactory;
 import info.bioinfweb.treegraph.gui.mainframe.MainFrame;
 import info.bioinfweb.commons.SystemUtils;
 
+import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.event.*;
+import java.util.List;
 
 import javax.swing.JPopupMenu;
 import javax.swing.SwingUtilities;
@@ -38,12 +41,15 @@ import javax.swing.SwingUtilities;
  * @author Ben St&ouml;ver
  */
 class TreeEditlInputListener extends MouseAdapter 
-    implements MouseListener, KeyListener, MouseWheelListener {
+    implements MouseListener, MouseMotionListener, KeyListener, MouseWheelListener {
 	
 	public static final float ZOOM_PER_CLICK = 0.1f;
 	
 	
 	protected TreeViewPanel owner = null;
+	
+	/** The point where the user started to draw a selection rectangle or {@code null} if no rectangle is drawn. */
+	private Point selectionRectangleStart = null;
 	
 
 	public TreeEditlInputListener(TreeViewPanel owner) {
@@ -57,6 +63,44 @@ class TreeEditlInputListener extends MouseAdapter
 				DistanceValue.pixelsToMillimeters(e.getX(), owner.pixelsPerMillimeter()), 
 				DistanceValue.pixelsToMillimeters(e.getY(),	owner.pixelsPerMillimeter()),
 				DistanceValue.pixelsToMillimeters(TreeViewPanel.SELECTION_MARGIN, owner.pixelsPerMillimeter()));
+	}
+	
+	
+	private boolean isAddToSelectionDown(InputEvent e) {
+		return (e.isMetaDown() && SystemUtils.IS_OS_MAC) || (e.isControlDown() && !SystemUtils.IS_OS_MAC);
+	}
+	
+	
+	private Rectangle createSelectionRectangle(MouseEvent e) {
+		return new Rectangle(Math.min(selectionRectangleStart.x, e.getX()), Math.min(selectionRectangleStart.y, e.getY()), 
+				Math.abs(e.getX() - selectionRectangleStart.x), Math.abs(e.getY() - selectionRectangleStart.y));
+	}
+	
+	
+	/**
+	 * Selects all elements intersecting the selection rectangle the user has drawn. The elements are taken from the 
+	 * position index of the positioner, so that the tree does not need to be searched.
+	 */
+	private void selectElementsInRectangle(Rectangle rectangle, boolean addToSelection) {
+		float pixelsPerMillimeter = owner.pixelsPerMillimeter();
+		List<AbstractPaintableElement> elements = 
+				PositionPaintFactory.getInstance().getPositioner(owner.getPainterType()).elementsInRectangle(
+						owner.getDocument(), 
+						DistanceValue.pixelsToMillimeters(rectangle.x, pixelsPerMillimeter), 
+						DistanceValue.pixelsToMillimeters(rectangle.y, pixelsPerMillimeter),
+						DistanceValue.pixelsToMillimeters(rectangle.x + rectangle.width, pixelsPerMillimeter), 
+						DistanceValue.pixelsToMillimeters(rectangle.y + rectangle.height, pixelsPerMillimeter));
+		
+		owner.getSelection().setValueIsAdjusting(true);  // Avoid scrolling to the selected elements and inform listeners only once.
+		try {
+			if (!addToSelection) {
+				owner.getSelection().set(null);
+			}
+			owner.getSelection().addAll(elements);
+		}
+		finally {
+			owner.getSelection().setValueIsAdjusting(false);
+		}
 	}
 	
 	
@@ -88,6 +132,7 @@ class TreeEditlInputListener extends MouseAdapter
 	@Override
 	public void mousePressed(MouseEvent e) {
 		owner.requestFocusInWindow();
+		selectionRectangleStart = null;
 		AbstractPaintableElement selected = getElementByPosition(e);
 		if ((!e.isPopupTrigger()) && (e.getClickCount() > 1)) { 
 			doubleClick(e, selected);
@@ -118,6 +163,10 @@ class TreeEditlInputListener extends MouseAdapter
 				else {
 					owner.getSelection().set(selected);
 				}
+				
+				if ((selected == null) && (e.getComponent() == owner)) {  // Start drawing a selection rectangle. 
+					selectionRectangleStart = e.getPoint();
+				}
 			}
 			// Wurde au�erhalb eines Elements geklickt, ist die Markierung null (= keine Element).
 		}
@@ -127,7 +176,24 @@ class TreeEditlInputListener extends MouseAdapter
 
 	@Override
 	public void mouseReleased(MouseEvent e) {
+		if (selectionRectangleStart != null) {
+			Rectangle rectangle = createSelectionRectangle(e);
+			selectionRectangleStart = null;
+			owner.setSelectionRectangle(null);
+			if ((rectangle.width > 0) || (rectangle.height > 0)) {
+				selectElementsInRectangle(rectangle, isAddToSelectionDown(e));
+			}
+		}
 		checkPopup(e, getElementByPosition(e));  // Muss wg. Plattformunabh�ngigkeit bei mousePressed und mouseReleased erfolgen
+	}
+
+
+	@Override
+	public void mouseDragged(MouseEvent e) {
+		if (selectionRectangleStart != null) {
+			owner.setSelectionRectangle(createSelectionRectangle(e));
+			owner.scrollRectToVisible(new Rectangle(e.getX(), e.getY(), 1, 1));
+		}
 	}
 
 
@@ -50,6 +50,7 @@ public class TreeScrollPane extends JScrollPane {
 		treeViewInputListener = new TreeEditlInputListener(treeViewPanel); 
 		treeViewPanel.addKeyListener(treeViewInputListener);
 		treeViewPanel.addMouseListener(treeViewInputListener);
+		treeViewPanel.addMouseMotionListener(treeViewInputListener);
 		treeViewPanel.addMouseWheelListener(treeViewInputListener);
 
 		setViewportView(treeViewPanel);
@@ -64,6 +64,7 @@ public class TreeViewPanel extends JPanel implements DocumentListener, Scrollabl
 	public static final Color DEFAULT_SELECTION_COLOR = Color.BLUE.brighter();
 	public static final Color ALTERNATIVE_SELECTION_COLOR = Color.WHITE;
 	public static final int MAX_SELECTION_COLOR_DIF = 200;
+	public static final int SELECTION_RECTANGLE_ALPHA = 48;
 
 	
 	private Document document = null;
@@ -72,6 +73,7 @@ public class TreeViewPanel extends JPanel implements DocumentListener, Scrollabl
 	private float zoom = 1f;
 	private PositionPaintType painterType = PositionPaintFactory.getDefaultType();
 	private Vector<TreeViewPanelListener> treeViewListeners = new Vector<TreeViewPanelListener>(2, 2);
+	private Rectangle selectionRectangle = null;
 	
 	
 	/**
@@ -138,6 +140,29 @@ public class TreeViewPanel extends JPanel implements DocumentListener, Scrollabl
 
 	public float getZoom() {
 		return zoom;
+	}
+	
+	
+	/**
+	 * Returns the rectangle the user currently draws with the mouse to select elements.
+	 * 
+	 * @return the rectangle in pixels or {@code null} if no rectangle is currently drawn
+	 * @since 2.16.0
+	 */
+	public Rectangle getSelectionRectangle() {
+		return selectionRectangle;
+	}
+
+
+	/**
+	 * Sets the selection rectangle that shall be displayed on top of the tree.
+	 * 
+	 * @param selectionRectangle the rectangle in pixels or {@code null} if no rectangle shall be displayed
+	 * @since 2.16.0
+	 */
+	public void setSelectionRectangle(Rectangle selectionRectangle) {
+		this.selectionRectangle = selectionRectangle;
+		repaint();
 	}
 
 
@@ -224,6 +249,14 @@ public class TreeViewPanel extends JPanel implements DocumentListener, Scrollabl
   	g2.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
 		PositionPaintFactory.getInstance().getPainter(painterType).paintTree(
 				g2, getVisibleRect(), getDocument(), getSelection(), getHighlighting(), pixelsPerMillimeter(), false);
+		
+		if (selectionRectangle != null) {
+			Color color = selectionColor(getDocument().getTree().getFormats().getBackgroundColor());
+			g2.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), SELECTION_RECTANGLE_ALPHA));
+			g2.fill(selectionRectangle);
+			g2.setColor(color);
+			g2.draw(selectionRectangle);
+		}
 	}
 
 
@@ -0,0 +1,193 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.cmd;
+
+
+import info.bioinfweb.treegraph.cmd.BatchProcessor.FileResult;
+import info.bioinfweb.treegraph.document.io.ReadWriteFormat;
+import info.bioinfweb.treegraph.graphics.export.GraphicFormat;
+import info.bioinfweb.commons.CommandLineReader;
+import info.bioinfweb.commons.SystemUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.junit.* ;
+
+import static org.junit.Assert.* ;
+
+
+
+/**
+ * Tests {@link BatchProcessor}.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class BatchProcessorTest {
+	private static final File DATA_DIR = new File("data" + SystemUtils.FILE_SEPARATOR + "addSupport");
+	
+	
+	private File outputDirectory;
+	
+	
+	@Before
+	public void setUp() throws IOException {
+		outputDirectory = File.createTempFile("BatchProcessorTest", "");
+		outputDirectory.delete();
+		outputDirectory.mkdir();
+	}
+	
+	
+	@After
+	public void tearDown() {
+		File[] files = outputDirectory.listFiles();
+		for (int i = 0; i < files.length; i++) {
+			files[i].delete();
+		}
+		outputDirectory.delete();
+	}
+	
+	
+	private List<File> getInputFiles() {
+		List<File> result = new ArrayList<File>();
+		result.add(new File(DATA_DIR, "Conflict.xtg"));
+		result.add(new File(DATA_DIR, "Polytomy.xtg"));
+		result.add(new File(DATA_DIR, "Missing.xtg"));
+		result.add(new File(DATA_DIR, "Solved.xtg"));
+		return result;
+	}
+	
+	
+	private List<FileResult> run(ReadWriteFormat documentFormat, GraphicFormat graphicFormat, String[] args,
+			int threadCount, ByteArrayOutputStream out) {
+		
+		return new BatchProcessor(new CommandLineReader(args), documentFormat, graphicFormat, outputDirectory, 
+				new PrintStream(out, true)).run(getInputFiles(), threadCount);
+	}
+	
+	
+  @Test
+  public void test_readInputFiles_directory() throws IOException {
+  	List<File> files = BatchProcessor.readInputFiles(DATA_DIR);
+  	assertEquals(DATA_DIR.listFiles().length, files.size());
+  	assertTrue(files.contains(new File(DATA_DIR, "Conflict.xtg")));
+  	for (int i = 1; i < files.size(); i++) {
+  		assertTrue(files.get(i - 1).compareTo(files.get(i)) < 0);
+		}
+  }
+  
+  
+  @Test
+  public void test_readInputFiles_list() throws IOException {
+  	File list = new File(outputDirectory, "list.txt");
+  	FileWriter writer = new FileWriter(list);
+  	try {
+  		writer.write(BatchProcessor.LIST_COMMENT_PREFIX + " Comment\n");
+  		writer.write("A.xtg\n");
+  		writer.write("\n");
+  		writer.write("  " + new File(DATA_DIR, "Conflict.xtg").getAbsolutePath() + "  \n");
+  	}
+  	finally {
+  		writer.close();
+  	}
+  	
+  	List<File> files = BatchProcessor.readInputFiles(list);
+  	assertEquals(2, files.size());
+  	assertEquals(new File(outputDirectory, "A.xtg"), files.get(0));
+  	assertEquals(new File(DATA_DIR, "Conflict.xtg").getAbsoluteFile(), files.get(1));
+  }
+  
+  
+  @Test
+  public void test_run_convert() {
+  	ByteArrayOutputStream out = new ByteArrayOutputStream();
+  	List<FileResult> results = run(ReadWriteFormat.NEWICK, null, new String[0], 2, out);
+  	assertEquals(4, results.size());
+  	for (int i = 0; i < results.size(); i++) {
+  		FileResult result = results.get(i);
+  		assertEquals(getInputFiles().get(i), result.getInput());
+  		if (i == 2) {
+  			assertFalse(result.isSuccessful());
+  			assertTrue(out.toString().contains("Failed \"" + result.getInput().getPath() + "\""));
+  		}
+  		else {
+  			assertTrue(result.getError() + "", result.isSuccessful());
+  			assertTrue(result.getOutput().length() > 0);
+  			assertTrue(result.getOutput().getName().endsWith(".tre"));
+  			assertTrue(out.toString().contains("Completed \"" + result.getInput().getPath() + "\""));
+  		}
+		}
+  	
+  	// Existing files must not be overwritten:
+  	results = run(ReadWriteFormat.NEWICK, null, new String[0], 2, out);
+  	for (FileResult result : results) {
+  		assertFalse(result.isSuccessful());
+		}
+  }
+  
+  
+  @Test
+  public void test_run_image() throws IOException {
+  	List<FileResult> results = run(null, GraphicFormat.PNG, 
+  			new String[]{CmdProcessor.BATCH_OPTION, "in", "png", "out", ImageGenerator.PHYLOGRAM_OPTION, 
+  					ImageGenerator.WIDTH_OPTION, "200px"}, 
+  			3, new ByteArrayOutputStream());
+  	for (int i = 0; i < results.size(); i++) {
+  		FileResult result = results.get(i);
+  		assertEquals(i != 2, result.isSuccessful());
+  		if (result.isSuccessful()) {
+  			assertEquals(200, ImageIO.read(result.getOutput()).getWidth());
+  		}
+		}
+  }
+  
+  
+  @Test
+  public void test_run_tiledImage() throws IOException {
+  	List<FileResult> results = run(null, GraphicFormat.TIFF, 
+  			new String[]{CmdProcessor.BATCH_OPTION, "in", "tif", "out", ImageGenerator.TILED_OPTION, 
+  					ImageGenerator.WIDTH_OPTION, "200px"}, 
+  			2, new ByteArrayOutputStream());
+  	for (int i = 0; i < results.size(); i++) {
+  		FileResult result = results.get(i);
+  		assertEquals(i != 2, result.isSuccessful());
+  		if (result.isSuccessful()) {
+  			assertTrue(result.getOutput().length() > 0);
+  			if (ImageIO.getImageReadersByFormatName("tiff").hasNext()) {
+  				assertEquals(200, ImageIO.read(result.getOutput()).getWidth());
+  			}
+  		}
+		}
+  }
+  
+  
+  @Test(expected=IllegalArgumentException.class)
+  public void test_run_tiledImageUnsupported() {
+  	run(null, GraphicFormat.SVG, new String[]{CmdProcessor.BATCH_OPTION, "in", "svg", "out", 
+  			ImageGenerator.TILED_OPTION}, 1, new ByteArrayOutputStream());
+  }
+}
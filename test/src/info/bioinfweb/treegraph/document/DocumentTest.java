@@ -0,0 +1,67 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document;
+
+
+import info.bioinfweb.treegraph.document.nodebranchdata.NodeNameAdapter;
+import info.bioinfweb.treegraph.document.nodebranchdata.VoidNodeBranchDataAdapter;
+import info.bioinfweb.treegraph.document.undo.edit.BranchLengthEdit;
+import info.bioinfweb.treegraph.document.undo.edit.DefaultDocumentAdapterEdit;
+import info.bioinfweb.treegraph.graphics.positionpaint.PositionIndex;
+import info.bioinfweb.treegraph.graphics.positionpaint.PositionPaintType;
+import info.bioinfweb.treegraph.test.TestTools;
+
+import org.junit.* ;
+
+import static org.junit.Assert.* ;
+
+
+
+/**
+ * Tests {@link Document}.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class DocumentTest {
+	private static final PositionPaintType TYPE = PositionPaintType.RECT_CLAD;
+	
+	
+  @Test
+  public void test_registerChange_neutral() {
+  	Document document = TestTools.readDocument("RerootByLeaves.xtg", TYPE);
+  	PositionIndex index = document.getTree().getPositionIndex(TYPE);
+  	assertNotNull(index);
+  	
+  	document.executeEdit(new DefaultDocumentAdapterEdit(document, NodeNameAdapter.getSharedInstance(), 
+  			new VoidNodeBranchDataAdapter("Not specified.")));
+  	assertSame(index, document.getTree().getPositionIndex(TYPE));  // Tree was not positioned again.
+  }
+  
+  
+  @Test
+  public void test_registerChange_position() {
+  	Document document = TestTools.readDocument("RerootByLeaves.xtg", TYPE);
+  	PositionIndex index = document.getTree().getPositionIndex(TYPE);
+  	
+  	document.executeEdit(new BranchLengthEdit(document, document.getTree().getPaintStart().getChildren().get(0).getAfferentBranch(), 
+  			2.0));
+  	assertNotSame(index, document.getTree().getPositionIndex(TYPE));
+  }
+}
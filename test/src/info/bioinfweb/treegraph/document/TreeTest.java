@@ -71,4 +71,49 @@ public class TreeTest {
   	assertNull(tree.getFirstNodeByData(BranchLengthAdapter.getSharedInstance(), 18.0, false, null));
   	assertNull(tree.getFirstNodeByData(BranchLengthAdapter.getSharedInstance(), 0.0, false, null));
   }
-}
+  
+  
+  private Node addChild(Node parent, double length) {
+  	Node result = Node.newInstanceWithBranch();
+  	if (!Double.isNaN(length)) {
+  		result.getAfferentBranch().setLength(length);
+  	}
+  	result.setParent(parent);
+  	parent.getChildren().add(result);
+  	return result;
+  }
+  
+  
+  @Test
+  public void test_getMetrics() {
+  	Tree tree = new Tree();
+  	tree.setPaintStart(Node.newInstanceWithBranch());
+  	Node internal = addChild(tree.getPaintStart(), 1.0);
+  	addChild(internal, 2.0);
+  	addChild(internal, 0.5);
+  	addChild(tree.getPaintStart(), 2.5);
+  	
+  	TreeMetrics metrics = tree.getMetrics(false);
+  	assertTrue(metrics.hasAllBranchLengths());
+  	assertEquals(3.0, metrics.getLongestPath(), 0.0);
+  	assertEquals(6.0, metrics.getTotalLength(), 0.0);
+  	assertEquals(2, metrics.getDepth());
+  	assertEquals(3, metrics.getLeafCount());
+  	assertSame(metrics, tree.getMetrics(false));
+  	
+  	metrics = tree.getMetrics(true);
+  	assertFalse(metrics.hasAllBranchLengths());
+  	assertTrue(Double.isNaN(metrics.getLongestPath()));
+  	assertEquals(3, metrics.getLeafCount());
+  	
+  	tree.getPaintStart().getAfferentBranch().setLength(4.0);
+  	assertFalse(tree.getMetrics(true).hasAllBranchLengths());  // Still cached.
+  	tree.clearMetrics();
+  	assertEquals(7.0, tree.getMetrics(true).getLongestPath(), 0.0);
+  	assertEquals(7.0, Tree.longestPath(tree.getPaintStart(), true), 0.0);
+  	
+  	addChild(internal, Double.NaN);
+  	assertFalse(Tree.hasAllBranchLengths(tree.getPaintStart(), false));
+  	assertTrue(Tree.hasAllBranchLengths(internal.getChildren().get(0), true));
+  }
+}
\ No newline at end of file
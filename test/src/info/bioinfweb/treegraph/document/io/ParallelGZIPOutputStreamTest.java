@@ -0,0 +1,116 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.io;
+
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.* ;
+
+import static org.junit.Assert.* ;
+
+
+
+/**
+ * Tests {@link ParallelGZIPOutputStream} and {@link CompressionUtils}.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class ParallelGZIPOutputStreamTest {
+	private byte[] createData(int length) {
+		Random random = new Random(42);
+		byte[] result = new byte[length];
+		for (int i = 0; i < length; i++) {
+			result[i] = (byte)('a' + random.nextInt(4));  // Compressible data
+		}
+		return result;
+	}
+	
+	
+	private byte[] compress(byte[] data, int threadCount, int blockSize) throws Exception {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		ParallelGZIPOutputStream stream = new ParallelGZIPOutputStream(result, threadCount, blockSize, 
+				Deflater.DEFAULT_COMPRESSION);
+		stream.write(data, 0, 10);
+		stream.write(data[10]);
+		stream.write(data, 11, data.length - 11);
+		stream.close();
+		return result.toByteArray();
+	}
+	
+	
+	private byte[] decompress(byte[] data) throws Exception {
+		InputStream stream = CompressionUtils.decompressIfGZIP(new BufferedInputStream(new ByteArrayInputStream(data)));
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int count = stream.read(buffer);
+		while (count != -1) {
+			result.write(buffer, 0, count);
+			count = stream.read(buffer);
+		}
+		stream.close();
+		return result.toByteArray();
+	}
+	
+	
+	private void assertRoundTrip(int length, int threadCount, int blockSize) throws Exception {
+		byte[] data = createData(length);
+		byte[] compressed = compress(data, threadCount, blockSize);
+		assertTrue(compressed.length < data.length);
+		assertTrue(CompressionUtils.isGZIPStream(new BufferedInputStream(new ByteArrayInputStream(compressed))));
+		assertTrue(Arrays.equals(data, decompress(compressed)));
+	}
+	
+	
+  @Test
+  public void test_roundTrip() throws Exception {
+  	assertRoundTrip(100000, 1, 1000);
+  	assertRoundTrip(100000, 4, 1000);
+  	assertRoundTrip(100000, 4, 100000);  // Single block
+  	assertRoundTrip(100001, 3, 1000);  // Incomplete last block
+  	assertRoundTrip(1000, 2, ParallelGZIPOutputStream.DEFAULT_BLOCK_SIZE);
+  }
+  
+  
+  @Test
+  public void test_emptyStream() throws Exception {
+  	ByteArrayOutputStream result = new ByteArrayOutputStream();
+  	new ParallelGZIPOutputStream(result).close();
+  	assertEquals(0, result.size());
+  }
+  
+  
+  @Test
+  public void test_uncompressedData() throws Exception {
+  	byte[] data = "<?xml version=\"1.0\"?>".getBytes("UTF-8");
+  	BufferedInputStream stream = new BufferedInputStream(new ByteArrayInputStream(data));
+  	assertFalse(CompressionUtils.isGZIPStream(stream));
+  	assertSame(stream, CompressionUtils.decompressIfGZIP(stream));
+  	assertTrue(Arrays.equals(data, decompress(data)));
+  	assertTrue(Arrays.equals(new byte[0], decompress(new byte[0])));
+  }
+}
@@ -21,7 +21,11 @@ package info.bioinfweb.treegraph.document.io.ancestralstate;
 
 import info.bioinfweb.commons.SystemUtils;
 
+import java.io.File;
+import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
 import java.util.Map;
 
 import org.junit.* ;
@@ -62,4 +66,79 @@ public class BayesTraitsReaderTest {
 			e.printStackTrace();
 		}
 	}
+	
+	
+	private static String writeFile(String content) throws IOException {
+		File file = File.createTempFile("BayesTraitsReaderTest", ".txt");
+		file.deleteOnExit();
+		Writer writer = new FileWriter(file);
+		try {
+			writer.write(content);
+		}
+		finally {
+			writer.close();
+		}
+		return file.getAbsolutePath();
+	}
+	
+	
+	private static void assertSameProbabilities(AncestralStateData expected, AncestralStateData actual) {
+		assertEquals(expected.getSiteCount(), actual.getSiteCount());
+		Iterator<String> expectedSites = expected.getSiteIterator();
+		Iterator<String> actualSites = actual.getSiteIterator();
+		while (expectedSites.hasNext()) {
+			String site = expectedSites.next();
+			assertEquals(site, actualSites.next());
+			Iterator<String> expectedStates = expected.getKeyIterator(site);
+			Iterator<String> actualStates = actual.getKeyIterator(site);
+			while (expectedStates.hasNext()) {
+				String state = expectedStates.next();
+				assertEquals(state, actualStates.next());
+				assertEquals(expected.getProbability(site, state), actual.getProbability(site, state), 0.000000000001);
+			}
+			assertFalse(actualStates.hasNext());
+		}
+	}
+	
+	
+	@Test
+	public void test_read_parallel() throws IOException {
+		String fileName = "data" + SystemUtils.FILE_SEPARATOR + "ancestralState" + SystemUtils.FILE_SEPARATOR + "Primates.txt.log.txt";
+		Map<String, AncestralStateData> expected = new BayesTraitsReader(1).read(fileName);
+		Map<String, AncestralStateData> actual = new BayesTraitsReader(4).read(fileName);
+		assertEquals(expected.keySet(), actual.keySet());
+		for (String name : expected.keySet()) {
+			assertEquals(expected.get(name).getLeafNames(), actual.get(name).getLeafNames());
+			assertSameProbabilities(expected.get(name), actual.get(name));
+		}
+	}
+	
+	
+	@Test
+	public void test_read_missingValues() throws IOException {
+		String fileName = writeFile("MRCA:  A  1.0\n   1\tx\n   2\ty\n" + 
+				"Iteration\tLh\tA - S(0) - P(1)\tA - S(0) - P(0)\tA - S(1) - P(0)\tRoot P(0,1)\n" +
+				"1\t-1.0\t--\t0.2\t--\t0.5\n" +
+				"2\t-1.0\t0.6\t0.4\t--\t0.25\n");
+		
+		for (int threadCount = 1; threadCount <= 2; threadCount++) {
+			Map<String, AncestralStateData> nodes = new BayesTraitsReader(threadCount).read(fileName);
+			AncestralStateData a = nodes.get("A");
+			assertEquals(2, a.getSiteCount());  // Site 1 only contains missing values.
+			Iterator<String> iterator = a.getKeyIterator("0");
+			assertEquals("0", iterator.next());  // State 1 contained a missing value in the first row.
+			assertEquals("1", iterator.next());
+			assertFalse(iterator.hasNext());
+			assertEquals(0.3, a.getProbability("0", "0"), 0.000000001);
+			assertEquals(0.6, a.getProbability("0", "1"), 0.000000001);
+			assertEquals(0, a.getStateCountPerSite("1"));
+			assertEquals(0.375, nodes.get("Root").getProbability("0", "(0,1)"), 0.000000001);
+		}
+	}
+	
+	
+	@Test(expected=IOException.class)
+	public void test_read_undefinedNode() throws IOException {
+		new BayesTraitsReader().read(writeFile("Iteration\tLh\tB - P(0)\n1\t-1.0\t0.5\n"));
+	}
 }
@@ -0,0 +1,94 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.io.newick;
+
+
+import java.util.List;
+
+import org.junit.* ;
+
+import static org.junit.Assert.* ;
+
+
+
+/**
+ * Tests {@link NewickScanner}.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class NewickScannerTest {
+  @Test
+  public void test_parse_names() {
+  	List<NewickToken> tokens = NewickScanner.parse("(A_b,'c''d'[comment]);");
+  	assertEquals(6, tokens.size());
+  	assertEquals(TokenType.SUBTREE_START, tokens.get(0).getType());
+  	assertEquals("A b", tokens.get(1).getText());
+  	assertFalse(tokens.get(1).wasDelimited());
+  	assertEquals(TokenType.ELEMENT_SEPARATOR, tokens.get(2).getType());
+  	assertEquals("c'd", tokens.get(3).getText());
+  	assertTrue(tokens.get(3).wasDelimited());
+  	assertEquals("comment", tokens.get(3).getComment());
+  	assertEquals(TokenType.SUBTREE_END, tokens.get(4).getType());
+  	assertEquals(TokenType.TERMNINAL_SYMBOL, tokens.get(5).getType());
+  	assertEquals(21, tokens.get(5).getTextPos());
+  }
+  
+  
+  @Test
+  public void test_parse_hotComments() {
+  	List<NewickToken> tokens = NewickScanner.parse("[&U](A,B);");
+  	assertEquals(TokenType.UNROOTED_COMMAND, tokens.get(0).getType());
+  	tokens = NewickScanner.parse("[&r](A,B);");
+  	assertEquals(TokenType.ROOTED_COMMAND, tokens.get(0).getType());
+  }
+  
+  
+  private double parseLength(String length) {
+  	List<NewickToken> tokens = NewickScanner.parse("A:" + length + ";");
+  	assertEquals(TokenType.LENGTH, tokens.get(1).getType());
+  	return tokens.get(1).getLength();
+  }
+  
+  
+  @Test
+  public void test_parse_lengths() {
+  	String[] lengths = {"0", "-0", "1", "1.", ".5", "0.1", "-2.75", "+3", "0.000123", "1e-5", "1.5E+3", "123456789012345", 
+  			"1234567890123456789", "0.30000000000000004", "1e300", "4.9e-324", "Infinity", "NaN", "1d"};
+  	for (String length : lengths) {
+  		assertEquals(Double.doubleToLongBits(Double.parseDouble(length)), Double.doubleToLongBits(parseLength(length)));
+  	}
+  	
+  	List<NewickToken> tokens = NewickScanner.parse("A:[&rate=0.5]0.25;");
+  	assertEquals("&rate=0.5", tokens.get(0).getComment());
+  	assertEquals(0.25, tokens.get(1).getLength(), 0.0);
+  }
+  
+  
+  @Test(expected=NewickException.class)
+  public void test_parse_illegalLength() {
+  	NewickScanner.parse("A:1e;");
+  }
+  
+  
+  @Test(expected=NewickException.class)
+  public void test_parse_unterminatedComment() {
+  	NewickScanner.parse("(A,B)[comment;");
+  }
+}
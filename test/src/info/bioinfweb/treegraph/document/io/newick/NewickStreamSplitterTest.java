@@ -0,0 +1,89 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.io.newick;
+
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.* ;
+
+import static org.junit.Assert.* ;
+
+
+
+/**
+ * Tests {@link NewickStreamSplitter}.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class NewickStreamSplitterTest {
+	private List<String> split(String text, int bufferSize) throws IOException {
+		List<String> result = new ArrayList<String>();
+		NewickStreamSplitter splitter = new NewickStreamSplitter(new StringReader(text), bufferSize);
+		CharSequence tree = splitter.nextTree();
+		while (tree != null) {
+			result.add(tree.toString());
+			tree = splitter.nextTree();
+		}
+		return result;
+	}
+	
+	
+  @Test
+  public void test_nextTree() throws IOException {
+  	String text = "(A,'B;C');\n[comment;]((D,E),F);\n (G,H)  \n";
+  	for (int bufferSize = 1; bufferSize <= text.length() + 1; bufferSize++) {
+  		List<String> trees = split(text, bufferSize);
+  		assertEquals(3, trees.size());
+  		assertEquals("(A,'B;C');", trees.get(0));
+  		assertEquals("\n[comment;]((D,E),F);", trees.get(1));
+  		assertEquals("(G,H);", trees.get(2));
+  	}
+  }
+  
+  
+  @Test
+  public void test_nextTree_whitespaceAtEnd() throws IOException {
+  	List<String> trees = split("(A,B);\n \t\n", 4);
+  	assertEquals(1, trees.size());
+  	assertEquals("(A,B);", trees.get(0));
+  	
+  	assertTrue(split("", 4).isEmpty());
+  }
+  
+  
+  @Test
+  public void test_nextTree_largeTree() throws IOException {
+  	StringBuilder largeTree = new StringBuilder("(");
+  	for (int i = 0; i < 100000; i++) {
+  		largeTree.append("taxon" + i + ",");
+  	}
+  	largeTree.append("last);");
+  	
+  	List<String> trees = split(largeTree + "(A,B);(C,D);", NewickStreamSplitter.DEFAULT_BUFFER_SIZE);
+  	assertEquals(3, trees.size());
+  	assertEquals(largeTree.toString(), trees.get(0));
+  	assertEquals("(A,B);", trees.get(1));
+  	assertEquals("(C,D);", trees.get(2));
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.io.nexus;
+
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.* ;
+
+import static org.junit.Assert.* ;
+
+
+
+/**
+ * Tests {@link NexusCommandReader}.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class NexusCommandReaderTest {
+	private List<NexusCommand> readCommands(NexusCommandReader reader) throws IOException {
+		List<NexusCommand> result = new ArrayList<NexusCommand>();
+		NexusCommand command = reader.readNextCommand();
+		while (command != null) {
+			result.add(command);
+			command = reader.readNextCommand();
+		}
+		return result;
+	}
+	
+	
+  @Test
+  public void test_readNextCommand() throws IOException {
+  	String text = " \r\n#NEXUS\r\nbegin trees;\r\n\ttranslate 1 'a;b', 2 c[;];\rtree t1 = [&R] (1,2);\nend;";
+  	for (int bufferSize = 1; bufferSize <= text.length() + 1; bufferSize++) {
+  		NexusCommandReader reader = new NexusCommandReader(new StringReader(text), bufferSize);
+  		assertTrue(reader.readHeader());
+  		List<NexusCommand> commands = readCommands(reader);
+  		assertEquals(4, commands.size());
+  		
+  		assertEquals("begin", commands.get(0).getName());
+  		assertEquals("trees", commands.get(0).getTokens());
+  		assertEquals("translate", commands.get(1).getName());
+  		assertEquals("1 'a;b', 2 c[;]", commands.get(1).getTokens());
+  		assertEquals("tree", commands.get(2).getName());
+  		assertEquals("t1 = [&R] (1,2)", commands.get(2).getTokens());
+  		assertEquals("end", commands.get(3).getName());
+  	}
+  }
+  
+  
+  @Test
+  public void test_readNextCommand_unterminated() throws IOException {
+  	NexusCommandReader reader = new NexusCommandReader(new StringReader("#nexus begin trees; end [;"));
+  	assertTrue(reader.readHeader());
+  	List<NexusCommand> commands = readCommands(reader);
+  	assertEquals(1, commands.size());
+  	assertEquals("begin", commands.get(0).getName());
+  }
+  
+  
+  @Test
+  public void test_readHeader() throws IOException {
+  	assertTrue(new NexusCommandReader(new StringReader("#Nexus")).readHeader());
+  	assertFalse(new NexusCommandReader(new StringReader("#Nexu")).readHeader());
+  	assertFalse(new NexusCommandReader(new StringReader("(A,B);")).readHeader());
+  	assertFalse(new NexusCommandReader(new StringReader("")).readHeader());
+  }
+}
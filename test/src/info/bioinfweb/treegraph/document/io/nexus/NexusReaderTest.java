@@ -0,0 +1,122 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.io.nexus;
+
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.Tree;
+import info.bioinfweb.treegraph.document.io.DocumentIterator;
+import info.bioinfweb.treegraph.document.io.ReadWriteParameterMap;
+import info.bioinfweb.treegraph.document.io.TreeSelector;
+import info.bioinfweb.treegraph.document.io.newick.NewickException;
+
+import org.junit.* ;
+
+import static org.junit.Assert.* ;
+
+
+
+/**
+ * Tests {@link NexusReader}.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class NexusReaderTest {
+	private static final String NEXUS_FILE = "#NEXUS\nbegin taxa;\n\tdimensions ntax=3;\nend;\n" + 
+			"begin trees;\n\ttranslate 1 A, 2 B, 3 'C D';\n\ttree t1 = (1,(2,3));\n\ttree t2 = ((1,2),3);\nend;\n" +
+			"begin trees;\n\ttree t3 = (1,2,3);\nend;\n";
+	private static final String INVALID_SECOND_TREE_FILE = "#NEXUS\nbegin trees;\n\ttree t1 = (A,(B,C));\n" + 
+			"\ttree t2 = ((A,B),C;\nend;\n";
+	
+	
+	private Document read(String text, final int selectedIndex) throws Exception {
+		ReadWriteParameterMap parameters = new ReadWriteParameterMap();
+		parameters.put(ReadWriteParameterMap.KEY_TREE_SELECTOR, new TreeSelector() {
+			@Override
+			public int select(String[] names, List<Tree> trees) {
+				assertEquals(names.length, trees.size());
+				return selectedIndex;
+			}
+		});
+		return new NexusReader().read(new ByteArrayInputStream(text.getBytes("UTF-8")), parameters);
+	}
+	
+	
+	private DocumentIterator createIterator(String text) throws Exception {
+		return new NexusReader().readAll(new ByteArrayInputStream(text.getBytes("UTF-8")), new ReadWriteParameterMap());
+	}
+	
+	
+  @Test
+  public void test_readAll() throws Exception {
+  	DocumentIterator iterator = createIterator(NEXUS_FILE);
+  	
+  	assertTrue(iterator.hasNext());
+  	Document document = iterator.next();
+  	Node root = document.getTree().getPaintStart();
+  	assertEquals("A", root.getChildren().get(0).getData().getText());
+  	assertEquals("C D", root.getChildren().get(1).getChildren().get(1).getData().getText());
+  	
+  	document = iterator.next();
+  	root = document.getTree().getPaintStart();
+  	assertEquals("C D", root.getChildren().get(1).getData().getText());
+  	
+  	assertFalse(iterator.hasNext());  // Only the first trees block is read.
+  	assertNull(iterator.next());
+  }
+  
+  
+  @Test(expected=NexusException.class)
+  public void test_readAll_unterminated() throws Exception {
+  	DocumentIterator iterator = createIterator("#NEXUS\nbegin trees;\n\ttree t1 = (A,B);\n");
+  	assertNotNull(iterator.next());
+  	iterator.next();
+  }
+  
+  
+  @Test(expected=NexusException.class)
+  public void test_readAll_noTrees() throws Exception {
+  	createIterator("#NEXUS\nbegin taxa;\nend;\n").next();
+  }
+  
+  
+  @Test
+  public void test_read_selectedTree() throws Exception {
+  	Node root = read(NEXUS_FILE, 1).getTree().getPaintStart();
+  	assertEquals("C D", root.getChildren().get(1).getData().getText());
+  }
+  
+  
+  @Test
+  public void test_read_onlySelectedTreeParsed() throws Exception {
+  	Node root = read(INVALID_SECOND_TREE_FILE, 0).getTree().getPaintStart();
+  	assertEquals("A", root.getChildren().get(0).getData().getText());
+  }
+  
+  
+  @Test(expected=NewickException.class)
+  public void test_read_invalidSelectedTree() throws Exception {
+  	read(INVALID_SECOND_TREE_FILE, 1);
+  }
+}
@@ -0,0 +1,348 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.io.xtg;
+
+
+import info.bioinfweb.treegraph.document.*;
+import info.bioinfweb.treegraph.document.format.BranchFormats;
+import info.bioinfweb.treegraph.document.format.NodeFormats;
+import info.bioinfweb.treegraph.document.format.TextFormats;
+import info.bioinfweb.treegraph.document.io.AbstractDocumentReader;
+import info.bioinfweb.treegraph.document.io.CompressionUtils;
+import info.bioinfweb.treegraph.document.io.ReadWriteFactory;
+import info.bioinfweb.treegraph.document.io.ReadWriteFormat;
+import info.bioinfweb.treegraph.document.io.ReadWriteParameterMap;
+import info.bioinfweb.commons.log.ApplicationLoggerMessage;
+import info.bioinfweb.commons.log.MessageListApplicationLogger;
+
+import java.awt.Color;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.* ;
+
+import static org.junit.Assert.* ;
+
+
+
+/**
+ * Tests if {@link XTGReader} creates the same documents as the event based implementation 
+ * {@link EventXTGReader} used before version 2.16.0. Documents are compared by writing them with 
+ * {@link XTGWriter}.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class XTGReaderTest {
+	private static final Color[] COLORS = {Color.BLACK, Color.RED, new Color(18, 52, 86)};
+	
+	
+	private static class ReadResult {
+		public String xtg;
+		public List<String> messages = new ArrayList<String>();
+	}
+	
+	
+	private ReadResult read(AbstractDocumentReader reader, InputStream stream) throws Exception {
+		MessageListApplicationLogger logger = new MessageListApplicationLogger();
+		ReadWriteParameterMap parameters = new ReadWriteParameterMap();
+		parameters.putApplicationLogger(logger);
+		parameters.put(ReadWriteParameterMap.KEY_REGISTER_FILE_CHOOSER_OF_DOCUMENT, false);
+		Document document = reader.read(stream, parameters);
+		
+		ReadResult result = new ReadResult();
+		result.xtg = write(document);
+		for (ApplicationLoggerMessage message : logger.getMessageList()) {
+			result.messages.add(message.getType() + ": " + message.getMessage());
+		}
+		return result;
+	}
+	
+	
+	private String write(Document document) throws Exception {
+		return write(document, false);
+	}
+	
+	
+	private String write(Document document, boolean writeStyles) throws Exception {
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		ReadWriteParameterMap parameters = new ReadWriteParameterMap();
+		parameters.put(ReadWriteParameterMap.KEY_WRITE_STYLES, writeStyles);
+		new XTGWriter().write(document, stream, parameters);
+		return stream.toString("UTF-8");
+	}
+	
+	
+	private void assertParity(byte[] xtg) throws Exception {
+		ReadResult expected = read(new EventXTGReader(), new ByteArrayInputStream(xtg));
+		ReadResult actual = read(new XTGReader(), new ByteArrayInputStream(xtg));
+		assertEquals(expected.xtg, actual.xtg);
+		assertEquals(expected.messages, actual.messages);
+	}
+	
+	
+	private void assertParity(File file) throws Exception {
+		ReadResult expected = read(new EventXTGReader(), new FileInputStream(file));
+		ReadResult actual = read(new XTGReader(), new FileInputStream(file));
+		assertEquals(file.getPath(), expected.xtg, actual.xtg);
+		assertEquals(file.getPath(), expected.messages, actual.messages);
+	}
+	
+	
+	private void collectFiles(File directory, List<File> files) {
+		File[] children = directory.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				if (child.isDirectory()) {
+					collectFiles(child, files);
+				}
+				else if (child.getName().toLowerCase().endsWith(XTGFilter.EXTENSION)) {
+					files.add(child);
+				}
+			}
+		}
+	}
+	
+	
+	private void setTextFormats(TextFormats f, int index) {
+		f.setTextColor(COLORS[index % COLORS.length]);
+		f.getTextHeight().setInMillimeters(2f + index % 4);
+		f.setTextStyle(index % 8);
+		if (index % 5 == 0) {
+			f.setDecimalFormat(new DecimalFormat("0.0##E0"), Locale.GERMANY);
+		}
+	}
+	
+	
+	private void addLabels(Branch branch, int index, Random random) {
+		TextLabel textLabel = new TextLabel(null);
+		textLabel.setID("support");
+		textLabel.getData().setDecimal(random.nextInt(100));
+		setTextFormats(textLabel.getFormats(), index);
+		textLabel.getFormats().getMargin().getLeft().setInMillimeters(index % 3);
+		branch.getLabels().add(textLabel);
+		
+		if (index % 3 == 0) {
+			IconLabel iconLabel = new IconLabel(null);
+			iconLabel.setID("icon");
+			iconLabel.getFormats().setAbove(false);
+			iconLabel.getFormats().setLineNumber(1);
+			iconLabel.getFormats().setIconFilled(true);
+			iconLabel.getFormats().setLineColor(COLORS[index % COLORS.length]);
+			iconLabel.getFormats().getWidth().setInMillimeters(4f);
+			branch.getLabels().add(iconLabel);
+		}
+		
+		if (index % 7 == 0) {
+			PieChartLabel pieChartLabel = new PieChartLabel(null);
+			pieChartLabel.setID("pie");
+			pieChartLabel.getData().setText("Pie <" + index + ">");
+			pieChartLabel.getFormats().setShowTitle(true);
+			pieChartLabel.getSectionDataList().add(new PieChartLabel.SectionData("support", "A & B"));
+			pieChartLabel.getSectionDataList().add(new PieChartLabel.SectionData("hidden<1>", ""));
+			pieChartLabel.getFormats().setPieColor(1, COLORS[2]);
+			setTextFormats(pieChartLabel.getFormats().getCaptionsTextFormats(), index + 1);
+			branch.getLabels().add(pieChartLabel);
+		}
+	}
+	
+	
+	private Document createDocument(int nodeCount, long seed) {
+		Random random = new Random(seed);
+		List<Node> nodes = new ArrayList<Node>(nodeCount);
+		nodes.add(Node.newInstanceWithBranch());
+		for (int i = 1; i < nodeCount; i++) {
+			Node parent = nodes.get(random.nextInt(nodes.size()));
+			Node node = Node.newInstanceWithBranch();
+			node.setParent(parent);
+			parent.getChildren().add(node);
+			nodes.add(node);
+		}
+		
+		for (int i = 0; i < nodes.size(); i++) {
+			Node node = nodes.get(i);
+			if (i % 2 == 0) {
+				node.getData().setText("Node \"" + i + "\" & more");
+			}
+			else {
+				node.getData().setDecimal(random.nextDouble());
+			}
+			setTextFormats(node.getFormats(), i);
+			node.getFormats().getLineWidth().setInMillimeters(0.1f * (i % 4));
+			node.getHiddenDataMap().put("hidden<1>", new TextElementData(random.nextDouble()));
+			
+			Branch branch = node.getAfferentBranch();
+			branch.setLength(random.nextDouble());
+			branch.getFormats().setLineColor(COLORS[(i + 1) % COLORS.length]);
+			branch.getFormats().getMinLength().setInMillimeters(i % 6);
+			branch.getHiddenDataMap().put("text", new TextElementData("b" + i));
+			addLabels(branch, i, random);
+		}
+		
+		Document result = new Document(false);
+		Tree tree = result.getTree();
+		tree.setPaintStart(nodes.get(0));
+		tree.assignUniqueNames();
+		tree.getFormats().setShowScaleBar(true);
+		tree.getFormats().setBackgroundColor(COLORS[2]);
+		tree.getScaleBar().getData().setText("Scale");
+		
+		Legend legend = new Legend(tree.getLegends());
+		legend.getData().setText("Legend");
+		legend.getFormats().setAnchor(0, nodes.get(nodeCount / 2));
+		legend.getFormats().setAnchor(1, nodes.get(nodeCount - 1));
+		tree.getLegends().insert(legend);
+		tree.updateElementSet();
+		return result;
+	}
+	
+	
+  @Test
+  public void test_testFiles() throws Exception {
+  	List<File> files = new ArrayList<File>();
+  	collectFiles(new File("data"), files);
+  	assertFalse(files.isEmpty());
+  	for (File file : files) {
+			assertParity(file);
+		}
+  }
+  
+  
+  @Test
+  public void test_generatedDocument() throws Exception {
+  	String xtg = write(createDocument(2000, 42));
+  	assertParity(xtg.getBytes("UTF-8"));
+  	
+  	ReadResult result = read(new XTGReader(), new ByteArrayInputStream(xtg.getBytes("UTF-8")));
+  	assertEquals(xtg, result.xtg);
+  	assertTrue(result.messages.isEmpty());
+  }
+  
+  
+  @Test
+  public void test_styles() throws Exception {
+  	Document document = createDocument(500, 7);
+  	String inline = write(document, false);
+  	String styled = write(document, true);
+  	assertTrue(styled.contains("<" + XTGConstants.TAG_STYLES + ">"));
+  	assertTrue(styled.length() < inline.length());
+  	
+  	ReadResult result = read(new XTGReader(), new ByteArrayInputStream(styled.getBytes("UTF-8")));
+  	assertEquals(inline, result.xtg);
+  	assertTrue(result.messages.isEmpty());
+  }
+  
+  
+  @Test
+  public void test_styleOverrides() throws Exception {
+  	String xtg = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+  			"<TreegraphDocument xmlns=\"http://bioinfweb.info/xmlns/xtg\">" +
+  			"<Styles>" +
+  				"<NodeStyle Id=\"n\" TextColor=\"#FF0000\" DecimalFormat=\"0.00\" LocaleLang=\"de\"><LeafMargin Left=\"5.0\"/></NodeStyle>" +
+  				"<BranchStyle Id=\"b\" LineWidth=\"2.0\" ConstantWidth=\"true\"/>" +
+  				"<TextLabelStyle Id=\"t\" TextHeight=\"7.0\"><LabelMargin Top=\"3.0\"/></TextLabelStyle>" +
+  			"</Styles>" +
+  			"<Tree>" +
+  				"<Node UniqueName=\"a\" Style=\"n\" TextColor=\"#0000FF\">" +
+  					"<Branch Style=\"b\"><TextLabel Text=\"x\" Style=\"t\" Id=\"l\"/></Branch>" +
+  					"<Node UniqueName=\"b\" Style=\"unknown\"/>" +
+  				"</Node>" +
+  			"</Tree>" +
+  			"</TreegraphDocument>";
+  	MessageListApplicationLogger logger = new MessageListApplicationLogger();
+		ReadWriteParameterMap parameters = new ReadWriteParameterMap();
+		parameters.putApplicationLogger(logger);
+		parameters.put(ReadWriteParameterMap.KEY_REGISTER_FILE_CHOOSER_OF_DOCUMENT, false);
+		Document document = new XTGReader().read(new ByteArrayInputStream(xtg.getBytes("UTF-8")), parameters);
+		
+		Node root = document.getTree().getPaintStart();
+		assertEquals(Color.BLUE, root.getFormats().getTextColor());  // Overwritten by the attribute
+		assertEquals(new DecimalFormat("0.00").toPattern(), root.getFormats().getDecimalFormat().toPattern());
+		assertEquals("de", root.getFormats().getLocale().getLanguage());
+		assertEquals(5f, root.getFormats().getLeafMargin().getLeft().getInMillimeters(), 0f);
+		
+		BranchFormats branchFormats = root.getAfferentBranch().getFormats();
+		assertEquals(2f, branchFormats.getLineWidth().getInMillimeters(), 0f);
+		assertTrue(branchFormats.isConstantWidth());
+		
+		TextLabel label = (TextLabel)root.getAfferentBranch().getLabels().get(true, 0, 0);
+		assertEquals(7f, label.getFormats().getTextHeight().getInMillimeters(), 0f);
+		assertEquals(3f, label.getFormats().getMargin().getTop().getInMillimeters(), 0f);
+		
+		assertEquals(new NodeFormats().getTextColor(), root.getChildren().get(0).getFormats().getTextColor());
+		List<ApplicationLoggerMessage> messages = logger.getMessageList();
+		assertTrue(messages.get(messages.size() - 1).getMessage().contains("\"unknown\""));
+  }
+  
+  
+  @Test
+  public void test_compressed() throws Exception {
+  	Document document = createDocument(500, 3);
+  	String expected = write(document);
+  	File file = File.createTempFile("XTGReaderTest", XTGFilter.COMPRESSED_EXTENSION);
+  	File renamedFile = new File(file.getPath() + ".tmp");
+  	try {
+  		new XTGWriter().write(document, file);
+  		assertTrue(CompressionUtils.isGZIPFile(file));
+  		assertTrue(file.length() < expected.length() / 5);
+  		assertEquals(ReadWriteFormat.XTG, ReadWriteFactory.getInstance().formatByFile(file));
+  		
+  		ReadResult result = read(new XTGReader(), new FileInputStream(file));
+  		assertEquals(expected, result.xtg);
+  		assertTrue(result.messages.isEmpty());
+  		
+  		assertTrue(file.renameTo(renamedFile));  // Compressed files are also detected by their content.
+  		assertEquals(ReadWriteFormat.XTG, ReadWriteFactory.getInstance().formatByFile(renamedFile));
+  	}
+  	finally {
+  		file.delete();
+  		renamedFile.delete();
+  	}
+  }
+  
+  
+  @Test
+  public void test_unknownElementsAndText() throws Exception {
+  	String xtg = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+  			"<TreegraphDocument xmlns=\"http://bioinfweb.info/xmlns/other\">" +
+  			"<!-- comment --><Unknown><Node /></Unknown>" +
+  			"<GlobalFormats BgColor=\"#00FF00\" LineColor=\"#FF0000\"><DocMargin Left=\"x\" Top=\"3.5\"/>text</GlobalFormats>" +
+  			"<Tree>" +
+  				"<Node Text=\"1.5\" IsDecimal=\"true\" UniqueName=\"a\" TextStyle=\"BI\">" +
+  					"<Branch Length=\"2.0\">" +
+  						"<PieChartLabel Id=\"p\"><DataIds><DataId PieColor=\"#0000FF\">a&lt;b<!-- c -->c</DataId>" +
+  								"<DataId>d<Sub/>e</DataId></DataIds></PieChartLabel>" +
+  						"<InvisibleData Id=\"h\" Text=\"abc\" IsDecimal=\"true\"><More/></InvisibleData>" +
+  					"</Branch>" +
+  					"<Node UniqueName=\"b\"><Branch/><Node UniqueName=\"c\"/><Other>text</Other></Node>" +
+  				"</Node>" +
+  				"<Legend Text=\"L\" Anchor0=\"B\" Anchor1=\"c\" LegendStyle=\"brace\" Orientation=\"down\"/>" +
+  			"</Tree>" +
+  			"</TreegraphDocument>";
+  	assertParity(xtg.getBytes("UTF-8"));
+  }
+}
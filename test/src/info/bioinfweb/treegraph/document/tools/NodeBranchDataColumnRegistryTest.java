@@ -0,0 +1,154 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.tools;
+
+
+import java.util.Arrays;
+
+import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.document.GraphicalLabel;
+import info.bioinfweb.treegraph.document.IconLabel;
+import info.bioinfweb.treegraph.document.Label;
+import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.TextLabel;
+import info.bioinfweb.treegraph.document.nodebranchdata.HiddenBranchDataAdapter;
+import info.bioinfweb.treegraph.document.nodebranchdata.HiddenNodeDataAdapter;
+import info.bioinfweb.treegraph.document.nodebranchdata.TextLabelAdapter;
+
+import org.junit.* ;
+
+import static org.junit.Assert.* ;
+
+
+
+/**
+ * Tests {@link NodeBranchDataColumnRegistry}.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class NodeBranchDataColumnRegistryTest {
+	private Document createDocument() {
+		Document result = new Document(false);
+		Node root = Node.newInstanceWithBranch();
+		Node a = addChild(root);
+		Node b = addChild(root);
+		Node c = addChild(b);
+		addChild(b);
+		
+		new TextLabelAdapter("t2").setText(root, "r");
+		new TextLabelAdapter("t1").setText(a, "a");
+		new TextLabelAdapter("t1").setText(c, "c");
+		new HiddenNodeDataAdapter("h").setText(a, "1");
+		new HiddenNodeDataAdapter("n").setText(c, "2");
+		new HiddenBranchDataAdapter("h").setText(b, "3");
+		
+		IconLabel icon = new IconLabel(b.getAfferentBranch().getLabels());
+		icon.setID("i");
+		b.getAfferentBranch().getLabels().add(icon);
+		
+		result.getTree().setPaintStart(root);
+		result.getTree().assignUniqueNames();
+		return result;
+	}
+	
+	
+	private Node addChild(Node parent) {
+		Node child = Node.newInstanceWithBranch();
+		child.setParent(parent);
+		parent.getChildren().add(child);
+		return child;
+	}
+	
+	
+	private void assertIDs(String[] expected, String[] actual) {
+		assertEquals(Arrays.asList(expected), Arrays.asList(actual));
+	}
+	
+	
+  @Test
+  public void test_getIDs() {
+  	Document document = createDocument();
+  	Node root = document.getTree().getPaintStart();
+  	NodeBranchDataColumnRegistry registry = document.getTree().getColumnRegistry();
+  	
+  	assertEquals(Arrays.asList("t1", "t2"), registry.getLabelIDs(TextLabel.class));
+  	assertEquals(Arrays.asList("i"), registry.getLabelIDs(GraphicalLabel.class));
+  	assertEquals(Arrays.asList("i", "t1", "t2"), registry.getLabelIDs(Label.class));
+  	assertEquals(Arrays.asList("h", "n"), registry.getHiddenNodeDataIDs());
+  	assertEquals(Arrays.asList("h"), registry.getHiddenBranchDataIDs());
+  	assertEquals(Arrays.asList("h", "i", "n", "t1", "t2"), registry.getIDs());
+  	
+  	// Results must match the traversing methods:
+  	assertIDs(NodeBranchDataColumnManager.getLabelIDs(root, Label.class), 
+  			NodeBranchDataColumnManager.getLabelIDs(document.getTree(), Label.class));
+  	assertEquals(NodeBranchDataColumnManager.getHiddenNodeDataIDListFromSubtree(root), registry.getHiddenNodeDataIDs());
+  	assertEquals(NodeBranchDataColumnManager.getHiddenBranchDataIDListFromSubtree(root), registry.getHiddenBranchDataIDs());
+  	assertEquals(NodeBranchDataColumnManager.getIDListFromSubtree(root), registry.getIDs());
+  }
+	
+	
+  @Test
+  public void test_counts() {
+  	NodeBranchDataColumnRegistry registry = createDocument().getTree().getColumnRegistry();
+  	assertEquals(2, registry.getLabelCount(TextLabel.class, "t1"));
+  	assertEquals(0, registry.getLabelCount(GraphicalLabel.class, "t1"));
+  	assertEquals(1, registry.getLabelCount(Label.class, "i"));
+  	assertEquals(1, registry.getHiddenNodeDataCount("h"));
+  	assertEquals(1, registry.getHiddenBranchDataCount("h"));
+  	assertEquals(0, registry.getHiddenBranchDataCount("n"));
+  }
+	
+	
+  @Test
+  public void test_getFirstLabel() {
+  	Document document = createDocument();
+  	Node root = document.getTree().getPaintStart();
+  	NodeBranchDataColumnRegistry registry = document.getTree().getColumnRegistry();
+  	
+  	assertSame(NodeBranchDataColumnManager.getFirstLabel(root, TextLabel.class, "t1"), registry.getFirstLabel(TextLabel.class, "t1"));
+  	assertSame(root.getChildren().get(0).getAfferentBranch().getLabels().get("t1"), registry.getFirstLabel(Label.class, "t1"));
+  	assertNull(registry.getFirstLabel(TextLabel.class, "i"));
+  	assertNull(registry.getFirstLabel(Label.class, "x"));
+  }
+	
+	
+  @Test
+  public void test_containsID() {
+  	Document document = createDocument();
+  	assertTrue(NodeBranchDataColumnManager.idExistsInTree(document.getTree(), "t2"));
+  	assertTrue(NodeBranchDataColumnManager.idExistsInTree(document.getTree(), "n"));
+  	assertTrue(NodeBranchDataColumnManager.idExistsInTree(document.getTree(), "i"));
+  	assertFalse(NodeBranchDataColumnManager.idExistsInTree(document.getTree(), "x"));
+  	assertFalse(NodeBranchDataColumnManager.idExistsInTree(document.getTree(), ""));
+  }
+	
+	
+  @Test
+  public void test_clearColumnRegistry() {
+  	Document document = createDocument();
+  	NodeBranchDataColumnRegistry registry = document.getTree().getColumnRegistry();
+  	assertSame(registry, document.getTree().getColumnRegistry());
+  	
+  	new HiddenNodeDataAdapter("x").setText(document.getTree().getPaintStart(), "4");
+  	document.registerChange();
+  	assertNotSame(registry, document.getTree().getColumnRegistry());
+  	assertTrue(document.getTree().getColumnRegistry().containsID("x"));
+  }
+}
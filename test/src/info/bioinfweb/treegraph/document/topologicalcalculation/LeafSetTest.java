@@ -19,6 +19,9 @@
 package info.bioinfweb.treegraph.document.topologicalcalculation;
 
 
+import java.util.HashSet;
+import java.util.Set;
+
 import org.junit.* ;
 
 import static org.junit.Assert.* ;
@@ -95,4 +98,104 @@ public class LeafSetTest {
 		subset.setChild(7, true);
 		assertFalse(set.containsAll(subset));
 	}
-}
+	
+	
+	private LeafSet createLeafSet(int size, int... children) {
+		LeafSet result = new LeafSet(size);
+		for (int i = 0; i < children.length; i++) {
+			result.setChild(children[i], true);
+		}
+		return result;
+	}
+	
+	
+	@Test
+	public void test_complementTailMasked() {
+		LeafSet set = createLeafSet(70, 0, 63, 64, 69);
+		LeafSet complement = set.complement();
+		assertEquals(66, complement.childCount());
+		assertEquals(set, complement.complement());
+		assertEquals(set.hashCode(), complement.complement().hashCode());
+		assertEquals(70, createLeafSet(70).complement().childCount());
+		assertEquals(128, createLeafSet(128).complement().childCount());
+	}
+	
+	
+	@Test
+	public void test_childCount() {
+		assertEquals(0, createLeafSet(200).childCount());
+		assertEquals(5, createLeafSet(200, 0, 1, 63, 64, 199).childCount());
+	}
+	
+	
+	@Test
+	public void test_nextChild() {
+		LeafSet set = createLeafSet(200, 3, 64, 150);
+		assertEquals(3, set.nextChild(0));
+		assertEquals(3, set.nextChild(3));
+		assertEquals(64, set.nextChild(4));
+		assertEquals(150, set.nextChild(65));
+		assertEquals(-1, set.nextChild(151));
+		assertEquals(-1, set.nextChild(200));
+		assertTrue(createLeafSet(200).isEmpty());
+		assertFalse(set.isEmpty());
+	}
+	
+	
+	@Test
+	public void test_compareTo() {
+		LeafSet set = createLeafSet(100, 1, 70);
+		assertEquals(0, set.compareTo(createLeafSet(100, 1, 70), false));
+		assertEquals(2, set.compareTo(createLeafSet(100, 1, 2, 70, 99), false));
+		assertEquals(-1, set.compareTo(createLeafSet(100, 1, 2), false));
+		
+		LeafSet complement = set.complement();
+		assertEquals(0, complement.compareTo(set, true));
+		assertEquals(1, complement.compareTo(createLeafSet(100, 1, 70, 99), true));
+		assertEquals(-1, complement.compareTo(createLeafSet(100, 1), true));
+	}
+	
+	
+	@Test
+	public void test_inSubtreeOf() {
+		LeafSet set = createLeafSet(100, 1, 70);
+		assertTrue(set.inSubtreeOf(createLeafSet(100, 1, 70, 80), false));
+		assertFalse(set.inSubtreeOf(createLeafSet(100, 1, 70), false));
+		assertFalse(set.inSubtreeOf(createLeafSet(100, 1, 80), false));
+		
+		LeafSet complement = set.complement();
+		assertTrue(complement.inSubtreeOf(createLeafSet(100, 1, 70, 80), true));
+		assertFalse(complement.inSubtreeOf(set, true));
+	}
+	
+	
+	@Test
+	public void test_containsAnyAndOther() {
+		LeafSet set = createLeafSet(100, 1, 70);
+		assertTrue(set.containsAnyAndOther(createLeafSet(100, 70, 80), false));
+		assertFalse(set.containsAnyAndOther(createLeafSet(100, 1, 70, 80), false));
+		assertFalse(set.containsAnyAndOther(createLeafSet(100, 80), false));
+		assertTrue(set.containsAnyAndOther(createLeafSet(100, 1, 70, 80), true));
+		assertFalse(set.containsAnyAndOther(createLeafSet(100), true));
+	}
+	
+	
+	@Test
+	public void test_addField() {
+		LeafSet set = createLeafSet(100, 1);
+		set.addField(createLeafSet(100, 64, 99));
+		assertEquals(createLeafSet(100, 1, 64, 99), set);
+	}
+	
+	
+	@Test
+	public void test_hashCode() {
+		assertEquals(createLeafSet(130, 5, 70, 129).hashCode(), createLeafSet(130, 5, 70, 129).hashCode());
+		
+		Set<Integer> hashCodes = new HashSet<Integer>();
+		for (int i = 0; i < 130; i++) {
+			hashCodes.add(createLeafSet(130, i).hashCode());
+		}
+		assertEquals(130, hashCodes.size());
+	}
+}
\ No newline at end of file
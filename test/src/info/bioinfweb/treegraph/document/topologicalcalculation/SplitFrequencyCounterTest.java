@@ -0,0 +1,278 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.topologicalcalculation;
+
+
+import java.io.ByteArrayInputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.io.DocumentIterator;
+import info.bioinfweb.treegraph.document.io.ReadWriteParameterMap;
+import info.bioinfweb.treegraph.document.io.newick.NewickReader;
+import info.bioinfweb.treegraph.document.io.newick.NewickStringReader;
+import info.bioinfweb.treegraph.document.io.nexus.NexusReader;
+import info.bioinfweb.treegraph.document.nodebranchdata.HiddenBranchDataAdapter;
+import info.bioinfweb.treegraph.document.nodebranchdata.NodeNameAdapter;
+import info.bioinfweb.treegraph.document.undo.file.NodeSupportEdit;
+import info.bioinfweb.treegraph.document.undo.AbstractTopologicalCalculationEdit;
+import info.bioinfweb.treegraph.document.undo.CompareTextElementDataParameters;
+
+import org.junit.* ;
+
+import static org.junit.Assert.* ;
+
+
+
+public class SplitFrequencyCounterTest {
+	private static final String TARGET = "((((A,B),C),(D,E)),F,G);";
+	
+	private static final String TREES = 
+			"((((A,B),C),(D,E)),F,G);\n" +
+			"(((A,B),(C,D)),E,(F,G));\n" +
+			"((A,(B,C)),(D,(E,F)),G);\n" +
+			"(((A,B),C,H),((D,E),F),G);\n" +  // H is not contained in the target tree.
+			"((F,G),((D,E),(C,(A,B))));\n" +
+			"(((A:0.1,B:0.2)0.95:0.3,C)'x',(D,E)1.0,F);\n" +  // G is missing.
+			"((A,B,C,D,E),F,G);\n" +
+			"(('A',B),(C,(D,E)),(F,(G,)));\n";
+	
+	private static final String NEXUS = 
+			"#NEXUS\n" +
+			"begin trees;\n" +
+			"  translate 1 A, 2 B, 3 C, 4 D, 5 E, 6 F, 7 G;\n" +
+			"  tree t1 = ((((1,2),3),(4,5)),6,7);\n" +
+			"  tree t2 = (((1,2),(3,4)),5,(6,7));\n" +
+			"  tree t3 = ((F,G),((4,5),(3,(1,B))));\n" +
+			"end;\n";
+	
+	
+	private static final NodeNameAdapter NAMES = NodeNameAdapter.getSharedInstance();
+	
+	
+	private static class WorkerError extends Error {
+		private static final long serialVersionUID = 1L;
+	}
+	
+	
+	private static class FailingCalculator extends TopologicalCalculator {
+		private boolean failing = false;
+		
+		
+		public FailingCalculator() {
+			super(false, AbstractTopologicalCalculationEdit.KEY_LEAF_REFERENCE, new CompareTextElementDataParameters());
+		}
+
+
+		@Override
+		public int getLeafIndex(String value) {
+			if (failing) {
+				throw new WorkerError();
+			}
+			return super.getLeafIndex(value);
+		}
+	}
+	
+	
+	private static Node readTarget(String newick) throws Exception {
+		return new NewickStringReader().read(newick).getPaintStart();
+	}
+	
+	
+	private static DocumentIterator createNewickIterator(String trees) throws Exception {
+		return new NewickReader().readAll(new ByteArrayInputStream(trees.getBytes()), new ReadWriteParameterMap());
+	}
+	
+	
+	private static DocumentIterator createNexusIterator(String nexus) throws Exception {
+		return new NexusReader().readAll(new ByteArrayInputStream(nexus.getBytes()), new ReadWriteParameterMap());
+	}
+	
+	
+	private static TopologicalCalculator createCalculator(Node targetRoot, boolean processRooted) {
+		TopologicalCalculator result = new TopologicalCalculator(processRooted, 
+				AbstractTopologicalCalculationEdit.KEY_LEAF_REFERENCE, new CompareTextElementDataParameters());
+		result.addSubtreeToLeafValueToIndexMap(targetRoot, NAMES);
+		result.addLeafSets(targetRoot, NAMES);
+		return result;
+	}
+	
+	
+	private static void addSplits(TopologicalCalculator calculator, Node root, Map<LeafSet, Node> splits) {
+		if (!root.isLeaf()) {
+			splits.put(calculator.getLeafSet(root), root);
+			for (Node child : root.getChildren()) {
+				addSplits(calculator, child, splits);
+			}
+		}
+	}
+	
+	
+	private static void countSimilarNodes(TopologicalCalculator calculator, Node root, Map<LeafSet, Node> splits, 
+			Map<Node, Integer> frequencies) {
+		
+		if (!root.isLeaf()) {
+			Node corresponding = splits.get(calculator.getLeafSet(root));
+			if (corresponding == null) {
+				corresponding = splits.get(calculator.getLeafSet(root).complement());
+			}
+			if (corresponding != null) {
+				Integer frequency = frequencies.get(corresponding);
+				frequencies.put(corresponding, (frequency == null) ? 1 : frequency + 1);
+			}
+			
+			for (Node child : root.getChildren()) {
+				countSimilarNodes(calculator, child, splits, frequencies);
+			}
+		}
+	}
+	
+	
+	/**
+	 * Counts the splits in the same way as {@link NodeSupportEdit} did before {@link SplitFrequencyCounter} was 
+	 * introduced. 
+	 */
+	private static Map<Node, Integer> countByDocuments(TopologicalCalculator calculator, Node targetRoot, 
+			DocumentIterator documents) throws Exception {
+		
+		Map<LeafSet, Node> splits = new HashMap<LeafSet, Node>();
+		addSplits(calculator, targetRoot, splits);
+		Map<Node, Integer> result = new HashMap<Node, Integer>();
+		Document document = documents.next();
+		while (document != null) {
+			calculator.addLeafSets(document.getTree().getPaintStart(), NAMES);
+			countSimilarNodes(calculator, document.getTree().getPaintStart(), splits, result);
+			document = documents.next();
+		}
+		return result;
+	}
+	
+	
+	private static int getFrequency(Map<Node, Integer> frequencies, Node node) {
+		Integer result = frequencies.get(node);
+		if (result == null) {
+			return 0;
+		}
+		else {
+			return result;
+		}
+	}
+	
+	
+	private static int assertEqualFrequencies(Map<Node, Integer> expected, SplitFrequencyCounter counter, Node root) {
+		int result = 0;
+		if (!root.isLeaf()) {
+			assertEquals(getFrequency(expected, root), counter.getFrequency(root));
+			result += counter.getFrequency(root);
+			for (Node child : root.getChildren()) {
+				result += assertEqualFrequencies(expected, counter, child);
+			}
+		}
+		return result;
+	}
+	
+	
+	private static void assertSameAsDocumentPath(String target, String trees, boolean nexus, boolean processRooted, 
+			int threadCount) throws Exception {
+		
+		Node targetRoot = readTarget(target);
+		TopologicalCalculator calculator = createCalculator(targetRoot, processRooted);
+		Map<Node, Integer> expected = countByDocuments(calculator, targetRoot, 
+				nexus ? createNexusIterator(trees) : createNewickIterator(trees));
+		
+		calculator = createCalculator(targetRoot, processRooted);
+		SplitFrequencyCounter counter = new SplitFrequencyCounter(calculator, targetRoot, threadCount);
+		counter.countSplits(nexus ? createNexusIterator(trees) : createNewickIterator(trees), NAMES);
+		assertTrue(assertEqualFrequencies(expected, counter, targetRoot) > 0);
+	}
+	
+	
+  @Test
+  public void test_countSplits_newick() throws Exception {
+  	assertSameAsDocumentPath(TARGET, TREES, false, false, 1);
+  	assertSameAsDocumentPath(TARGET, TREES, false, false, 3);
+  	assertSameAsDocumentPath(TARGET, TREES, false, true, 3);
+  }
+	
+	
+  @Test
+  public void test_countSplits_numericNames() throws Exception {
+  	assertSameAsDocumentPath("(((1,2),3),(4,5),6);", "((1,2),(3,(4,5)),6);\n((1,2),3,(4,(5,6)));\n", false, false, 2);
+  }
+	
+	
+  @Test
+  public void test_countSplits_nexus() throws Exception {
+  	assertSameAsDocumentPath(TARGET, NEXUS, true, false, 2);
+  }
+	
+	
+  @Test
+  public void test_countSplits_manyTrees() throws Exception {
+  	StringBuilder trees = new StringBuilder();
+  	for (int i = 0; i < 100; i++) {  // More trees than fit into the queue
+  		trees.append(TREES);
+  	}
+  	assertSameAsDocumentPath(TARGET, trees.toString(), false, false, 4);
+  }
+	
+	
+  @Test
+  public void test_nodeSupportEdit() throws Exception {
+  	Document document = new Document(false);
+  	document.setTree(new NewickStringReader().read(TARGET));
+  	HiddenBranchDataAdapter supportAdapter = new HiddenBranchDataAdapter("support");
+  	document.executeEdit(new NodeSupportEdit(document, NAMES, supportAdapter, NAMES, false, 
+  			createNewickIterator(TREES), -1));
+  	
+  	Node targetRoot = document.getTree().getPaintStart();
+  	Map<Node, Integer> expected = countByDocuments(createCalculator(targetRoot, false), targetRoot, 
+  			createNewickIterator(TREES));
+  	assertSupport(expected, supportAdapter, targetRoot);
+  }
+  
+  
+  private static void assertSupport(Map<Node, Integer> expected, HiddenBranchDataAdapter supportAdapter, Node root) {
+		if (!root.isLeaf()) {
+			assertEquals(getFrequency(expected, root), supportAdapter.getDecimal(root), 0.0);
+			for (Node child : root.getChildren()) {
+				assertSupport(expected, supportAdapter, child);
+			}
+		}
+  }
+	
+	
+  @Test(timeout = 10000, expected = WorkerError.class)
+  public void test_countSplits_workerError() throws Exception {
+  	Node targetRoot = readTarget(TARGET);
+  	FailingCalculator calculator = new FailingCalculator();
+		calculator.addSubtreeToLeafValueToIndexMap(targetRoot, NAMES);
+		calculator.addLeafSets(targetRoot, NAMES);
+  	SplitFrequencyCounter counter = new SplitFrequencyCounter(calculator, targetRoot, 1);
+  	
+  	StringBuilder trees = new StringBuilder();
+  	for (int i = 0; i < 100; i++) {  // More trees than fit into the queue
+  		trees.append(TREES);
+  	}
+  	calculator.failing = true;
+  	counter.countSplits(createNewickIterator(trees.toString()), NAMES);
+  }
+}
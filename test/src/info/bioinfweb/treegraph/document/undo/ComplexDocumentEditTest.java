@@ -0,0 +1,191 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.undo;
+
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import info.bioinfweb.treegraph.document.Branch;
+import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.TextLabel;
+import info.bioinfweb.treegraph.document.io.xtg.XTGWriter;
+import info.bioinfweb.treegraph.document.undo.edit.LadderizeEdit;
+import info.bioinfweb.treegraph.document.undo.edit.RerootEdit;
+import info.bioinfweb.treegraph.test.TestTools;
+
+import org.junit.* ;
+
+import static org.junit.Assert.* ;
+
+
+
+public class ComplexDocumentEditTest {
+	private static String toXTG(Document document) throws Exception {
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		new XTGWriter().write(document, stream);
+		return stream.toString(XTGWriter.XML_ENCODING);
+	}
+	
+	
+	private static void collectNodes(Node root, Map<String, Node> nodes) {
+		nodes.put(root.getUniqueName(), root);
+		for (Node child : root.getChildren()) {
+			collectNodes(child, nodes);
+		}
+	}
+	
+	
+	private static void assertSameNodes(Map<String, Node> expected, Document document) {
+		for (String uniqueName : expected.keySet()) {
+			Node node = document.getTree().getNodeByUniqueName(uniqueName);
+			if (node != null) {  // The node may have been removed by the edit.
+				assertSame(expected.get(uniqueName), node);
+			}
+		}
+	}
+	
+	
+  @Test
+  public void test_undoRedo_reroot() throws Exception {
+  	Document document = TestTools.readDocument("RerootByLeaves.xtg");
+  	String before = toXTG(document);
+  	Map<String, Node> nodes = new HashMap<String, Node>();
+  	collectNodes(document.getTree().getPaintStart(), nodes);
+  	
+  	RerootEdit edit = new RerootEdit(document, document.getTree().getNodeByUniqueName("624i1qcsfd").getAfferentBranch());
+  	document.executeEdit(edit);
+  	String after = toXTG(document);
+  	assertFalse(before.equals(after));
+  	assertSameNodes(nodes, document);
+  	assertSame(document.getTree().getNodeByUniqueName("624i1qcsfd"), edit.getRootingPoint().getTargetNode());
+  	
+  	document.getUndoManager().undo();
+  	assertEquals(before, toXTG(document));
+  	assertSameNodes(nodes, document);
+  	
+  	document.getUndoManager().redo();
+  	assertEquals(after, toXTG(document));
+  	assertSameNodes(nodes, document);
+  	
+  	document.getUndoManager().undo();
+  	assertEquals(before, toXTG(document));
+  	assertSameNodes(nodes, document);
+  }
+	
+	
+  @Test
+  public void test_swap_addedBranch() {
+  	Node original = new Node();
+  	original.setUniqueName("root");
+  	Node modified = Node.newInstanceWithBranch();
+  	modified.setUniqueName("root");
+  	Branch branch = modified.getAfferentBranch();
+  	branch.setLength(2.5);
+  	Map<Node, Node> originals = new HashMap<Node, Node>();
+  	originals.put(modified, original);
+  	
+  	TreeDelta delta = new TreeDelta(modified, originals);
+  	assertEquals(1, delta.getChangedNodeCount());
+  	assertSame(branch, original.getAfferentBranch());
+  	assertSame(original, branch.getTargetNode());
+  	assertTrue(delta.getEstimatedMemoryUsage() > 0);
+  	
+  	delta.swap();  // undo
+  	assertFalse(original.hasAfferentBranch());
+  	assertTrue(delta.getEstimatedMemoryUsage() > 0);
+  	
+  	delta.swap();  // redo
+  	assertSame(branch, original.getAfferentBranch());
+  	assertEquals(2.5, original.getAfferentBranch().getLength(), 0.0);
+  }
+	
+	
+  private static Node createLabeledTree() {
+  	Node root = Node.newInstanceWithBranch();
+  	root.setUniqueName("root");
+  	Node child = Node.newInstanceWithBranch();
+  	child.setUniqueName("child");
+  	child.getData().setDecimal(1.0);
+  	child.setParent(root);
+  	root.getChildren().add(child);
+  	
+  	TextLabel label = new TextLabel(child.getAfferentBranch().getLabels());
+  	label.setID("label");
+  	label.getData().setText("a");
+  	child.getAfferentBranch().getLabels().add(label);
+  	return root;
+  }
+  
+  
+  private static Node createCopy(Node original, Map<Node, Node> originals) {
+  	Node copy = original.cloneWithSubtree(true);
+  	originals.put(copy, original);
+  	for (int i = 0; i < copy.getChildren().size(); i++) {
+  		originals.put(copy.getChildren().get(i), original.getChildren().get(i));
+  	}
+  	return copy;
+  }
+	
+	
+  @Test
+  public void test_changedContents() {
+  	Node root = createLabeledTree();
+  	Node child = root.getChildren().get(0);
+  	Map<Node, Node> originals = new HashMap<Node, Node>();
+  	assertEquals(0, new TreeDelta(createCopy(root, originals), originals).getChangedNodeCount());
+  	
+  	originals.clear();
+  	Node copy = createCopy(root, originals);
+  	((TextLabel)copy.getChildren().get(0).getAfferentBranch().getLabels().get("label")).getData().setText("b");
+  	TreeDelta delta = new TreeDelta(copy, originals);
+  	assertEquals(1, delta.getChangedNodeCount());
+  	assertEquals("b", ((TextLabel)child.getAfferentBranch().getLabels().get("label")).getData().getText());
+  	delta.swap();
+  	assertEquals("a", ((TextLabel)child.getAfferentBranch().getLabels().get("label")).getData().getText());
+  	
+  	originals.clear();
+  	copy = createCopy(root, originals);
+  	copy.getChildren().get(0).getData().setText("1.0");  // Same string representation, but different type
+  	delta = new TreeDelta(copy, originals);
+  	assertEquals(1, delta.getChangedNodeCount());
+  	assertTrue(child.getData().isString());
+  	delta.swap();
+  	assertTrue(child.getData().isDecimal());
+  }
+	
+	
+  @Test
+  public void test_getEstimatedMemoryUsage() {
+  	Document document = TestTools.readDocument("RerootByLeaves.xtg");
+  	long treeSize = TreeDelta.estimateMemoryUsage(document.getTree().getPaintStart());
+  	
+  	LadderizeEdit edit = new LadderizeEdit(document, document.getTree().getNodeByUniqueName("624i1qcsfd"), true);
+  	assertTrue(edit.getEstimatedMemoryUsage() >= treeSize);  // The whole copy is stored before the first redo.
+  	document.executeEdit(edit);  // Ladderizing a terminal does not change anything.
+  	assertEquals(DocumentEdit.DEFAULT_MEMORY_USAGE, edit.getEstimatedMemoryUsage());
+  	
+  	RerootEdit rerootEdit = new RerootEdit(document, document.getTree().getNodeByUniqueName("624i1qcsfd").getAfferentBranch());
+  	document.executeEdit(rerootEdit);
+  	assertTrue(rerootEdit.getEstimatedMemoryUsage() > DocumentEdit.DEFAULT_MEMORY_USAGE);
+  	assertTrue(rerootEdit.getEstimatedMemoryUsage() < treeSize);
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.undo;
+
+
+import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.document.undo.edit.LadderizeEdit;
+import info.bioinfweb.treegraph.test.TestTools;
+
+import org.junit.* ;
+
+import static org.junit.Assert.* ;
+
+
+
+public class DocumentUndoManagerTest {
+	private static void executeEdits(Document document, int count) {
+		for (int i = 0; i < count; i++) {
+			document.executeEdit(new LadderizeEdit(document, document.getTree().getPaintStart(), i % 2 == 0));
+		}
+	}
+	
+	
+  @Test
+  public void test_trimToMemoryBudget_withinBudget() {
+  	Document document = TestTools.readDocument("RerootByLeaves.xtg");
+  	executeEdits(document, 3);
+  	assertEquals(3, document.getUndoManager().undoCount());
+  }
+	
+	
+  @Test
+  public void test_trimToMemoryBudget_exceeded() {
+  	Document document = TestTools.readDocument("RerootByLeaves.xtg");
+  	DocumentUndoManager manager = document.getUndoManager();
+  	executeEdits(document, 3);
+  	
+  	LadderizeEdit newest = (LadderizeEdit)manager.getUndoEdit(0);
+  	manager.setMemoryBudget(newest.getEstimatedMemoryUsage());
+  	assertEquals(1, manager.undoCount());
+  	assertSame(newest, manager.getUndoEdit(0));
+  	assertTrue(manager.getEstimatedMemoryUsage() <= manager.getMemoryBudget());
+  }
+	
+	
+  @Test
+  public void test_trimToMemoryBudget_lastEditKept() {
+  	Document document = TestTools.readDocument("RerootByLeaves.xtg");
+  	DocumentUndoManager manager = document.getUndoManager();
+  	manager.setMemoryBudget(0);
+  	executeEdits(document, 3);
+  	assertEquals(1, manager.undoCount());
+  	assertTrue(manager.canUndo());
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.undo.edit;
+
+
+import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.nodebranchdata.HiddenNodeDataAdapter;
+import info.bioinfweb.treegraph.document.nodebranchdata.NodeNameAdapter;
+import info.bioinfweb.treegraph.document.nodebranchdata.TextIDElementType;
+import info.bioinfweb.treegraph.document.undo.edit.calculatecolumn.ErrorInfo;
+
+import org.junit.* ;
+
+import static org.junit.Assert.* ;
+
+
+
+/**
+ * Tests {@link CalculateColumnEdit}.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class CalculateColumnEditTest {
+	private Document createDocument() {
+		Document result = new Document(false);
+		Node root = Node.newInstanceWithBranch();
+		addLeaf(root, "A", 1.5);
+		addLeaf(root, "B", 2.0);
+		result.getTree().setPaintStart(root);
+		result.getTree().assignUniqueNames();
+		return result;
+	}
+	
+	
+	private void addLeaf(Node parent, String name, double length) {
+		Node leaf = Node.newInstanceWithBranch();
+		NodeNameAdapter.getSharedInstance().setText(leaf, name);
+		leaf.getAfferentBranch().setLength(length);
+		leaf.setParent(parent);
+		parent.getChildren().add(leaf);
+	}
+	
+	
+	private Node getChild(Document document, int index) {
+		return document.getTree().getPaintStart().getChildren().get(index);
+	}
+	
+	
+  @Test
+  public void test_redo_singleTarget() {
+  	Document document = createDocument();
+  	HiddenNodeDataAdapter adapter = new HiddenNodeDataAdapter("v");
+  	CalculateColumnEdit edit = new CalculateColumnEdit(document, adapter, null, null, "getValue(LENGTH) * 2", false, null);
+  	document.executeEdit(edit);
+  	
+  	assertEquals(3.0, adapter.getDecimal(getChild(document, 0)), 0.0);
+  	assertEquals(4.0, adapter.getDecimal(getChild(document, 1)), 0.0);
+  	assertTrue(adapter.isEmpty(document.getTree().getPaintStart()));  // The root branch has no length.
+  	assertEquals(1, edit.getErrors().size());
+  	assertTrue(edit.getErrors().get(0).isInValueExpression());
+  	
+  	document.getUndoManager().undo();
+  	assertTrue(adapter.isEmpty(getChild(document, 0)));
+  	document.getUndoManager().redo();
+  	assertEquals(3.0, adapter.getDecimal(getChild(document, 0)), 0.0);
+  }
+  
+  
+  @Test
+  public void test_redo_targetExpression() {
+  	Document document = createDocument();
+  	CalculateColumnEdit edit = new CalculateColumnEdit(document, null, "if(isLeaf(), \"leaf\", \"inner\")", 
+  			TextIDElementType.HIDDEN_NODE_DATA, "isLeaf() + 1", false, null);
+  	document.executeEdit(edit);
+  	
+  	HiddenNodeDataAdapter leafAdapter = new HiddenNodeDataAdapter("leaf");
+  	HiddenNodeDataAdapter innerAdapter = new HiddenNodeDataAdapter("inner");
+  	assertFalse(edit.hasErrors());
+  	assertEquals(1.0, innerAdapter.getDecimal(document.getTree().getPaintStart()), 0.0);
+  	assertTrue(leafAdapter.isEmpty(document.getTree().getPaintStart()));
+  	assertEquals(2.0, leafAdapter.getDecimal(getChild(document, 0)), 0.0);
+  	assertEquals(2.0, leafAdapter.getDecimal(getChild(document, 1)), 0.0);
+  	assertTrue(innerAdapter.isEmpty(getChild(document, 1)));
+  }
+  
+  
+  @Test
+  public void test_redo_wholeColumnFunction() {
+  	Document document = createDocument();
+  	HiddenNodeDataAdapter adapter = new HiddenNodeDataAdapter("v");
+  	CalculateColumnEdit edit = new CalculateColumnEdit(document, adapter, null, null, 
+  			"if(hasValue(LENGTH), getValue(LENGTH) / maxOfLines(LENGTH), sumOfLines(LENGTH))", false, null);
+  	document.executeEdit(edit);
+  	
+  	assertFalse(edit.hasErrors());
+  	assertEquals(3.5, adapter.getDecimal(document.getTree().getPaintStart()), 0.0);
+  	assertEquals(0.75, adapter.getDecimal(getChild(document, 0)), 0.0);
+  	assertEquals(1.0, adapter.getDecimal(getChild(document, 1)), 0.0);
+  	
+  	edit = new CalculateColumnEdit(document, adapter, null, null, "meanOfLines(THIS)", false, null);
+  	document.executeEdit(edit);
+  	assertEquals(3, edit.getErrors().size());  // The target column cannot be aggregated.
+  }
+  
+  
+  @Test
+  public void test_redo_syntaxErrors() {
+  	Document document = createDocument();
+  	CalculateColumnEdit edit = new CalculateColumnEdit(document, new HiddenNodeDataAdapter("v"), null, null, "1 +", false, null);
+  	document.executeEdit(edit);
+  	assertEquals(3, edit.getErrors().size());
+  	for (ErrorInfo error : edit.getErrors()) {
+  		assertTrue(error.isInValueExpression());
+  		assertTrue(error.isNodeSpecific());
+  	}
+  	
+  	document = createDocument();
+  	edit = new CalculateColumnEdit(document, null, "THIS", TextIDElementType.HIDDEN_NODE_DATA, "1", false, null);
+  	document.executeEdit(edit);
+  	assertEquals(3, edit.getErrors().size());
+  	for (ErrorInfo error : edit.getErrors()) {
+  		assertFalse(error.isInValueExpression());  // THIS is not available in the target column expression.
+  	}
+  }
+}
@@ -20,6 +20,8 @@ package info.bioinfweb.treegraph.document.undo.file.importtable;
 
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import info.bioinfweb.commons.SystemUtils;
@@ -28,6 +30,7 @@ import info.bioinfweb.treegraph.document.Node;
 import info.bioinfweb.treegraph.document.TextLabel;
 import info.bioinfweb.treegraph.document.io.ReadWriteFactory;
 import info.bioinfweb.treegraph.document.io.ReadWriteFormat;
+import info.bioinfweb.treegraph.document.nodebranchdata.HiddenNodeDataAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.NewHiddenNodeDataAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.NewTextLabelAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
@@ -35,6 +38,8 @@ import info.bioinfweb.treegraph.document.nodebranchdata.NodeNameAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.UniqueNameAdapter;
 
 import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
 
 import org.junit.Test;
 
@@ -282,4 +287,68 @@ public class ImportTableEditTest {
 	  node = node.getParent().getChildren().get(0);  // A
 	  assertEquals("Node 1", node.getData().getText());
   }
+  
+  
+  private static Node addLeaf(Node parent, String name) {
+		Node leaf = Node.newInstanceWithBranch();
+		NodeNameAdapter.getSharedInstance().setText(leaf, name);
+		leaf.setParent(parent);
+		parent.getChildren().add(leaf);
+		return leaf;
+  }
+  
+  
+  @Test
+  public void test_redo_keyOnSeveralNodes() throws Exception {
+  	final String id = "HND";
+  	File tableFile = File.createTempFile("ImportTableEditTest", ".txt");
+  	tableFile.deleteOnExit();
+  	Writer writer = new FileWriter(tableFile);
+  	try {
+  		writer.write("a\tV1\nB\tV2\nx\tV3\n");
+  	}
+  	finally {
+  		writer.close();
+  	}
+  	
+  	ImportTableParameters parameters = new ImportTableParameters();
+  	parameters.setTableFile(tableFile);
+  	parameters.setColumnSeparator('\t');
+  	parameters.setHeadingContained(false);
+  	parameters.setLinesToSkip(0);
+  	parameters.setKeyAdapter(NodeNameAdapter.getSharedInstance());
+  	parameters.setImportAdapters(new NodeBranchDataAdapter[]{NodeNameAdapter.getSharedInstance(), new NewHiddenNodeDataAdapter(id)});
+  	parameters.setParseNumericValues(false);
+  	parameters.setIgnoreWhitespace(true);
+  	parameters.setDistinguishSpaceUnderscore(true);
+  	parameters.setCaseSensitive(false);
+  	
+		ImportTableData data = new ImportTableData(parameters);
+		data.processKeyColumn(0, parameters);
+		
+		Document document = new Document(false);
+		Node root = Node.newInstanceWithBranch();
+		Node a1 = addLeaf(root, "a");
+		Node a2 = addLeaf(root, "A");
+		Node b = addLeaf(root, " b ");
+		Node c = addLeaf(root, "c");
+		document.getTree().setPaintStart(root);
+		document.getTree().assignUniqueNames();
+		
+	  ImportTableEdit edit = new ImportTableEdit(document, parameters, data);
+	  document.executeEdit(edit);
+	  
+	  HiddenNodeDataAdapter adapter = new HiddenNodeDataAdapter(id);
+	  assertEquals("V1", adapter.getText(a1));
+	  assertEquals("V1", adapter.getText(a2));
+	  assertEquals("V2", adapter.getText(b));
+	  assertTrue(adapter.isEmpty(c));
+	  assertFalse(edit.isAllKeysFound());
+	  assertEquals(1, edit.getKeysNotInTree().size());
+	  assertEquals("x", edit.getKeysNotInTree().iterator().next());
+	  
+	  document.getUndoManager().undo();
+	  assertNull(a1.getHiddenDataMap().get(id));
+	  assertNull(b.getHiddenDataMap().get(id));
+  }
 }
@@ -0,0 +1,110 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.graphics.export;
+
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import javax.imageio.ImageIO;
+
+import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.graphics.export.jpeg.JPEGWriter;
+import info.bioinfweb.treegraph.graphics.export.png.PNGWriter;
+import info.bioinfweb.treegraph.graphics.export.tiff.TIFFWriter;
+import info.bioinfweb.treegraph.graphics.positionpaint.PositionPaintFactory;
+import info.bioinfweb.treegraph.graphics.positionpaint.PositionPaintType;
+import info.bioinfweb.treegraph.graphics.positionpaint.TreePainter;
+import info.bioinfweb.commons.collections.ParameterMap;
+import info.bioinfweb.treegraph.test.TestTools;
+
+import org.junit.* ;
+
+import static org.junit.Assert.* ;
+
+
+
+/**
+ * Tests {@link RasterImageWriter} and its inherited classes.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class RasterImageWriterTest {
+	private static final PositionPaintType TYPE = PositionPaintType.RECT_CLAD;
+	
+	
+	private ParameterMap createHints() {
+		ParameterMap result = new ParameterMap();
+		result.put(GraphicWriter.KEY_PIXELS_PER_MILLIMETER, 3f);
+		return result;
+	}
+	
+	
+	private byte[] write(RasterImageWriter writer, Document document, ParameterMap hints) throws Exception {
+		TreePainter painter = PositionPaintFactory.getInstance().getPainter(TYPE);
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		writer.write(document, painter, hints, stream);
+		return stream.toByteArray();
+	}
+	
+	
+	private void assertDimensions(Document document, ParameterMap hints, BufferedImage image) {
+		ExportDimensions dimensions = new ExportDimensions(document, PositionPaintFactory.getInstance().getPainter(TYPE), hints);
+		assertEquals((int)(dimensions.getWidth() + 0.5f), image.getWidth());
+		assertEquals((int)(dimensions.getHeight() + 0.5f), image.getHeight());
+	}
+	
+	
+  @Test
+  public void test_write_png() throws Exception {
+  	Document document = TestTools.readDocument("RerootByLeaves.xtg", TYPE);
+  	ParameterMap hints = createHints();
+  	hints.put(GraphicWriter.KEY_TRANSPARENT, true);
+  	BufferedImage image = ImageIO.read(new ByteArrayInputStream(write(new PNGWriter(), document, hints)));
+  	assertNotNull(image);
+  	assertDimensions(document, hints, image);
+  	assertTrue(image.getColorModel().hasAlpha());
+  	assertEquals(0, image.getRGB(0, 0) >>> 24);  // Transparent corner
+  }
+  
+  
+  @Test
+  public void test_write_jpeg() throws Exception {
+  	Document document = TestTools.readDocument("RerootByLeaves.xtg", TYPE);
+  	ParameterMap hints = createHints();
+  	hints.put(GraphicWriter.KEY_TRANSPARENT, true);
+  	hints.put(JPEGWriter.KEY_JPEG_QUALITY, 1f);
+  	BufferedImage image = ImageIO.read(new ByteArrayInputStream(write(new JPEGWriter(), document, hints)));
+  	assertNotNull(image);
+  	assertDimensions(document, hints, image);
+  	assertFalse(image.getColorModel().hasAlpha());
+  	assertTrue((image.getRGB(0, 0) & 0xFF) > 0xF0);  // Transparent background is written white.
+  }
+  
+  
+  @Test
+  public void test_write_tiff() throws Exception {
+  	byte[] data = write(new TIFFWriter(), TestTools.readDocument("RerootByLeaves.xtg", TYPE), createHints());
+  	assertTrue(data.length > 4);
+  	assertTrue(((data[0] == 'I') && (data[1] == 'I') && (data[2] == 42) && (data[3] == 0)) ||  // Little endian 
+  			((data[0] == 'M') && (data[1] == 'M') && (data[2] == 0) && (data[3] == 42)));  // Big endian
+  }
+}
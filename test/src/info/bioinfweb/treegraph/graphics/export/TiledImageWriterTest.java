@@ -0,0 +1,281 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.graphics.export;
+
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import javax.imageio.ImageIO;
+
+import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.graphics.export.png.PNGWriter;
+import info.bioinfweb.treegraph.graphics.export.png.TiledPNGWriter;
+import info.bioinfweb.treegraph.graphics.export.tiff.TiledTIFFWriter;
+import info.bioinfweb.treegraph.graphics.positionpaint.PositionPaintFactory;
+import info.bioinfweb.treegraph.graphics.positionpaint.PositionPaintType;
+import info.bioinfweb.treegraph.graphics.positionpaint.TreePainter;
+import info.bioinfweb.commons.SystemUtils;
+import info.bioinfweb.commons.collections.ParameterMap;
+import info.bioinfweb.treegraph.test.TestTools;
+
+import org.junit.* ;
+
+import static org.junit.Assert.* ;
+
+
+
+/**
+ * Tests {@link TileRenderer}, {@link TiledRenderedImage} and the tiled writers returned by 
+ * {@link GraphicWriterFactory#getTiledWriter(GraphicFormat)}.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class TiledImageWriterTest {
+	private static final PositionPaintType TYPE = PositionPaintType.RECT_CLAD;
+	private static final int TILE_SIZE = 100;
+	
+	
+	private TreePainter getPainter() {
+		return PositionPaintFactory.getInstance().getPainter(TYPE);
+	}
+	
+	
+	private ParameterMap createHints() {
+		ParameterMap result = new ParameterMap();
+		result.put(GraphicWriter.KEY_PIXELS_PER_MILLIMETER, 3f);
+		result.put(TileRenderer.KEY_TILE_SIZE, TILE_SIZE);
+		result.put(TileRenderer.KEY_THREAD_COUNT, 2);
+		return result;
+	}
+	
+	
+	private BufferedImage writeDirect(Document document, ParameterMap hints) throws Exception {
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		new PNGWriter().write(document, getPainter(), hints, stream);
+		return ImageIO.read(new ByteArrayInputStream(stream.toByteArray()));
+	}
+	
+	
+	private void assertPixels(BufferedImage expected, int x, int y, BufferedImage actual) {
+		for (int row = 0; row < actual.getHeight(); row++) {
+			for (int column = 0; column < actual.getWidth(); column++) {
+				assertEquals(expected.getRGB(x + column, y + row), actual.getRGB(column, row));
+			}
+		}
+	}
+	
+	
+	private File createTempDirectory() throws Exception {
+		File result = File.createTempFile("TiledImageWriterTest", "");
+		assertTrue(result.delete());
+		assertTrue(result.mkdir());
+		return result;
+	}
+	
+	
+	private void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+	
+	
+  @Test
+  public void test_renderTile() throws Exception {
+  	Document document = TestTools.readDocument("RerootByLeaves.xtg", TYPE);
+  	ParameterMap hints = createHints();
+  	BufferedImage expected = writeDirect(document, hints);
+  	TileRenderer renderer = new TileRenderer(document, getPainter(), hints, BufferedImage.TYPE_INT_ARGB);
+  	assertEquals(expected.getWidth(), renderer.getWidth());
+  	assertEquals(expected.getHeight(), renderer.getHeight());
+  	assertEquals((expected.getWidth() + TILE_SIZE - 1) / TILE_SIZE, renderer.getColumnCount());
+  	
+  	for (int row = 0; row < renderer.getRowCount(); row++) {
+    	for (int column = 0; column < renderer.getColumnCount(); column++) {
+    		Rectangle bounds = renderer.getTileBounds(column, row);
+    		assertPixels(expected, bounds.x, bounds.y, renderer.renderTile(column, row));
+    	}
+  	}
+  }
+  
+  
+  @Test
+  public void test_TiledRenderedImage_getData() throws Exception {
+  	Document document = TestTools.readDocument("RerootByLeaves.xtg", TYPE);
+  	ParameterMap hints = createHints();
+  	BufferedImage expected = writeDirect(document, hints);
+  	TileRenderer renderer = new TileRenderer(document, getPainter(), hints, BufferedImage.TYPE_INT_ARGB);
+  	ExecutorService executor = Executors.newFixedThreadPool(2);
+  	TiledRenderedImage image = new TiledRenderedImage(renderer, executor, 4);
+  	try {
+  		Rectangle rect = new Rectangle(TILE_SIZE / 2, TILE_SIZE / 2, TILE_SIZE + 20, TILE_SIZE + 20);  // Overlaps four tiles
+  		Raster raster = image.getData(rect);
+  		assertEquals(rect, raster.getBounds());
+  		BufferedImage actual = new BufferedImage(image.getColorModel(), 
+  				raster.createCompatibleWritableRaster(rect.width, rect.height), false, null);
+  		actual.getRaster().setDataElements(0, 0, raster.createTranslatedChild(0, 0));
+  		assertPixels(expected, rect.x, rect.y, actual);
+  	}
+  	finally {
+  		image.dispose();
+  		executor.shutdownNow();
+  	}
+  }
+  
+  
+  @Test
+  public void test_write_tiff() throws Exception {
+  	Document document = TestTools.readDocument("RerootByLeaves.xtg", TYPE);
+  	ParameterMap hints = createHints();
+  	ByteArrayOutputStream stream = new ByteArrayOutputStream();
+  	GraphicWriterFactory.getInstance().getTiledWriter(GraphicFormat.TIFF).write(document, getPainter(), hints, stream);
+  	byte[] data = stream.toByteArray();
+  	assertTrue(((data[0] == 'I') && (data[1] == 'I')) || ((data[0] == 'M') && (data[1] == 'M')));
+  	
+  	Assume.assumeTrue(ImageIO.getImageReadersByFormatName("tiff").hasNext());
+  	BufferedImage expected = writeDirect(document, hints);
+  	BufferedImage actual = ImageIO.read(new ByteArrayInputStream(data));
+  	assertEquals(expected.getWidth(), actual.getWidth());
+  	assertEquals(expected.getHeight(), actual.getHeight());
+  	assertPixels(expected, 0, 0, actual);
+  }
+  
+  
+  @Test
+  public void test_write_deepZoom() throws Exception {
+  	Document document = TestTools.readDocument("RerootByLeaves.xtg", TYPE);
+  	ParameterMap hints = createHints();
+  	hints.put(TiledPNGWriter.KEY_ZOOM_LEVELS, TiledPNGWriter.ALL_ZOOM_LEVELS);
+  	BufferedImage expected = writeDirect(document, hints);
+  	
+  	File directory = createTempDirectory();
+  	try {
+  		File descriptor = new File(directory, "tree.dzi");
+  		GraphicWriter writer = GraphicWriterFactory.getInstance().getTiledWriter(GraphicFormat.PNG);
+  		writer.write(document, getPainter(), hints, descriptor);
+  		assertTrue(descriptor.isFile());
+  		
+  		File tileDirectory = TiledPNGWriter.getTileDirectory(descriptor);
+  		assertEquals(new File(directory, "tree_files").getAbsoluteFile(), tileDirectory);
+  		int maxLevel = TiledPNGWriter.getMaxLevel(expected.getWidth(), expected.getHeight());
+  		assertEquals(maxLevel + 1, tileDirectory.list().length);
+  		
+  		File levelDirectory = new File(tileDirectory, Integer.toString(maxLevel));
+  		int columns = (expected.getWidth() + TILE_SIZE - 1) / TILE_SIZE;
+  		int rows = (expected.getHeight() + TILE_SIZE - 1) / TILE_SIZE;
+  		assertEquals(columns * rows, levelDirectory.list().length);
+  		BufferedImage tile = ImageIO.read(new File(levelDirectory, (columns - 1) + "_" + (rows - 1) + ".png"));
+  		assertEquals(expected.getWidth() - (columns - 1) * TILE_SIZE, tile.getWidth());
+  		assertEquals(expected.getHeight() - (rows - 1) * TILE_SIZE, tile.getHeight());
+  		assertPixels(expected, (columns - 1) * TILE_SIZE, (rows - 1) * TILE_SIZE, tile);
+  		
+  		BufferedImage smallest = ImageIO.read(new File(tileDirectory, "0" + SystemUtils.FILE_SEPARATOR + "0_0.png"));
+  		assertEquals(1, smallest.getWidth());
+  		assertEquals(1, smallest.getHeight());
+  	}
+  	finally {
+  		delete(directory);
+  	}
+  }
+  
+  
+  @Test
+  public void test_write_deepZoomArchive() throws Exception {
+  	Document document = TestTools.readDocument("RerootByLeaves.xtg", TYPE);
+  	ParameterMap hints = createHints();
+  	BufferedImage expected = writeDirect(document, hints);
+  	
+  	ByteArrayOutputStream stream = new ByteArrayOutputStream();
+  	GraphicWriterFactory.getInstance().getTiledWriter(GraphicFormat.PNG).write(document, getPainter(), hints, stream);
+  	
+  	int maxLevel = TiledPNGWriter.getMaxLevel(expected.getWidth(), expected.getHeight());
+  	int columns = (expected.getWidth() + TILE_SIZE - 1) / TILE_SIZE;
+  	int rows = (expected.getHeight() + TILE_SIZE - 1) / TILE_SIZE;
+  	String lastTileName = "image_files/" + maxLevel + "/" + (columns - 1) + "_" + (rows - 1) + ".png";
+  	Set<String> names = new HashSet<String>();
+  	ZipInputStream zipStream = new ZipInputStream(new ByteArrayInputStream(stream.toByteArray()));
+  	try {
+  		ZipEntry entry = zipStream.getNextEntry();
+  		while (entry != null) {
+  			names.add(entry.getName());
+  			if (entry.getName().equals(lastTileName)) {
+  				BufferedImage tile = ImageIO.read(zipStream);
+  				assertEquals(expected.getWidth() - (columns - 1) * TILE_SIZE, tile.getWidth());
+  				assertPixels(expected, (columns - 1) * TILE_SIZE, (rows - 1) * TILE_SIZE, tile);
+  			}
+  			entry = zipStream.getNextEntry();
+  		}
+  	}
+  	finally {
+  		zipStream.close();
+  	}
+  	assertEquals(columns * rows + 1, names.size());
+  	assertTrue(names.contains("image.dzi"));
+  	assertTrue(names.contains(lastTileName));
+  }
+  
+  
+  @Test
+  public void test_getUncompressedSize() {
+  	Document document = TestTools.readDocument("RerootByLeaves.xtg", TYPE);
+  	TileRenderer renderer = new TileRenderer(document, getPainter(), createHints(), BufferedImage.TYPE_INT_ARGB);
+  	assertEquals((long)renderer.getColumnCount() * TILE_SIZE * renderer.getRowCount() * TILE_SIZE * 4, 
+  			TiledTIFFWriter.getUncompressedSize(renderer));
+  	
+  	renderer = new TileRenderer(document, getPainter(), createHints(), BufferedImage.TYPE_INT_RGB);
+  	assertEquals((long)renderer.getColumnCount() * TILE_SIZE * renderer.getRowCount() * TILE_SIZE * 3, 
+  			TiledTIFFWriter.getUncompressedSize(renderer));
+  }
+  
+  
+  @Test
+  public void test_write_tiffTooLarge() throws Exception {
+  	Document document = TestTools.readDocument("RerootByLeaves.xtg", TYPE);
+  	ParameterMap hints = createHints();
+  	hints.put(GraphicWriter.KEY_PIXELS_PER_MILLIMETER, 1000f);
+  	TileRenderer renderer = new TileRenderer(document, getPainter(), hints, BufferedImage.TYPE_INT_ARGB);
+  	assertTrue(TiledTIFFWriter.getUncompressedSize(renderer) > TiledTIFFWriter.MAX_FILE_SIZE);
+  	
+  	ByteArrayOutputStream stream = new ByteArrayOutputStream();
+  	try {
+  		GraphicWriterFactory.getInstance().getTiledWriter(GraphicFormat.TIFF).write(document, getPainter(), hints, stream);
+  		fail("No exception was thrown.");
+  	}
+  	catch (IOException e) {
+  		assertEquals(0, stream.size());
+  	}
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.graphics.export.svg;
+
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.geom.Line2D;
+import java.awt.geom.Rectangle2D;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+
+import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.graphics.export.ExportDimensions;
+import info.bioinfweb.treegraph.graphics.export.GraphicWriter;
+import info.bioinfweb.treegraph.graphics.positionpaint.PositionPaintFactory;
+import info.bioinfweb.treegraph.graphics.positionpaint.PositionPaintType;
+import info.bioinfweb.treegraph.graphics.positionpaint.TreePainter;
+import info.bioinfweb.commons.Math2;
+import info.bioinfweb.commons.collections.ParameterMap;
+import info.bioinfweb.treegraph.test.TestTools;
+
+import org.junit.* ;
+
+import static org.junit.Assert.* ;
+
+
+
+/**
+ * Tests {@link SVGWriter} and {@link SVGStreamGraphics2D}.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class SVGWriterTest {
+	private static final PositionPaintType TYPE = PositionPaintType.RECT_CLAD;
+	
+	
+	/** Stores the elements of a parsed SVG document that are checked by the tests. */
+	private static class SVGContent {
+		public String width;
+		public String height;
+		public int pathCount = 0;
+		public Set<String> texts = new HashSet<String>();
+		public Set<String> usedClasses = new HashSet<String>();
+		public int definedClassCount = 0;
+	}
+	
+	
+	private SVGContent write(Document document, ParameterMap hints) throws Exception {
+		TreePainter painter = PositionPaintFactory.getInstance().getPainter(TYPE);
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		new SVGWriter().write(document, painter, hints, stream);
+		
+		SVGContent result = new SVGContent();
+		XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(
+				new ByteArrayInputStream(stream.toByteArray()));
+		try {
+			while (reader.hasNext()) {
+				if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+					assertEquals(SVGStreamGraphics2D.SVG_NAMESPACE, reader.getNamespaceURI());
+					String name = reader.getLocalName();
+					String styleClass = reader.getAttributeValue(null, "class");
+					if (styleClass != null) {
+						result.usedClasses.add(styleClass);
+					}
+					if (name.equals("svg")) {
+						result.width = reader.getAttributeValue(null, "width");
+						result.height = reader.getAttributeValue(null, "height");
+					}
+					else if (name.equals("path")) {
+						result.pathCount++;
+					}
+					else if (name.equals("text")) {
+						result.texts.add(reader.getElementText());
+					}
+					else if (name.equals("style")) {
+						result.definedClassCount += reader.getElementText().split("\\{").length - 1;
+					}
+				}
+			}
+		}
+		finally {
+			reader.close();
+		}
+		return result;
+	}
+	
+	
+  @Test
+  public void test_write() throws Exception {
+  	Document document = TestTools.readDocument("RerootByLeaves.xtg", TYPE);
+  	ParameterMap hints = new ParameterMap();
+  	SVGContent svg = write(document, hints);
+  	
+  	ExportDimensions dimensions = new ExportDimensions(document, PositionPaintFactory.getInstance().getPainter(TYPE), hints);
+  	assertEquals(Integer.toString(Math2.roundUp(dimensions.getWidth())), svg.width);
+  	assertEquals(Integer.toString(Math2.roundUp(dimensions.getHeight())), svg.height);
+  	assertTrue(svg.texts.contains("T3.1"));
+  	assertTrue(svg.texts.contains("Reroot2"));
+  	
+  	assertTrue(svg.pathCount > 0);
+  	assertEquals(svg.usedClasses.size(), svg.definedClassCount);  // Each class is defined exactly once.
+  	assertTrue(svg.usedClasses.size() < svg.pathCount);  // Classes are shared between elements.
+  }
+  
+  
+  @Test
+  public void test_write_textAsShapes() throws Exception {
+  	ParameterMap hints = new ParameterMap();
+  	hints.put(GraphicWriter.KEY_TEXT_AS_SHAPES, true);
+  	SVGContent svg = write(TestTools.readDocument("RerootByLeaves.xtg", TYPE), hints);
+  	assertTrue(svg.texts.isEmpty());
+  	assertTrue(svg.pathCount > 0);
+  }
+  
+  
+  @Test
+  public void test_elements() throws Exception {
+  	StringWriter writer = new StringWriter();
+  	SVGStreamGraphics2D g = new SVGStreamGraphics2D(writer, false);
+  	g.startDocument(100, 50, null);
+  	g.setColor(Color.RED);
+  	g.setStroke(new BasicStroke(1.5f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_ROUND));
+  	g.draw(new Line2D.Float(1, 2, 3.25f, 4));
+  	g.translate(10, 20);
+  	g.fill(new Rectangle2D.Float(0, 0, 5, 5));
+  	g.setColor(new Color(0, 0, 255, 128));
+  	g.setFont(new Font(Font.SERIF, Font.BOLD, 12));
+  	g.drawString("a < b & c", 0.5f, 1);
+  	g.endDocument();
+  	
+  	String[] lines = writer.toString().split("\n");
+  	assertEquals("<style type=\"text/css\">.s0{fill:none;stroke:#ff0000;stroke-width:1.5;stroke-linecap:butt;" +
+  			"stroke-linejoin:round;shape-rendering:geometricPrecision}</style>", lines[2]);
+  	assertEquals("<path class=\"s0\" d=\"M1 2L3.25 4\"/>", lines[3]);
+  	assertEquals("<style type=\"text/css\">.s1{fill:#ff0000;stroke:none;shape-rendering:geometricPrecision}</style>", lines[4]);
+  	assertEquals("<path class=\"s1\" transform=\"translate(10 20)\" d=\"M0 0L5 0L5 5L0 5L0 0Z\"/>", lines[5]);
+  	assertEquals("<style type=\"text/css\">.s2{font-family:'Serif',serif;font-size:12px;font-weight:bold;" +
+  			"fill:#0000ff;fill-opacity:0.502;stroke:none;text-rendering:geometricPrecision}</style>", lines[6]);
+  	assertEquals("<text class=\"s2\" x=\"0.5\" y=\"1\" transform=\"translate(10 20)\">a &lt; b &amp; c</text>", lines[7]);
+  	assertEquals("</svg>", lines[8]);
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.graphics.positionpaint;
+
+
+import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.document.format.DistanceDimension;
+import info.bioinfweb.treegraph.document.io.xtg.XTGReader;
+import info.bioinfweb.commons.SystemUtils;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.* ;
+
+import static org.junit.Assert.* ;
+
+
+
+/**
+ * Tests if the shared instances of the positioners and painters produce the same results, if different documents
+ * are positioned and painted in different threads at the same time.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class ConcurrentPositionPaintTest {
+	private static final String[] FILES = {"RerootByLeaves.xtg", "sortLeaves" + SystemUtils.FILE_SEPARATOR + "SortLeaves.xtg",
+			"importTable" + SystemUtils.FILE_SEPARATOR + "Tree.xtg", "addSupport" + SystemUtils.FILE_SEPARATOR + "Conflict.xtg"};
+	private static final float PIXELS_PER_MILLIMETER = 2f;
+	private static final int THREAD_COUNT = 8;
+	private static final int TASKS_PER_FILE = 6;
+	
+	
+	private static int[] positionAndPaint(String fileName, PositionPaintType type) throws Exception {
+		Document document = new XTGReader().read(new File("data" + SystemUtils.FILE_SEPARATOR + fileName));
+		PositionPaintFactory.getInstance().getPositioner(type).positionAll(document, 1f);
+		
+		DistanceDimension d = document.getTree().getPaintDimension(type);
+		BufferedImage image = new BufferedImage(d.getWidth().getRoundedInPixels(PIXELS_PER_MILLIMETER), 
+				d.getHeight().getRoundedInPixels(PIXELS_PER_MILLIMETER), BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		try {
+			PositionPaintFactory.getInstance().getPainter(type).paintTree(g, document, null, null, PIXELS_PER_MILLIMETER, 
+					false);
+		}
+		finally {
+			g.dispose();
+		}
+		
+		int[] result = new int[image.getWidth() * image.getHeight() + 2];
+		result[0] = image.getWidth();
+		result[1] = image.getHeight();
+		image.getRGB(0, 0, image.getWidth(), image.getHeight(), result, 2, image.getWidth());
+		return result;
+	}
+	
+	
+	private void testType(final PositionPaintType type) throws Exception {
+		int[][] expected = new int[FILES.length][];
+		for (int i = 0; i < FILES.length; i++) {
+			expected[i] = positionAndPaint(FILES[i], type);
+		}
+		
+		ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+		try {
+			List<Future<int[]>> results = new ArrayList<Future<int[]>>();
+			for (int i = 0; i < FILES.length * TASKS_PER_FILE; i++) {
+				final String fileName = FILES[i % FILES.length];
+				results.add(executor.submit(new Callable<int[]>() {
+					@Override
+					public int[] call() throws Exception {
+						return positionAndPaint(fileName, type);
+					}
+				}));
+			}
+			
+			for (int i = 0; i < results.size(); i++) {
+				assertTrue("Result of " + FILES[i % FILES.length] + " differs.", 
+						Arrays.equals(expected[i % FILES.length], results.get(i).get()));
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+	
+	
+  @Test
+  public void test_rectangularCladogram() throws Exception {
+  	testType(PositionPaintType.RECT_CLAD);
+  }
+	
+	
+  @Test
+  public void test_phylogram() throws Exception {
+  	testType(PositionPaintType.PHYLOGRAM);
+  }
+}
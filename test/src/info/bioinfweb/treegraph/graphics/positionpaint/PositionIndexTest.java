@@ -0,0 +1,125 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.graphics.positionpaint;
+
+
+import info.bioinfweb.treegraph.document.AbstractPaintableElement;
+import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.graphics.positionpaint.positiondata.PositionData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.* ;
+
+import static org.junit.Assert.* ;
+
+
+
+/**
+ * Tests {@link PositionIndex}.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class PositionIndexTest {
+	private static PositionData createPosition(float left, float top, float width, float height) {
+		PositionData result = new PositionData();
+		result.getLeft().setInMillimeters(left);
+		result.getTop().setInMillimeters(top);
+		result.getWidth().setInMillimeters(width);
+		result.getHeight().setInMillimeters(height);
+		return result;
+	}
+	
+	
+  @Test
+  public void test_getElementsAt() {
+  	PositionIndex index = new PositionIndex();
+  	assertTrue(index.getElementsAt(0f, 0f, 1f).isEmpty());
+  	
+  	Node first = Node.newInstanceWithBranch();
+  	Node second = Node.newInstanceWithBranch();
+  	Node third = Node.newInstanceWithBranch();
+  	index.add(first, createPosition(0f, 0f, 10f, 10f));
+  	index.add(second, createPosition(5f, 5f, 10f, 10f));
+  	index.add(third, createPosition(20f, 20f, 2f, 2f));
+  	assertEquals(3, index.size());
+  	
+  	List<AbstractPaintableElement> result = index.getElementsAt(7f, 7f, 0f);
+  	assertEquals(2, result.size());
+  	assertSame(first, result.get(0));
+  	assertSame(second, result.get(1));
+  	
+  	assertTrue(index.getElementsAt(19f, 19f, 0f).isEmpty());
+  	result = index.getElementsAt(19f, 19f, 1f);
+  	assertEquals(1, result.size());
+  	assertSame(third, result.get(0));
+  }
+  
+  
+  @Test
+  public void test_getElementsInRectangle() {
+  	PositionIndex index = new PositionIndex();
+  	Node first = Node.newInstanceWithBranch();
+  	Node second = Node.newInstanceWithBranch();
+  	index.add(first, createPosition(0f, 0f, 10f, 10f));
+  	index.add(second, createPosition(20f, 0f, 10f, 10f));
+  	
+  	List<AbstractPaintableElement> result = index.getElementsInRectangle(25f, 5f, 5f, 12f);  // Inverted sides
+  	assertEquals(2, result.size());
+  	assertSame(first, result.get(0));
+  	assertSame(second, result.get(1));
+  	
+  	result = index.getElementsInRectangle(11f, 0f, 19f, 10f);
+  	assertTrue(result.isEmpty());
+  }
+  
+  
+  @Test
+  public void test_manyElements() {
+  	Random random = new Random(42);
+  	PositionIndex index = new PositionIndex();
+  	List<Node> nodes = new ArrayList<Node>();
+  	List<PositionData> positions = new ArrayList<PositionData>();
+  	for (int i = 0; i < 2000; i++) {
+  		Node node = Node.newInstanceWithBranch();
+  		PositionData position = createPosition(random.nextFloat() * 500f, random.nextFloat() * 500f, 
+  				random.nextFloat() * 20f, random.nextFloat() * 5f);
+  		nodes.add(node);
+  		positions.add(position);
+  		index.add(node, position);
+  	}
+  	
+  	for (int i = 0; i < 500; i++) {
+  		float x = random.nextFloat() * 520f;
+  		float y = random.nextFloat() * 520f;
+  		List<AbstractPaintableElement> expected = new ArrayList<AbstractPaintableElement>();
+  		for (int j = 0; j < nodes.size(); j++) {
+  			if (positions.get(j).contains(x, y, 0.5f)) {
+  				expected.add(nodes.get(j));
+  			}
+  		}
+  		assertEquals(expected, index.getElementsAt(x, y, 0.5f));
+  	}
+  	
+  	assertEquals(nodes, index.getElementsInRectangle(0f, 0f, 600f, 600f));
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.graphics.positionpaint;
+
+
+import info.bioinfweb.treegraph.document.Branch;
+import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.document.Labels;
+import info.bioinfweb.treegraph.document.Legend;
+import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.NodeType;
+import info.bioinfweb.treegraph.document.TextElement;
+import info.bioinfweb.treegraph.document.TextElementData;
+import info.bioinfweb.treegraph.document.TextLabel;
+import info.bioinfweb.treegraph.document.tools.TreeSerializer;
+import info.bioinfweb.treegraph.document.undo.edit.InsertLabelEdit;
+import info.bioinfweb.treegraph.document.undo.edit.TextElementEdit;
+import info.bioinfweb.treegraph.graphics.positionpaint.positiondata.LegendPositionData;
+import info.bioinfweb.treegraph.graphics.positionpaint.positiondata.PositionData;
+import info.bioinfweb.treegraph.test.TestTools;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.* ;
+
+import static org.junit.Assert.* ;
+
+
+
+/**
+ * Tests {@link RectangularCladogramPositioner} and {@link PhylogramPositioner}.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class RectangularCladogramPositionerTest {
+	private static final PositionPaintType[] TYPES = {PositionPaintType.RECT_CLAD, PositionPaintType.PHYLOGRAM};
+	private static final float DELTA = 0.001f;
+	
+	
+	private Document createDocument(PositionPaintType type) {
+		Document result = TestTools.readDocument("RerootByLeaves.xtg", type);
+		result.getTree().getFormats().setShowScaleBar(true);
+		
+		List<Node> leaves = getLeaves(result);
+		Legend legend = new Legend(result.getTree().getLegends());
+		legend.getData().setText("Legend");
+		legend.getFormats().getTextHeight().setInMillimeters(30f);  // Reaches over the top of the tree.
+		legend.getFormats().setAnchor(0, leaves.get(0));
+		legend.getFormats().setAnchor(1, leaves.get(1));
+		result.getTree().getLegends().insert(legend);
+		result.registerChange();
+		return result;
+	}
+	
+	
+	private List<Node> getLeaves(Document document) {
+		return TreeSerializer.getElementsInSubtreeAsList(document.getTree().getPaintStart(), NodeType.LEAVES, Node.class);
+	}
+	
+	
+	private void addPosition(List<Float> list, PositionData pd) {
+		list.add(pd.getLeft().getInMillimeters());
+		list.add(pd.getTop().getInMillimeters());
+		list.add(pd.getWidth().getInMillimeters());
+		list.add(pd.getHeight().getInMillimeters());
+	}
+	
+	
+	private void addLabelPositions(List<Float> list, Labels labels, boolean above, PositionPaintType type) {
+		for (int lineNo = 0; lineNo < labels.lineCount(above); lineNo++) {
+			for (int lineIndex = 0; lineIndex < labels.labelCount(above, lineNo); lineIndex++) {
+				addPosition(list, labels.get(above, lineNo, lineIndex).getPosition(type));
+			}
+		}
+	}
+	
+	
+	private void addSubtreePositions(List<Float> list, Node root, PositionPaintType type) {
+		assertFalse(root.getPosition(type).isDirty());
+		if (root.hasAfferentBranch()) {
+			Branch branch = root.getAfferentBranch();
+			addPosition(list, branch.getPosition(type));
+			addLabelPositions(list, branch.getLabels(), true, type);
+			addLabelPositions(list, branch.getLabels(), false, type);
+		}
+		addPosition(list, root.getPosition(type));
+		for (Node child : root.getChildren()) {
+			addSubtreePositions(list, child, type);
+		}
+	}
+	
+	
+	private List<Float> getPositions(Document document, PositionPaintType type) {
+		List<Float> result = new ArrayList<Float>();
+		addSubtreePositions(result, document.getTree().getPaintStart(), type);
+		addPosition(result, document.getTree().getScaleBar().getPosition(type));
+		for (int i = 0; i < document.getTree().getLegends().size(); i++) {
+			LegendPositionData pd = document.getTree().getLegends().get(i).getPosition(type);
+			addPosition(result, pd.getLinePos());
+			addPosition(result, pd.getTextPos());
+		}
+		result.add(document.getTree().getPaintDimension(type).getWidth().getInMillimeters());
+		result.add(document.getTree().getPaintDimension(type).getHeight().getInMillimeters());
+		return result;
+	}
+	
+	
+	/**
+	 * Checks whether the positions that have been calculated incrementally are equal to the positions calculated by
+	 * {@link TreePositioner#positionAll(Document, float)}.
+	 */
+	private void assertPositionsComplete(Document document, PositionPaintType type) {
+		List<Float> incremental = getPositions(document, type);
+		PositionPaintFactory.getInstance().getPositioner(type).positionAll(document, 1f);
+		List<Float> complete = getPositions(document, type);
+		
+		assertEquals(complete.size(), incremental.size());
+		for (int i = 0; i < complete.size(); i++) {
+			assertEquals("Value " + i + " differs.", complete.get(i), incremental.get(i), DELTA);
+		}
+	}
+	
+	
+	private void testRenameLeaf(PositionPaintType type, int leafIndex) {
+		Document document = createDocument(type);
+		Node leaf = getLeaves(document).get(leafIndex);
+		document.executeEdit(new TextElementEdit(document, new TextElement[]{leaf}, 
+				new TextElementData("A considerably longer name of a leaf")));
+		assertNull(document.getTree().getPositionIndex(type));  // Only positioned incrementally.
+		assertPositionsComplete(document, type);
+		
+		document.getUndoManager().undo();
+		assertPositionsComplete(document, type);
+	}
+	
+	
+  @Test
+  public void test_positionChanged_renameLeaf() {
+  	for (PositionPaintType type : TYPES) {
+  		testRenameLeaf(type, 0);
+  		testRenameLeaf(type, 3);
+  		testRenameLeaf(type, getLeaves(createDocument(type)).size() - 1);
+		}
+  }
+	
+	
+  @Test
+  public void test_positionChanged_insertLabel() {
+  	for (PositionPaintType type : TYPES) {
+  		Document document = createDocument(type);
+  		Branch branch = document.getTree().getPaintStart().getChildren().get(0).getChildren().get(0).getAfferentBranch();
+  		TextLabel label = new TextLabel(branch.getLabels());
+  		label.setID("label");
+  		label.getData().setText("A label with a large text height");
+  		label.getFormats().getTextHeight().setInMillimeters(12f);
+  		document.executeEdit(new InsertLabelEdit(document, label, branch.getLabels()));
+  		assertNull(document.getTree().getPositionIndex(type));
+  		assertPositionsComplete(document, type);
+  		
+  		document.getUndoManager().undo();
+  		assertPositionsComplete(document, type);
+		}
+  }
+	
+	
+  @Test
+  public void test_positionChanged_unchangedSubtree() {
+  	for (PositionPaintType type : TYPES) {
+  		Document document = createDocument(type);
+  		List<Node> leaves = getLeaves(document);
+  		Node unchangedLeaf = leaves.get(leaves.size() - 1);
+  		float height = unchangedLeaf.getPosition(type).getHeight().getInMillimeters();
+  		unchangedLeaf.getFormats().getTextHeight().setInMillimeters(20f);  // Not registered as a change.
+  		
+  		document.executeEdit(new TextElementEdit(document, new TextElement[]{leaves.get(0)}, new TextElementData("A")));
+  		assertEquals(height, unchangedLeaf.getPosition(type).getHeight().getInMillimeters(), 0f);  // Cached data was used.
+  		
+  		PositionPaintFactory.getInstance().getPositioner(type).positionAll(document, 1f);
+  		assertTrue(unchangedLeaf.getPosition(type).getHeight().getInMillimeters() > height);
+		}
+  }
+  
+  
+  @Test
+  public void test_positionChanged_elementToPosition() {
+  	Document document = createDocument(PositionPaintType.RECT_CLAD);
+  	Node leaf = getLeaves(document).get(2);
+		document.executeEdit(new TextElementEdit(document, new TextElement[]{leaf}, new TextElementData("Renamed leaf")));
+		
+		PositionData pd = leaf.getPosition(PositionPaintType.RECT_CLAD);
+		assertSame(leaf, PositionPaintFactory.getInstance().getPositioner(PositionPaintType.RECT_CLAD).elementToPosition(
+				document, pd.getCenterXInMillimeters(), pd.getCenterYInMillimeters(), 0f));
+		assertNotNull(document.getTree().getPositionIndex(PositionPaintType.RECT_CLAD));  // Recreated on demand.
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.graphics.positionpaint;
+
+
+import info.bioinfweb.commons.graphics.FontCalculator;
+import info.bioinfweb.treegraph.document.TextElementData;
+
+import java.awt.Font;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+import org.junit.* ;
+
+import static org.junit.Assert.* ;
+
+
+
+/**
+ * Tests {@link TextMetricsCache}.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class TextMetricsCacheTest {
+	private static final String FONT_NAME = Font.SANS_SERIF;
+	
+	
+  @Test
+  public void test_getTextWidthToTextHeight() {
+  	TextMetricsCache cache = new TextMetricsCache(2);
+  	float expected = FontCalculator.getInstance().getTextWidthToTextHeigth(FONT_NAME, Font.BOLD, "Abc", 3f);
+  	assertEquals(expected, cache.getTextWidthToTextHeight(FONT_NAME, Font.BOLD, "Abc", 3f), 0.0001f * expected);
+  	assertEquals(0, cache.getHitCount());
+  	assertEquals(1, cache.getMissCount());
+  	
+  	assertEquals(2 * expected, cache.getTextWidthToTextHeight(FONT_NAME, Font.BOLD, "Abc", 6f), 0.0001f * expected);
+  	assertEquals(1, cache.getHitCount());
+  	assertEquals(1, cache.getMissCount());
+  	
+  	cache.getTextWidthToTextHeight(FONT_NAME, Font.PLAIN, "Abc", 3f);
+  	assertEquals(2, cache.getMissCount());
+  }
+  
+  
+  @Test
+  public void test_eviction() {
+  	TextMetricsCache cache = new TextMetricsCache(2);
+  	cache.getTextWidthToTextHeight(FONT_NAME, Font.PLAIN, "A", 1f);
+  	cache.getTextWidthToTextHeight(FONT_NAME, Font.PLAIN, "B", 1f);
+  	cache.getTextWidthToTextHeight(FONT_NAME, Font.PLAIN, "A", 1f);  // "B" is now the least recently used entry.
+  	cache.getTextWidthToTextHeight(FONT_NAME, Font.PLAIN, "C", 1f);
+  	assertEquals(2, cache.size());
+  	assertEquals(3, cache.getMissCount());
+  	
+  	cache.getTextWidthToTextHeight(FONT_NAME, Font.PLAIN, "A", 1f);
+  	assertEquals(2, cache.getHitCount());
+  	cache.getTextWidthToTextHeight(FONT_NAME, Font.PLAIN, "B", 1f);
+  	assertEquals(4, cache.getMissCount());
+  	
+  	cache.clear();
+  	assertEquals(0, cache.size());
+  	assertEquals(0, cache.getHitCount());
+  	assertEquals(0, cache.getMissCount());
+  }
+  
+  
+  @Test
+  public void test_formatValue() {
+  	TextMetricsCache cache = new TextMetricsCache(16);
+  	DecimalFormat format = new DecimalFormat("0.00", new DecimalFormatSymbols(Locale.US));
+  	assertEquals("1.50", cache.formatValue(new TextElementData(1.5), format));
+  	assertEquals("1.50", cache.formatValue(new TextElementData(1.5), format));
+  	assertEquals(1, cache.getHitCount());
+  	
+  	format.setDecimalFormatSymbols(new DecimalFormatSymbols(Locale.GERMANY));  // Changes of the format must not lead to outdated results.
+  	assertEquals("1,50", cache.formatValue(new TextElementData(1.5), format));
+  	assertEquals(2, cache.getMissCount());
+  	
+  	assertEquals("text", cache.formatValue(new TextElementData("text"), format));
+  	assertEquals("", cache.formatValue(new TextElementData(), format));
+  }
+}
@@ -22,12 +22,54 @@ package info.bioinfweb.treegraph.test;
 import static org.junit.Assert.*;
 
 
+import java.io.File;
+
+import info.bioinfweb.commons.SystemUtils;
+import info.bioinfweb.treegraph.document.Document;
 import info.bioinfweb.treegraph.document.Tree;
+import info.bioinfweb.treegraph.document.io.xtg.XTGReader;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
+import info.bioinfweb.treegraph.graphics.positionpaint.PositionPaintType;
 
 
 
 public class TestTools {
+	/**
+	 * Reads an XTG document from the test data directory. The test fails if the file cannot be read.
+	 * 
+	 * @param fileName - the name of the file relative to the data directory
+	 * @return the document
+	 * @since 2.16.0
+	 */
+	public static Document readDocument(String fileName) {
+		try {
+			return new XTGReader().read(new File("data" + SystemUtils.FILE_SEPARATOR + fileName));
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+			return null;  // unreachable code
+		}
+	}
+	
+	
+	/**
+	 * Reads an XTG document from the test data directory and positions it with the specified positioner, which is 
+	 * also registered at the document.
+	 * 
+	 * @param fileName - the name of the file relative to the data directory
+	 * @param type - the type of positioner to be registered
+	 * @return the positioned document
+	 * @since 2.16.0
+	 */
+	public static Document readDocument(String fileName, PositionPaintType type) {
+		Document result = readDocument(fileName);
+		result.registerPositioner(type);
+		result.registerChange();
+		return result;
+	}
+	
+	
 	public static void assertAnnotation(Tree tree, String uniqueNodeName, NodeBranchDataAdapter column, String value) {
 		assertEquals(value, column.getText(tree.getNodeByUniqueName(uniqueNodeName)));
 	}